@@ -0,0 +1,140 @@
+/*
+ * Java 8 SDK for the KATANA(tm) Platform (http://katana.kusanagi.io)
+ * Copyright (c) 2016-2017 KUSANAGI S.L. All rights reserved.
+ *
+ * Distributed under the MIT license
+ *
+ * For the full copyright and license information, please view the LICENSE
+ *  file that was distributed with this source code
+ *
+ * @link      https://github.com/kusanagi/katana-sdk-java8
+ * @license   http://www.opensource.org/licenses/mit-license.php MIT License
+ * @copyright Copyright (c) 2016-2017 KUSANAGI S.L. (http://kusanagi.io)
+ *
+ */
+
+
+package io.kusanagi.katana.api.component;
+
+import io.kusanagi.katana.api.commands.ActionCommandPayload;
+import io.kusanagi.katana.api.commands.Mapping;
+import io.kusanagi.katana.api.component.utils.Factory;
+import io.kusanagi.katana.utils.MockFactory;
+import io.kusanagi.katana.utils.TestService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.zeromq.ZMQ;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the proxy, router and virtual dispatcher modes.
+ * <p>
+ * Every benchmark thread is a client that keeps one request in flight on its own REQ socket, and the action blocks
+ * the thread that runs it for the given time to simulate userland I/O.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+public class DispatcherBenchmark {
+
+    private static final String ADDRESS = "tcp://127.0.0.1:%d";
+
+    private static final int PORT = 5101;
+
+    @Param({Constants.DISPATCHER_PROXY, Constants.DISPATCHER_ROUTER, Constants.DISPATCHER_VIRTUAL})
+    private String mode;
+
+    @Param("4")
+    private int workers;
+
+    @Param("1")
+    private int blockMillis;
+
+    private byte[][] parts;
+
+    private TestService testService;
+
+    private ZMQ.Context context;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException, InterruptedException {
+        MockFactory mockFactory = new MockFactory();
+        Serializer serializer = Factory.getSerializer();
+        Mapping mapping = mockFactory.getMapping("users", "0.2.0");
+        ActionCommandPayload payload = mockFactory.getActionCommandPayload();
+        parts = new byte[][]{
+                "bench".getBytes(),
+                serializer.serializeInBytes(mapping.getServiceSchema()),
+                serializer.serializeInBytes(payload)
+        };
+
+        testService = new TestService("-c service -n users -v 0.2.0 -f 0.1.0 -t " + PORT +
+                " -V workers=" + workers + " -V dispatcher=" + mode);
+        testService.getService().action("bench", action -> {
+            if (blockMillis > 0) {
+                try {
+                    Thread.sleep(blockMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return action;
+        });
+        testService.start();
+        Thread.sleep(200);
+
+        context = ZMQ.context(1);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.term();
+        testService.close();
+    }
+
+    @Benchmark
+    public void request(Client client) {
+        for (int i = 0; i < parts.length; i++) {
+            client.socket.send(parts[i], i < parts.length - 1 ? zmq.ZMQ.ZMQ_SNDMORE : 0);
+        }
+        do {
+            client.socket.recv();
+        } while (client.socket.hasReceiveMore());
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+
+        private ZMQ.Socket socket;
+
+        @Setup(Level.Trial)
+        public void connect(DispatcherBenchmark benchmark) {
+            socket = benchmark.context.socket(ZMQ.REQ);
+            socket.setLinger(0);
+            socket.connect(String.format(ADDRESS, PORT));
+        }
+
+        @TearDown(Level.Trial)
+        public void close() {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Java 8 SDK for the KATANA(tm) Platform (http://katana.kusanagi.io)
+ * Copyright (c) 2016-2017 KUSANAGI S.L. All rights reserved.
+ *
+ * Distributed under the MIT license
+ *
+ * For the full copyright and license information, please view the LICENSE
+ *  file that was distributed with this source code
+ *
+ * @link      https://github.com/kusanagi/katana-sdk-java8
+ * @license   http://www.opensource.org/licenses/mit-license.php MIT License
+ * @copyright Copyright (c) 2016-2017 KUSANAGI S.L. (http://kusanagi.io)
+ *
+ */
+
+
+package io.kusanagi.katana.api.component;
+
+import io.kusanagi.katana.api.commands.Mapping;
+import io.kusanagi.katana.api.component.utils.Factory;
+import io.kusanagi.katana.sdk.ServiceSchema;
+import io.kusanagi.katana.utils.MockFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning the mappings frame into a mapping: through JSON as before the direct binding, with the direct
+ * binding, and with a hit in the mapping cache.
+ * <p>
+ * Every operation gets a copy of the frame, as every request receives the mappings in a new array.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+    @Param("40")
+    private int services;
+
+    private Serializer serializer;
+
+    private byte[] bytes;
+
+    private MappingDecoder decoder;
+
+    private MappingCache cache;
+
+    @Setup
+    public void setup() throws IOException {
+        serializer = Factory.getSerializer();
+        ServiceSchema serviceSchema = new MockFactory().getServiceSchema();
+        Map<String, Map<String, ServiceSchema>> schemas = new HashMap<>();
+        for (int i = 0; i < services; i++) {
+            Map<String, ServiceSchema> versions = new HashMap<>();
+            versions.put("1.0.0", serviceSchema);
+            schemas.put("service" + i, versions);
+        }
+        bytes = serializer.serializeInBytes(schemas);
+
+        decoder = new MappingDecoder();
+        cache = new MappingCache(decoder, 1);
+    }
+
+    @Benchmark
+    public Map<String, Map<String, ServiceSchema>> jsonRoundTrip() throws IOException {
+        return decodeThroughJson(bytes.clone());
+    }
+
+    @Benchmark
+    public Mapping decode() throws IOException {
+        return decoder.decode(bytes.clone());
+    }
+
+    @Benchmark
+    public Mapping cacheHit() throws IOException {
+        return cache.get(bytes.clone());
+    }
+
+    /**
+     * The decoding used before the direct binding: msgpack to map, map to json and json to schema.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Map<String, ServiceSchema>> decodeThroughJson(byte[] bytes) throws IOException {
+        Map<String, Map<String, ServiceSchema>> services = new HashMap<>();
+        Map<String, Object> schemas = serializer.deserialize(bytes, Map.class);
+        for (Map.Entry<String, Object> service : schemas.entrySet()) {
+            Map<String, ServiceSchema> versions = new HashMap<>();
+            for (Map.Entry<String, Object> version : ((Map<String, Object>) service.getValue()).entrySet()) {
+                ServiceSchema serviceSchema = serializer.deserialize(serializer.serializeInJson(version.getValue()), ServiceSchema.class);
+                versions.put(version.getKey(), serviceSchema);
+            }
+            services.put(service.getKey(), versions);
+        }
+        return services;
+    }
+}
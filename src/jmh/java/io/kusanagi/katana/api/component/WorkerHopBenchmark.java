@@ -0,0 +1,122 @@
+/*
+ * Java 8 SDK for the KATANA(tm) Platform (http://katana.kusanagi.io)
+ * Copyright (c) 2016-2017 KUSANAGI S.L. All rights reserved.
+ *
+ * Distributed under the MIT license
+ *
+ * For the full copyright and license information, please view the LICENSE
+ *  file that was distributed with this source code
+ *
+ * @link      https://github.com/kusanagi/katana-sdk-java8
+ * @license   http://www.opensource.org/licenses/mit-license.php MIT License
+ * @copyright Copyright (c) 2016-2017 KUSANAGI S.L. (http://kusanagi.io)
+ *
+ */
+
+
+package io.kusanagi.katana.api.component;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.zeromq.ZMQ;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trip latency added by the proxy hop between the ROUTER socket and the workers.
+ * <p>
+ * A REQ client sends every request over TCP to a ROUTER socket, which either echoes it back directly or forwards it
+ * through a DEALER socket to an echo worker connected over ipc or inproc. The difference with the direct echo is the
+ * cost of the internal hop.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorkerHopBenchmark {
+
+    private static final String ADDRESS = "tcp://127.0.0.1:%d";
+
+    private static final int PORT = 5201;
+
+    @Param({"direct", "ipc", "inproc"})
+    private String hop;
+
+    @Param("1024")
+    private int payloadSize;
+
+    private byte[] payload;
+
+    private ZMQ.Context clientContext;
+
+    private ZMQ.Socket client;
+
+    @Setup
+    public void start() {
+        payload = new byte[payloadSize];
+
+        // The server threads are daemons blocked on their sockets, they end with the forked JVM
+        ZMQ.Context context = ZMQ.context(1);
+        ZMQ.Socket router = context.socket(ZMQ.ROUTER);
+        router.bind(String.format(ADDRESS, PORT));
+
+        Thread server;
+        if (hop.equals("direct")) {
+            server = new Thread(() -> echo(router));
+        } else {
+            String endpoint = hop + "://hop-" + UUID.randomUUID().toString();
+            ZMQ.Socket dealer = context.socket(ZMQ.DEALER);
+            dealer.bind(endpoint);
+            Thread worker = new Thread(() -> {
+                ZMQ.Socket socket = context.socket(ZMQ.DEALER);
+                socket.connect(endpoint);
+                echo(socket);
+            });
+            worker.setDaemon(true);
+            worker.start();
+            server = new Thread(() -> ZMQ.proxy(router, dealer, null));
+        }
+        server.setDaemon(true);
+        server.start();
+
+        clientContext = ZMQ.context(1);
+        client = clientContext.socket(ZMQ.REQ);
+        client.setLinger(0);
+        client.connect(String.format(ADDRESS, PORT));
+    }
+
+    @TearDown
+    public void stop() {
+        client.close();
+        clientContext.term();
+    }
+
+    @Benchmark
+    public byte[] roundTrip() {
+        client.send(payload, 0);
+        return client.recv();
+    }
+
+    private static void echo(ZMQ.Socket socket) {
+        while (!Thread.currentThread().isInterrupted()) {
+            byte[] frame = socket.recv();
+            if (frame == null) {
+                return;
+            }
+            socket.send(frame, socket.hasReceiveMore() ? zmq.ZMQ.ZMQ_SNDMORE : 0);
+        }
+    }
+}
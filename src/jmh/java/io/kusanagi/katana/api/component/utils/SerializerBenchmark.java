@@ -0,0 +1,111 @@
+/*
+ * Java 8 SDK for the KATANA(tm) Platform (http://katana.kusanagi.io)
+ * Copyright (c) 2016-2017 KUSANAGI S.L. All rights reserved.
+ *
+ * Distributed under the MIT license
+ *
+ * For the full copyright and license information, please view the LICENSE
+ *  file that was distributed with this source code
+ *
+ * @link      https://github.com/kusanagi/katana-sdk-java8
+ * @license   http://www.opensource.org/licenses/mit-license.php MIT License
+ * @copyright Copyright (c) 2016-2017 KUSANAGI S.L. (http://kusanagi.io)
+ *
+ */
+
+
+package io.kusanagi.katana.api.component.utils;
+
+import io.kusanagi.katana.api.commands.ActionCommandPayload;
+import io.kusanagi.katana.api.commands.RequestCommandPayload;
+import io.kusanagi.katana.api.component.Constants;
+import io.kusanagi.katana.api.component.Serializer;
+import io.kusanagi.katana.api.replies.TransportReplyPayload;
+import io.kusanagi.katana.api.serializers.TransportEntity;
+import io.kusanagi.katana.utils.MockFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the Jackson binding and of the streaming codec for the payloads of every request. Run it with the
+ * {@code -prof gc} option of JMH to compare the bytes allocated by each operation too.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializerBenchmark {
+
+    @Param({Constants.SERIALIZER_JACKSON, Constants.SERIALIZER_STREAMING})
+    private String serializerType;
+
+    private Serializer serializer;
+
+    private byte[] action;
+
+    private byte[] request;
+
+    private TransportEntity transport;
+
+    private TransportReplyPayload.TransportResult result;
+
+    private TransportReplyPayload reply;
+
+    @Setup
+    public void setup() throws IOException {
+        MockFactory mockFactory = new MockFactory();
+        Serializer jackson = Factory.getSerializer(Constants.SERIALIZER_JACKSON);
+        action = jackson.serializeInBytes(mockFactory.getActionCommandPayload());
+        request = jackson.serializeInBytes(mockFactory.getRequestCommandPayload());
+        serializer = Factory.getSerializer(serializerType);
+
+        transport = mockFactory.getTransport().getTransportEntity();
+        result = new TransportReplyPayload.TransportResult();
+        TransportReplyPayload.TransportCommandReply commandReply = new TransportReplyPayload.TransportCommandReply();
+        commandReply.setName("users");
+        commandReply.setResult(result);
+        reply = new TransportReplyPayload();
+        reply.setCommandReply(commandReply);
+    }
+
+    @Benchmark
+    public ActionCommandPayload actionCommand() throws IOException {
+        return serializer.deserialize(action, ActionCommandPayload.class);
+    }
+
+    @Benchmark
+    public RequestCommandPayload requestCommand() throws IOException {
+        return serializer.deserialize(request, RequestCommandPayload.class);
+    }
+
+    @Benchmark
+    public byte[] transportReply() throws IOException {
+        result.setTransport(transport);
+        return serializer.serializeInBytes(reply);
+    }
+
+    /**
+     * Action that only reads its params, so the transport is replied as it was received
+     */
+    @Benchmark
+    public byte[] passThrough() throws IOException {
+        ActionCommandPayload payload = serializer.deserialize(action, ActionCommandPayload.class);
+        payload.getCommand().getArgument().getParams();
+        result.setTransport(new TransportEntity(payload.getCommand().getArgument().getTransport()));
+        return serializer.serializeInBytes(reply);
+    }
+}
@@ -23,10 +23,11 @@ import io.kusanagi.katana.api.component.utils.Logger;
 import io.kusanagi.katana.sdk.Callable;
 import io.kusanagi.katana.sdk.ServiceSchema;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 /**
  * Created by juan on 28/08/16.
@@ -49,6 +50,8 @@ public abstract class Api {
 
     protected Mapping mapping;
 
+    private final CompletableFuture<Api> completion = new CompletableFuture<>();
+
     /**
      * Default constructor
      */
@@ -99,6 +102,7 @@ public abstract class Api {
         this.isDebug = other.isDebug;
     }
 
+    @JsonIgnore
     public Mapping getMapping() {
         return mapping;
     }
@@ -194,20 +198,9 @@ public abstract class Api {
      * @return return an array with the Service versions in the stored schema mapping, in which each item MUST be an
      * object with the key name that MUST have the name of the Service and the key version that MUST have the version of the Service.
      */
+    @JsonIgnore
     public List<Map<String, String>> getServices(){
-        List<Map<String, String>> services = new ArrayList<>();
-
-        for (Map.Entry service : mapping.getServiceSchema().entrySet()) {
-            Map<String, ServiceSchema> versions = mapping.getServiceSchema().get((String) service.getKey());
-            for (Map.Entry version : versions.entrySet()) {
-                Map<String, String> serviceMap = new HashMap<>();
-                serviceMap.put("service", (String) service.getKey());
-                serviceMap.put("version", (String) version.getKey());
-                services.add(serviceMap);
-            }
-        }
-
-        return services;
+        return mapping.getServices();
     }
 
     /**
@@ -249,12 +242,24 @@ public abstract class Api {
     }
 
     /**
+     * Signal the end of an asynchronous callback, which completes the stage returned by whenDone().
      *
-     * @return This function is only for use in an asynchronous implementation of the SDK, for any other implementation
-     * it MUST throw an exception.
+     * @return true if this call ended the callback, false if it had already been ended.
      */
     public boolean done(){
-        throw new RuntimeException("SDK does not support async call to end action: Api.done()");
+        return completion.complete(this);
+    }
+
+    /**
+     * Stage to be returned by an AsyncCallable whose reply is sent once done() gets called.
+     *
+     * @param <T> Api type of the callback
+     * @return a stage completed with this instance when done() is called
+     */
+    @JsonIgnore
+    @SuppressWarnings("unchecked")
+    public <T extends Api> CompletionStage<T> whenDone() {
+        return (CompletionStage<T>) completion;
     }
 
     @Override
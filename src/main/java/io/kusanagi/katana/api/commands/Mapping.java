@@ -15,8 +15,12 @@
 
 package io.kusanagi.katana.api.commands;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.kusanagi.katana.sdk.ServiceSchema;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -47,6 +51,34 @@ public class Mapping {
         this.serviceSchema = serviceSchema;
     }
 
+    /**
+     * @return the name and version of every Service in the mapping, as maps with the keys "service" and "version"
+     */
+    @JsonIgnore
+    public List<Map<String, String>> getServices() {
+        List<Map<String, String>> services = new ArrayList<>();
+        for (Map.Entry<String, Map<String, ServiceSchema>> service : this.serviceSchema.entrySet()) {
+            for (String version : service.getValue().keySet()) {
+                Map<String, String> serviceMap = new HashMap<>();
+                serviceMap.put("service", service.getKey());
+                serviceMap.put("version", version);
+                services.add(serviceMap);
+            }
+        }
+        return services;
+    }
+
+    /**
+     * Build the indexes of every schema before the mapping is shared between requests.
+     */
+    public void compile() {
+        for (Map<String, ServiceSchema> versions : this.serviceSchema.values()) {
+            for (ServiceSchema schema : versions.values()) {
+                schema.compile();
+            }
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -0,0 +1,302 @@
+/*
+ * Java 8 SDK for the KATANA(tm) Platform (http://katana.kusanagi.io)
+ * Copyright (c) 2016-2017 KUSANAGI S.L. All rights reserved.
+ *
+ * Distributed under the MIT license
+ *
+ * For the full copyright and license information, please view the LICENSE
+ *  file that was distributed with this source code
+ *
+ * @link      https://github.com/kusanagi/katana-sdk-java8
+ * @license   http://www.opensource.org/licenses/mit-license.php MIT License
+ * @copyright Copyright (c) 2016-2017 KUSANAGI S.L. (http://kusanagi.io)
+ *
+ */
+
+package io.kusanagi.katana.api.component;
+
+import io.kusanagi.katana.api.component.utils.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor whose number of threads moves between a minimum and a maximum with the load.
+ * <p>
+ * Every command is queued with the time it arrived, and the threads keep a moving average of the time the commands
+ * wait in the queue and of the time they take to run. A thread is added when no thread is idle and either the queued
+ * commands would take longer to start than one command takes to run, or the commands already wait longer than that.
+ * Threads above the minimum stop once they stay idle for the idle timeout.
+ */
+final class AdaptiveExecutor extends AbstractExecutorService {
+
+    /**
+     * Weight of the last sample in the moving averages
+     */
+    private static final double WEIGHT = 0.2;
+
+    private final int minThreads;
+
+    private final int maxThreads;
+
+    private final long idleTimeout;
+
+    private final String prefix;
+
+    private final BlockingQueue<Task> queue;
+
+    private final Set<Thread> threads;
+
+    private final AtomicInteger poolSize;
+
+    private final Set<Thread> idleThreads;
+
+    private final AtomicInteger count;
+
+    /**
+     * The moving averages are updated without a lock, so an update racing with another one can be lost, which only
+     * delays how fast they follow the load
+     */
+    private volatile double queueWait;
+
+    private volatile double serviceTime;
+
+    private volatile boolean shutdown;
+
+    /**
+     * @param minThreads  threads kept alive while idle
+     * @param maxThreads  maximum number of threads
+     * @param idleTimeout milliseconds a thread above the minimum stays idle before stopping
+     * @param prefix      prefix of the thread names
+     */
+    AdaptiveExecutor(int minThreads, int maxThreads, long idleTimeout, String prefix) {
+        if (minThreads < 1 || maxThreads < minThreads || idleTimeout < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.minThreads = minThreads;
+        this.maxThreads = maxThreads;
+        this.idleTimeout = idleTimeout;
+        this.prefix = prefix;
+        this.queue = new LinkedBlockingQueue<>();
+        this.threads = ConcurrentHashMap.newKeySet();
+        this.poolSize = new AtomicInteger();
+        this.idleThreads = ConcurrentHashMap.newKeySet();
+        this.count = new AtomicInteger();
+
+        for (int i = 0; i < minThreads; i++) {
+            addThread(minThreads);
+        }
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (command == null) {
+            throw new NullPointerException();
+        }
+        if (shutdown) {
+            throw new RejectedExecutionException();
+        }
+        queue.add(new Task(command));
+        if (shouldGrow()) {
+            addThread(maxThreads);
+        }
+    }
+
+    /**
+     * @return number of running threads
+     */
+    int getPoolSize() {
+        return poolSize.get();
+    }
+
+    /**
+     * @return number of commands waiting for a thread
+     */
+    int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * @return moving average of the nanoseconds the commands wait in the queue
+     */
+    long getQueueWait() {
+        return (long) queueWait;
+    }
+
+    /**
+     * @return moving average of the nanoseconds the commands take to run
+     */
+    long getServiceTime() {
+        return (long) serviceTime;
+    }
+
+    private boolean shouldGrow() {
+        int depth = queue.size();
+        if (depth == 0 || idleThreads.size() >= depth) {
+            return false;
+        }
+        // The last queued command starts after about depth / size service times
+        return depth >= poolSize.get() || isWaitingLongerThanService();
+    }
+
+    private boolean isWaitingLongerThanService() {
+        double service = serviceTime;
+        return service > 0 && queueWait >= service;
+    }
+
+    private void addThread(int limit) {
+        int size;
+        do {
+            size = poolSize.get();
+            if (size >= limit) {
+                return;
+            }
+        } while (!poolSize.compareAndSet(size, size + 1));
+
+        Thread thread = new Thread(this::work, prefix + count.incrementAndGet());
+        threads.add(thread);
+        thread.start();
+    }
+
+    private boolean removeThread() {
+        int size;
+        do {
+            size = poolSize.get();
+            if (size <= minThreads) {
+                return false;
+            }
+        } while (!poolSize.compareAndSet(size, size - 1));
+        return true;
+    }
+
+    private void work() {
+        Thread thread = Thread.currentThread();
+        try {
+            while (true) {
+                Task task = take(thread);
+                if (task != null) {
+                    run(task);
+                } else if (shutdown) {
+                    if (queue.isEmpty()) {
+                        poolSize.decrementAndGet();
+                        return;
+                    }
+                } else if (removeThread()) {
+                    if (queue.isEmpty()) {
+                        return;
+                    }
+                    // A command arrived while the thread was stopping, keep it unless the pool is full again
+                    if (poolSize.incrementAndGet() > maxThreads) {
+                        poolSize.decrementAndGet();
+                        return;
+                    }
+                }
+            }
+        } finally {
+            threads.remove(thread);
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    private Task take(Thread thread) {
+        idleThreads.add(thread);
+        try {
+            if (shutdown) {
+                return queue.poll();
+            }
+            // Threads up to the minimum never stop, so they wait without a timeout
+            return poolSize.get() <= minThreads ? queue.take() : queue.poll(idleTimeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            return null;
+        } finally {
+            idleThreads.remove(thread);
+        }
+    }
+
+    private void run(Task task) {
+        long start = System.nanoTime();
+        queueWait += (start - task.queued - queueWait) * WEIGHT;
+        if (isWaitingLongerThanService() && !queue.isEmpty() && idleThreads.isEmpty()) {
+            addThread(maxThreads);
+        }
+
+        // Clear an interrupt sent to the thread while it was idle
+        Thread.interrupted();
+        try {
+            task.command.run();
+        } catch (RuntimeException e) {
+            Logger.log(e);
+        } finally {
+            serviceTime += (System.nanoTime() - start - serviceTime) * WEIGHT;
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        // Busy threads stop once the queue is empty, idle threads are woken up to stop now
+        for (Thread thread : idleThreads) {
+            thread.interrupt();
+        }
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown = true;
+        List<Task> tasks = new ArrayList<>();
+        queue.drainTo(tasks);
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+        List<Runnable> commands = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            commands.add(task.command);
+        }
+        return commands;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return shutdown && threads.isEmpty();
+    }
+
+    @Override
+    public synchronized boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!isTerminated()) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return true;
+    }
+
+    private static final class Task {
+
+        private final Runnable command;
+
+        private final long queued;
+
+        private Task(Runnable command) {
+            this.command = command;
+            this.queued = System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Java 8 SDK for the KATANA(tm) Platform (http://katana.kusanagi.io)
+ * Copyright (c) 2016-2017 KUSANAGI S.L. All rights reserved.
+ *
+ * Distributed under the MIT license
+ *
+ * For the full copyright and license information, please view the LICENSE
+ *  file that was distributed with this source code
+ *
+ * @link      https://github.com/kusanagi/katana-sdk-java8
+ * @license   http://www.opensource.org/licenses/mit-license.php MIT License
+ * @copyright Copyright (c) 2016-2017 KUSANAGI S.L. (http://kusanagi.io)
+ *
+ */
+
+package io.kusanagi.katana.api.component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Named pools of threads that run the requests of the actions assigned to them, so a slow action can only take the
+ * threads of its own pool.
+ * <p>
+ * Every pool is declared with component variables, using the name of the pool in their names:
+ * <ul>
+ * <li>"pool.&lt;name&gt;.actions": comma separated names of the actions run by the pool</li>
+ * <li>"pool.&lt;name&gt;.threads": number of threads of the pool, 1 by default</li>
+ * <li>"pool.&lt;name&gt;.queue": maximum number of requests waiting for a thread, unbounded by default</li>
+ * </ul>
+ * The requests of the actions without a pool keep running on the threads of the dispatcher mode.
+ */
+final class Bulkheads {
+
+    private static final String THREAD_PREFIX = "katana-pool-";
+
+    private final Map<String, ExecutorService> pools;
+
+    private final Map<String, ExecutorService> actions;
+
+    private Bulkheads(Map<String, ExecutorService> pools, Map<String, ExecutorService> actions) {
+        this.pools = pools;
+        this.actions = actions;
+    }
+
+    /**
+     * @param var variables of the component
+     * @return the pools declared in the variables
+     */
+    static Bulkheads fromVariables(Map<String, String> var) {
+        Map<String, ExecutorService> pools = new HashMap<>();
+        Map<String, ExecutorService> actions = new HashMap<>();
+        for (Map.Entry<String, String> entry : var.entrySet()) {
+            String name = entry.getKey();
+            if (!name.startsWith(Constants.POOL_PREFIX) || !name.endsWith(Constants.POOL_ACTIONS)) {
+                continue;
+            }
+            String pool = name.substring(Constants.POOL_PREFIX.length(), name.length() - Constants.POOL_ACTIONS.length());
+            if (pool.isEmpty()) {
+                throw new IllegalArgumentException(String.format(ExceptionMessage.INVALID_VARIABLE, name + "=" + entry.getValue()));
+            }
+
+            int threads = getIntVar(var, Constants.POOL_PREFIX + pool + Constants.POOL_THREADS, 1);
+            int queue = getIntVar(var, Constants.POOL_PREFIX + pool + Constants.POOL_QUEUE, Integer.MAX_VALUE);
+            ExecutorService executor = newPoolExecutor(pool, threads, queue);
+            pools.put(pool, executor);
+
+            for (String action : entry.getValue().split(",")) {
+                action = action.trim();
+                if (action.isEmpty() || actions.put(action, executor) != null) {
+                    throw new IllegalArgumentException(String.format(ExceptionMessage.INVALID_VARIABLE, name + "=" + entry.getValue()));
+                }
+            }
+        }
+        return new Bulkheads(Collections.unmodifiableMap(pools), actions);
+    }
+
+    /**
+     * @param action name of the action, as received in the first frame of the request
+     * @return the executor of the pool that runs the action, or null when the action has no pool
+     */
+    ExecutorService getExecutor(String action) {
+        return actions.get(action);
+    }
+
+    /**
+     * @return the executors of the pools by pool name
+     */
+    Map<String, ExecutorService> getPools() {
+        return pools;
+    }
+
+    void shutdown() {
+        for (ExecutorService executor : pools.values()) {
+            executor.shutdown();
+        }
+    }
+
+    private static ExecutorService newPoolExecutor(String pool, int threads, int queue) {
+        AtomicInteger count = new AtomicInteger();
+        String prefix = THREAD_PREFIX + pool + "-";
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(queue),
+                runnable -> new Thread(runnable, prefix + count.incrementAndGet()));
+    }
+
+    private static int getIntVar(Map<String, String> var, String name, int defaultValue) {
+        if (!var.containsKey(name)) {
+            return defaultValue;
+        }
+        try {
+            int value = Integer.valueOf(var.get(name));
+            if (value >= 1) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException(String.format(ExceptionMessage.INVALID_VARIABLE, name + "=" + var.get(name)));
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Java 8 SDK for the KATANA(tm) Platform (http://katana.kusanagi.io)
+ * Copyright (c) 2016-2017 KUSANAGI S.L. All rights reserved.
+ *
+ * Distributed under the MIT license
+ *
+ * For the full copyright and license information, please view the LICENSE
+ *  file that was distributed with this source code
+ *
+ * @link      https://github.com/kusanagi/katana-sdk-java8
+ * @license   http://www.opensource.org/licenses/mit-license.php MIT License
+ * @copyright Copyright (c) 2016-2017 KUSANAGI S.L. (http://kusanagi.io)
+ *
+ */
+
+package io.kusanagi.katana.api.component;
+
+import io.kusanagi.katana.api.component.utils.Logger;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Enforces the timeout of the userland callbacks.
+ * <p>
+ * A callback with a timeout runs on a thread of its own, so the thread that received the request keeps serving the
+ * next ones. When the timeout expires first, the reply is completed with an error right away and the thread of the
+ * callback is interrupted and left behind, the pool creates a new thread for the next callback. The callbacks that
+ * keep running past their timeout are logged with the stack of their thread and counted in the
+ * {@link ComponentMetrics}.
+ */
+class CallableGuard {
+
+    private static final int MAX_STACK_FRAMES = 10;
+
+    private final ComponentMetrics metrics;
+
+    private final ExecutorService runner;
+
+    private final ScheduledThreadPoolExecutor watchdog;
+
+    /**
+     * @param metrics metrics that count the callbacks that timed out
+     */
+    CallableGuard(ComponentMetrics metrics) {
+        this.metrics = metrics;
+        AtomicInteger count = new AtomicInteger();
+        this.runner = Executors.newCachedThreadPool(runnable -> daemon(runnable, "katana-callable-" + count.incrementAndGet()));
+        this.watchdog = new ScheduledThreadPoolExecutor(1, runnable -> daemon(runnable, "katana-watchdog"));
+        this.watchdog.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * @param name    name of the callback, used in the error
+     * @param task    callback that builds the reply
+     * @param timeout milliseconds the callback is allowed to run for
+     * @param <S>     type of the reply
+     * @return the reply, completed with a {@link TimeoutException} if the callback takes longer than the timeout
+     */
+    <S> CompletionStage<S> run(String name, Supplier<S> task, long timeout) {
+        CompletableFuture<S> result = new CompletableFuture<>();
+        Invocation invocation = new Invocation();
+        Future<?> future = runner.submit(() -> invocation.run(task, result));
+        ScheduledFuture<?> timer = watchdog.schedule(() -> {
+            if (invocation.timeOut()) {
+                result.completeExceptionally(getTimeoutException(name, timeout));
+                try {
+                    invocation.logStuck(name, timeout);
+                } catch (RuntimeException e) {
+                    // The reply is already sent, so a failure to log must not stop the watchdog
+                } finally {
+                    future.cancel(true);
+                }
+            }
+        }, timeout, TimeUnit.MILLISECONDS);
+        result.whenComplete((reply, throwable) -> timer.cancel(false));
+        return result;
+    }
+
+    /**
+     * @param name    name of the callback, used in the error
+     * @param stage   reply of an asynchronous callback
+     * @param timeout milliseconds the callback is allowed to take to complete the reply
+     * @param <S>     type of the reply
+     * @return the reply, completed with a {@link TimeoutException} if the callback takes longer than the timeout
+     */
+    <S> CompletionStage<S> limit(String name, CompletionStage<S> stage, long timeout) {
+        CompletableFuture<S> result = new CompletableFuture<>();
+        AtomicBoolean finished = new AtomicBoolean();
+        ScheduledFuture<?> timer = watchdog.schedule(() -> {
+            if (finished.compareAndSet(false, true)) {
+                metrics.addTimedOutCallable();
+                result.completeExceptionally(getTimeoutException(name, timeout));
+            }
+        }, timeout, TimeUnit.MILLISECONDS);
+        stage.whenComplete((reply, throwable) -> {
+            timer.cancel(false);
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            if (throwable != null) {
+                result.completeExceptionally(throwable);
+            } else {
+                result.complete(reply);
+            }
+        });
+        return result;
+    }
+
+    void shutdown() {
+        watchdog.shutdownNow();
+        runner.shutdown();
+    }
+
+    private static TimeoutException getTimeoutException(String name, long timeout) {
+        return new TimeoutException(String.format(ExceptionMessage.CALLABLE_TIMEOUT, name, timeout));
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * State of one callback shared by the thread running it and the watchdog, which decides if the reply is the one of
+     * the callback or the timeout error.
+     */
+    private final class Invocation {
+
+        private Thread thread;
+
+        private boolean finished;
+
+        private boolean stuck;
+
+        private <S> void run(Supplier<S> task, CompletableFuture<S> result) {
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                thread = Thread.currentThread();
+            }
+            S reply = null;
+            Throwable error = null;
+            try {
+                reply = task.get();
+            } catch (Throwable e) {
+                error = e;
+            }
+            synchronized (this) {
+                thread = null;
+                if (stuck) {
+                    metrics.removeStuckCallable();
+                }
+                if (finished) {
+                    return;
+                }
+                finished = true;
+            }
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(reply);
+            }
+        }
+
+        /**
+         * @return false if the callback already finished
+         */
+        private synchronized boolean timeOut() {
+            if (finished) {
+                return false;
+            }
+            finished = true;
+            metrics.addTimedOutCallable();
+            if (thread != null) {
+                stuck = true;
+                metrics.addStuckCallable();
+            }
+            return true;
+        }
+
+        /**
+         * Log where the thread still running the callback is stuck, if any
+         */
+        private void logStuck(String name, long timeout) {
+            Thread stuckThread;
+            synchronized (this) {
+                stuckThread = thread;
+            }
+            if (stuckThread == null) {
+                return;
+            }
+            StringBuilder message = new StringBuilder(String.format(ExceptionMessage.CALLABLE_TIMEOUT, name, timeout))
+                    .append(" on thread ").append(stuckThread.getName());
+            StackTraceElement[] stack = stuckThread.getStackTrace();
+            for (int i = 0; i < stack.length && i < MAX_STACK_FRAMES; i++) {
+                message.append("\n\tat ").append(stack[i]);
+            }
+            Logger.log(Logger.WARNING, message.toString());
+        }
+    }
+}
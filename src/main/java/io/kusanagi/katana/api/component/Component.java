@@ -24,14 +24,19 @@ import io.kusanagi.katana.api.component.utils.Option;
 import io.kusanagi.katana.api.component.utils.OptionManager;
 import io.kusanagi.katana.api.replies.ErrorPayload;
 import io.kusanagi.katana.api.replies.common.CommandReplyResult;
-import io.kusanagi.katana.sdk.ActionSchema;
+import io.kusanagi.katana.sdk.AsyncCallable;
 import io.kusanagi.katana.sdk.Callable;
 import io.kusanagi.katana.api.serializers.ErrorEntity;
-import io.kusanagi.katana.sdk.ServiceSchema;
 import org.zeromq.ZMQ;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by juan on 27/08/16.
@@ -59,6 +64,10 @@ public abstract class Component<T extends Api, S extends CommandReplyResult, R e
             new Option(new String[]{Arg.SHORT_LOG_ARG, Arg.LOG_ARG}, true, false, true),
     };
 
+    private static final String DISPATCHER_THREAD_PREFIX = "katana-dispatcher-";
+
+    private static final String REPLY_THREAD_PREFIX = "katana-reply-";
+
     private final String workerEndpoint;
 
     private String componentName;
@@ -89,8 +98,32 @@ public abstract class Component<T extends Api, S extends CommandReplyResult, R e
 
     private ZMQ.Context context;
 
+    private Bulkheads bulkheads;
+
     private ZMQ.Socket dealer;
 
+    private ComponentDispatcher dispatcher;
+
+    private ComponentProxy proxy;
+
+    private Executor replyExecutor = Runnable::run;
+
+    private byte[][] rejectReply;
+
+    private byte[][] expiredReply;
+
+    private byte[][] failedReply;
+
+    private final ComponentMetrics metrics = new ComponentMetrics();
+
+    private boolean deadlineShedding;
+
+    private boolean enforceTimeouts;
+
+    private Map<String, Integer> callableTimeouts = Collections.emptyMap();
+
+    private CallableGuard callableGuard;
+
     private OptionManager optionManager;
 
     private boolean stopped;
@@ -107,6 +140,10 @@ public abstract class Component<T extends Api, S extends CommandReplyResult, R e
 
     protected Serializer serializer;
 
+    private RuntimeCallPool runtimeCallPool;
+
+    private MappingCache mappingCache;
+
     /**
      * Initialize the componentName with the command line arguments
      *
@@ -117,13 +154,14 @@ public abstract class Component<T extends Api, S extends CommandReplyResult, R e
     public Component(String[] args) {
         this.var = new HashMap<>();
         this.resources = new HashMap<>();
-        this.serializer = Factory.getSerializer();
         this.optionManager = Factory.getOptionManager();
         this.optionManager.setOptions(Arrays.asList(APP_OPTIONS));
         this.workers = new ArrayList<>();
 
         setArgs(args);
 
+        this.serializer = Factory.getSerializer(getSerializerType());
+
         if (this.tcp == null && this.socket == null) {
             generateDefaultSocket();
         }
@@ -189,6 +227,32 @@ public abstract class Component<T extends Api, S extends CommandReplyResult, R e
         return logLevel;
     }
 
+    public Serializer getSerializer() {
+        return serializer;
+    }
+
+    /**
+     * The pool is created on first use, so components that never perform run-time calls do not open any connection.
+     *
+     * @return the pool of connections shared by all the run-time calls of the component
+     */
+    public synchronized RuntimeCallPool getRuntimeCallPool() {
+        if (this.runtimeCallPool == null) {
+            this.runtimeCallPool = new RuntimeCallPool(getIntVar(Constants.RUNTIME_CALL_POOL_SIZE, Constants.DEFAULT_RUNTIME_CALL_POOL_SIZE));
+        }
+        return this.runtimeCallPool;
+    }
+
+    /**
+     * @return the cache of the mappings received with the requests
+     */
+    public synchronized MappingCache getMappingCache() {
+        if (this.mappingCache == null) {
+            this.mappingCache = new MappingCache(new MappingDecoder(), getIntVar(Constants.MAPPING_CACHE_SIZE, Constants.DEFAULT_MAPPING_CACHE_SIZE));
+        }
+        return this.mappingCache;
+    }
+
     // SDK METHODS
 
     /**
@@ -285,7 +349,7 @@ public abstract class Component<T extends Api, S extends CommandReplyResult, R e
             Scanner in = new Scanner(System.in);
             String payload = in.next();
             try {
-                S commandReply = processRequest(this.action, getSdkCommand(this.action, null, payload));
+                S commandReply = join(processRequest(this.action, getSdkCommand(this.action, null, payload)));
                 System.out.print(serializer.serializeInJson(commandReply));
             } catch (Exception e) {
                 Logger.log(e);
@@ -298,11 +362,30 @@ public abstract class Component<T extends Api, S extends CommandReplyResult, R e
                 }
             }
         } else {
+            this.bulkheads = Bulkheads.fromVariables(this.var);
+            this.deadlineShedding = Boolean.parseBoolean(this.var.get(Constants.DEADLINE_SHEDDING));
+            setCallableTimeouts();
+            this.rejectReply = getStaticErrorReply(ExceptionMessage.SERVICE_UNAVAILABLE, Constants.SERVICE_UNAVAILABLE_STATUS);
+            this.expiredReply = getStaticErrorReply(ExceptionMessage.REQUEST_EXPIRED, Constants.GATEWAY_TIMEOUT_STATUS);
+            this.failedReply = getStaticErrorReply(ExceptionMessage.REQUEST_FAILED, Constants.INTERNAL_SERVER_ERROR_STATUS);
             startSocket();
 
-            setWorkers();
+            if (isProxyDispatcher()) {
+                this.replyExecutor = DispatchExecutors.newFixedExecutor(getWorkerCount(), REPLY_THREAD_PREFIX);
+                this.proxy = new ComponentProxy(context, router, dealer, getMaxInFlight(), this);
+                setWorkers();
+            } else {
+                ExecutorService executor = createDispatchExecutor();
+                this.replyExecutor = executor;
+                this.dispatcher = new ComponentDispatcher(context, router, executor, bulkheads, getMaxInFlight(), this);
+            }
 
             Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                // The requests in flight may still use what the shutdown callable releases
+                if (getDrainTimeout() > 0 && !stopped) {
+                    drain();
+                }
+
                 if (shutdownCallable != null) {
                     runShutdown();
                 }
@@ -312,7 +395,11 @@ public abstract class Component<T extends Api, S extends CommandReplyResult, R e
                 }
             }));
 
-            ZMQ.proxy(router, dealer, null);
+            if (this.dispatcher != null) {
+                this.dispatcher.run();
+            } else {
+                this.proxy.run();
+            }
         }
     }
 
@@ -338,25 +425,138 @@ public abstract class Component<T extends Api, S extends CommandReplyResult, R e
 
     protected abstract void runShutdown();
 
-    private void setWorkers() {
-        int workerCount = 1;
-        if (this.var.containsKey(Constants.WORKERS)) {
-            workerCount = Integer.valueOf(this.var.get(Constants.WORKERS));
-            workerCount = workerCount < 1 ? 1 : workerCount;
+    private int getIntVar(String name, int defaultValue) {
+        if (!this.var.containsKey(name)) {
+            return defaultValue;
+        }
+        try {
+            return Integer.valueOf(this.var.get(name));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format(ExceptionMessage.INVALID_VARIABLE, name + "=" + this.var.get(name)));
         }
+    }
+
+    private int getWorkerCount() {
+        int workerCount = getIntVar(Constants.WORKERS, 1);
+        return workerCount < 1 ? 1 : workerCount;
+    }
+
+    /**
+     * The proxy mode forwards every request from the ROUTER socket to a pool of {@link ComponentWorker} threads, while
+     * the router and virtual modes read them with a single {@link ComponentDispatcher} loop and run them on an
+     * executor. The router mode uses as many threads as workers, or a number between "workers_min" and "workers_max"
+     * that follows the load, the virtual mode runs every request on its own thread, which is a virtual thread when the
+     * jar runs on Java 21 or later. The replies of the asynchronous callbacks are built on that executor, or on a pool of
+     * as many threads as workers in the proxy mode.
+     *
+     * @return the mode selected with the "dispatcher" variable
+     */
+    private String getDispatcherMode() {
+        String mode = this.var.getOrDefault(Constants.DISPATCHER, Constants.DISPATCHER_PROXY);
+        if (!mode.equals(Constants.DISPATCHER_PROXY) && !mode.equals(Constants.DISPATCHER_ROUTER) && !mode.equals(Constants.DISPATCHER_VIRTUAL)) {
+            throw new IllegalArgumentException(String.format(ExceptionMessage.INVALID_VARIABLE, Constants.DISPATCHER + "=" + mode));
+        }
+        return mode;
+    }
+
+    /**
+     * The jackson serializer binds the payloads through Jackson databind, the streaming serializer reads and writes the
+     * command and reply payloads directly with msgpack-core.
+     *
+     * @return the serializer selected with the "serializer" variable
+     */
+    private String getSerializerType() {
+        String type = this.var.getOrDefault(Constants.SERIALIZER, Constants.SERIALIZER_JACKSON);
+        if (!type.equals(Constants.SERIALIZER_JACKSON) && !type.equals(Constants.SERIALIZER_STREAMING)) {
+            throw new IllegalArgumentException(String.format(ExceptionMessage.INVALID_VARIABLE, Constants.SERIALIZER + "=" + type));
+        }
+        return type;
+    }
+
+    private boolean isProxyDispatcher() {
+        return getDispatcherMode().equals(Constants.DISPATCHER_PROXY);
+    }
+
+    private ExecutorService createDispatchExecutor() {
+        if (getDispatcherMode().equals(Constants.DISPATCHER_VIRTUAL)) {
+            return DispatchExecutors.newPerTaskExecutor(DISPATCHER_THREAD_PREFIX);
+        }
+        if (this.var.containsKey(Constants.WORKERS_MIN) || this.var.containsKey(Constants.WORKERS_MAX)) {
+            return createAdaptiveExecutor();
+        }
+        return DispatchExecutors.newFixedExecutor(getWorkerCount(), DISPATCHER_THREAD_PREFIX);
+    }
+
+    /**
+     * The router mode runs the requests on as many threads as the "workers_min" variable while idle, and adds threads
+     * up to the "workers_max" variable when the requests wait in the queue longer than they take to run. Threads above
+     * the minimum stop after staying idle for the milliseconds of the "workers_idle_timeout" variable.
+     *
+     * @return the executor of the router mode
+     */
+    private ExecutorService createAdaptiveExecutor() {
+        int minThreads = getIntVar(Constants.WORKERS_MIN, 1);
+        int maxThreads = getIntVar(Constants.WORKERS_MAX, Math.max(minThreads, getWorkerCount()));
+        int idleTimeout = getIntVar(Constants.WORKERS_IDLE_TIMEOUT, Constants.DEFAULT_WORKERS_IDLE_TIMEOUT);
+        if (minThreads < 1) {
+            throw new IllegalArgumentException(String.format(ExceptionMessage.INVALID_VARIABLE, Constants.WORKERS_MIN + "=" + minThreads));
+        }
+        if (maxThreads < minThreads) {
+            throw new IllegalArgumentException(String.format(ExceptionMessage.INVALID_VARIABLE, Constants.WORKERS_MAX + "=" + maxThreads));
+        }
+        if (idleTimeout < 0) {
+            throw new IllegalArgumentException(String.format(ExceptionMessage.INVALID_VARIABLE, Constants.WORKERS_IDLE_TIMEOUT + "=" + idleTimeout));
+        }
+        return new AdaptiveExecutor(minThreads, maxThreads, idleTimeout, DISPATCHER_THREAD_PREFIX);
+    }
+
+    private void setWorkers() {
+        int workerCount = getWorkerCount();
 
         for (int i = 0; i < workerCount; i++) {
-            ComponentWorker componentWorker = new ComponentWorker(workerEndpoint);
+            ComponentWorker componentWorker = new ComponentWorker(context, workerEndpoint, bulkheads);
             workers.add(componentWorker);
             componentWorker.setWorkerListener(this);
             componentWorker.start();
         }
     }
 
+    /**
+     * The router, the dealer and every worker share one context, so the proxy hop to the workers goes through inproc
+     * pipes and the "io_threads" variable sets the I/O threads that serve the external socket.
+     *
+     * @return the number of I/O threads of the shared context
+     */
+    private int getIoThreadCount() {
+        int ioThreads = getIntVar(Constants.IO_THREADS, Constants.DEFAULT_IO_THREADS);
+        return ioThreads < 1 ? 1 : ioThreads;
+    }
+
+    /**
+     * Requests above the limit of the "max_in_flight" variable are answered right away with a 503 error instead of
+     * waiting for a thread. There is no limit by default.
+     *
+     * @return the maximum number of requests being processed at the same time
+     */
+    private int getMaxInFlight() {
+        int maxInFlight = getIntVar(Constants.MAX_IN_FLIGHT, 0);
+        return maxInFlight < 1 ? Integer.MAX_VALUE : maxInFlight;
+    }
+
     private void startSocket() {
-        context = ZMQ.context(1);
+        context = ZMQ.context(getIoThreadCount());
         router = context.socket(ZMQ.ROUTER);
-        dealer = context.socket(ZMQ.DEALER);
+        if (isProxyDispatcher()) {
+            dealer = context.socket(ZMQ.DEALER);
+        }
+        if (this.var.containsKey(Constants.HWM)) {
+            // Queue at most this many messages in the pipes of each socket
+            int hwm = getIntVar(Constants.HWM, 0);
+            router.setHWM(hwm);
+            if (dealer != null) {
+                dealer.setHWM(hwm);
+            }
+        }
         bindSocket();
     }
 
@@ -368,18 +568,62 @@ public abstract class Component<T extends Api, S extends CommandReplyResult, R e
             router.bind(String.format(Constants.IPC_HOST_STRING, Constants.IPC, this.socket));
         }
 
-        dealer.bind(this.workerEndpoint);
+        if (dealer != null) {
+            dealer.bind(this.workerEndpoint);
+        }
+    }
+
+    /**
+     * Stop accepting requests and wait for the ones in flight to be replied, for up to the milliseconds of the
+     * "drain_timeout" variable, before releasing the ROUTER socket. The sockets of the workers are closed by
+     * {@link #stopSocket()} afterwards.
+     * <p>
+     * The time it took is available from {@link ComponentMetrics#getDrainDuration()}.
+     */
+    public void drain() {
+        long start = System.nanoTime();
+        int inFlight;
+        if (this.dispatcher != null) {
+            this.dispatcher.drain(getDrainTimeout());
+            inFlight = this.dispatcher.getInFlight();
+        } else {
+            this.proxy.drain(getDrainTimeout());
+            inFlight = this.proxy.getInFlight();
+        }
+        long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        this.metrics.setDrainDuration(duration);
+        Logger.log(Logger.INFO, String.format("Drained in %d ms, %d requests left in flight", duration, inFlight));
+    }
+
+    private int getDrainTimeout() {
+        int drainTimeout = getIntVar(Constants.DRAIN_TIMEOUT, 0);
+        return drainTimeout < 0 ? 0 : drainTimeout;
     }
 
     public void stopSocket() {
+        // The dispatcher or the proxy owns the router socket and closes it when its loop ends
+        if (this.dispatcher != null) {
+            this.dispatcher.stop();
+        } else {
+            this.proxy.stop();
+            ((ExecutorService) this.replyExecutor).shutdown();
+        }
+
         for (ComponentWorker worker : this.workers) {
             worker.stopSocket();
         }
-
-        dealer.close();
-        router.close();
+        this.bulkheads.shutdown();
 //        context.term();
 
+        synchronized (this) {
+            if (this.callableGuard != null) {
+                this.callableGuard.shutdown();
+            }
+            if (this.runtimeCallPool != null) {
+                this.runtimeCallPool.close();
+            }
+        }
+
         this.stopped = true;
     }
 
@@ -393,34 +637,135 @@ public abstract class Component<T extends Api, S extends CommandReplyResult, R e
      * @return
      */
     @Override
-    public byte[][] onRequestReceived(String componentType, byte[] mappings, byte[] commandBytes) {
+    public CompletionStage<byte[][]> onRequestReceived(String componentType, byte[] mappings, byte[] commandBytes) {
+        CompletionStage<S> commandReply;
         try {
             Mapping mapping = deserializeMappings(mappings);
-            S commandReply = processRequest(componentType, getSdkCommand(componentType, mapping, commandBytes));
-            return new byte[][]{getReplyMetadata(commandReply), serializer.serializeInBytes(commandReply)};
+            if (isExpired(componentType, mapping, commandBytes)) {
+                metrics.addExpiredRequest();
+                return CompletableFuture.completedFuture(expiredReply);
+            }
+            commandReply = processRequest(componentType, getSdkCommand(componentType, mapping, commandBytes));
         } catch (Exception e) {
-            Logger.log(e);
-            runErrorCallback();
+            return CompletableFuture.completedFuture(getErrorReply(e));
+        }
+
+        return commandReply.handle((reply, throwable) -> {
+            if (throwable != null) {
+                return getErrorReply(throwable);
+            }
             try {
-                byte[] bytes = serializer.serializeInBytes(getErrorPayload(e));
-                return new byte[][]{new byte[]{0x00}, bytes};
-            } catch (JsonProcessingException e1) {
-                Logger.log(e1);
-                return new byte[][]{new byte[]{0x00}, new byte[0]};
+                return new byte[][]{getReplyMetadata(reply), serializer.serializeInBytes(reply)};
+            } catch (Exception e) {
+                return getErrorReply(e);
             }
+        });
+    }
+
+    @Override
+    public byte[][] onRequestRejected(String componentType) {
+        metrics.addRejectedRequest();
+        return rejectReply;
+    }
+
+    @Override
+    public byte[][] onRequestFailed(String componentType, Throwable throwable) {
+        try {
+            Logger.log(getException(throwable));
+        } catch (RuntimeException e) {
+            // The reply must be sent even if the error cannot be logged
+        }
+        return failedReply;
+    }
+
+    /**
+     * The replies of the rejected, expired and failed requests are serialized once, so answering them costs no more than
+     * sending them.
+     *
+     * @return the frames of the error reply
+     */
+    private byte[][] getStaticErrorReply(String message, String status) {
+        try {
+            byte[] bytes = serializer.serializeInBytes(getErrorPayload(message, status));
+            return new byte[][]{new byte[]{0x00}, bytes};
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private byte[][] getErrorReply(Throwable throwable) {
+        Exception e = getException(throwable);
+        Logger.log(e);
+        try {
+            runErrorCallback();
+        } catch (Exception e1) {
+            Logger.log(e1);
+        }
+        try {
+            byte[] bytes = serializer.serializeInBytes(getErrorPayload(e));
+            return new byte[][]{new byte[]{0x00}, bytes};
+        } catch (JsonProcessingException e1) {
+            Logger.log(e1);
+            return new byte[][]{new byte[]{0x00}, new byte[0]};
         }
     }
 
+    private static Exception getException(Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+        return cause instanceof Exception ? (Exception) cause : new RuntimeException(cause);
+    }
+
+    private static <S> S join(CompletionStage<S> stage) throws Exception {
+        try {
+            return stage.toCompletableFuture().join();
+        } catch (CompletionException e) {
+            throw getException(e);
+        }
+    }
+
+    /**
+     * With the "deadline_shedding" variable set to true, a request whose deadline passed while it waited for a thread
+     * is answered with a 504 error without decoding its command, since KATANA already gave up on it.
+     */
+    private boolean isExpired(String componentType, Mapping mapping, byte[] commandBytes) {
+        if (!this.deadlineShedding) {
+            return false;
+        }
+        long deadline = getDeadline(componentType, mapping, commandBytes);
+        return deadline >= 0 && System.currentTimeMillis() > deadline;
+    }
+
+    /**
+     * @param componentType component type of the request
+     * @param mapping       mappings received with the request, or null
+     * @param commandBytes  command of the request
+     * @return epoch milliseconds after which KATANA no longer waits for the reply, or -1 if it is not known
+     */
+    protected long getDeadline(String componentType, Mapping mapping, byte[] commandBytes) {
+        return -1;
+    }
+
+    /**
+     * @return the counters of the requests the component did not run
+     */
+    public ComponentMetrics getMetrics() {
+        return metrics;
+    }
+
     protected abstract T getSdkCommand(String componentType, Mapping mapping, byte[] commandBytes) throws IOException;
     protected abstract T getSdkCommand(String componentType, Mapping mapping, String jsonCommand) throws IOException;
 
     protected abstract void runErrorCallback();
 
     private static ErrorPayload getErrorPayload(Exception e) {
+        return getErrorPayload(e.getMessage(), Constants.INTERNAL_SERVER_ERROR_STATUS);
+    }
+
+    private static ErrorPayload getErrorPayload(String message, String status) {
         ErrorEntity error = new ErrorEntity();
-        error.setMessage(e.getMessage());
+        error.setMessage(message);
         error.setCode(1);
-        error.setStatus(Constants.INTERNAL_SERVER_ERROR_STATUS);
+        error.setStatus(status);
 
         ErrorPayload errorPayload = new ErrorPayload();
         errorPayload.setError(error);
@@ -432,34 +777,7 @@ public abstract class Component<T extends Api, S extends CommandReplyResult, R e
             return null;
         }
 
-        Mapping mapping = new Mapping();
-        mapping.setServiceSchema(new HashMap<>());
-
-        Map<String, Object> schemas = serializer.deserialize(mappings, Map.class);
-        for (Map.Entry serviceKey : schemas.entrySet()) {
-            Map<String, Object> versionMap = (Map) schemas.get((String) serviceKey.getKey());
-            for (Map.Entry versionKey : versionMap.entrySet()) {
-                Map<String, Object> serviceSchemaMap = (Map) versionMap.get((String) versionKey.getKey());
-
-                String jsonServiceSchema = serializer.serializeInJson(serviceSchemaMap);
-                ServiceSchema serviceSchema = serializer.deserialize(jsonServiceSchema, ServiceSchema.class);
-                serviceSchema.setName((String) serviceKey.getKey());
-                serviceSchema.setVersion((String) versionKey.getKey());
-                for (String action : serviceSchema.getActions()) {
-                    ActionSchema actionSchema = serviceSchema.getActionSchema(action);
-                    actionSchema.setName(action);
-                    for (Map.Entry param : actionSchema.getParams().entrySet()) {
-                        actionSchema.getParamSchema((String) param.getKey()).setName((String) param.getKey());
-                    }
-                }
-
-                Map<String, ServiceSchema> newVersionMap = new HashMap<>();
-                newVersionMap.put((String) versionKey.getKey(), serviceSchema);
-                mapping.getServiceSchema().put((String) serviceKey.getKey(), newVersionMap);
-            }
-        }
-
-        return mapping;
+        return getMappingCache().get(mappings);
     }
 
     /**
@@ -475,16 +793,76 @@ public abstract class Component<T extends Api, S extends CommandReplyResult, R e
      */
     protected abstract CommandReplyResult getReply(String componentType, T response);
 
-    private S processRequest(String componentType, T command) {
+    private CompletionStage<S> processRequest(String componentType, T command) {
+        long timeout = getCallableTimeout(componentType, command);
+        AsyncCallable<T> asyncCallable = getAsyncCallable(componentType);
+        if (asyncCallable != null) {
+            // The stage may complete on any thread, so the reply is built on a thread of the component
+            CompletionStage<S> reply = asyncCallable.run(command)
+                    .thenApplyAsync(result -> getCommandReplyPayload(componentType, command), replyExecutor);
+            return timeout > 0 ? getCallableGuard().limit(componentType, reply, timeout) : reply;
+        }
+
         Callable<T> callable = getCallable(componentType);
+        if (timeout > 0) {
+            return getCallableGuard().run(componentType, () -> {
+                callable.run(command);
+                return getCommandReplyPayload(componentType, command);
+            }, timeout);
+        }
         callable.run(command);
-        return getCommandReplyPayload(componentType, command);
+        return CompletableFuture.completedFuture(getCommandReplyPayload(componentType, command));
+    }
+
+    /**
+     * With the "callable_timeout" variable set to true, the callbacks are limited to the timeout of their schema. The
+     * "timeout.&lt;name&gt;" variables set the milliseconds of a single callback, which applies even without it.
+     */
+    private void setCallableTimeouts() {
+        this.enforceTimeouts = Boolean.parseBoolean(this.var.get(Constants.CALLABLE_TIMEOUT));
+        Map<String, Integer> timeouts = new HashMap<>();
+        for (String name : this.var.keySet()) {
+            if (name.startsWith(Constants.TIMEOUT_PREFIX)) {
+                int timeout = getIntVar(name, 0);
+                if (timeout < 1) {
+                    throw new IllegalArgumentException(String.format(ExceptionMessage.INVALID_VARIABLE, name + "=" + this.var.get(name)));
+                }
+                timeouts.put(name.substring(Constants.TIMEOUT_PREFIX.length()), timeout);
+            }
+        }
+        this.callableTimeouts = timeouts;
+    }
+
+    private long getCallableTimeout(String componentType, T command) {
+        Integer timeout = this.callableTimeouts.get(componentType);
+        if (timeout != null) {
+            return timeout;
+        }
+        return this.enforceTimeouts ? getSchemaTimeout(componentType, command) : -1;
+    }
+
+    /**
+     * @param componentType component type of the request
+     * @param command       command of the request
+     * @return milliseconds the schema allows the callback to run for, or -1 if it is not known
+     */
+    protected long getSchemaTimeout(String componentType, T command) {
+        return -1;
+    }
+
+    private synchronized CallableGuard getCallableGuard() {
+        if (this.callableGuard == null) {
+            this.callableGuard = new CallableGuard(this.metrics);
+        }
+        return this.callableGuard;
     }
 
     protected abstract byte[] getReplyMetadata(S reply);
 
     protected abstract Callable<T> getCallable(String componentType);
 
+    protected abstract AsyncCallable<T> getAsyncCallable(String componentType);
+
     private void setArgs(String[] args) throws IllegalArgumentException {
         List<Option> currentOptions = optionManager.extractOptions(args);
         setMembers(currentOptions);
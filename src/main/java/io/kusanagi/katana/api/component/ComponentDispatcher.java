@@ -0,0 +1,258 @@
+/*
+ * Java 8 SDK for the KATANA(tm) Platform (http://katana.kusanagi.io)
+ * Copyright (c) 2016-2017 KUSANAGI S.L. All rights reserved.
+ *
+ * Distributed under the MIT license
+ *
+ * For the full copyright and license information, please view the LICENSE
+ *  file that was distributed with this source code
+ *
+ * @link      https://github.com/kusanagi/katana-sdk-java8
+ * @license   http://www.opensource.org/licenses/mit-license.php MIT License
+ * @copyright Copyright (c) 2016-2017 KUSANAGI S.L. (http://kusanagi.io)
+ *
+ */
+
+package io.kusanagi.katana.api.component;
+
+import org.zeromq.ZMQ;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single receive loop that reads the requests straight from the ROUTER socket of the component and hands them to an
+ * executor, without the extra hop through the DEALER socket and the worker threads used by the proxy mode.
+ * <p>
+ * The ROUTER socket is only used by the thread running the loop. Replies completed by the executor are queued with
+ * their routing envelope and the loop is woken up through an inproc signal socket to send them.
+ */
+public class ComponentDispatcher {
+
+    private static final long STOP_TIMEOUT = 5000;
+
+    private final ZMQ.Socket router;
+
+    private final RequestReceiver receiver;
+
+    private final ExecutorService executor;
+
+    private final Bulkheads bulkheads;
+
+    private final int maxInFlight;
+
+    private final ComponentWorker.WorkerListener workerListener;
+
+    private final String signalEndpoint;
+
+    private final Queue<byte[][]> pendingReplies;
+
+    private final Object signalLock = new Object();
+
+    private final CountDownLatch stopped;
+
+    private ZMQ.Socket signalReceiver;
+
+    private ZMQ.Socket signalSender;
+
+    private Thread loopThread;
+
+    private int inFlight;
+
+    private volatile boolean listen;
+
+    private volatile boolean draining;
+
+    private volatile long drainDeadline;
+
+    /**
+     * @param context        context of the router socket, used to create the inproc signal sockets
+     * @param router         bound ROUTER socket, owned by the dispatcher from now on
+     * @param executor       executor that runs the userland callbacks
+     * @param bulkheads      pools that run the callbacks of the actions assigned to them instead of the executor
+     * @param maxInFlight    maximum number of requests dispatched and not replied yet
+     * @param workerListener listener that processes every request
+     */
+    ComponentDispatcher(ZMQ.Context context, ZMQ.Socket router, ExecutorService executor, Bulkheads bulkheads,
+                        int maxInFlight, ComponentWorker.WorkerListener workerListener) {
+        this.router = router;
+        this.receiver = new RequestReceiver(router);
+        this.executor = executor;
+        this.bulkheads = bulkheads;
+        this.maxInFlight = maxInFlight;
+        this.workerListener = workerListener;
+        this.signalEndpoint = String.format(Constants.SIGNAL_ENDPOINT_STRING, UUID.randomUUID().toString());
+        this.pendingReplies = new ConcurrentLinkedQueue<>();
+        this.stopped = new CountDownLatch(1);
+        this.listen = true;
+
+        this.signalReceiver = context.socket(ZMQ.PULL);
+        this.signalReceiver.bind(this.signalEndpoint);
+        this.signalSender = context.socket(ZMQ.PUSH);
+        this.signalSender.setLinger(0);
+        this.signalSender.connect(this.signalEndpoint);
+    }
+
+    /**
+     * Run the receive loop on the calling thread until {@link #stop()} is called.
+     */
+    public void run() {
+        this.loopThread = Thread.currentThread();
+        try {
+            ZMQ.Poller poller = new ZMQ.Poller(2);
+            poller.register(router, ZMQ.Poller.POLLIN);
+            poller.register(signalReceiver, ZMQ.Poller.POLLIN);
+            // Once draining, the loop only waits for the replies of the requests in flight
+            ZMQ.Poller drainPoller = new ZMQ.Poller(1);
+            drainPoller.register(signalReceiver, ZMQ.Poller.POLLIN);
+            while (listen) {
+                if (draining) {
+                    long remaining = drainDeadline - System.currentTimeMillis();
+                    if (inFlight == 0 || remaining <= 0 || drainPoller.poll(remaining) < 0) {
+                        break;
+                    }
+                    if (drainPoller.pollin(0)) {
+                        receiveSignals();
+                    }
+                    continue;
+                }
+                if (poller.poll(-1) < 0) {
+                    break;
+                }
+                if (poller.pollin(1)) {
+                    receiveSignals();
+                }
+                if (poller.pollin(0) && !draining) {
+                    receiveRequest();
+                }
+            }
+        } finally {
+            closeSockets();
+            stopped.countDown();
+        }
+    }
+
+    /**
+     * Stop the receive loop and wait for it to release the ROUTER socket.
+     */
+    public void stop() {
+        this.listen = false;
+        signal();
+        awaitStop(STOP_TIMEOUT);
+    }
+
+    /**
+     * Stop reading requests, wait for the replies of the requests in flight until the timeout, send them and release
+     * the ROUTER socket.
+     *
+     * @param timeout milliseconds to wait for the requests in flight
+     */
+    public void drain(long timeout) {
+        this.drainDeadline = System.currentTimeMillis() + timeout;
+        this.draining = true;
+        signal();
+        awaitStop(timeout + STOP_TIMEOUT);
+    }
+
+    private void awaitStop(long timeout) {
+        if (Thread.currentThread() != loopThread) {
+            try {
+                stopped.await(timeout, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * @return number of requests dispatched and not replied yet
+     */
+    int getInFlight() {
+        return inFlight;
+    }
+
+    private void receiveRequest() {
+        if (!receiver.receive()) {
+            return;
+        }
+        List<byte[]> envelope = receiver.getEnvelope();
+        String componentType = receiver.getComponentType();
+        if (inFlight >= maxInFlight) {
+            send(envelope, workerListener.onRequestRejected(componentType));
+            return;
+        }
+        byte[] mappings = receiver.getMappings();
+        byte[] command = receiver.getCommand();
+
+        ExecutorService pool = bulkheads.getExecutor(componentType);
+        try {
+            (pool != null ? pool : executor).execute(() -> workerListener.handleRequest(componentType, mappings, command,
+                    replyParts -> queueReply(envelope, replyParts)));
+            inFlight++;
+        } catch (RejectedExecutionException e) {
+            send(envelope, workerListener.onRequestRejected(componentType));
+        }
+    }
+
+    private void send(List<byte[]> envelope, byte[][] replyParts) {
+        for (byte[] frame : envelope) {
+            router.send(frame, zmq.ZMQ.ZMQ_SNDMORE);
+        }
+        for (int i = 0; i < replyParts.length; i++) {
+            router.send(replyParts[i], i < replyParts.length - 1 ? zmq.ZMQ.ZMQ_SNDMORE : 0);
+        }
+    }
+
+    private void queueReply(List<byte[]> envelope, byte[][] replyParts) {
+        byte[][] frames = new byte[envelope.size() + replyParts.length][];
+        envelope.toArray(frames);
+        System.arraycopy(replyParts, 0, frames, envelope.size(), replyParts.length);
+
+        pendingReplies.add(frames);
+        signal();
+    }
+
+    private void signal() {
+        synchronized (signalLock) {
+            if (signalSender != null) {
+                signalSender.send(new byte[0], ZMQ.DONTWAIT);
+            }
+        }
+    }
+
+    private void receiveSignals() {
+        while (signalReceiver.recv(ZMQ.DONTWAIT) != null) {
+            // Drain the signals, the replies are taken from the queue
+        }
+        sendPendingReplies();
+    }
+
+    private void sendPendingReplies() {
+        byte[][] frames;
+        while ((frames = pendingReplies.poll()) != null) {
+            for (int i = 0; i < frames.length; i++) {
+                router.send(frames[i], i < frames.length - 1 ? zmq.ZMQ.ZMQ_SNDMORE : 0);
+            }
+            if (inFlight > 0) {
+                inFlight--;
+            }
+        }
+    }
+
+    private void closeSockets() {
+        executor.shutdown();
+        sendPendingReplies();
+        router.close();
+        signalReceiver.close();
+        synchronized (signalLock) {
+            signalSender.close();
+            signalSender = null;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Java 8 SDK for the KATANA(tm) Platform (http://katana.kusanagi.io)
+ * Copyright (c) 2016-2017 KUSANAGI S.L. All rights reserved.
+ *
+ * Distributed under the MIT license
+ *
+ * For the full copyright and license information, please view the LICENSE
+ *  file that was distributed with this source code
+ *
+ * @link      https://github.com/kusanagi/katana-sdk-java8
+ * @license   http://www.opensource.org/licenses/mit-license.php MIT License
+ * @copyright Copyright (c) 2016-2017 KUSANAGI S.L. (http://kusanagi.io)
+ *
+ */
+
+package io.kusanagi.katana.api.component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the requests the component did not run and of the userland callbacks that ran past their timeout, and
+ * the time the component took to drain on shutdown.
+ */
+public class ComponentMetrics {
+
+    private final AtomicLong rejectedRequests = new AtomicLong();
+
+    private final AtomicLong expiredRequests = new AtomicLong();
+
+    private final AtomicLong timedOutCallables = new AtomicLong();
+
+    private final AtomicLong stuckCallables = new AtomicLong();
+
+    private volatile long drainDuration = -1;
+
+    /**
+     * @return number of requests answered with a 503 error because the component had no room for them
+     */
+    public long getRejectedRequests() {
+        return rejectedRequests.get();
+    }
+
+    /**
+     * @return number of requests answered with a 504 error because their deadline passed before they were run
+     */
+    public long getExpiredRequests() {
+        return expiredRequests.get();
+    }
+
+    /**
+     * @return number of userland callbacks answered with an error because they ran past their timeout
+     */
+    public long getTimedOutCallables() {
+        return timedOutCallables.get();
+    }
+
+    /**
+     * @return number of userland callbacks that ran past their timeout and are still running
+     */
+    public long getStuckCallables() {
+        return stuckCallables.get();
+    }
+
+    /**
+     * @return milliseconds the component took to drain the requests in flight, or -1 if it was not drained
+     */
+    public long getDrainDuration() {
+        return drainDuration;
+    }
+
+    void addRejectedRequest() {
+        rejectedRequests.incrementAndGet();
+    }
+
+    void addExpiredRequest() {
+        expiredRequests.incrementAndGet();
+    }
+
+    void addTimedOutCallable() {
+        timedOutCallables.incrementAndGet();
+    }
+
+    void addStuckCallable() {
+        stuckCallables.incrementAndGet();
+    }
+
+    void removeStuckCallable() {
+        stuckCallables.decrementAndGet();
+    }
+
+    void setDrainDuration(long drainDuration) {
+        this.drainDuration = drainDuration;
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Java 8 SDK for the KATANA(tm) Platform (http://katana.kusanagi.io)
+ * Copyright (c) 2016-2017 KUSANAGI S.L. All rights reserved.
+ *
+ * Distributed under the MIT license
+ *
+ * For the full copyright and license information, please view the LICENSE
+ *  file that was distributed with this source code
+ *
+ * @link      https://github.com/kusanagi/katana-sdk-java8
+ * @license   http://www.opensource.org/licenses/mit-license.php MIT License
+ * @copyright Copyright (c) 2016-2017 KUSANAGI S.L. (http://kusanagi.io)
+ *
+ */
+
+package io.kusanagi.katana.api.component;
+
+import org.zeromq.ZMQ;
+import zmq.Msg;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Forwards the requests of the ROUTER socket to the {@link ComponentWorker} threads through the DEALER socket, and
+ * their replies back, keeping count of the requests in flight.
+ * <p>
+ * Once the limit of requests in flight is reached, the next requests are answered right away with the reject reply of
+ * the listener instead of waiting in the pipes of the workers. Both sockets are only used by the thread running the
+ * loop, which is stopped through an inproc signal socket.
+ */
+class ComponentProxy {
+
+    private static final long STOP_TIMEOUT = 5000;
+
+    private final ZMQ.Socket router;
+
+    private final ZMQ.Socket dealer;
+
+    private final RequestReceiver receiver;
+
+    private final ComponentWorker.WorkerListener workerListener;
+
+    private final int maxInFlight;
+
+    private final String signalEndpoint;
+
+    private final Object signalLock = new Object();
+
+    private final CountDownLatch stopped;
+
+    private ZMQ.Socket signalReceiver;
+
+    private ZMQ.Socket signalSender;
+
+    private Thread loopThread;
+
+    private int inFlight;
+
+    private volatile boolean listen;
+
+    private volatile boolean draining;
+
+    private volatile long drainDeadline;
+
+    /**
+     * @param context        context of the sockets, used to create the inproc signal sockets
+     * @param router         bound ROUTER socket, owned by the proxy from now on
+     * @param dealer         bound DEALER socket of the workers, owned by the proxy from now on
+     * @param maxInFlight    maximum number of requests forwarded to the workers and not replied yet
+     * @param workerListener listener that provides the reply of the rejected requests
+     */
+    ComponentProxy(ZMQ.Context context, ZMQ.Socket router, ZMQ.Socket dealer, int maxInFlight,
+                   ComponentWorker.WorkerListener workerListener) {
+        this.router = router;
+        this.dealer = dealer;
+        this.receiver = new RequestReceiver(router);
+        this.workerListener = workerListener;
+        this.maxInFlight = maxInFlight;
+        this.signalEndpoint = String.format(Constants.SIGNAL_ENDPOINT_STRING, UUID.randomUUID().toString());
+        this.stopped = new CountDownLatch(1);
+        this.listen = true;
+
+        this.signalReceiver = context.socket(ZMQ.PULL);
+        this.signalReceiver.bind(this.signalEndpoint);
+        this.signalSender = context.socket(ZMQ.PUSH);
+        this.signalSender.setLinger(0);
+        this.signalSender.connect(this.signalEndpoint);
+    }
+
+    /**
+     * Run the proxy loop on the calling thread until {@link #stop()} is called.
+     */
+    public void run() {
+        this.loopThread = Thread.currentThread();
+        try {
+            ZMQ.Poller poller = new ZMQ.Poller(3);
+            poller.register(router, ZMQ.Poller.POLLIN);
+            poller.register(dealer, ZMQ.Poller.POLLIN);
+            poller.register(signalReceiver, ZMQ.Poller.POLLIN);
+            // Once draining, the loop only forwards the replies of the requests in flight
+            ZMQ.Poller drainPoller = new ZMQ.Poller(2);
+            drainPoller.register(dealer, ZMQ.Poller.POLLIN);
+            drainPoller.register(signalReceiver, ZMQ.Poller.POLLIN);
+            while (listen) {
+                if (draining) {
+                    long remaining = drainDeadline - System.currentTimeMillis();
+                    if (inFlight == 0 || remaining <= 0 || drainPoller.poll(remaining) < 0) {
+                        break;
+                    }
+                    if (drainPoller.pollin(1)) {
+                        receiveSignals();
+                    }
+                    if (drainPoller.pollin(0)) {
+                        forwardReply();
+                    }
+                    continue;
+                }
+                if (poller.poll(-1) < 0) {
+                    break;
+                }
+                if (poller.pollin(2)) {
+                    receiveSignals();
+                }
+                if (poller.pollin(1)) {
+                    // Replies first, so they free room for the requests
+                    forwardReply();
+                }
+                if (poller.pollin(0) && !draining) {
+                    receiveRequest();
+                }
+            }
+        } finally {
+            closeSockets();
+            stopped.countDown();
+        }
+    }
+
+    /**
+     * Stop the proxy loop and wait for it to release the sockets.
+     */
+    public void stop() {
+        this.listen = false;
+        signal();
+        awaitStop(STOP_TIMEOUT);
+    }
+
+    /**
+     * Stop reading requests, forward the replies of the requests in flight until the timeout and release the sockets.
+     *
+     * @param timeout milliseconds to wait for the requests in flight
+     */
+    public void drain(long timeout) {
+        this.drainDeadline = System.currentTimeMillis() + timeout;
+        this.draining = true;
+        signal();
+        awaitStop(timeout + STOP_TIMEOUT);
+    }
+
+    private void signal() {
+        synchronized (signalLock) {
+            if (signalSender != null) {
+                signalSender.send(new byte[0], ZMQ.DONTWAIT);
+            }
+        }
+    }
+
+    private void awaitStop(long timeout) {
+        if (Thread.currentThread() != loopThread) {
+            try {
+                stopped.await(timeout, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void receiveSignals() {
+        while (signalReceiver.recv(ZMQ.DONTWAIT) != null) {
+            // Drain the signals, the loop only checks if it must stop or drain
+        }
+    }
+
+    /**
+     * @return number of requests forwarded to the workers and not replied yet
+     */
+    int getInFlight() {
+        return inFlight;
+    }
+
+    private void receiveRequest() {
+        if (!receiver.receive()) {
+            return;
+        }
+        if (inFlight >= maxInFlight) {
+            reply(receiver.getEnvelope(), workerListener.onRequestRejected(receiver.getComponentType()));
+            return;
+        }
+        receiver.forward(dealer);
+        inFlight++;
+    }
+
+    private void reply(List<byte[]> envelope, byte[][] replyParts) {
+        for (byte[] frame : envelope) {
+            router.send(frame, zmq.ZMQ.ZMQ_SNDMORE);
+        }
+        for (int i = 0; i < replyParts.length; i++) {
+            router.send(replyParts[i], i < replyParts.length - 1 ? zmq.ZMQ.ZMQ_SNDMORE : 0);
+        }
+    }
+
+    private void forwardReply() {
+        Msg msg;
+        do {
+            msg = dealer.base().recv(0);
+            if (msg == null) {
+                return;
+            }
+            router.base().send(msg, msg.hasMore() ? zmq.ZMQ.ZMQ_SNDMORE : 0);
+        } while (msg.hasMore());
+        if (inFlight > 0) {
+            inFlight--;
+        }
+    }
+
+    private void closeSockets() {
+        dealer.close();
+        router.close();
+        signalReceiver.close();
+        synchronized (signalLock) {
+            signalSender.close();
+            signalSender = null;
+        }
+    }
+}
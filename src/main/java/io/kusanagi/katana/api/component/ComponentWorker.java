@@ -17,24 +17,64 @@ package io.kusanagi.katana.api.component;
 
 import org.zeromq.ZMQ;
 
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
 /**
  * Created by juan on 1/10/16.
  */
 
+/**
+ * The worker uses a DEALER socket and keeps the routing envelope of every request, so a reply can be sent as soon as
+ * it is ready, without waiting for the replies of the requests received before it.
+ * <p>
+ * Replies completed by other threads are queued and the worker is woken up through an inproc signal socket, since
+ * ZeroMQ sockets must only be used by the thread that owns them.
+ */
 public class ComponentWorker extends Thread {
 
     private final String workerEndpoint;
 
-    private ZMQ.Context context;
+    private final String signalEndpoint;
+
+    private final Bulkheads bulkheads;
+
+    private final Queue<byte[][]> pendingReplies;
+
+    private final Object signalLock = new Object();
+
+    private final ZMQ.Context context;
 
     private ZMQ.Socket socketObj;
 
+    private RequestReceiver receiver;
+
+    private ZMQ.Socket signalReceiver;
+
+    private ZMQ.Socket signalSender;
+
     private WorkerListener workerListener;
 
-    private boolean listen;
+    private volatile boolean listen;
 
-    public ComponentWorker(String workerEndpoint) {
+    /**
+     * @param context        context of the component, the worker endpoint is bound on it as an inproc endpoint
+     * @param workerEndpoint endpoint of the dealer socket that forwards the requests
+     * @param bulkheads      pools that run the actions assigned to them, the rest run on the worker thread
+     */
+    ComponentWorker(ZMQ.Context context, String workerEndpoint, Bulkheads bulkheads) {
+        this.context = context;
         this.workerEndpoint = workerEndpoint;
+        this.bulkheads = bulkheads;
+        this.signalEndpoint = String.format(Constants.SIGNAL_ENDPOINT_STRING, UUID.randomUUID().toString());
+        this.pendingReplies = new ConcurrentLinkedQueue<>();
+        this.listen = true;
     }
 
     public void setWorkerListener(WorkerListener workerListener) {
@@ -44,41 +84,149 @@ public class ComponentWorker extends Thread {
     @Override
     public void run() {
         startSocket();
-        int part = 0;
-        String part1 = "";
-        byte[] part2 = new byte[0];
-        byte[] part3 = new byte[0];
+        ZMQ.Poller poller = new ZMQ.Poller(2);
+        poller.register(socketObj, ZMQ.Poller.POLLIN);
+        poller.register(signalReceiver, ZMQ.Poller.POLLIN);
         while (listen) {
-            part++;
-            if (part == 1) {
-                part1 = socketObj.recvStr();
-            } else if (part == 2 && socketObj.hasReceiveMore()) {
-                part2 = socketObj.recv();
-            } else if (part == 3 && socketObj.hasReceiveMore()) {
-                part3 = socketObj.recv();
+            if (poller.poll(-1) < 0) {
+                break;
             }
-            if (!socketObj.hasReceiveMore()) {
-                part = 0;
-                byte[][] reply = workerListener.onRequestReceived(part1, part2.length == 0 ? null : part2, part3);
-                socketObj.sendMore(reply[0]);
-                socketObj.send(reply[1]);
+            if (poller.pollin(1)) {
+                while (signalReceiver.recv(ZMQ.DONTWAIT) != null) {
+                    // Drain the signals, the replies are taken from the queue
+                }
+                sendPendingReplies();
+            }
+            if (poller.pollin(0)) {
+                receiveRequest();
+            }
+        }
+        closeSockets();
+    }
+
+    private void receiveRequest() {
+        if (!receiver.receive()) {
+            return;
+        }
+        List<byte[]> envelope = receiver.getEnvelope();
+        String componentType = receiver.getComponentType();
+        byte[] mappings = receiver.getMappings();
+        byte[] command = receiver.getCommand();
+
+        ExecutorService pool = bulkheads.getExecutor(componentType);
+        if (pool == null) {
+            workerListener.handleRequest(componentType, mappings, command, replyParts -> queueReply(envelope, replyParts));
+            return;
+        }
+
+        try {
+            pool.execute(() -> workerListener.handleRequest(componentType, mappings, command,
+                    replyParts -> queueReply(envelope, replyParts)));
+        } catch (RejectedExecutionException e) {
+            queueReply(envelope, workerListener.onRequestRejected(componentType));
+        }
+    }
+
+    private void queueReply(List<byte[]> envelope, byte[][] replyParts) {
+        byte[][] frames = new byte[envelope.size() + replyParts.length][];
+        envelope.toArray(frames);
+        System.arraycopy(replyParts, 0, frames, envelope.size(), replyParts.length);
+
+        if (Thread.currentThread() == this) {
+            // Completed synchronously, there is no need to go through the queue
+            send(frames);
+            return;
+        }
+
+        pendingReplies.add(frames);
+        signal();
+    }
+
+    private void signal() {
+        synchronized (signalLock) {
+            if (signalSender != null) {
+                signalSender.send(new byte[0], ZMQ.DONTWAIT);
             }
         }
     }
 
+    private void sendPendingReplies() {
+        byte[][] frames;
+        while ((frames = pendingReplies.poll()) != null) {
+            send(frames);
+        }
+    }
+
+    private void send(byte[][] frames) {
+        for (int i = 0; i < frames.length; i++) {
+            socketObj.send(frames[i], i < frames.length - 1 ? zmq.ZMQ.ZMQ_SNDMORE : 0);
+        }
+    }
+
     public void startSocket() {
-        context = ZMQ.context(1);
-        socketObj = context.socket(ZMQ.REP);
+        socketObj = context.socket(ZMQ.DEALER);
         socketObj.connect(this.workerEndpoint);
-        this.listen = true;
+        receiver = new RequestReceiver(socketObj);
+        signalReceiver = context.socket(ZMQ.PULL);
+        signalReceiver.bind(this.signalEndpoint);
+        synchronized (signalLock) {
+            signalSender = context.socket(ZMQ.PUSH);
+            signalSender.setLinger(0);
+            signalSender.connect(this.signalEndpoint);
+        }
     }
 
     public void stopSocket() {
+        this.listen = false;
+        signal();
+    }
+
+    private void closeSockets() {
+        sendPendingReplies();
         socketObj.close();
-//        context.term();
+        signalReceiver.close();
+        synchronized (signalLock) {
+            signalSender.close();
+            signalSender = null;
+        }
     }
 
     public interface WorkerListener {
-        byte[][] onRequestReceived(String componentType, byte[] mappings, byte[] request);
+        CompletionStage<byte[][]> onRequestReceived(String componentType, byte[] mappings, byte[] request);
+
+        /**
+         * @param componentType component type of the request
+         * @return the reply sent for a request that cannot be accepted
+         */
+        byte[][] onRequestRejected(String componentType);
+
+        /**
+         * @param componentType component type of the request
+         * @param throwable     error that prevented building the reply
+         * @return the reply sent for a request whose reply could not be built, which MUST NOT throw
+         */
+        byte[][] onRequestFailed(String componentType, Throwable throwable);
+
+        /**
+         * Process a request and pass its reply to the replier, which is always called once, with the reply of
+         * {@link #onRequestFailed} if processing the request fails in any way.
+         *
+         * @param componentType component type of the request
+         * @param mappings      mappings frame of the request
+         * @param request       command frame of the request
+         * @param replier       receives the frames of the reply
+         */
+        default void handleRequest(String componentType, byte[] mappings, byte[] request, Consumer<byte[][]> replier) {
+            CompletionStage<byte[][]> reply;
+            try {
+                reply = onRequestReceived(componentType, mappings, request);
+            } catch (Throwable e) {
+                replier.accept(onRequestFailed(componentType, e));
+                return;
+            }
+            reply.whenComplete((replyParts, throwable) -> replier.accept(throwable == null && replyParts != null
+                    ? replyParts
+                    : onRequestFailed(componentType, throwable)));
+        }
     }
 }
@@ -48,19 +48,53 @@ public class Constants {
     public static final String MIDDLEWARE = "middleware";
     public static final String REQUEST_STRING = "request";
     public static final String WORKERS = "workers";
+    public static final String WORKERS_MIN = "workers_min";
+    public static final String WORKERS_MAX = "workers_max";
+    public static final String WORKERS_IDLE_TIMEOUT = "workers_idle_timeout";
+    public static final String IO_THREADS = "io_threads";
+    public static final String MAX_IN_FLIGHT = "max_in_flight";
+    public static final String HWM = "hwm";
+    public static final String DEADLINE_SHEDDING = "deadline_shedding";
+    public static final String CALLABLE_TIMEOUT = "callable_timeout";
+    public static final String DRAIN_TIMEOUT = "drain_timeout";
+    public static final String TIMEOUT_PREFIX = "timeout.";
+    public static final String POOL_PREFIX = "pool.";
+    public static final String POOL_ACTIONS = ".actions";
+    public static final String POOL_THREADS = ".threads";
+    public static final String POOL_QUEUE = ".queue";
+    public static final String RUNTIME_CALL_POOL_SIZE = "runtime_call_pool_size";
+    public static final String MAPPING_CACHE_SIZE = "mapping_cache_size";
+    public static final String DISPATCHER = "dispatcher";
+    public static final String DISPATCHER_PROXY = "proxy";
+    public static final String DISPATCHER_ROUTER = "router";
+    public static final String DISPATCHER_VIRTUAL = "virtual";
+    public static final String SERIALIZER = "serializer";
+    public static final String SERIALIZER_JACKSON = "jackson";
+    public static final String SERIALIZER_STREAMING = "streaming";
     public static final String TCP = "tcp";
     public static final String IPC = "ipc";
 
-    public static final String WORKER_ENDPOINT = "ipc://workers";
+    public static final String WORKER_ENDPOINT = "inproc://workers";
 
     //Patterns
-    public static final String WORKER_ENDPOINT_STRING = "%s_%s";
+    public static final String WORKER_ENDPOINT_STRING = "%s-%s";
     public static final String TCP_HOST_STRING = "%s://%s:%s";
+    public static final String TCP_ADDRESS_STRING = "%s://%s";
     public static final String IPC_HOST_STRING = "%s://%s";
     public static final String KATANA_DEFAULT_SOCKET_STRING = "@katana-%s-%s-%s";
+    public static final String SIGNAL_ENDPOINT_STRING = "inproc://signal-%s";
+
+    //Defaults
+    public static final int DEFAULT_IO_THREADS = 1;
+    public static final int DEFAULT_WORKERS_IDLE_TIMEOUT = 60000;
+    public static final int DEFAULT_RUNTIME_CALL_POOL_SIZE = 8;
+    public static final int DEFAULT_MAPPING_CACHE_SIZE = 4;
+    public static final int DEFAULT_REPLY_BUFFER_SIZE = 8192;
 
     //Status
     public static final String INTERNAL_SERVER_ERROR_STATUS = "500 Internal Server Error";
+    public static final String SERVICE_UNAVAILABLE_STATUS = "503 Service Unavailable";
+    public static final String GATEWAY_TIMEOUT_STATUS = "504 Gateway Timeout";
 
     //Data types
     public static final String TYPE_BOOLEAN = "boolean";
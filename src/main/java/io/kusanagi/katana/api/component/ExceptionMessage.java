@@ -39,6 +39,11 @@ public class ExceptionMessage {
     public static final String FILE_DOES_NOT_EXIST_IN_PATH = "File does not exist in path: %s";
     public static final String CANNOT_RESOLVE_SCHEMA_FOR_ACTION = "Cannot resolve schema for action: %s";
     public static final String CANNOT_RESOLVE_SCHEMA_FOR_SERVICE = "Cannot resolve schema for service: %s (%s)";
+    public static final String SERVICE_UNAVAILABLE = "Service unavailable, too many requests in progress";
+    public static final String REQUEST_EXPIRED = "Request expired before it was processed";
+    public static final String REQUEST_FAILED = "Request failed before its reply was built";
+    public static final String CALLABLE_TIMEOUT = "Callback for \"%s\" timed out after %d ms";
+    public static final String INVALID_MAPPINGS = "Invalid mappings, expected %s but found %s";
 
     private ExceptionMessage() {
         // private constructor to block the instantiation of this object
@@ -0,0 +1,153 @@
+/*
+ * Java 8 SDK for the KATANA(tm) Platform (http://katana.kusanagi.io)
+ * Copyright (c) 2016-2017 KUSANAGI S.L. All rights reserved.
+ *
+ * Distributed under the MIT license
+ *
+ * For the full copyright and license information, please view the LICENSE
+ *  file that was distributed with this source code
+ *
+ * @link      https://github.com/kusanagi/katana-sdk-java8
+ * @license   http://www.opensource.org/licenses/mit-license.php MIT License
+ * @copyright Copyright (c) 2016-2017 KUSANAGI S.L. (http://kusanagi.io)
+ *
+ */
+
+package io.kusanagi.katana.api.component;
+
+import io.kusanagi.katana.api.commands.Mapping;
+import io.kusanagi.katana.sdk.ServiceSchema;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Content addressed cache of decoded mappings.
+ * <p>
+ * KATANA sends the same mappings with every request until the configuration of the platform changes, so the mappings
+ * are keyed by the SHA-256 digest of their bytes and requests with the same digest share the same {@link Mapping}.
+ * The bytes of the last mappings seen are kept too, so a frame equal to them is found without computing its digest.
+ * <p>
+ * The maps of a cached mapping by Service name and version are unmodifiable and its indexes are built before it is
+ * cached, but the schemas they hold are not copied, so the schemas are shared by concurrent requests and MUST NOT be
+ * changed. The least recently used mappings are evicted once the cache is full.
+ */
+public class MappingCache {
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final MappingDecoder decoder;
+
+    private final Map<ByteBuffer, Mapping> mappings;
+
+    private volatile LastMapping last;
+
+    /**
+     * @param decoder decoder used when the digest of the mappings is not cached
+     * @param size    maximum number of mappings kept
+     */
+    public MappingCache(MappingDecoder decoder, int size) {
+        this.decoder = decoder;
+        this.mappings = new LruMap(size < 1 ? 1 : size);
+    }
+
+    /**
+     * @param bytes msgpack bytes of the mappings frame
+     * @return the shared mapping decoded from bytes with the same digest
+     * @throws IOException if the mappings are not cached and the bytes can not be decoded
+     */
+    public Mapping get(byte[] bytes) throws IOException {
+        LastMapping lastMapping = last;
+        if (lastMapping != null && (lastMapping.bytes == bytes || Arrays.equals(lastMapping.bytes, bytes))) {
+            return lastMapping.mapping;
+        }
+        Mapping mapping = getByDigest(bytes);
+        last = new LastMapping(bytes, mapping);
+        return mapping;
+    }
+
+    private Mapping getByDigest(byte[] bytes) throws IOException {
+        ByteBuffer digest = ByteBuffer.wrap(DIGEST.get().digest(bytes));
+
+        Mapping mapping;
+        synchronized (mappings) {
+            mapping = mappings.get(digest);
+        }
+        if (mapping != null) {
+            return mapping;
+        }
+
+        // Decode outside the lock, concurrent misses for the same digest keep the first mapping cached
+        Mapping decoded = freeze(decoder.decode(bytes));
+        synchronized (mappings) {
+            mapping = mappings.putIfAbsent(digest, decoded);
+        }
+        return mapping != null ? mapping : decoded;
+    }
+
+    public int size() {
+        synchronized (mappings) {
+            return mappings.size();
+        }
+    }
+
+    private static Mapping freeze(Mapping mapping) {
+        Map<String, Map<String, ServiceSchema>> services = new HashMap<>();
+        for (Map.Entry<String, Map<String, ServiceSchema>> service : mapping.getServiceSchema().entrySet()) {
+            services.put(service.getKey(), Collections.unmodifiableMap(service.getValue()));
+        }
+
+        Mapping frozen = new Mapping();
+        frozen.setServiceSchema(Collections.unmodifiableMap(services));
+        frozen.compile();
+        return frozen;
+    }
+
+    /**
+     * Map in access order that evicts the least recently used mapping once it holds more than the maximum size
+     */
+    private static final class LruMap extends LinkedHashMap<ByteBuffer, Mapping> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maxSize;
+
+        private LruMap(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ByteBuffer, Mapping> eldest) {
+            return size() > maxSize;
+        }
+    }
+
+    private static final class LastMapping {
+
+        private final byte[] bytes;
+
+        private final Mapping mapping;
+
+        private LastMapping(byte[] bytes, Mapping mapping) {
+            this.bytes = bytes;
+            this.mapping = mapping;
+        }
+    }
+}
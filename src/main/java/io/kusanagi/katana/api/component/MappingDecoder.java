@@ -0,0 +1,142 @@
+/*
+ * Java 8 SDK for the KATANA(tm) Platform (http://katana.kusanagi.io)
+ * Copyright (c) 2016-2017 KUSANAGI S.L. All rights reserved.
+ *
+ * Distributed under the MIT license
+ *
+ * For the full copyright and license information, please view the LICENSE
+ *  file that was distributed with this source code
+ *
+ * @link      https://github.com/kusanagi/katana-sdk-java8
+ * @license   http://www.opensource.org/licenses/mit-license.php MIT License
+ * @copyright Copyright (c) 2016-2017 KUSANAGI S.L. (http://kusanagi.io)
+ *
+ */
+
+package io.kusanagi.katana.api.component;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerModifier;
+import com.fasterxml.jackson.databind.deser.std.DelegatingDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import io.kusanagi.katana.api.commands.Mapping;
+import io.kusanagi.katana.sdk.ActionParamSchema;
+import io.kusanagi.katana.sdk.ActionSchema;
+import io.kusanagi.katana.sdk.FileSchema;
+import io.kusanagi.katana.sdk.ServiceSchema;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Decode the mappings frame sent by KATANA along with every request.
+ * <p>
+ * The schemas are bound straight from the msgpack bytes in a single pass, using the compact names declared in
+ * {@link Key}. The names of the Services and their versions, as well as the names of the actions, params and files, are
+ * taken from the keys of their maps as they are read.
+ */
+public class MappingDecoder {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper(new MessagePackFactory())
+            .registerModule(new SimpleModule().setDeserializerModifier(new NamingDeserializerModifier()));
+
+    /**
+     * @param mappings msgpack bytes of the mappings frame
+     * @return the mapping with the schema of every Service version
+     * @throws IOException if the bytes are not a valid mapping
+     */
+    public Mapping decode(byte[] mappings) throws IOException {
+        Map<String, Map<String, ServiceSchema>> services = new HashMap<>();
+
+        try (JsonParser parser = MAPPER.getFactory().createParser(mappings)) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                expect(parser.nextToken(), JsonToken.START_OBJECT);
+
+                Map<String, ServiceSchema> versions = services.computeIfAbsent(name, key -> new HashMap<>());
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String version = parser.getCurrentName();
+                    parser.nextToken();
+
+                    ServiceSchema serviceSchema = MAPPER.readValue(parser, ServiceSchema.class);
+                    serviceSchema.setName(name);
+                    serviceSchema.setVersion(version);
+                    versions.put(version, serviceSchema);
+                }
+            }
+        }
+
+        Mapping mapping = new Mapping();
+        mapping.setServiceSchema(services);
+        return mapping;
+    }
+
+    private static void expect(JsonToken token, JsonToken expected) throws IOException {
+        if (token != expected) {
+            throw new IOException(String.format(ExceptionMessage.INVALID_MAPPINGS, expected, token));
+        }
+    }
+
+    private static class NamingDeserializerModifier extends BeanDeserializerModifier {
+        @Override
+        public JsonDeserializer<?> modifyDeserializer(DeserializationConfig config, BeanDescription beanDesc, JsonDeserializer<?> deserializer) {
+            Class<?> type = beanDesc.getBeanClass();
+            if (type == ActionSchema.class) {
+                return new NamingDeserializer<>(deserializer, ActionSchema::setName);
+            } else if (type == ActionParamSchema.class) {
+                return new NamingDeserializer<>(deserializer, ActionParamSchema::setName);
+            } else if (type == FileSchema.class) {
+                return new NamingDeserializer<>(deserializer, FileSchema::setName);
+            }
+            return deserializer;
+        }
+    }
+
+    /**
+     * Set the key of the map that contains the schema as its name.
+     */
+    private static class NamingDeserializer<T> extends DelegatingDeserializer {
+
+        private static final long serialVersionUID = 1L;
+
+        private final BiConsumer<T, String> nameSetter;
+
+        NamingDeserializer(JsonDeserializer<?> delegate, BiConsumer<T, String> nameSetter) {
+            super(delegate);
+            this.nameSetter = nameSetter;
+        }
+
+        @Override
+        protected JsonDeserializer<?> newDelegatingInstance(JsonDeserializer<?> newDelegatee) {
+            return new NamingDeserializer<>(newDelegatee, nameSetter);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Object deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            JsonStreamContext streamContext = parser.getParsingContext();
+            if (parser.getCurrentToken() == JsonToken.START_OBJECT && streamContext.getParent() != null) {
+                // The parser already moved into the object, the key belongs to the enclosing map
+                streamContext = streamContext.getParent();
+            }
+            String name = streamContext.getCurrentName();
+
+            T value = (T) super.deserialize(parser, context);
+            if (value != null && name != null) {
+                nameSetter.accept(value, name);
+            }
+            return value;
+        }
+    }
+}
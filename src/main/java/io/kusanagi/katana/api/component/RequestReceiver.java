@@ -0,0 +1,187 @@
+/*
+ * Java 8 SDK for the KATANA(tm) Platform (http://katana.kusanagi.io)
+ * Copyright (c) 2016-2017 KUSANAGI S.L. All rights reserved.
+ *
+ * Distributed under the MIT license
+ *
+ * For the full copyright and license information, please view the LICENSE
+ *  file that was distributed with this source code
+ *
+ * @link      https://github.com/kusanagi/katana-sdk-java8
+ * @license   http://www.opensource.org/licenses/mit-license.php MIT License
+ * @copyright Copyright (c) 2016-2017 KUSANAGI S.L. (http://kusanagi.io)
+ *
+ */
+
+package io.kusanagi.katana.api.component;
+
+import org.zeromq.ZMQ;
+import zmq.Msg;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the frames of the requests from a socket, for the single thread that owns it.
+ * <p>
+ * The frames are taken from the messages of the socket without copying them, since jeromq keeps the payload of a
+ * received message in a heap array of its own. The component type of the first part is decoded once per distinct name
+ * and shared by the next requests, and the array of parts is reused between requests.
+ */
+class RequestReceiver {
+
+    private static final int MAX_NAMES = 256;
+
+    private static final byte[] EMPTY_FRAME = new byte[0];
+
+    private final ZMQ.Socket socket;
+
+    private byte[][] parts = new byte[3][];
+
+    private int partCount;
+
+    private boolean truncated;
+
+    private final Map<Name, String> names = new HashMap<>();
+
+    private final Name lookup = new Name();
+
+    private List<byte[]> envelope;
+
+    /**
+     * @param socket socket the requests are received from
+     */
+    RequestReceiver(ZMQ.Socket socket) {
+        this.socket = socket;
+    }
+
+    /**
+     * Receive every frame of the next request, replacing the ones of the previous request. When the socket stops
+     * returning frames in the middle of a request, the request is discarded along with the frames left of it.
+     *
+     * @return false if the socket returned no complete message
+     */
+    boolean receive() {
+        if (truncated && !discardRemainingFrames()) {
+            return false;
+        }
+        envelope = new ArrayList<>(2);
+        Arrays.fill(parts, EMPTY_FRAME);
+        partCount = 0;
+        boolean inEnvelope = true;
+        Msg msg;
+        do {
+            msg = socket.base().recv(0);
+            if (msg == null) {
+                truncated = !envelope.isEmpty();
+                return false;
+            }
+            byte[] frame = msg.data();
+            if (inEnvelope) {
+                envelope.add(frame);
+                inEnvelope = frame.length != 0;
+            } else {
+                if (partCount == parts.length) {
+                    parts = Arrays.copyOf(parts, partCount + 1);
+                }
+                parts[partCount++] = frame;
+            }
+        } while (msg.hasMore());
+        return true;
+    }
+
+    /**
+     * @return false if the socket stopped returning frames before the last one
+     */
+    private boolean discardRemainingFrames() {
+        Msg msg;
+        do {
+            msg = socket.base().recv(0);
+            if (msg == null) {
+                return false;
+            }
+        } while (msg.hasMore());
+        truncated = false;
+        return true;
+    }
+
+    /**
+     * @return the routing envelope of the request, including the empty delimiter frame
+     */
+    List<byte[]> getEnvelope() {
+        return envelope;
+    }
+
+    /**
+     * Send the routing envelope and the parts of the request to another socket, as they were received.
+     *
+     * @param target socket the request is forwarded to
+     */
+    void forward(ZMQ.Socket target) {
+        for (int i = 0; i < envelope.size(); i++) {
+            target.send(envelope.get(i), i < envelope.size() - 1 || partCount > 0 ? zmq.ZMQ.ZMQ_SNDMORE : 0);
+        }
+        for (int i = 0; i < partCount; i++) {
+            target.send(parts[i], i < partCount - 1 ? zmq.ZMQ.ZMQ_SNDMORE : 0);
+        }
+    }
+
+    /**
+     * @return the component type of the request
+     */
+    String getComponentType() {
+        byte[] frame = parts[0];
+        lookup.set(frame);
+        String name = names.get(lookup);
+        if (name == null) {
+            name = new String(frame, ZMQ.CHARSET);
+            if (names.size() < MAX_NAMES) {
+                names.put(new Name().set(frame), name);
+            }
+        }
+        return name;
+    }
+
+    /**
+     * @return the mappings of the request, or null if they were not sent
+     */
+    byte[] getMappings() {
+        return parts[1].length == 0 ? null : parts[1];
+    }
+
+    /**
+     * @return the command of the request
+     */
+    byte[] getCommand() {
+        return parts[2];
+    }
+
+    /**
+     * Key of a name by the bytes it was received in.
+     */
+    private static final class Name {
+
+        private byte[] bytes;
+
+        private int hash;
+
+        private Name set(byte[] bytes) {
+            this.bytes = bytes;
+            this.hash = Arrays.hashCode(bytes);
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Name && Arrays.equals(bytes, ((Name) o).bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
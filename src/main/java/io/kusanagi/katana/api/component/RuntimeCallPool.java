@@ -0,0 +1,178 @@
+/*
+ * Java 8 SDK for the KATANA(tm) Platform (http://katana.kusanagi.io)
+ * Copyright (c) 2016-2017 KUSANAGI S.L. All rights reserved.
+ *
+ * Distributed under the MIT license
+ *
+ * For the full copyright and license information, please view the LICENSE
+ *  file that was distributed with this source code
+ *
+ * @link      https://github.com/kusanagi/katana-sdk-java8
+ * @license   http://www.opensource.org/licenses/mit-license.php MIT License
+ * @copyright Copyright (c) 2016-2017 KUSANAGI S.L. (http://kusanagi.io)
+ *
+ */
+
+package io.kusanagi.katana.api.component;
+
+import org.zeromq.ZMQ;
+
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of persistent REQ sockets used to perform run-time calls, keyed by the address of the target Service.
+ * <p>
+ * All the sockets are created from a single context shared by every worker of the component. A socket is borrowed for
+ * the duration of one request/reply round trip and returned to the pool afterwards, unless the round trip failed or
+ * timed out, in which case the socket is left in an unusable state and gets evicted.
+ * <p>
+ * Asynchronous calls run on a fixed set of daemon threads, one per pooled socket, so a fan-out never opens more
+ * connections than the pool is allowed to keep.
+ */
+public class RuntimeCallPool {
+
+    private final ZMQ.Context context;
+
+    private final int size;
+
+    private final Map<String, BlockingDeque<ZMQ.Socket>> idleSockets;
+
+    private final ExecutorService executor;
+
+    private final AtomicInteger borrowed;
+
+    private final AtomicBoolean terminated;
+
+    private volatile boolean closed;
+
+    /**
+     * @param size maximum number of idle sockets kept per address
+     */
+    public RuntimeCallPool(int size) {
+        this.context = ZMQ.context(1);
+        this.size = size < 1 ? 1 : size;
+        this.idleSockets = new ConcurrentHashMap<>();
+        this.borrowed = new AtomicInteger();
+        this.terminated = new AtomicBoolean();
+        this.executor = Executors.newFixedThreadPool(this.size, runnable -> {
+            Thread thread = new Thread(runnable, "katana-runtime-call");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Send the payload of a run-time call to the given address and wait for the reply.
+     *
+     * @param address tcp address of the Service, without the protocol
+     * @param payload serialized call payload
+     * @param timeout time to wait for the reply in milliseconds
+     * @return the reply bytes, or null if no reply was received before the timeout
+     */
+    public byte[] send(String address, byte[] payload, int timeout) {
+        ZMQ.Socket socket = borrow(address);
+        boolean healthy = false;
+        try {
+            if (!socket.send(new byte[]{0x01}, zmq.ZMQ.ZMQ_SNDMORE) || !socket.send(payload, 0)) {
+                return null;
+            }
+
+            ZMQ.Poller poll = new ZMQ.Poller(1);
+            poll.register(socket, ZMQ.Poller.POLLIN);
+            if (poll.poll(timeout) <= 0) {
+                return null;
+            }
+
+            byte[] reply = socket.recv();
+            healthy = reply != null && !socket.hasReceiveMore();
+            return reply;
+        } finally {
+            release(address, socket, healthy);
+        }
+    }
+
+    /**
+     * Send the payload of a run-time call without blocking the calling thread.
+     * <p>
+     * The timeout is counted from the moment this method is called, so the time spent waiting for a free thread is
+     * part of the budget of the call.
+     *
+     * @param address tcp address of the Service, without the protocol
+     * @param payload serialized call payload
+     * @param timeout time to wait for the reply in milliseconds
+     * @return a future completed with the reply bytes, or with null if no reply was received before the timeout
+     */
+    public CompletableFuture<byte[]> sendAsync(String address, byte[] payload, int timeout) {
+        long deadline = System.currentTimeMillis() + timeout;
+        return CompletableFuture.supplyAsync(() -> {
+            long remaining = deadline - System.currentTimeMillis();
+            return remaining > 0 ? send(address, payload, (int) remaining) : null;
+        }, executor);
+    }
+
+    /**
+     * Close every idle socket. Sockets in use are closed as soon as they are released, and the context is terminated
+     * once the last socket is closed.
+     */
+    public void close() {
+        this.closed = true;
+        this.executor.shutdown();
+        for (BlockingDeque<ZMQ.Socket> sockets : idleSockets.values()) {
+            ZMQ.Socket socket;
+            while ((socket = sockets.pollFirst()) != null) {
+                socket.close();
+            }
+        }
+        terminateIfUnused();
+    }
+
+    private void terminateIfUnused() {
+        if (closed && borrowed.get() == 0 && terminated.compareAndSet(false, true)) {
+            context.term();
+        }
+    }
+
+    private ZMQ.Socket borrow(String address) {
+        borrowed.incrementAndGet();
+        if (closed) {
+            borrowed.decrementAndGet();
+            terminateIfUnused();
+            throw new IllegalStateException("Runtime call pool is closed");
+        }
+
+        ZMQ.Socket socket = getIdleSockets(address).pollFirst();
+        if (socket == null) {
+            socket = context.socket(ZMQ.REQ);
+            socket.setLinger(0);
+            socket.connect(String.format(Constants.TCP_ADDRESS_STRING, Constants.TCP, address));
+        }
+        return socket;
+    }
+
+    private void release(String address, ZMQ.Socket socket, boolean healthy) {
+        if (!healthy || closed || !getIdleSockets(address).offerFirst(socket)) {
+            // A REQ socket that did not complete its round trip can not be reused
+            socket.close();
+        } else if (closed && getIdleSockets(address).remove(socket)) {
+            socket.close();
+        }
+        borrowed.decrementAndGet();
+        terminateIfUnused();
+    }
+
+    private BlockingDeque<ZMQ.Socket> getIdleSockets(String address) {
+        return idleSockets.computeIfAbsent(address, key -> new LinkedBlockingDeque<>(size));
+    }
+}
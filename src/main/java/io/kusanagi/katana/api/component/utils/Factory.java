@@ -15,6 +15,9 @@
 
 package io.kusanagi.katana.api.component.utils;
 
+import io.kusanagi.katana.api.component.Constants;
+import io.kusanagi.katana.api.component.Serializer;
+
 /**
  * Created by jega on 7/03/17.
  */
@@ -31,4 +34,16 @@ public class Factory {
     public static MessagePackSerializer getSerializer() {
         return new MessagePackSerializer();
     }
+
+    /**
+     * @param type {@link Constants#SERIALIZER_STREAMING} for the msgpack-core codec, any other value for the Jackson
+     *             binding
+     * @return the serializer of the given type
+     */
+    public static Serializer getSerializer(String type) {
+        if (Constants.SERIALIZER_STREAMING.equals(type)) {
+            return new StreamingMessagePackSerializer();
+        }
+        return new MessagePackSerializer();
+    }
 }
@@ -0,0 +1,985 @@
+/*
+ * Java 8 SDK for the KATANA(tm) Platform (http://katana.kusanagi.io)
+ * Copyright (c) 2016-2017 KUSANAGI S.L. All rights reserved.
+ *
+ * Distributed under the MIT license
+ *
+ * For the full copyright and license information, please view the LICENSE
+ *  file that was distributed with this source code
+ *
+ * @link      https://github.com/kusanagi/katana-sdk-java8
+ * @license   http://www.opensource.org/licenses/mit-license.php MIT License
+ * @copyright Copyright (c) 2016-2017 KUSANAGI S.L. (http://kusanagi.io)
+ *
+ */
+
+package io.kusanagi.katana.api.component.utils;
+
+import io.kusanagi.katana.api.commands.ActionCommandPayload;
+import io.kusanagi.katana.api.commands.RequestCommandPayload;
+import io.kusanagi.katana.api.commands.ResponseCommandPayload;
+import io.kusanagi.katana.api.commands.common.CommandMeta;
+import io.kusanagi.katana.api.component.Key;
+import io.kusanagi.katana.api.replies.ErrorPayload;
+import io.kusanagi.katana.api.replies.ReturnReplyPayload;
+import io.kusanagi.katana.api.serializers.ActionEntity;
+import io.kusanagi.katana.api.serializers.CallEntity;
+import io.kusanagi.katana.api.serializers.ErrorEntity;
+import io.kusanagi.katana.api.serializers.HttpRequestEntity;
+import io.kusanagi.katana.api.serializers.HttpResponseEntity;
+import io.kusanagi.katana.api.serializers.RawSection;
+import io.kusanagi.katana.api.serializers.RequestEntity;
+import io.kusanagi.katana.api.serializers.ResponseEntity;
+import io.kusanagi.katana.api.serializers.TransactionEntity;
+import io.kusanagi.katana.api.serializers.TransportEntity;
+import io.kusanagi.katana.sdk.File;
+import io.kusanagi.katana.sdk.Meta;
+import io.kusanagi.katana.sdk.Param;
+import io.kusanagi.katana.sdk.RequestCall;
+import io.kusanagi.katana.sdk.ServiceTransaction;
+import io.kusanagi.katana.sdk.TransportMeta;
+import org.msgpack.core.ExtensionTypeHeader;
+import org.msgpack.core.MessageFormat;
+import org.msgpack.core.MessagePack;
+import org.msgpack.core.MessageUnpacker;
+import org.msgpack.jackson.dataformat.MessagePackExtensionType;
+import org.msgpack.value.ValueType;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the command payloads sent by KATANA straight from a {@link MessageUnpacker}.
+ * <p>
+ * Every entity is read field by field, keyed on the {@link Key} constants, and scalars are coerced the same way the
+ * Jackson binding does, so the objects built here are equal to the ones built by {@link MessagePackSerializer}.
+ * Unknown keys are skipped.
+ * <p>
+ * The files, data, relations, links and errors sections of a transport are kept as slices of the message, see
+ * {@link RawSection}, and only decoded when they are first accessed.
+ */
+final class MessagePackPayloadReader {
+
+    /**
+     * Reads one value of type T from the unpacker.
+     *
+     * @param <T> type of the value
+     */
+    @FunctionalInterface
+    interface ValueReader<T> {
+        T read(MessageUnpacker unpacker) throws IOException;
+    }
+
+    /**
+     * Reads a payload from the unpacker of the given message, which the transport sections are sliced from.
+     *
+     * @param <T> type of the payload
+     */
+    @FunctionalInterface
+    interface PayloadReader<T> {
+        T read(MessageUnpacker unpacker, byte[] message) throws IOException;
+    }
+
+    private static final ValueReader<List<File>> FILE_LIST = unpacker -> readList(unpacker, MessagePackPayloadReader::readFile);
+
+    private static final ValueReader<List<CallEntity>> CALL_LIST = unpacker -> readList(unpacker, MessagePackPayloadReader::readCall);
+
+    private static final ValueReader<List<ErrorEntity>> ERROR_LIST = unpacker -> readList(unpacker, MessagePackPayloadReader::readError);
+
+    private static final ValueReader<List<Object>> VALUE_LIST = unpacker -> readList(unpacker, MessagePackPayloadReader::readValue);
+
+    private MessagePackPayloadReader() {
+        // private constructor to block the instantiation of this object
+    }
+
+    // COMMANDS
+
+    static ActionCommandPayload readActionCommandPayload(MessageUnpacker unpacker, byte[] message) throws IOException {
+        if (unpackNil(unpacker)) {
+            return null;
+        }
+        ActionCommandPayload payload = new ActionCommandPayload();
+        int size = unpacker.unpackMapHeader();
+        for (int i = 0; i < size; i++) {
+            switch (unpacker.unpackString()) {
+                case Key.COMMAND_PAYLOAD_COMMAND_META:
+                    payload.setCommandMeta(readCommandMeta(unpacker));
+                    break;
+                case Key.COMMAND_PAYLOAD_COMMAND:
+                    payload.setCommand(readActionCommand(unpacker, message));
+                    break;
+                default:
+                    unpacker.skipValue();
+            }
+        }
+        return payload;
+    }
+
+    static RequestCommandPayload readRequestCommandPayload(MessageUnpacker unpacker, byte[] message) throws IOException {
+        if (unpackNil(unpacker)) {
+            return null;
+        }
+        RequestCommandPayload payload = new RequestCommandPayload();
+        int size = unpacker.unpackMapHeader();
+        for (int i = 0; i < size; i++) {
+            switch (unpacker.unpackString()) {
+                case Key.COMMAND_PAYLOAD_COMMAND_META:
+                    payload.setCommandMeta(readCommandMeta(unpacker));
+                    break;
+                case Key.COMMAND_PAYLOAD_COMMAND:
+                    payload.setCommand(readRequestCommand(unpacker));
+                    break;
+                default:
+                    unpacker.skipValue();
+            }
+        }
+        return payload;
+    }
+
+    static ResponseCommandPayload readResponseCommandPayload(MessageUnpacker unpacker, byte[] message) throws IOException {
+        if (unpackNil(unpacker)) {
+            return null;
+        }
+        ResponseCommandPayload payload = new ResponseCommandPayload();
+        int size = unpacker.unpackMapHeader();
+        for (int i = 0; i < size; i++) {
+            switch (unpacker.unpackString()) {
+                case Key.COMMAND_PAYLOAD_COMMAND_META:
+                    payload.setCommandMeta(readCommandMeta(unpacker));
+                    break;
+                case Key.COMMAND_PAYLOAD_COMMAND:
+                    payload.setCommand(readResponseCommand(unpacker, message));
+                    break;
+                default:
+                    unpacker.skipValue();
+            }
+        }
+        return payload;
+    }
+
+    private static CommandMeta readCommandMeta(MessageUnpacker unpacker) throws IOException {
+        if (unpackNil(unpacker)) {
+            return null;
+        }
+        CommandMeta commandMeta = new CommandMeta();
+        int size = unpacker.unpackMapHeader();
+        for (int i = 0; i < size; i++) {
+            if (Key.COMMAND_META_SCOPE.equals(unpacker.unpackString())) {
+                commandMeta.setScope(readString(unpacker));
+            } else {
+                unpacker.skipValue();
+            }
+        }
+        return commandMeta;
+    }
+
+    private static ActionCommandPayload.ActionCommand readActionCommand(MessageUnpacker unpacker, byte[] message) throws IOException {
+        if (unpackNil(unpacker)) {
+            return null;
+        }
+        ActionCommandPayload.ActionCommand command = new ActionCommandPayload.ActionCommand();
+        int size = unpacker.unpackMapHeader();
+        for (int i = 0; i < size; i++) {
+            switch (unpacker.unpackString()) {
+                case Key.COMMAND_NAME:
+                    command.setName(readString(unpacker));
+                    break;
+                case Key.COMMAND_ARGUMENT:
+                    command.setArgument(readAction(unpacker, message));
+                    break;
+                default:
+                    unpacker.skipValue();
+            }
+        }
+        return command;
+    }
+
+    private static RequestCommandPayload.RequestCommand readRequestCommand(MessageUnpacker unpacker) throws IOException {
+        if (unpackNil(unpacker)) {
+            return null;
+        }
+        RequestCommandPayload.RequestCommand command = new RequestCommandPayload.RequestCommand();
+        int size = unpacker.unpackMapHeader();
+        for (int i = 0; i < size; i++) {
+            switch (unpacker.unpackString()) {
+                case Key.COMMAND_NAME:
+                    command.setName(readString(unpacker));
+                    break;
+                case Key.COMMAND_ARGUMENT:
+                    command.setArgument(readRequest(unpacker));
+                    break;
+                default:
+                    unpacker.skipValue();
+            }
+        }
+        return command;
+    }
+
+    private static ResponseCommandPayload.ResponseCommand readResponseCommand(MessageUnpacker unpacker, byte[] message) throws IOException {
+        if (unpackNil(unpacker)) {
+            return null;
+        }
+        ResponseCommandPayload.ResponseCommand command = new ResponseCommandPayload.ResponseCommand();
+        int size = unpacker.unpackMapHeader();
+        for (int i = 0; i < size; i++) {
+            switch (unpacker.unpackString()) {
+                case Key.COMMAND_NAME:
+                    command.setName(readString(unpacker));
+                    break;
+                case Key.COMMAND_ARGUMENT:
+                    command.setArgument(readResponse(unpacker, message));
+                    break;
+                default:
+                    unpacker.skipValue();
+            }
+        }
+        return command;
+    }
+
+    // REPLIES
+
+    static ReturnReplyPayload readReturnReplyPayload(MessageUnpacker unpacker, byte[] message) throws IOException {
+        if (unpackNil(unpacker)) {
+            return null;
+        }
+        ReturnReplyPayload payload = new ReturnReplyPayload();
+        int size = unpacker.unpackMapHeader();
+        for (int i = 0; i < size; i++) {
+            if (Key.REPLY_PAYLOAD_COMMAND_REPLY.equals(unpacker.unpackString())) {
+                payload.setCommandReply(readReturnCommandReply(unpacker, message));
+            } else {
+                unpacker.skipValue();
+            }
+        }
+        return payload;
+    }
+
+    private static ReturnReplyPayload.ReturnCommandReply readReturnCommandReply(MessageUnpacker unpacker, byte[] message) throws IOException {
+        if (unpackNil(unpacker)) {
+            return null;
+        }
+        ReturnReplyPayload.ReturnCommandReply commandReply = new ReturnReplyPayload.ReturnCommandReply();
+        int size = unpacker.unpackMapHeader();
+        for (int i = 0; i < size; i++) {
+            switch (unpacker.unpackString()) {
+                case Key.COMMAND_REPLY_NAME:
+                    commandReply.setName(readString(unpacker));
+                    break;
+                case Key.COMMAND_REPLY_RESULT:
+                    commandReply.setResult(readReturnResult(unpacker, message));
+                    break;
+                default:
+                    unpacker.skipValue();
+            }
+        }
+        return commandReply;
+    }
+
+    private static ReturnReplyPayload.ReturnResult readReturnResult(MessageUnpacker unpacker, byte[] message) throws IOException {
+        if (unpackNil(unpacker)) {
+            return null;
+        }
+        ReturnReplyPayload.ReturnResult result = new ReturnReplyPayload.ReturnResult();
+        int size = unpacker.unpackMapHeader();
+        for (int i = 0; i < size; i++) {
+            switch (unpacker.unpackString()) {
+                case Key.RETURN_RESULT_TRANSPORT:
+                    result.setTransport(readTransport(unpacker, message));
+                    break;
+                case Key.RETURN_RESULT_RETURN_OBJECT:
+                    result.setReturnObject(readValue(unpacker));
+                    break;
+                default:
+                    unpacker.skipValue();
+            }
+        }
+        return result;
+    }
+
+    static ErrorPayload readErrorPayload(MessageUnpacker unpacker, byte[] message) throws IOException {
+        if (unpackNil(unpacker)) {
+            return null;
+        }
+        ErrorPayload payload = new ErrorPayload();
+        int size = unpacker.unpackMapHeader();
+        for (int i = 0; i < size; i++) {
+            if (Key.ERROR.equals(unpacker.unpackString())) {
+                payload.setError(readError(unpacker));
+            } else {
+                unpacker.skipValue();
+            }
+        }
+        return payload;
+    }
+
+    // ENTITIES
+
+    private static ActionEntity readAction(MessageUnpacker unpacker, byte[] message) throws IOException {
+        if (unpackNil(unpacker)) {
+            return null;
+        }
+        ActionEntity action = new ActionEntity();
+        int size = unpacker.unpackMapHeader();
+        for (int i = 0; i < size; i++) {
+            switch (unpacker.unpackString()) {
+                case Key.ACTION_PARAMS:
+                    action.setParams(readList(unpacker, MessagePackPayloadReader::readParam));
+                    break;
+                case Key.ACTION_TRANSPORT:
+                    action.setTransport(readTransport(unpacker, message));
+                    break;
+                case Key.ACTION_RETURN_OBJECT:
+                    action.setReturnObject(readValue(unpacker));
+                    break;
+                case "actionName":
+                    action.setActionName(readString(unpacker));
+                    break;
+                default:
+                    unpacker.skipValue();
+            }
+        }
+        return action;
+    }
+
+    private static RequestEntity readRequest(MessageUnpacker unpacker) throws IOException {
+        if (unpackNil(unpacker)) {
+            return null;
+        }
+        RequestEntity request = new RequestEntity();
+        int size = unpacker.unpackMapHeader();
+        for (int i = 0; i < size; i++) {
+            switch (unpacker.unpackString()) {
+                case Key.REQUEST_META:
+                    request.setMeta(readMeta(unpacker));
+                    break;
+                case Key.REQUEST_HTTP_REQUEST:
+                    request.setHttpRequest(readHttpRequest(unpacker));
+                    break;
+                case Key.REQUEST_REQUEST_CALL:
+                    request.setRequestCall(readRequestCall(unpacker));
+                    break;
+                default:
+                    unpacker.skipValue();
+            }
+        }
+        return request;
+    }
+
+    private static ResponseEntity readResponse(MessageUnpacker unpacker, byte[] message) throws IOException {
+        if (unpackNil(unpacker)) {
+            return null;
+        }
+        ResponseEntity response = new ResponseEntity();
+        int size = unpacker.unpackMapHeader();
+        for (int i = 0; i < size; i++) {
+            switch (unpacker.unpackString()) {
+                case Key.RESPONSE_META:
+                    response.setMeta(readMeta(unpacker));
+                    break;
+                case Key.RESPONSE_HTTP_REQUEST:
+                    response.setHttpRequest(readHttpRequest(unpacker));
+                    break;
+                case Key.RESPONSE_HTTP_RESPONSE:
+                    response.setHttpResponse(readHttpResponse(unpacker));
+                    break;
+                case Key.RESPONSE_TRANSPORT:
+                    response.setTransport(readTransport(unpacker, message));
+                    break;
+                case Key.RESPONSE_RETURN:
+                    response.setReturnObject(readValue(unpacker));
+                    break;
+                default:
+                    unpacker.skipValue();
+            }
+        }
+        return response;
+    }
+
+    private static Meta readMeta(MessageUnpacker unpacker) throws IOException {
+        if (unpackNil(unpacker)) {
+            return null;
+        }
+        Meta meta = new Meta();
+        int size = unpacker.unpackMapHeader();
+        for (int i = 0; i < size; i++) {
+            switch (unpacker.unpackString()) {
+                case Key.META_VERSION:
+                    meta.setVersion(readString(unpacker));
+                    break;
+                case Key.META_ID:
+                    meta.setId(readString(unpacker));
+                    break;
+                case Key.META_DATETIME:
+                    meta.setDatetime(readString(unpacker));
+                    break;
+                case Key.META_TYPE:
+                    meta.setType(readInt(unpacker));
+                    break;
+                case Key.META_PROTOCOL:
+                    meta.setProtocol(readString(unpacker));
+                    break;
+                case Key.META_GATEWAY:
+                    meta.setGateway(readList(unpacker, MessagePackPayloadReader::readString));
+                    break;
+                case Key.META_CLIENT:
+                    meta.setClient(readString(unpacker));
+                    break;
+                case Key.META_ATTRS:
+                    meta.setAttributes(readMap(unpacker, MessagePackPayloadReader::readString));
+                    break;
+                default:
+                    unpacker.skipValue();
+            }
+        }
+        return meta;
+    }
+
+    private static HttpRequestEntity readHttpRequest(MessageUnpacker unpacker) throws IOException {
+        if (unpackNil(unpacker)) {
+            return null;
+        }
+        HttpRequestEntity httpRequest = new HttpRequestEntity();
+        int size = unpacker.unpackMapHeader();
+        for (int i = 0; i < size; i++) {
+            switch (unpacker.unpackString()) {
+                case Key.HTTP_REQUEST_PROTOCOL_VERSION:
+                    httpRequest.setProtocolVersion(readString(unpacker));
+                    break;
+                case Key.HTTP_REQUEST_METHOD:
+                    httpRequest.setMethod(readString(unpacker));
+                    break;
+                case Key.HTTP_REQUEST_URL:
+                    httpRequest.setUrl(readString(unpacker));
+                    break;
+                case Key.HTTP_REQUEST_QUERY_PARAMS_ARRAY:
+                    httpRequest.setQueryParamsArray(readMap(unpacker, MessagePackPayloadReader::readStringList));
+                    break;
+                case Key.HTTP_REQUEST_POST_PARAMS_ARRAY:
+                    httpRequest.setPostParamsArray(readMap(unpacker, MessagePackPayloadReader::readStringList));
+                    break;
+                case Key.HTTP_REQUEST_HEADERS:
+                    httpRequest.setHeaders(readMap(unpacker, MessagePackPayloadReader::readStringList));
+                    break;
+                case Key.HTTP_REQUEST_BODY:
+                    httpRequest.setBody(readString(unpacker));
+                    break;
+                case Key.HTTP_REQUEST_FILES:
+                    httpRequest.setFiles(readList(unpacker, MessagePackPayloadReader::readFile));
+                    break;
+                default:
+                    unpacker.skipValue();
+            }
+        }
+        return httpRequest;
+    }
+
+    private static HttpResponseEntity readHttpResponse(MessageUnpacker unpacker) throws IOException {
+        if (unpackNil(unpacker)) {
+            return null;
+        }
+        HttpResponseEntity httpResponse = new HttpResponseEntity();
+        int size = unpacker.unpackMapHeader();
+        for (int i = 0; i < size; i++) {
+            switch (unpacker.unpackString()) {
+                case Key.HTTP_RESPONSE_PROTOCOL_VERSION:
+                    httpResponse.setProtocolVersion(readString(unpacker));
+                    break;
+                case Key.HTTP_RESPONSE_STATUS:
+                    httpResponse.setStatus(readString(unpacker));
+                    break;
+                case Key.HTTP_RESPONSE_HEADERS:
+                    httpResponse.setHeaders(readMap(unpacker, MessagePackPayloadReader::readStringList));
+                    break;
+                case Key.HTTP_RESPONSE_BODY:
+                    httpResponse.setBody(readString(unpacker));
+                    break;
+                default:
+                    unpacker.skipValue();
+            }
+        }
+        return httpResponse;
+    }
+
+    private static RequestCall readRequestCall(MessageUnpacker unpacker) throws IOException {
+        if (unpackNil(unpacker)) {
+            return null;
+        }
+        RequestCall requestCall = new RequestCall();
+        int size = unpacker.unpackMapHeader();
+        for (int i = 0; i < size; i++) {
+            switch (unpacker.unpackString()) {
+                case Key.REQUEST_CALL_SERVICE:
+                    requestCall.setService(readString(unpacker));
+                    break;
+                case Key.REQUEST_CALL_VERSION:
+                    requestCall.setVersion(readString(unpacker));
+                    break;
+                case Key.REQUEST_CALL_ACTION:
+                    requestCall.setAction(readString(unpacker));
+                    break;
+                case Key.REQUEST_CALL_PARAMS:
+                    requestCall.setParams(readList(unpacker, MessagePackPayloadReader::readParam));
+                    break;
+                default:
+                    unpacker.skipValue();
+            }
+        }
+        return requestCall;
+    }
+
+    private static TransportEntity readTransport(MessageUnpacker unpacker, byte[] message) throws IOException {
+        if (unpackNil(unpacker)) {
+            return null;
+        }
+        TransportEntity transport = new TransportEntity();
+        int size = unpacker.unpackMapHeader();
+        for (int i = 0; i < size; i++) {
+            switch (unpacker.unpackString()) {
+                case Key.TRANSPORT_META:
+                    transport.setMeta(readTransportMeta(unpacker));
+                    break;
+                case Key.TRANSPORT_BODY:
+                    transport.setBody(readFile(unpacker));
+                    break;
+                case Key.TRANSPORT_FILES:
+                    transport.setRawSection(Key.TRANSPORT_FILES, readRawSection(unpacker, message, 4, FILE_LIST));
+                    break;
+                case Key.TRANSPORT_DATA:
+                    transport.setRawSection(Key.TRANSPORT_DATA, readRawSection(unpacker, message, 4, MessagePackPayloadReader::readValue));
+                    break;
+                case Key.TRANSPORT_RELATIONS:
+                    transport.setRawSection(Key.TRANSPORT_RELATIONS, readRawSection(unpacker, message, 5, MessagePackPayloadReader::readValue));
+                    break;
+                case Key.TRANSPORT_LINKS:
+                    transport.setRawSection(Key.TRANSPORT_LINKS, readRawSection(unpacker, message, 3, MessagePackPayloadReader::readString));
+                    break;
+                case Key.TRANSPORT_CALLS:
+                    transport.setCalls(readNestedMap(unpacker, 2, CALL_LIST));
+                    break;
+                case Key.TRANSPORT_TRANSACTIONS:
+                    transport.setTransactions(readTransactions(unpacker));
+                    break;
+                case Key.TRANSPORT_ERRORS:
+                    transport.setRawSection(Key.TRANSPORT_ERRORS, readRawSection(unpacker, message, 3, ERROR_LIST));
+                    break;
+                default:
+                    unpacker.skipValue();
+            }
+        }
+        return transport;
+    }
+
+    private static TransportMeta readTransportMeta(MessageUnpacker unpacker) throws IOException {
+        if (unpackNil(unpacker)) {
+            return null;
+        }
+        TransportMeta meta = new TransportMeta();
+        int size = unpacker.unpackMapHeader();
+        for (int i = 0; i < size; i++) {
+            switch (unpacker.unpackString()) {
+                case Key.TRANSPORT_META_VERSION:
+                    meta.setVersion(readString(unpacker));
+                    break;
+                case Key.TRANSPORT_META_ID:
+                    meta.setId(readString(unpacker));
+                    break;
+                case Key.TRANSPORT_META_DATETIME:
+                    meta.setDatetime(readString(unpacker));
+                    break;
+                case Key.TRANSPORT_META_START_TIME:
+                    meta.setStartTime(readString(unpacker));
+                    break;
+                case Key.TRANSPORT_META_END_TIME:
+                    meta.setEndTime(readString(unpacker));
+                    break;
+                case Key.TRANSPORT_META_DURATION:
+                    meta.setDuration(readInt(unpacker));
+                    break;
+                case Key.TRANSPORT_META_GATEWAY:
+                    meta.setGateway(readList(unpacker, MessagePackPayloadReader::readString));
+                    break;
+                case Key.TRANSPORT_META_ORIGIN:
+                    List<String> origin = readList(unpacker, MessagePackPayloadReader::readString);
+                    meta.setOrigin(origin == null ? null : origin.toArray(new String[origin.size()]));
+                    break;
+                case Key.TRANSPORT_META_LEVEL:
+                    meta.setLevel(readInt(unpacker));
+                    break;
+                case Key.TRANSPORT_META_FALLBACK:
+                    meta.setFallback(readList(unpacker, VALUE_LIST));
+                    break;
+                case Key.TRANSPORT_META_PROPERTIES:
+                    meta.setProperties(readMap(unpacker, MessagePackPayloadReader::readString));
+                    break;
+                default:
+                    unpacker.skipValue();
+            }
+        }
+        return meta;
+    }
+
+    private static File readFile(MessageUnpacker unpacker) throws IOException {
+        if (unpackNil(unpacker)) {
+            return null;
+        }
+        File file = new File();
+        int size = unpacker.unpackMapHeader();
+        for (int i = 0; i < size; i++) {
+            switch (unpacker.unpackString()) {
+                case Key.FILE_NAME:
+                    file.setName(readString(unpacker));
+                    break;
+                case Key.FILE_PATH:
+                    file.setPath(readString(unpacker));
+                    break;
+                case Key.FILE_MIME:
+                    file.setMime(readString(unpacker));
+                    break;
+                case Key.FILE_FILENAME:
+                    file.setFilename(readString(unpacker));
+                    break;
+                case Key.FILE_SIZE:
+                    file.setSize(readString(unpacker));
+                    break;
+                case Key.FILE_TOKEN:
+                    file.setToken(readString(unpacker));
+                    break;
+                case "exists":
+                    file.setExists(readBoolean(unpacker));
+                    break;
+                default:
+                    unpacker.skipValue();
+            }
+        }
+        return file;
+    }
+
+    private static Param readParam(MessageUnpacker unpacker) throws IOException {
+        if (unpackNil(unpacker)) {
+            return null;
+        }
+        Param param = new Param();
+        int size = unpacker.unpackMapHeader();
+        for (int i = 0; i < size; i++) {
+            switch (unpacker.unpackString()) {
+                case Key.PARAM_NAME:
+                    param.setName(readString(unpacker));
+                    break;
+                case Key.PARAM_VALUE:
+                    param.setValue(readValue(unpacker));
+                    break;
+                case Key.PARAM_TYPE:
+                    param.setType(readString(unpacker));
+                    break;
+                case "exists":
+                    param.setExists(readBoolean(unpacker));
+                    break;
+                default:
+                    unpacker.skipValue();
+            }
+        }
+        return param;
+    }
+
+    private static CallEntity readCall(MessageUnpacker unpacker) throws IOException {
+        if (unpackNil(unpacker)) {
+            return null;
+        }
+        CallEntity call = new CallEntity();
+        int size = unpacker.unpackMapHeader();
+        for (int i = 0; i < size; i++) {
+            switch (unpacker.unpackString()) {
+                case Key.CALL_DURATION:
+                    call.setDuration(readInt(unpacker));
+                    break;
+                case Key.CALL_NAME:
+                    call.setName(readString(unpacker));
+                    break;
+                case Key.CALL_VERSION:
+                    call.setVersion(readString(unpacker));
+                    break;
+                case Key.CALL_ACTION:
+                    call.setAction(readString(unpacker));
+                    break;
+                case Key.CALL_CALLER:
+                    call.setCaller(readString(unpacker));
+                    break;
+                case Key.CALL_PARAMS:
+                    call.setParams(readList(unpacker, MessagePackPayloadReader::readParam));
+                    break;
+                case Key.CALL_GATEWAY:
+                    call.setGateway(readString(unpacker));
+                    break;
+                case Key.CALL_TIMEOUT:
+                    call.setTimeout(readInt(unpacker));
+                    break;
+                default:
+                    unpacker.skipValue();
+            }
+        }
+        return call;
+    }
+
+    private static TransactionEntity readTransactions(MessageUnpacker unpacker) throws IOException {
+        if (unpackNil(unpacker)) {
+            return null;
+        }
+        TransactionEntity transactions = new TransactionEntity();
+        int size = unpacker.unpackMapHeader();
+        for (int i = 0; i < size; i++) {
+            switch (unpacker.unpackString()) {
+                case Key.TRANSACTION_COMMIT:
+                    transactions.setCommit(readList(unpacker, MessagePackPayloadReader::readServiceTransaction));
+                    break;
+                case Key.TRANSACTION_ROLLBACK:
+                    transactions.setRollback(readList(unpacker, MessagePackPayloadReader::readServiceTransaction));
+                    break;
+                case Key.TRANSACTION_COMPLETE:
+                    transactions.setComplete(readList(unpacker, MessagePackPayloadReader::readServiceTransaction));
+                    break;
+                default:
+                    unpacker.skipValue();
+            }
+        }
+        return transactions;
+    }
+
+    private static ServiceTransaction readServiceTransaction(MessageUnpacker unpacker) throws IOException {
+        if (unpackNil(unpacker)) {
+            return null;
+        }
+        ServiceTransaction transaction = new ServiceTransaction();
+        int size = unpacker.unpackMapHeader();
+        for (int i = 0; i < size; i++) {
+            switch (unpacker.unpackString()) {
+                case Key.SERVICE_TRANSACTION_NAME:
+                    transaction.setName(readString(unpacker));
+                    break;
+                case Key.SERVICE_TRANSACTION_VERSION:
+                    transaction.setVersion(readString(unpacker));
+                    break;
+                case Key.SERVICE_TRANSACTION_ACTION:
+                    transaction.setAction(readString(unpacker));
+                    break;
+                case Key.SERVICE_TRANSACTION_CALLER:
+                    transaction.setCaller(readString(unpacker));
+                    break;
+                case Key.SERVICE_TRANSACTION_PARAMS:
+                    transaction.setParams(readList(unpacker, MessagePackPayloadReader::readParam));
+                    break;
+                default:
+                    unpacker.skipValue();
+            }
+        }
+        return transaction;
+    }
+
+    private static ErrorEntity readError(MessageUnpacker unpacker) throws IOException {
+        if (unpackNil(unpacker)) {
+            return null;
+        }
+        ErrorEntity error = new ErrorEntity();
+        int size = unpacker.unpackMapHeader();
+        for (int i = 0; i < size; i++) {
+            switch (unpacker.unpackString()) {
+                case Key.ERROR_MESSAGE:
+                    error.setMessage(readString(unpacker));
+                    break;
+                case Key.ERROR_CODE:
+                    error.setCode(readInt(unpacker));
+                    break;
+                case Key.ERROR_STATUS:
+                    error.setStatus(readString(unpacker));
+                    break;
+                default:
+                    unpacker.skipValue();
+            }
+        }
+        return error;
+    }
+
+    // VALUES
+
+    /**
+     * Skip a section of nested maps, keeping the slice of the message it was read from to be decoded on first access.
+     */
+    private static <M> RawSection<M> readRawSection(MessageUnpacker unpacker, byte[] message, int depth, ValueReader<?> valueReader) throws IOException {
+        if (unpackNil(unpacker)) {
+            return null;
+        }
+        int offset = (int) unpacker.getTotalReadBytes();
+        unpacker.skipValue();
+        int length = (int) unpacker.getTotalReadBytes() - offset;
+        return new RawSection<>(message, offset, length, (bytes, sectionOffset, sectionLength) -> {
+            try (MessageUnpacker sectionUnpacker = MessagePack.newDefaultUnpacker(bytes, sectionOffset, sectionLength)) {
+                return readNestedMap(sectionUnpacker, depth, valueReader);
+            }
+        });
+    }
+
+    private static <V> Map<String, V> readMap(MessageUnpacker unpacker, ValueReader<V> valueReader) throws IOException {
+        if (unpackNil(unpacker)) {
+            return null;
+        }
+        int size = unpacker.unpackMapHeader();
+        Map<String, V> map = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            String key = readKey(unpacker);
+            map.put(key, valueReader.read(unpacker));
+        }
+        return map;
+    }
+
+    /**
+     * Read maps nested the given number of levels, like the address, service, version and action levels of the
+     * transport, with the values of the innermost map read by the given reader.
+     */
+    @SuppressWarnings("unchecked")
+    private static <M> M readNestedMap(MessageUnpacker unpacker, int depth, ValueReader<?> valueReader) throws IOException {
+        if (depth == 0) {
+            return (M) valueReader.read(unpacker);
+        }
+        if (unpackNil(unpacker)) {
+            return null;
+        }
+        int size = unpacker.unpackMapHeader();
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            String key = readKey(unpacker);
+            map.put(key, readNestedMap(unpacker, depth - 1, valueReader));
+        }
+        return (M) map;
+    }
+
+    private static <T> List<T> readList(MessageUnpacker unpacker, ValueReader<T> valueReader) throws IOException {
+        if (unpackNil(unpacker)) {
+            return null;
+        }
+        int size = unpacker.unpackArrayHeader();
+        List<T> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(valueReader.read(unpacker));
+        }
+        return list;
+    }
+
+    private static List<String> readStringList(MessageUnpacker unpacker) throws IOException {
+        return readList(unpacker, MessagePackPayloadReader::readString);
+    }
+
+    private static String readKey(MessageUnpacker unpacker) throws IOException {
+        if (unpacker.getNextFormat().getValueType() == ValueType.STRING) {
+            return unpacker.unpackString();
+        }
+        return String.valueOf(readValue(unpacker));
+    }
+
+    /**
+     * Scalars are converted to their text representation, like Jackson does for String properties.
+     */
+    private static String readString(MessageUnpacker unpacker) throws IOException {
+        MessageFormat format = unpacker.getNextFormat();
+        switch (format.getValueType()) {
+            case NIL:
+                unpacker.unpackNil();
+                return null;
+            case INTEGER:
+                return readInteger(unpacker, format).toString();
+            case FLOAT:
+                return String.valueOf(unpacker.unpackDouble());
+            case BOOLEAN:
+                return String.valueOf(unpacker.unpackBoolean());
+            default:
+                return unpacker.unpackString();
+        }
+    }
+
+    private static int readInt(MessageUnpacker unpacker) throws IOException {
+        switch (unpacker.getNextFormat().getValueType()) {
+            case NIL:
+                unpacker.unpackNil();
+                return 0;
+            case FLOAT:
+                return (int) unpacker.unpackDouble();
+            case STRING:
+                String value = unpacker.unpackString().trim();
+                return value.isEmpty() ? 0 : Integer.parseInt(value);
+            default:
+                return unpacker.unpackInt();
+        }
+    }
+
+    private static boolean readBoolean(MessageUnpacker unpacker) throws IOException {
+        switch (unpacker.getNextFormat().getValueType()) {
+            case NIL:
+                unpacker.unpackNil();
+                return false;
+            case INTEGER:
+                return unpacker.unpackLong() != 0;
+            case STRING:
+                return Boolean.parseBoolean(unpacker.unpackString().trim());
+            default:
+                return unpacker.unpackBoolean();
+        }
+    }
+
+    /**
+     * Untyped values are read as the same types produced by Jackson: maps, lists, strings, booleans, byte arrays,
+     * doubles and the smallest of Integer, Long and BigInteger that holds the number.
+     */
+    private static Object readValue(MessageUnpacker unpacker) throws IOException {
+        MessageFormat format = unpacker.getNextFormat();
+        switch (format.getValueType()) {
+            case NIL:
+                unpacker.unpackNil();
+                return null;
+            case BOOLEAN:
+                return unpacker.unpackBoolean();
+            case INTEGER:
+                return readInteger(unpacker, format);
+            case FLOAT:
+                return unpacker.unpackDouble();
+            case STRING:
+                return unpacker.unpackString();
+            case BINARY:
+                return unpacker.readPayload(unpacker.unpackBinaryHeader());
+            case ARRAY:
+                return readList(unpacker, MessagePackPayloadReader::readValue);
+            case MAP:
+                return readMap(unpacker, MessagePackPayloadReader::readValue);
+            default:
+                ExtensionTypeHeader header = unpacker.unpackExtensionTypeHeader();
+                return new MessagePackExtensionType(header.getType(), unpacker.readPayload(header.getLength()));
+        }
+    }
+
+    private static Number readInteger(MessageUnpacker unpacker, MessageFormat format) throws IOException {
+        long value;
+        if (format == MessageFormat.UINT64) {
+            BigInteger bigValue = unpacker.unpackBigInteger();
+            if (bigValue.bitLength() >= Long.SIZE) {
+                return bigValue;
+            }
+            value = bigValue.longValue();
+        } else {
+            value = unpacker.unpackLong();
+        }
+
+        if (value == (int) value) {
+            return (int) value;
+        }
+        return value;
+    }
+
+    private static boolean unpackNil(MessageUnpacker unpacker) throws IOException {
+        if (unpacker.getNextFormat() == MessageFormat.NIL) {
+            unpacker.unpackNil();
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,750 @@
+/*
+ * Java 8 SDK for the KATANA(tm) Platform (http://katana.kusanagi.io)
+ * Copyright (c) 2016-2017 KUSANAGI S.L. All rights reserved.
+ *
+ * Distributed under the MIT license
+ *
+ * For the full copyright and license information, please view the LICENSE
+ *  file that was distributed with this source code
+ *
+ * @link      https://github.com/kusanagi/katana-sdk-java8
+ * @license   http://www.opensource.org/licenses/mit-license.php MIT License
+ * @copyright Copyright (c) 2016-2017 KUSANAGI S.L. (http://kusanagi.io)
+ *
+ */
+
+package io.kusanagi.katana.api.component.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.kusanagi.katana.api.commands.ActionCommandPayload;
+import io.kusanagi.katana.api.commands.RequestCommandPayload;
+import io.kusanagi.katana.api.commands.ResponseCommandPayload;
+import io.kusanagi.katana.api.commands.common.CommandMeta;
+import io.kusanagi.katana.api.component.Key;
+import io.kusanagi.katana.api.replies.CallReplyPayload;
+import io.kusanagi.katana.api.replies.ErrorPayload;
+import io.kusanagi.katana.api.replies.ResponseReplyPayload;
+import io.kusanagi.katana.api.replies.ReturnReplyPayload;
+import io.kusanagi.katana.api.replies.TransportReplyPayload;
+import io.kusanagi.katana.api.serializers.ActionEntity;
+import io.kusanagi.katana.api.serializers.CallEntity;
+import io.kusanagi.katana.api.serializers.ErrorEntity;
+import io.kusanagi.katana.api.serializers.HttpRequestEntity;
+import io.kusanagi.katana.api.serializers.HttpResponseEntity;
+import io.kusanagi.katana.api.serializers.RawSection;
+import io.kusanagi.katana.api.serializers.RequestEntity;
+import io.kusanagi.katana.api.serializers.ResponseEntity;
+import io.kusanagi.katana.api.serializers.TransactionEntity;
+import io.kusanagi.katana.api.serializers.TransportEntity;
+import io.kusanagi.katana.sdk.File;
+import io.kusanagi.katana.sdk.Meta;
+import io.kusanagi.katana.sdk.Param;
+import io.kusanagi.katana.sdk.RequestCall;
+import io.kusanagi.katana.sdk.ServiceTransaction;
+import io.kusanagi.katana.sdk.TransportMeta;
+import org.msgpack.core.MessagePack;
+import org.msgpack.core.MessagePacker;
+import org.msgpack.core.MessageUnpacker;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
+import org.msgpack.value.ValueType;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Writes the command and reply payloads straight to a {@link MessagePacker}.
+ * <p>
+ * The properties are written in the same order as the Jackson binding, and null properties are left out of the same
+ * classes, so the bytes written here are identical to the ones written by {@link MessagePackSerializer}. Values of
+ * types unknown to the writer, like userland objects in the return value, are serialized with Jackson and written as
+ * they are.
+ */
+final class MessagePackPayloadWriter {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper(new MessagePackFactory())
+            .configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
+
+    /**
+     * Writes one value of type T to the packer.
+     *
+     * @param <T> type of the value
+     */
+    @FunctionalInterface
+    interface ValueWriter<T> {
+        void write(MessagePacker packer, T value) throws IOException;
+    }
+
+    private static final ValueWriter<String> STRING = MessagePackPayloadWriter::writeString;
+
+    private static final ValueWriter<List<File>> FILE_LIST = (packer, files) -> writeList(packer, files, MessagePackPayloadWriter::writeFile);
+
+    private static final ValueWriter<List<CallEntity>> CALL_LIST = (packer, calls) -> writeList(packer, calls, MessagePackPayloadWriter::writeCall);
+
+    private static final ValueWriter<List<ErrorEntity>> ERROR_LIST = (packer, errors) -> writeList(packer, errors, MessagePackPayloadWriter::writeError);
+
+    private static final ValueWriter<List<Object>> VALUE_LIST = (packer, values) -> writeList(packer, values, MessagePackPayloadWriter::writeValue);
+
+    private MessagePackPayloadWriter() {
+        // private constructor to block the instantiation of this object
+    }
+
+    // COMMANDS
+
+    static void writeActionCommandPayload(MessagePacker packer, ActionCommandPayload payload) throws IOException {
+        packer.packMapHeader(2);
+        packer.packString(Key.COMMAND_PAYLOAD_COMMAND_META);
+        writeCommandMeta(packer, payload.getCommandMeta());
+        packer.packString(Key.COMMAND_PAYLOAD_COMMAND);
+        ActionCommandPayload.ActionCommand command = payload.getCommand();
+        if (command == null) {
+            packer.packNil();
+        } else {
+            writeCommandHeader(packer, command.getName());
+            writeAction(packer, command.getArgument());
+        }
+    }
+
+    static void writeRequestCommandPayload(MessagePacker packer, RequestCommandPayload payload) throws IOException {
+        packer.packMapHeader(2);
+        packer.packString(Key.COMMAND_PAYLOAD_COMMAND_META);
+        writeCommandMeta(packer, payload.getCommandMeta());
+        packer.packString(Key.COMMAND_PAYLOAD_COMMAND);
+        RequestCommandPayload.RequestCommand command = payload.getCommand();
+        if (command == null) {
+            packer.packNil();
+        } else {
+            writeCommandHeader(packer, command.getName());
+            writeRequest(packer, command.getArgument());
+        }
+    }
+
+    static void writeResponseCommandPayload(MessagePacker packer, ResponseCommandPayload payload) throws IOException {
+        packer.packMapHeader(2);
+        packer.packString(Key.COMMAND_PAYLOAD_COMMAND_META);
+        writeCommandMeta(packer, payload.getCommandMeta());
+        packer.packString(Key.COMMAND_PAYLOAD_COMMAND);
+        ResponseCommandPayload.ResponseCommand command = payload.getCommand();
+        if (command == null) {
+            packer.packNil();
+        } else {
+            writeCommandHeader(packer, command.getName());
+            writeResponse(packer, command.getArgument());
+        }
+    }
+
+    private static void writeCommandMeta(MessagePacker packer, CommandMeta commandMeta) throws IOException {
+        if (commandMeta == null) {
+            packer.packNil();
+            return;
+        }
+        packer.packMapHeader(1);
+        writeString(packer, Key.COMMAND_META_SCOPE, commandMeta.getScope());
+    }
+
+    /**
+     * Write the name of the command, leaving the argument as the next value to write.
+     */
+    private static void writeCommandHeader(MessagePacker packer, String name) throws IOException {
+        packer.packMapHeader(2);
+        writeString(packer, Key.COMMAND_NAME, name);
+        packer.packString(Key.COMMAND_ARGUMENT);
+    }
+
+    // REPLIES
+
+    static void writeTransportReplyPayload(MessagePacker packer, TransportReplyPayload payload) throws IOException {
+        TransportReplyPayload.TransportCommandReply commandReply = payload.getCommandReply();
+        packer.packMapHeader(present(commandReply));
+        if (commandReply == null) {
+            return;
+        }
+        writeReplyHeader(packer, commandReply.getName());
+        TransportReplyPayload.TransportResult result = commandReply.getResult();
+        if (result == null) {
+            packer.packNil();
+            return;
+        }
+        packer.packMapHeader(2);
+        packer.packString(Key.TRANSPORT_RESULT_TRANSPORT);
+        writeTransport(packer, result.getTransport());
+        packer.packString(Key.TRANSPORT_RESULT_RETURN_OBJECT);
+        writeValue(packer, result.getReturnObject());
+    }
+
+    static void writeReturnReplyPayload(MessagePacker packer, ReturnReplyPayload payload) throws IOException {
+        ReturnReplyPayload.ReturnCommandReply commandReply = payload.getCommandReply();
+        packer.packMapHeader(present(commandReply));
+        if (commandReply == null) {
+            return;
+        }
+        writeReplyHeader(packer, commandReply.getName());
+        ReturnReplyPayload.ReturnResult result = commandReply.getResult();
+        if (result == null) {
+            packer.packNil();
+            return;
+        }
+        packer.packMapHeader(2);
+        packer.packString(Key.RETURN_RESULT_TRANSPORT);
+        writeTransport(packer, result.getTransport());
+        packer.packString(Key.RETURN_RESULT_RETURN_OBJECT);
+        writeValue(packer, result.getReturnObject());
+    }
+
+    static void writeCallReplyPayload(MessagePacker packer, CallReplyPayload payload) throws IOException {
+        CallReplyPayload.CallCommandReply commandReply = payload.getCommandReply();
+        packer.packMapHeader(present(commandReply));
+        if (commandReply == null) {
+            return;
+        }
+        writeReplyHeader(packer, commandReply.getName());
+        CallReplyPayload.CallResult result = commandReply.getResult();
+        if (result == null) {
+            packer.packNil();
+            return;
+        }
+        packer.packMapHeader(1);
+        packer.packString(Key.CALL_RESULT_REQUEST_CALL);
+        writeRequestCall(packer, result.getRequestCall());
+    }
+
+    static void writeResponseReplyPayload(MessagePacker packer, ResponseReplyPayload payload) throws IOException {
+        ResponseReplyPayload.ResponseCommandReply commandReply = payload.getCommandReply();
+        packer.packMapHeader(present(commandReply));
+        if (commandReply == null) {
+            return;
+        }
+        writeReplyHeader(packer, commandReply.getName());
+        ResponseReplyPayload.ResponseResult result = commandReply.getResult();
+        if (result == null) {
+            packer.packNil();
+            return;
+        }
+        packer.packMapHeader(1);
+        packer.packString(Key.RESPONSE_RESULT_HTTP_RESPONSE);
+        writeHttpResponse(packer, result.getHttpResponse());
+    }
+
+    static void writeErrorPayload(MessagePacker packer, ErrorPayload payload) throws IOException {
+        packer.packMapHeader(1);
+        packer.packString(Key.ERROR);
+        writeError(packer, payload.getError());
+    }
+
+    /**
+     * Write the key of the command reply and its name, leaving the result as the next value to write.
+     */
+    private static void writeReplyHeader(MessagePacker packer, String name) throws IOException {
+        packer.packString(Key.REPLY_PAYLOAD_COMMAND_REPLY);
+        packer.packMapHeader(2);
+        writeString(packer, Key.COMMAND_REPLY_NAME, name);
+        packer.packString(Key.COMMAND_REPLY_RESULT);
+    }
+
+    // ENTITIES
+
+    private static void writeAction(MessagePacker packer, ActionEntity action) throws IOException {
+        if (action == null) {
+            packer.packNil();
+            return;
+        }
+        packer.packMapHeader(4);
+        writeString(packer, "actionName", action.getActionName());
+        packer.packString(Key.ACTION_PARAMS);
+        writeList(packer, action.getParams(), MessagePackPayloadWriter::writeParam);
+        packer.packString(Key.ACTION_TRANSPORT);
+        writeTransport(packer, action.getTransport());
+        packer.packString(Key.ACTION_RETURN_OBJECT);
+        writeValue(packer, action.getReturnObject());
+    }
+
+    private static void writeRequest(MessagePacker packer, RequestEntity request) throws IOException {
+        if (request == null) {
+            packer.packNil();
+            return;
+        }
+        packer.packMapHeader(3);
+        packer.packString(Key.REQUEST_META);
+        writeMeta(packer, request.getMeta());
+        packer.packString(Key.REQUEST_HTTP_REQUEST);
+        writeHttpRequest(packer, request.getHttpRequest());
+        packer.packString(Key.REQUEST_REQUEST_CALL);
+        writeRequestCall(packer, request.getRequestCall());
+    }
+
+    private static void writeResponse(MessagePacker packer, ResponseEntity response) throws IOException {
+        if (response == null) {
+            packer.packNil();
+            return;
+        }
+        packer.packMapHeader(5);
+        packer.packString(Key.RESPONSE_META);
+        writeMeta(packer, response.getMeta());
+        packer.packString(Key.RESPONSE_HTTP_REQUEST);
+        writeHttpRequest(packer, response.getHttpRequest());
+        packer.packString(Key.RESPONSE_HTTP_RESPONSE);
+        writeHttpResponse(packer, response.getHttpResponse());
+        packer.packString(Key.RESPONSE_TRANSPORT);
+        writeTransport(packer, response.getTransport());
+        packer.packString(Key.RESPONSE_RETURN);
+        writeValue(packer, response.getReturnObject());
+    }
+
+    private static void writeMeta(MessagePacker packer, Meta meta) throws IOException {
+        if (meta == null) {
+            packer.packNil();
+            return;
+        }
+        packer.packMapHeader(8);
+        writeString(packer, Key.META_VERSION, meta.getVersion());
+        writeString(packer, Key.META_ID, meta.getId());
+        writeString(packer, Key.META_DATETIME, meta.getDatetime());
+        packer.packString(Key.META_TYPE);
+        packer.packInt(meta.getType());
+        writeString(packer, Key.META_PROTOCOL, meta.getProtocol());
+        packer.packString(Key.META_GATEWAY);
+        writeList(packer, meta.getGateway(), MessagePackPayloadWriter::writeString);
+        writeString(packer, Key.META_CLIENT, meta.getClient());
+        packer.packString(Key.META_ATTRS);
+        writeMap(packer, meta.getAttributes(), MessagePackPayloadWriter::writeString);
+    }
+
+    private static void writeHttpRequest(MessagePacker packer, HttpRequestEntity httpRequest) throws IOException {
+        if (httpRequest == null) {
+            packer.packNil();
+            return;
+        }
+        packer.packMapHeader(8);
+        writeString(packer, Key.HTTP_REQUEST_PROTOCOL_VERSION, httpRequest.getProtocolVersion());
+        writeString(packer, Key.HTTP_REQUEST_METHOD, httpRequest.getMethod());
+        writeString(packer, Key.HTTP_REQUEST_URL, httpRequest.getUrl());
+        packer.packString(Key.HTTP_REQUEST_QUERY_PARAMS_ARRAY);
+        writeMap(packer, httpRequest.getQueryParamsArray(), MessagePackPayloadWriter::writeStringList);
+        packer.packString(Key.HTTP_REQUEST_POST_PARAMS_ARRAY);
+        writeMap(packer, httpRequest.getPostParamsArray(), MessagePackPayloadWriter::writeStringList);
+        packer.packString(Key.HTTP_REQUEST_HEADERS);
+        writeMap(packer, httpRequest.getHeaders(), MessagePackPayloadWriter::writeStringList);
+        writeString(packer, Key.HTTP_REQUEST_BODY, httpRequest.getBody());
+        packer.packString(Key.HTTP_REQUEST_FILES);
+        writeList(packer, httpRequest.getFiles(), MessagePackPayloadWriter::writeFile);
+    }
+
+    private static void writeHttpResponse(MessagePacker packer, HttpResponseEntity httpResponse) throws IOException {
+        if (httpResponse == null) {
+            packer.packNil();
+            return;
+        }
+        packer.packMapHeader(4);
+        writeString(packer, Key.HTTP_RESPONSE_PROTOCOL_VERSION, httpResponse.getProtocolVersion());
+        writeString(packer, Key.HTTP_RESPONSE_STATUS, httpResponse.getStatus());
+        packer.packString(Key.HTTP_RESPONSE_HEADERS);
+        writeMap(packer, httpResponse.getHeaders(), MessagePackPayloadWriter::writeStringList);
+        writeString(packer, Key.HTTP_RESPONSE_BODY, httpResponse.getBody());
+    }
+
+    private static void writeRequestCall(MessagePacker packer, RequestCall requestCall) throws IOException {
+        if (requestCall == null) {
+            packer.packNil();
+            return;
+        }
+        packer.packMapHeader(4);
+        writeString(packer, Key.REQUEST_CALL_SERVICE, requestCall.getService());
+        writeString(packer, Key.REQUEST_CALL_VERSION, requestCall.getVersion());
+        writeString(packer, Key.REQUEST_CALL_ACTION, requestCall.getAction());
+        packer.packString(Key.REQUEST_CALL_PARAMS);
+        writeList(packer, requestCall.getParams(), MessagePackPayloadWriter::writeParam);
+    }
+
+    private static void writeTransport(MessagePacker packer, TransportEntity transport) throws IOException {
+        if (transport == null) {
+            packer.packNil();
+            return;
+        }
+        // Sections not changed since they were received are copied as they are, without decoding them
+        Object files = getSection(transport, Key.TRANSPORT_FILES, transport::readFiles);
+        Object data = getSection(transport, Key.TRANSPORT_DATA, transport::readData);
+        Object relations = getSection(transport, Key.TRANSPORT_RELATIONS, transport::readRelations);
+        Object links = getSection(transport, Key.TRANSPORT_LINKS, transport::readLinks);
+        Object errors = getSection(transport, Key.TRANSPORT_ERRORS, transport::readErrors);
+
+        packer.packMapHeader(present(transport.getMeta()) + present(transport.getBody()) + present(files)
+                + present(data) + present(relations) + present(links) + present(transport.getCalls())
+                + present(transport.getTransactions()) + present(errors));
+        if (transport.getMeta() != null) {
+            packer.packString(Key.TRANSPORT_META);
+            writeTransportMeta(packer, transport.getMeta());
+        }
+        if (transport.getBody() != null) {
+            packer.packString(Key.TRANSPORT_BODY);
+            writeFile(packer, transport.getBody());
+        }
+        writeSection(packer, transport, Key.TRANSPORT_FILES, files, 4, FILE_LIST);
+        writeSection(packer, transport, Key.TRANSPORT_DATA, data, 4, MessagePackPayloadWriter::writeValue);
+        writeSection(packer, transport, Key.TRANSPORT_RELATIONS, relations, 5, MessagePackPayloadWriter::writeValue);
+        writeSection(packer, transport, Key.TRANSPORT_LINKS, links, 3, STRING);
+        if (transport.getCalls() != null) {
+            packer.packString(Key.TRANSPORT_CALLS);
+            writeNestedMap(packer, transport.getCalls(), 2, CALL_LIST);
+        }
+        if (transport.getTransactions() != null) {
+            packer.packString(Key.TRANSPORT_TRANSACTIONS);
+            writeTransactions(packer, transport.getTransactions());
+        }
+        writeSection(packer, transport, Key.TRANSPORT_ERRORS, errors, 3, ERROR_LIST);
+    }
+
+    private static Object getSection(TransportEntity transport, String key, Supplier<Object> getter) {
+        RawSection<?> rawSection = transport.getRawSection(key);
+        if (rawSection != null && transport.getModifiedServices(key).isEmpty()) {
+            return rawSection;
+        }
+        return getter.get();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void writeSection(MessagePacker packer, TransportEntity transport, String key, Object section, int depth, ValueWriter<?> valueWriter) throws IOException {
+        if (section == null) {
+            return;
+        }
+        packer.packString(key);
+        RawSection<?> rawSection = transport.getRawSection(key);
+        if (section instanceof RawSection) {
+            writeRawSection(packer, (RawSection<?>) section);
+        } else if (rawSection != null) {
+            writeModifiedSection(packer, rawSection, (Map<String, ?>) section, transport.getModifiedServices(key), depth, valueWriter);
+        } else {
+            writeNestedMap(packer, section, depth, valueWriter);
+        }
+    }
+
+    private static void writeRawSection(MessagePacker packer, RawSection<?> rawSection) throws IOException {
+        packer.writePayload(rawSection.getBytes(), rawSection.getOffset(), rawSection.getLength());
+    }
+
+    /**
+     * Write a section keyed by address and Service, encoding the Services that changed and copying the entries of the
+     * other ones from the received bytes.
+     */
+    @SuppressWarnings("unchecked")
+    private static void writeModifiedSection(MessagePacker packer, RawSection<?> rawSection, Map<String, ?> section,
+                                             Map<String, Set<String>> modifiedServices, int depth, ValueWriter<?> valueWriter) throws IOException {
+        Map<String, RawSection<?>> receivedAddresses = new HashMap<>();
+        Map<String, Map<String, RawSection<?>>> receivedServices = new HashMap<>();
+        indexSection(rawSection, receivedAddresses, receivedServices);
+
+        packer.packMapHeader(section.size());
+        for (Map.Entry<String, ?> address : section.entrySet()) {
+            packer.packString(address.getKey());
+            Set<String> modified = modifiedServices.get(address.getKey());
+            Map<String, RawSection<?>> services = receivedServices.get(address.getKey());
+            if (modified == null && receivedAddresses.containsKey(address.getKey())) {
+                writeRawSection(packer, receivedAddresses.get(address.getKey()));
+            } else if (services == null || address.getValue() == null) {
+                writeNestedMap(packer, address.getValue(), depth - 1, valueWriter);
+            } else {
+                Map<String, ?> serviceMap = (Map<String, ?>) address.getValue();
+                packer.packMapHeader(serviceMap.size());
+                for (Map.Entry<String, ?> service : serviceMap.entrySet()) {
+                    packer.packString(service.getKey());
+                    if (!modified.contains(service.getKey()) && services.containsKey(service.getKey())) {
+                        writeRawSection(packer, services.get(service.getKey()));
+                    } else {
+                        writeNestedMap(packer, service.getValue(), depth - 2, valueWriter);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Find the slices of the received bytes of a section for each address, and for each Service within the address.
+     */
+    private static void indexSection(RawSection<?> rawSection, Map<String, RawSection<?>> addresses,
+                                     Map<String, Map<String, RawSection<?>>> services) throws IOException {
+        byte[] bytes = rawSection.getBytes();
+        int base = rawSection.getOffset();
+        try (MessageUnpacker unpacker = MessagePack.newDefaultUnpacker(bytes, base, rawSection.getLength())) {
+            int addressCount = unpacker.unpackMapHeader();
+            for (int i = 0; i < addressCount; i++) {
+                String address = unpacker.unpackString();
+                int addressOffset = base + (int) unpacker.getTotalReadBytes();
+                if (unpacker.getNextFormat().getValueType() == ValueType.MAP) {
+                    Map<String, RawSection<?>> addressServices = new HashMap<>();
+                    int serviceCount = unpacker.unpackMapHeader();
+                    for (int j = 0; j < serviceCount; j++) {
+                        String service = unpacker.unpackString();
+                        int serviceOffset = base + (int) unpacker.getTotalReadBytes();
+                        unpacker.skipValue();
+                        addressServices.put(service, new RawSection<>(bytes, serviceOffset,
+                                base + (int) unpacker.getTotalReadBytes() - serviceOffset, null));
+                    }
+                    services.put(address, addressServices);
+                } else {
+                    unpacker.skipValue();
+                }
+                addresses.put(address, new RawSection<>(bytes, addressOffset,
+                        base + (int) unpacker.getTotalReadBytes() - addressOffset, null));
+            }
+        }
+    }
+
+    private static void writeTransportMeta(MessagePacker packer, TransportMeta meta) throws IOException {
+        packer.packMapHeader(present(meta.getVersion()) + present(meta.getId()) + present(meta.getDatetime())
+                + present(meta.getStartTime()) + present(meta.getEndTime()) + 1 + present(meta.getGateway())
+                + present(meta.getOrigin()) + 1 + present(meta.getFallback()) + present(meta.getProperties()));
+        writeStringIfPresent(packer, Key.TRANSPORT_META_VERSION, meta.getVersion());
+        writeStringIfPresent(packer, Key.TRANSPORT_META_ID, meta.getId());
+        writeStringIfPresent(packer, Key.TRANSPORT_META_DATETIME, meta.getDatetime());
+        writeStringIfPresent(packer, Key.TRANSPORT_META_START_TIME, meta.getStartTime());
+        writeStringIfPresent(packer, Key.TRANSPORT_META_END_TIME, meta.getEndTime());
+        packer.packString(Key.TRANSPORT_META_DURATION);
+        packer.packInt(meta.getDuration());
+        if (meta.getGateway() != null) {
+            packer.packString(Key.TRANSPORT_META_GATEWAY);
+            writeList(packer, meta.getGateway(), MessagePackPayloadWriter::writeString);
+        }
+        if (meta.getOrigin() != null) {
+            packer.packString(Key.TRANSPORT_META_ORIGIN);
+            packer.packArrayHeader(meta.getOrigin().length);
+            for (String origin : meta.getOrigin()) {
+                writeString(packer, origin);
+            }
+        }
+        packer.packString(Key.TRANSPORT_META_LEVEL);
+        packer.packInt(meta.getLevel());
+        if (meta.getFallback() != null) {
+            packer.packString(Key.TRANSPORT_META_FALLBACK);
+            writeList(packer, meta.getFallback(), VALUE_LIST);
+        }
+        if (meta.getProperties() != null) {
+            packer.packString(Key.TRANSPORT_META_PROPERTIES);
+            writeMap(packer, meta.getProperties(), MessagePackPayloadWriter::writeString);
+        }
+    }
+
+    private static void writeFile(MessagePacker packer, File file) throws IOException {
+        if (file == null) {
+            packer.packNil();
+            return;
+        }
+        packer.packMapHeader(7);
+        packer.packString("exists");
+        packer.packBoolean(file.isExists());
+        writeString(packer, Key.FILE_NAME, file.getName());
+        writeString(packer, Key.FILE_PATH, file.getPath());
+        writeString(packer, Key.FILE_MIME, file.getMime());
+        writeString(packer, Key.FILE_FILENAME, file.getFilename());
+        writeString(packer, Key.FILE_SIZE, file.getSize());
+        writeString(packer, Key.FILE_TOKEN, file.getToken());
+    }
+
+    private static void writeParam(MessagePacker packer, Param param) throws IOException {
+        if (param == null) {
+            packer.packNil();
+            return;
+        }
+        packer.packMapHeader(4);
+        packer.packString("exists");
+        packer.packBoolean(param.isExists());
+        writeString(packer, Key.PARAM_NAME, param.getName());
+        packer.packString(Key.PARAM_VALUE);
+        writeValue(packer, param.getValue());
+        writeString(packer, Key.PARAM_TYPE, param.getType());
+    }
+
+    private static void writeCall(MessagePacker packer, CallEntity call) throws IOException {
+        if (call == null) {
+            packer.packNil();
+            return;
+        }
+        packer.packMapHeader(1 + present(call.getName()) + present(call.getVersion()) + present(call.getAction())
+                + present(call.getCaller()) + present(call.getParams()) + present(call.getGateway()) + 1);
+        packer.packString(Key.CALL_DURATION);
+        packer.packInt(call.getDuration());
+        writeStringIfPresent(packer, Key.CALL_NAME, call.getName());
+        writeStringIfPresent(packer, Key.CALL_VERSION, call.getVersion());
+        writeStringIfPresent(packer, Key.CALL_ACTION, call.getAction());
+        writeStringIfPresent(packer, Key.CALL_CALLER, call.getCaller());
+        if (call.getParams() != null) {
+            packer.packString(Key.CALL_PARAMS);
+            writeList(packer, call.getParams(), MessagePackPayloadWriter::writeParam);
+        }
+        writeStringIfPresent(packer, Key.CALL_GATEWAY, call.getGateway());
+        packer.packString(Key.CALL_TIMEOUT);
+        packer.packInt(call.getTimeout());
+    }
+
+    private static void writeTransactions(MessagePacker packer, TransactionEntity transactions) throws IOException {
+        packer.packMapHeader(3);
+        packer.packString(Key.TRANSACTION_COMMIT);
+        writeList(packer, transactions.getCommit(), MessagePackPayloadWriter::writeServiceTransaction);
+        packer.packString(Key.TRANSACTION_ROLLBACK);
+        writeList(packer, transactions.getRollback(), MessagePackPayloadWriter::writeServiceTransaction);
+        packer.packString(Key.TRANSACTION_COMPLETE);
+        writeList(packer, transactions.getComplete(), MessagePackPayloadWriter::writeServiceTransaction);
+    }
+
+    private static void writeServiceTransaction(MessagePacker packer, ServiceTransaction transaction) throws IOException {
+        if (transaction == null) {
+            packer.packNil();
+            return;
+        }
+        packer.packMapHeader(5);
+        writeString(packer, Key.SERVICE_TRANSACTION_NAME, transaction.getName());
+        writeString(packer, Key.SERVICE_TRANSACTION_VERSION, transaction.getVersion());
+        writeString(packer, Key.SERVICE_TRANSACTION_ACTION, transaction.getAction());
+        writeString(packer, Key.SERVICE_TRANSACTION_CALLER, transaction.getCaller());
+        packer.packString(Key.SERVICE_TRANSACTION_PARAMS);
+        writeList(packer, transaction.getParams(), MessagePackPayloadWriter::writeParam);
+    }
+
+    private static void writeError(MessagePacker packer, ErrorEntity error) throws IOException {
+        if (error == null) {
+            packer.packNil();
+            return;
+        }
+        packer.packMapHeader(3);
+        writeString(packer, Key.ERROR_MESSAGE, error.getMessage());
+        packer.packString(Key.ERROR_CODE);
+        packer.packInt(error.getCode());
+        writeString(packer, Key.ERROR_STATUS, error.getStatus());
+    }
+
+    // VALUES
+
+    private static <V> void writeMap(MessagePacker packer, Map<String, V> map, ValueWriter<V> valueWriter) throws IOException {
+        if (map == null) {
+            packer.packNil();
+            return;
+        }
+        packer.packMapHeader(map.size());
+        for (Map.Entry<String, V> entry : map.entrySet()) {
+            packer.packString(entry.getKey());
+            valueWriter.write(packer, entry.getValue());
+        }
+    }
+
+    /**
+     * Write maps nested the given number of levels, like the address, service, version and action levels of the
+     * transport, with the values of the innermost map written by the given writer.
+     */
+    @SuppressWarnings("unchecked")
+    private static void writeNestedMap(MessagePacker packer, Object value, int depth, ValueWriter<?> valueWriter) throws IOException {
+        if (depth == 0) {
+            ((ValueWriter<Object>) valueWriter).write(packer, value);
+            return;
+        }
+        if (value == null) {
+            packer.packNil();
+            return;
+        }
+        Map<String, ?> map = (Map<String, ?>) value;
+        packer.packMapHeader(map.size());
+        for (Map.Entry<String, ?> entry : map.entrySet()) {
+            packer.packString(entry.getKey());
+            writeNestedMap(packer, entry.getValue(), depth - 1, valueWriter);
+        }
+    }
+
+    private static <T> void writeList(MessagePacker packer, List<T> list, ValueWriter<T> valueWriter) throws IOException {
+        if (list == null) {
+            packer.packNil();
+            return;
+        }
+        packer.packArrayHeader(list.size());
+        for (T value : list) {
+            valueWriter.write(packer, value);
+        }
+    }
+
+    private static void writeStringList(MessagePacker packer, List<String> list) throws IOException {
+        writeList(packer, list, MessagePackPayloadWriter::writeString);
+    }
+
+    private static void writeString(MessagePacker packer, String key, String value) throws IOException {
+        packer.packString(key);
+        writeString(packer, value);
+    }
+
+    private static void writeStringIfPresent(MessagePacker packer, String key, String value) throws IOException {
+        if (value != null) {
+            packer.packString(key);
+            packer.packString(value);
+        }
+    }
+
+    private static void writeString(MessagePacker packer, String value) throws IOException {
+        if (value == null) {
+            packer.packNil();
+        } else {
+            packer.packString(value);
+        }
+    }
+
+    /**
+     * Untyped values of the common JSON types are packed directly, anything else is serialized with Jackson.
+     */
+    private static void writeValue(MessagePacker packer, Object value) throws IOException {
+        if (value == null) {
+            packer.packNil();
+        } else if (value instanceof String) {
+            packer.packString((String) value);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            packer.packInt(((Number) value).intValue());
+        } else if (value instanceof Long) {
+            packer.packLong((Long) value);
+        } else if (value instanceof Double) {
+            packer.packDouble((Double) value);
+        } else if (value instanceof Float) {
+            packer.packFloat((Float) value);
+        } else if (value instanceof Boolean) {
+            packer.packBoolean((Boolean) value);
+        } else if (value instanceof BigInteger) {
+            packer.packBigInteger((BigInteger) value);
+        } else if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            packer.packBinaryHeader(bytes.length);
+            packer.writePayload(bytes);
+        } else if (value instanceof Map && hasStringKeys((Map<?, ?>) value)) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            packer.packMapHeader(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                packer.packString((String) entry.getKey());
+                writeValue(packer, entry.getValue());
+            }
+        } else if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            packer.packArrayHeader(collection.size());
+            for (Object element : collection) {
+                writeValue(packer, element);
+            }
+        } else if (value instanceof Object[]) {
+            Object[] array = (Object[]) value;
+            packer.packArrayHeader(array.length);
+            for (Object element : array) {
+                writeValue(packer, element);
+            }
+        } else {
+            packer.writePayload(MAPPER.writeValueAsBytes(value));
+        }
+    }
+
+    private static boolean hasStringKeys(Map<?, ?> map) {
+        for (Object key : map.keySet()) {
+            if (!(key instanceof String)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int present(Object value) {
+        return value == null ? 0 : 1;
+    }
+}
@@ -28,7 +28,8 @@ import java.io.IOException;
  */
 public class MessagePackSerializer implements Serializer {
 
-    private ObjectMapper msgPackMapper = new ObjectMapper(new MessagePackFactory());
+    private ObjectMapper msgPackMapper = new ObjectMapper(new MessagePackFactory())
+            .configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
     private ObjectMapper objectMapper = new ObjectMapper();
 
     /**
@@ -53,7 +54,6 @@ public class MessagePackSerializer implements Serializer {
      */
     @Override
     public byte[] serializeInBytes(Object message) throws JsonProcessingException {
-        msgPackMapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
         return msgPackMapper.writeValueAsBytes(message);
     }
 
@@ -0,0 +1,121 @@
+/*
+ * Java 8 SDK for the KATANA(tm) Platform (http://katana.kusanagi.io)
+ * Copyright (c) 2016-2017 KUSANAGI S.L. All rights reserved.
+ *
+ * Distributed under the MIT license
+ *
+ * For the full copyright and license information, please view the LICENSE
+ *  file that was distributed with this source code
+ *
+ * @link      https://github.com/kusanagi/katana-sdk-java8
+ * @license   http://www.opensource.org/licenses/mit-license.php MIT License
+ * @copyright Copyright (c) 2016-2017 KUSANAGI S.L. (http://kusanagi.io)
+ *
+ */
+
+package io.kusanagi.katana.api.component.utils;
+
+import org.msgpack.core.buffer.MessageBuffer;
+import org.msgpack.core.buffer.MessageBufferOutput;
+
+import java.util.Arrays;
+
+/**
+ * Output of a {@link org.msgpack.core.MessagePacker} that writes into a single array kept between messages.
+ * <p>
+ * The array grows when a message does not fit, and shrinks back when the recent messages are much smaller, so a
+ * message of the usual size is written without allocating anything but the copy returned by {@link #toByteArray()}.
+ */
+class ReusableBufferOutput implements MessageBufferOutput {
+
+    private final int minimumSize;
+
+    private byte[] array;
+
+    private MessageBuffer buffer;
+
+    private int size;
+
+    private int recentSize;
+
+    /**
+     * @param minimumSize initial and minimum size of the array
+     */
+    ReusableBufferOutput(int minimumSize) {
+        this.minimumSize = minimumSize;
+        this.recentSize = minimumSize;
+        allocate(minimumSize);
+    }
+
+    /**
+     * Discard the written bytes to start a new message, shrinking the array if it is more than twice the size of the
+     * recent messages.
+     */
+    void clear() {
+        size = 0;
+        if (array.length > 2 * recentSize) {
+            allocate(recentSize);
+        }
+    }
+
+    /**
+     * Copy the written message, and record its size to size the array for the next ones.
+     *
+     * @return the written message
+     */
+    byte[] toByteArray() {
+        // Decaying maximum of the recent sizes
+        recentSize = Math.max(Math.max(size, minimumSize), recentSize - (recentSize >> 4));
+        return Arrays.copyOf(array, size);
+    }
+
+    int getCapacity() {
+        return array.length;
+    }
+
+    @Override
+    public MessageBuffer next(int minimumSize) {
+        ensureCapacity(minimumSize);
+        return size == 0 ? buffer : MessageBuffer.wrap(array, size, array.length - size);
+    }
+
+    @Override
+    public void writeBuffer(int length) {
+        size += length;
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(buffer, offset, array, size, length);
+        size += length;
+    }
+
+    @Override
+    public void add(byte[] buffer, int offset, int length) {
+        write(buffer, offset, length);
+    }
+
+    @Override
+    public void flush() {
+        // The bytes are already in the array
+    }
+
+    @Override
+    public void close() {
+        // Nothing to release, the array is kept for the next message
+    }
+
+    private void ensureCapacity(int length) {
+        if (array.length - size < length) {
+            byte[] written = array;
+            allocate(Math.max(2 * array.length, size + length));
+            System.arraycopy(written, 0, array, 0, size);
+        }
+    }
+
+    private void allocate(int length) {
+        array = new byte[length];
+        buffer = MessageBuffer.wrap(array);
+    }
+}
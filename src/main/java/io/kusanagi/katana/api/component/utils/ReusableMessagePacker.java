@@ -0,0 +1,110 @@
+/*
+ * Java 8 SDK for the KATANA(tm) Platform (http://katana.kusanagi.io)
+ * Copyright (c) 2016-2017 KUSANAGI S.L. All rights reserved.
+ *
+ * Distributed under the MIT license
+ *
+ * For the full copyright and license information, please view the LICENSE
+ *  file that was distributed with this source code
+ *
+ * @link      https://github.com/kusanagi/katana-sdk-java8
+ * @license   http://www.opensource.org/licenses/mit-license.php MIT License
+ * @copyright Copyright (c) 2016-2017 KUSANAGI S.L. (http://kusanagi.io)
+ *
+ */
+
+package io.kusanagi.katana.api.component.utils;
+
+import org.msgpack.core.MessagePack;
+import org.msgpack.core.MessagePacker;
+import org.msgpack.core.buffer.MessageBufferOutput;
+
+import java.io.IOException;
+
+/**
+ * Packer kept between messages, that encodes the strings into an array it reuses instead of a new array per string.
+ * <p>
+ * The strings are written with the same header and bytes as {@link MessagePacker#packString(String)}, including the
+ * replacement of unpaired surrogates with '?'.
+ */
+class ReusableMessagePacker extends MessagePacker {
+
+    /**
+     * Longer strings are packed by the default implementation, so the array does not grow without bound
+     */
+    private static final int MAX_ENCODED_LENGTH = 8192;
+
+    private byte[] encoded = new byte[256];
+
+    /**
+     * @param out output of the packer
+     */
+    ReusableMessagePacker(MessageBufferOutput out) {
+        super(out, MessagePack.DEFAULT_PACKER_CONFIG);
+    }
+
+    @Override
+    public MessagePacker packString(String s) throws IOException {
+        int length = getEncodedLength(s);
+        if (length > MAX_ENCODED_LENGTH) {
+            return super.packString(s);
+        }
+        if (length > encoded.length) {
+            encoded = new byte[Math.max(2 * encoded.length, length)];
+        }
+        encode(s);
+        packRawStringHeader(length);
+        writePayload(encoded, 0, length);
+        return this;
+    }
+
+    private static int getEncodedLength(String s) {
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (isSurrogatePair(s, i)) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private void encode(String s) {
+        int position = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                encoded[position++] = (byte) c;
+            } else if (c < 0x800) {
+                encoded[position++] = (byte) (0xc0 | (c >> 6));
+                encoded[position++] = (byte) (0x80 | (c & 0x3f));
+            } else if (isSurrogatePair(s, i)) {
+                int codePoint = Character.toCodePoint(c, s.charAt(++i));
+                encoded[position++] = (byte) (0xf0 | (codePoint >> 18));
+                encoded[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                encoded[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                encoded[position++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                encoded[position++] = '?';
+            } else {
+                encoded[position++] = (byte) (0xe0 | (c >> 12));
+                encoded[position++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                encoded[position++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+    }
+
+    private static boolean isSurrogatePair(String s, int index) {
+        return Character.isHighSurrogate(s.charAt(index)) && index + 1 < s.length()
+                && Character.isLowSurrogate(s.charAt(index + 1));
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Java 8 SDK for the KATANA(tm) Platform (http://katana.kusanagi.io)
+ * Copyright (c) 2016-2017 KUSANAGI S.L. All rights reserved.
+ *
+ * Distributed under the MIT license
+ *
+ * For the full copyright and license information, please view the LICENSE
+ *  file that was distributed with this source code
+ *
+ * @link      https://github.com/kusanagi/katana-sdk-java8
+ * @license   http://www.opensource.org/licenses/mit-license.php MIT License
+ * @copyright Copyright (c) 2016-2017 KUSANAGI S.L. (http://kusanagi.io)
+ *
+ */
+
+package io.kusanagi.katana.api.component.utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import io.kusanagi.katana.api.commands.ActionCommandPayload;
+import io.kusanagi.katana.api.commands.RequestCommandPayload;
+import io.kusanagi.katana.api.commands.ResponseCommandPayload;
+import io.kusanagi.katana.api.component.Constants;
+import io.kusanagi.katana.api.component.Serializer;
+import io.kusanagi.katana.api.replies.CallReplyPayload;
+import io.kusanagi.katana.api.replies.ErrorPayload;
+import io.kusanagi.katana.api.replies.ResponseReplyPayload;
+import io.kusanagi.katana.api.replies.ReturnReplyPayload;
+import io.kusanagi.katana.api.replies.TransportReplyPayload;
+import org.msgpack.core.MessagePack;
+import org.msgpack.core.MessagePacker;
+import org.msgpack.core.MessageUnpacker;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Serializer that reads and writes the payloads exchanged with KATANA directly with msgpack-core, without the
+ * reflection and the intermediate objects of the Jackson binding.
+ * <p>
+ * The command payloads received by the components, the replies sent back and the replies of run-time calls are
+ * handled by {@link MessagePackPayloadReader} and {@link MessagePackPayloadWriter}. Any other class, and every JSON
+ * conversion, is delegated to {@link MessagePackSerializer}.
+ * <p>
+ * Every thread writes with its own {@link ReusableMessagePacker} and {@link ReusableBufferOutput}, kept between
+ * messages, so a reply only allocates the array returned.
+ */
+public class StreamingMessagePackSerializer implements Serializer {
+
+    private static final Map<Class<?>, MessagePackPayloadReader.PayloadReader<?>> READERS = new HashMap<>();
+
+    private static final Map<Class<?>, MessagePackPayloadWriter.ValueWriter<?>> WRITERS = new HashMap<>();
+
+    static {
+        READERS.put(ActionCommandPayload.class, MessagePackPayloadReader::readActionCommandPayload);
+        READERS.put(RequestCommandPayload.class, MessagePackPayloadReader::readRequestCommandPayload);
+        READERS.put(ResponseCommandPayload.class, MessagePackPayloadReader::readResponseCommandPayload);
+        READERS.put(ReturnReplyPayload.class, MessagePackPayloadReader::readReturnReplyPayload);
+        READERS.put(ErrorPayload.class, MessagePackPayloadReader::readErrorPayload);
+
+        WRITERS.put(ActionCommandPayload.class, writer(MessagePackPayloadWriter::writeActionCommandPayload));
+        WRITERS.put(RequestCommandPayload.class, writer(MessagePackPayloadWriter::writeRequestCommandPayload));
+        WRITERS.put(ResponseCommandPayload.class, writer(MessagePackPayloadWriter::writeResponseCommandPayload));
+        WRITERS.put(TransportReplyPayload.class, writer(MessagePackPayloadWriter::writeTransportReplyPayload));
+        WRITERS.put(ReturnReplyPayload.class, writer(MessagePackPayloadWriter::writeReturnReplyPayload));
+        WRITERS.put(CallReplyPayload.class, writer(MessagePackPayloadWriter::writeCallReplyPayload));
+        WRITERS.put(ResponseReplyPayload.class, writer(MessagePackPayloadWriter::writeResponseReplyPayload));
+        WRITERS.put(ErrorPayload.class, writer(MessagePackPayloadWriter::writeErrorPayload));
+    }
+
+    private final MessagePackSerializer jacksonSerializer = new MessagePackSerializer();
+
+    private final ThreadLocal<PooledPacker> packers = ThreadLocal.withInitial(PooledPacker::new);
+
+    @Override
+    public <T> T deserialize(byte[] message, Class<T> aClass) throws IOException {
+        MessagePackPayloadReader.PayloadReader<?> reader = READERS.get(aClass);
+        if (reader == null) {
+            return jacksonSerializer.deserialize(message, aClass);
+        }
+
+        try (MessageUnpacker unpacker = MessagePack.newDefaultUnpacker(message)) {
+            return aClass.cast(reader.read(unpacker, message));
+        }
+    }
+
+    @Override
+    public <T> T deserialize(String jsonMessage, Class<T> aClass) throws IOException {
+        return jacksonSerializer.deserialize(jsonMessage, aClass);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public byte[] serializeInBytes(Object message) throws JsonProcessingException {
+        MessagePackPayloadWriter.ValueWriter<Object> writer = message == null ? null
+                : (MessagePackPayloadWriter.ValueWriter<Object>) WRITERS.get(message.getClass());
+        if (writer == null) {
+            return jacksonSerializer.serializeInBytes(message);
+        }
+
+        PooledPacker pooledPacker = packers.get();
+        pooledPacker.output.clear();
+        try {
+            writer.write(pooledPacker.packer, message);
+            pooledPacker.packer.flush();
+        } catch (IOException e) {
+            // The packer may be left in the middle of a value, so it is not used again
+            packers.remove();
+            if (e instanceof JsonProcessingException) {
+                throw (JsonProcessingException) e;
+            }
+            // The packer writes to memory, so no I/O error is expected here
+            throw JsonMappingException.fromUnexpectedIOE(e);
+        } catch (RuntimeException e) {
+            packers.remove();
+            throw e;
+        }
+        return pooledPacker.output.toByteArray();
+    }
+
+    @Override
+    public String serializeInJson(Object message) throws JsonProcessingException {
+        return jacksonSerializer.serializeInJson(message);
+    }
+
+    int getBufferCapacity() {
+        return packers.get().output.getCapacity();
+    }
+
+    private static <T> MessagePackPayloadWriter.ValueWriter<T> writer(MessagePackPayloadWriter.ValueWriter<T> writer) {
+        return writer;
+    }
+
+    /**
+     * Packer of a thread, with the output it writes to.
+     */
+    private static final class PooledPacker {
+
+        private final ReusableBufferOutput output = new ReusableBufferOutput(Constants.DEFAULT_REPLY_BUFFER_SIZE);
+
+        private final MessagePacker packer = new ReusableMessagePacker(output);
+    }
+}
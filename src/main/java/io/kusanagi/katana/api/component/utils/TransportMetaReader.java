@@ -0,0 +1,132 @@
+/*
+ * Java 8 SDK for the KATANA(tm) Platform (http://katana.kusanagi.io)
+ * Copyright (c) 2016-2017 KUSANAGI S.L. All rights reserved.
+ *
+ * Distributed under the MIT license
+ *
+ * For the full copyright and license information, please view the LICENSE
+ *  file that was distributed with this source code
+ *
+ * @link      https://github.com/kusanagi/katana-sdk-java8
+ * @license   http://www.opensource.org/licenses/mit-license.php MIT License
+ * @copyright Copyright (c) 2016-2017 KUSANAGI S.L. (http://kusanagi.io)
+ *
+ */
+
+package io.kusanagi.katana.api.component.utils;
+
+import io.kusanagi.katana.api.component.Key;
+import org.msgpack.core.MessagePack;
+import org.msgpack.core.MessageUnpacker;
+import org.msgpack.value.ValueType;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+
+/**
+ * Reads the start time of the request from the transport meta of an action command, skipping every other value of
+ * the payload, so a request can be checked against its deadline before decoding it.
+ */
+public final class TransportMetaReader {
+
+    private TransportMetaReader() {
+        // private constructor to block the instantiation of this object
+    }
+
+    /**
+     * The start time of the transport is used when present, otherwise its datetime. Dates without an offset are UTC.
+     *
+     * @param command msgpack action command payload
+     * @return epoch milliseconds the request started at, or -1 if the command is not a request made by the gateway
+     * or has no valid date
+     */
+    public static long readStartTime(byte[] command) {
+        try (MessageUnpacker unpacker = MessagePack.newDefaultUnpacker(command)) {
+            if (!enter(unpacker, Key.COMMAND_PAYLOAD_COMMAND) || !enter(unpacker, Key.COMMAND_ARGUMENT)
+                    || !enter(unpacker, Key.ACTION_TRANSPORT) || !enter(unpacker, Key.TRANSPORT_META)) {
+                return -1;
+            }
+            return readMeta(unpacker);
+        } catch (IOException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Move the unpacker to the value of a key of the next map.
+     *
+     * @return false if the next value is not a map or has no such key
+     */
+    private static boolean enter(MessageUnpacker unpacker, String key) throws IOException {
+        if (unpacker.getNextFormat().getValueType() != ValueType.MAP) {
+            return false;
+        }
+        int size = unpacker.unpackMapHeader();
+        for (int i = 0; i < size; i++) {
+            if (isKey(unpacker, key)) {
+                return true;
+            }
+            unpacker.skipValue();
+        }
+        return false;
+    }
+
+    private static long readMeta(MessageUnpacker unpacker) throws IOException {
+        if (unpacker.getNextFormat().getValueType() != ValueType.MAP) {
+            return -1;
+        }
+        String datetime = null;
+        String startTime = null;
+        int size = unpacker.unpackMapHeader();
+        for (int i = 0; i < size; i++) {
+            String key = readKey(unpacker);
+            ValueType type = unpacker.getNextFormat().getValueType();
+            if (Key.TRANSPORT_META_DATETIME.equals(key) && type == ValueType.STRING) {
+                datetime = unpacker.unpackString();
+            } else if (Key.TRANSPORT_META_START_TIME.equals(key) && type == ValueType.STRING) {
+                startTime = unpacker.unpackString();
+            } else if (Key.TRANSPORT_META_LEVEL.equals(key) && type == ValueType.INTEGER) {
+                if (unpacker.unpackLong() > 1) {
+                    // Run-time calls share the meta of the first request, their start is not known
+                    return -1;
+                }
+            } else {
+                unpacker.skipValue();
+            }
+        }
+        return parse(startTime != null ? startTime : datetime);
+    }
+
+    private static boolean isKey(MessageUnpacker unpacker, String key) throws IOException {
+        return key.equals(readKey(unpacker));
+    }
+
+    private static String readKey(MessageUnpacker unpacker) throws IOException {
+        if (unpacker.getNextFormat().getValueType() != ValueType.STRING) {
+            unpacker.skipValue();
+            return null;
+        }
+        return unpacker.unpackString();
+    }
+
+    private static long parse(String date) {
+        if (date == null) {
+            return -1;
+        }
+        try {
+            TemporalAccessor parsed = DateTimeFormatter.ISO_DATE_TIME.parse(date);
+            if (parsed.isSupported(ChronoField.OFFSET_SECONDS)) {
+                return OffsetDateTime.from(parsed).toInstant().toEpochMilli();
+            }
+            return LocalDateTime.from(parsed).toInstant(ZoneOffset.UTC).toEpochMilli();
+        } catch (DateTimeException e) {
+            return -1;
+        }
+    }
+}
@@ -19,7 +19,9 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import io.kusanagi.katana.api.component.Key;
 import io.kusanagi.katana.sdk.Param;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Created by juan on 27/08/16.
@@ -33,6 +35,11 @@ public class ActionEntity {
     @JsonProperty(Key.ACTION_PARAMS)
     private List<Param> params;
 
+    /**
+     * The parameters by name, built on the first lookup and dropped whenever the list can change
+     */
+    private Map<String, Param> paramsByName;
+
     /**
      * The Transport payload as sent from the Gateway or calling Service
      */
@@ -61,12 +68,39 @@ public class ActionEntity {
         this.actionName = other.actionName;
     }
 
+    /**
+     * The returned list can be changed, so the parameters are indexed again on the next lookup.
+     *
+     * @return the parameters
+     */
     public List<Param> getParams() {
+        this.paramsByName = null;
         return params;
     }
 
     public void setParams(List<Param> params) {
         this.params = params;
+        this.paramsByName = null;
+    }
+
+    /**
+     * Find a parameter by name. The parameters are indexed on the first lookup, and again after they are set or returned
+     * by {@link #getParams()}.
+     *
+     * @param name name of the parameter
+     * @return the first parameter with the name, or null
+     */
+    public Param findParam(String name) {
+        if (params == null) {
+            return null;
+        }
+        if (paramsByName == null) {
+            paramsByName = new HashMap<>(params.size() * 4 / 3 + 1);
+            for (Param param : params) {
+                paramsByName.putIfAbsent(param.getName(), param);
+            }
+        }
+        return paramsByName.get(name);
     }
 
     public TransportEntity getTransport() {
@@ -19,6 +19,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import io.kusanagi.katana.api.component.Key;
 import io.kusanagi.katana.sdk.File;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -79,6 +80,11 @@ public class HttpRequestEntity {
     @JsonProperty(Key.HTTP_REQUEST_FILES)
     private List<File> files;
 
+    /**
+     * The uploaded files by file name, built on the first lookup and dropped whenever the list can change
+     */
+    private Map<String, File> filesByName;
+
     public HttpRequestEntity() {
         // Default constructor to make possible the serialization of this object.
         this.body = "";
@@ -140,12 +146,39 @@ public class HttpRequestEntity {
         this.body = body;
     }
 
+    /**
+     * The returned list can be changed, so the files are indexed again on the next lookup.
+     *
+     * @return the uploaded files
+     */
     public List<File> getFiles() {
+        this.filesByName = null;
         return files;
     }
 
     public void setFiles(List<File> files) {
         this.files = files;
+        this.filesByName = null;
+    }
+
+    /**
+     * Find an uploaded file by its file name. The files are indexed on the first lookup, and again after they are set
+     * or returned by {@link #getFiles()}.
+     *
+     * @param filename name of the file
+     * @return the first file with the name, or null
+     */
+    public File findFile(String filename) {
+        if (files == null) {
+            return null;
+        }
+        if (filesByName == null) {
+            filesByName = new HashMap<>();
+            for (File file : files) {
+                filesByName.putIfAbsent(file.getFilename(), file);
+            }
+        }
+        return filesByName.get(filename);
     }
 
     @Override
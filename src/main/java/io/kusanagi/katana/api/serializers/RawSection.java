@@ -0,0 +1,116 @@
+/*
+ * Java 8 SDK for the KATANA(tm) Platform (http://katana.kusanagi.io)
+ * Copyright (c) 2016-2017 KUSANAGI S.L. All rights reserved.
+ *
+ * Distributed under the MIT license
+ *
+ * For the full copyright and license information, please view the LICENSE
+ *  file that was distributed with this source code
+ *
+ * @link      https://github.com/kusanagi/katana-sdk-java8
+ * @license   http://www.opensource.org/licenses/mit-license.php MIT License
+ * @copyright Copyright (c) 2016-2017 KUSANAGI S.L. (http://kusanagi.io)
+ *
+ */
+
+package io.kusanagi.katana.api.serializers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Section of a payload kept as the msgpack bytes it was received in, and decoded only when it is first accessed.
+ * <p>
+ * The bytes are a slice of the received message, which is never modified after it is read.
+ *
+ * @param <T> type of the decoded section
+ */
+public final class RawSection<T> {
+
+    /**
+     * Decodes the bytes of a section.
+     *
+     * @param <T> type of the decoded section
+     */
+    @FunctionalInterface
+    public interface Decoder<T> {
+        T decode(byte[] bytes, int offset, int length) throws IOException;
+    }
+
+    private final byte[] bytes;
+
+    private final int offset;
+
+    private final int length;
+
+    private final Decoder<T> decoder;
+
+    /**
+     * @param bytes   message containing the section
+     * @param offset  offset of the section in the message
+     * @param length  length of the section
+     * @param decoder decoder of the section
+     */
+    public RawSection(byte[] bytes, int offset, int length, Decoder<T> decoder) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+        this.decoder = decoder;
+    }
+
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * A nil or an empty map take a single byte, any other map takes at least three.
+     *
+     * @return true if the section is nil or empty
+     */
+    public boolean isEmpty() {
+        return length <= 1;
+    }
+
+    /**
+     * @param other section to compare
+     * @return true if both sections have the same bytes
+     */
+    public boolean contentEquals(RawSection<?> other) {
+        if (length != other.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (bytes[offset + i] != other.bytes[other.offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the decoded section
+     * @throws UncheckedIOException if the bytes of the section are invalid
+     */
+    public T decode() {
+        try {
+            return decoder.decode(bytes, offset, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RawSection{" +
+                "length=" + length +
+                '}';
+    }
+}
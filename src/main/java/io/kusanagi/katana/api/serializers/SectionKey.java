@@ -0,0 +1,101 @@
+/*
+ * Java 8 SDK for the KATANA(tm) Platform (http://katana.kusanagi.io)
+ * Copyright (c) 2016-2017 KUSANAGI S.L. All rights reserved.
+ *
+ * Distributed under the MIT license
+ *
+ * For the full copyright and license information, please view the LICENSE
+ *  file that was distributed with this source code
+ *
+ * @link      https://github.com/kusanagi/katana-sdk-java8
+ * @license   http://www.opensource.org/licenses/mit-license.php MIT License
+ * @copyright Copyright (c) 2016-2017 KUSANAGI S.L. (http://kusanagi.io)
+ *
+ */
+
+package io.kusanagi.katana.api.serializers;
+
+import java.util.Objects;
+
+/**
+ * Composite key of an entry in the transport sections, made of the address, Service, version and action it belongs
+ * to. The parts a section is not keyed by are null. Keys are meant to be created once and reused, so the hash is
+ * computed on creation and the same instance compares equal without looking at its parts.
+ */
+public final class SectionKey {
+
+    private final String path;
+
+    private final String service;
+
+    private final String version;
+
+    private final String action;
+
+    private final int hash;
+
+    public SectionKey(String path, String service, String version, String action) {
+        this.path = path;
+        this.service = service;
+        this.version = version;
+        this.action = action;
+        this.hash = Objects.hash(path, service, version, action);
+    }
+
+    public SectionKey(String path, String service, String version) {
+        this(path, service, version, null);
+    }
+
+    public SectionKey(String path, String service) {
+        this(path, service, null, null);
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getService() {
+        return service;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        SectionKey that = (SectionKey) o;
+
+        return hash == that.hash
+                && Objects.equals(path, that.path)
+                && Objects.equals(service, that.service)
+                && Objects.equals(version, that.version)
+                && Objects.equals(action, that.action);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "SectionKey{" +
+                "path='" + path + '\'' +
+                ", service='" + service + '\'' +
+                ", version='" + version + '\'' +
+                ", action='" + action + '\'' +
+                '}';
+    }
+}
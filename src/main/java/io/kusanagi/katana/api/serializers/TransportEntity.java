@@ -21,9 +21,15 @@ import io.kusanagi.katana.api.component.Key;
 import io.kusanagi.katana.api.replies.common.CommandReplyResult;
 import io.kusanagi.katana.sdk.*;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 
 /**
  * Created by juan on 14/09/16.
@@ -89,6 +95,31 @@ public class TransportEntity implements CommandReplyResult {
     @JsonProperty(Key.TRANSPORT_ERRORS)
     private Map<String, Map<String, Map<String, List<ErrorEntity>>>> errors;
 
+    /**
+     * The sections as they were received, by key, while they can still be replied as they are
+     */
+    private Map<String, RawSection<?>> rawSections;
+
+    /**
+     * The keys of the received sections already decoded into their fields
+     */
+    private Set<String> decodedSections;
+
+    /**
+     * The Services changed in each received section since it was decoded, by section key and address
+     */
+    private Map<String, Map<String, Set<String>>> modifiedServices;
+
+    /**
+     * The innermost containers of each section already walked to, by section key and composite key
+     */
+    private Map<String, Map<SectionKey, Object>> entries;
+
+    /**
+     * The files of every action by parameter name, built on the first lookup
+     */
+    private Map<String, File> filesByName;
+
     /**
      *
      */
@@ -96,6 +127,35 @@ public class TransportEntity implements CommandReplyResult {
         this.links = new HashMap<>();
     }
 
+    /**
+     * Copy the sections of the given transport, without decoding the ones it keeps as received
+     *
+     * @param other transport to copy
+     */
+    public TransportEntity(TransportEntity other) {
+        this.meta = other.meta;
+        this.body = other.body;
+        this.files = other.files;
+        this.data = other.data;
+        this.relations = other.relations;
+        this.links = other.links;
+        this.calls = other.calls;
+        this.transactions = other.transactions;
+        this.errors = other.errors;
+        if (other.rawSections != null) {
+            this.rawSections = new HashMap<>(other.rawSections);
+            this.decodedSections = new HashSet<>(other.decodedSections);
+            this.modifiedServices = new HashMap<>();
+            for (Map.Entry<String, Map<String, Set<String>>> section : other.modifiedServices.entrySet()) {
+                Map<String, Set<String>> addresses = new HashMap<>();
+                for (Map.Entry<String, Set<String>> address : section.getValue().entrySet()) {
+                    addresses.put(address.getKey(), new HashSet<>(address.getValue()));
+                }
+                this.modifiedServices.put(section.getKey(), addresses);
+            }
+        }
+    }
+
     public TransportMeta getMeta() {
         return meta;
     }
@@ -112,36 +172,112 @@ public class TransportEntity implements CommandReplyResult {
         this.body = body;
     }
 
+    /**
+     * The returned files can be changed, so a section kept as received is encoded again as a whole in the reply
+     *
+     * @return the files
+     */
     public Map<String, Map<String, Map<String, Map<String, List<File>>>>> getFiles() {
+        readFiles();
+        markModified(Key.TRANSPORT_FILES);
+        return files;
+    }
+
+    /**
+     * Get the files without recording a change to them, so the returned files MUST NOT be changed
+     *
+     * @return the files
+     */
+    public Map<String, Map<String, Map<String, Map<String, List<File>>>>> readFiles() {
+        files = decodeSection(Key.TRANSPORT_FILES, files);
         return files;
     }
 
     public void setFiles(Map<String, Map<String, Map<String, Map<String, List<File>>>>> files) {
         this.files = files;
+        discardSection(Key.TRANSPORT_FILES);
+        discardEntries(Key.TRANSPORT_FILES);
     }
 
+    /**
+     * The returned data can be changed, so a section kept as received is encoded again as a whole in the reply
+     *
+     * @return the data
+     */
     public Map<String, Map<String, Map<String, Map<String, Object>>>> getData() {
+        readData();
+        markModified(Key.TRANSPORT_DATA);
+        return data;
+    }
+
+    /**
+     * Get the data without recording a change to them, so the returned data MUST NOT be changed
+     *
+     * @return the data
+     */
+    public Map<String, Map<String, Map<String, Map<String, Object>>>> readData() {
+        data = decodeSection(Key.TRANSPORT_DATA, data);
         return data;
     }
 
     public void setData(Map<String, Map<String, Map<String, Map<String, Object>>>> data) {
         this.data = data;
+        discardSection(Key.TRANSPORT_DATA);
+        discardEntries(Key.TRANSPORT_DATA);
     }
 
+    /**
+     * The returned relations can be changed, so a section kept as received is encoded again as a whole in the reply
+     *
+     * @return the relations
+     */
     public Map<String, Map<String, Map<String, Map<String, Map<String, Object>>>>> getRelations() {
+        readRelations();
+        markModified(Key.TRANSPORT_RELATIONS);
+        return relations;
+    }
+
+    /**
+     * Get the relations without recording a change to them, so the returned relations MUST NOT be changed
+     *
+     * @return the relations
+     */
+    public Map<String, Map<String, Map<String, Map<String, Map<String, Object>>>>> readRelations() {
+        relations = decodeSection(Key.TRANSPORT_RELATIONS, relations);
         return relations;
     }
 
     public void setRelations(Map<String, Map<String, Map<String, Map<String, Map<String, Object>>>>> relations) {
         this.relations = relations;
+        discardSection(Key.TRANSPORT_RELATIONS);
+        discardEntries(Key.TRANSPORT_RELATIONS);
     }
 
+    /**
+     * The returned links can be changed, so a section kept as received is encoded again as a whole in the reply
+     *
+     * @return the links
+     */
     public Map<String, Map<String, Map<String, String>>> getLinks() {
+        readLinks();
+        markModified(Key.TRANSPORT_LINKS);
+        return links;
+    }
+
+    /**
+     * Get the links without recording a change to them, so the returned links MUST NOT be changed
+     *
+     * @return the links
+     */
+    public Map<String, Map<String, Map<String, String>>> readLinks() {
+        links = decodeSection(Key.TRANSPORT_LINKS, links);
         return links;
     }
 
     public void setLinks(Map<String, Map<String, Map<String, String>>> links) {
         this.links = links;
+        discardSection(Key.TRANSPORT_LINKS);
+        discardEntries(Key.TRANSPORT_LINKS);
     }
 
     public Map<String, Map<String, List<CallEntity>>> getCalls() {
@@ -160,12 +296,256 @@ public class TransportEntity implements CommandReplyResult {
         this.transactions = transactions;
     }
 
+    /**
+     * The returned errors can be changed, so a section kept as received is encoded again as a whole in the reply
+     *
+     * @return the errors
+     */
     public Map<String, Map<String, Map<String, List<ErrorEntity>>>> getErrors() {
+        readErrors();
+        markModified(Key.TRANSPORT_ERRORS);
+        return errors;
+    }
+
+    /**
+     * Get the errors without recording a change to them, so the returned errors MUST NOT be changed
+     *
+     * @return the errors
+     */
+    public Map<String, Map<String, Map<String, List<ErrorEntity>>>> readErrors() {
+        errors = decodeSection(Key.TRANSPORT_ERRORS, errors);
         return errors;
     }
 
     public void setErrors(Map<String, Map<String, Map<String, List<ErrorEntity>>>> errors) {
         this.errors = errors;
+        discardSection(Key.TRANSPORT_ERRORS);
+        discardEntries(Key.TRANSPORT_ERRORS);
+    }
+
+    /**
+     * Keep a section as the bytes it was received in, replacing its current value
+     *
+     * @param key     key of the section
+     * @param section bytes of the section, or null if it was received as nil
+     */
+    public void setRawSection(String key, RawSection<?> section) {
+        if (rawSections == null) {
+            rawSections = new HashMap<>();
+            decodedSections = new HashSet<>();
+            modifiedServices = new HashMap<>();
+        }
+        rawSections.put(key, section);
+        decodedSections.remove(key);
+        modifiedServices.remove(key);
+        discardEntries(key);
+    }
+
+    /**
+     * The received bytes of a section can be replied as they are, except for the Services returned by
+     * {@link #getModifiedServices(String)}
+     *
+     * @param key key of the section
+     * @return the bytes the section was received in, or null
+     */
+    public RawSection<?> getRawSection(String key) {
+        return rawSections == null ? null : rawSections.get(key);
+    }
+
+    /**
+     * @param key key of the section
+     * @return the Services changed in the section since it was received, by address
+     */
+    public Map<String, Set<String>> getModifiedServices(String key) {
+        Map<String, Set<String>> services = modifiedServices == null ? null : modifiedServices.get(key);
+        return services == null ? Collections.emptyMap() : services;
+    }
+
+    /**
+     * Record a change to the entries of a Service in a section, which are encoded again in the reply while the rest
+     * of the received section is copied as it is. The changes made to a section in any other way are recorded by its
+     * getter, or MUST be recorded with {@link #markModified(String)}.
+     *
+     * @param key     key of the section
+     * @param address address of the Service
+     * @param service name of the Service
+     */
+    public void markModified(String key, String address, String service) {
+        discardFileIndex(key);
+        if (decodedSections != null && decodedSections.contains(key)) {
+            modifiedServices.computeIfAbsent(key, k -> new HashMap<>())
+                    .computeIfAbsent(address, k -> new HashSet<>())
+                    .add(service);
+        }
+    }
+
+    /**
+     * Record a change to any part of a section, which is encoded again as a whole in the reply
+     *
+     * @param key key of the section
+     */
+    public void markModified(String key) {
+        if (decodedSections != null && decodedSections.contains(key)) {
+            discardSection(key);
+        }
+        discardEntries(key);
+    }
+
+    /**
+     * Get the files of an action, creating the levels leading to them when missing
+     *
+     * @param key address, Service, version and action of the files
+     * @return the files of the action
+     */
+    public List<File> getFileEntries(SectionKey key) {
+        if (readFiles() == null) {
+            setFiles(new HashMap<>());
+        }
+        return entry(Key.TRANSPORT_FILES, key, k -> files
+                .computeIfAbsent(k.getPath(), path -> new HashMap<>())
+                .computeIfAbsent(k.getService(), service -> new HashMap<>())
+                .computeIfAbsent(k.getVersion(), version -> new HashMap<>())
+                .computeIfAbsent(k.getAction(), action -> new ArrayList<>()));
+    }
+
+    /**
+     * Find a file by its parameter name among the files of every action. The files are indexed on the first lookup,
+     * and again after the section is replaced or a change to it is recorded with one of the markModified methods.
+     *
+     * @param name parameter name of the file
+     * @return the first file with the name, or null
+     */
+    public File findFile(String name) {
+        if (filesByName == null) {
+            filesByName = new HashMap<>();
+            if (readFiles() != null) {
+                for (Map<String, Map<String, Map<String, List<File>>>> serviceFiles : files.values()) {
+                    for (Map<String, Map<String, List<File>>> versionFiles : serviceFiles.values()) {
+                        for (Map<String, List<File>> actionFiles : versionFiles.values()) {
+                            for (List<File> nameFiles : actionFiles.values()) {
+                                for (File file : nameFiles) {
+                                    filesByName.putIfAbsent(file.getName(), file);
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return filesByName.get(name);
+    }
+
+    /**
+     * Get the data of a Service version by action name, creating the levels leading to it when missing
+     *
+     * @param key address, Service and version of the data
+     * @return the data of the Service version
+     */
+    public Map<String, Object> getDataEntries(SectionKey key) {
+        if (readData() == null) {
+            setData(new HashMap<>());
+        }
+        return entry(Key.TRANSPORT_DATA, key, k -> data
+                .computeIfAbsent(k.getPath(), path -> new HashMap<>())
+                .computeIfAbsent(k.getService(), service -> new HashMap<>())
+                .computeIfAbsent(k.getVersion(), version -> new HashMap<>()));
+    }
+
+    /**
+     * Get the relations of a Service by primary key, creating the levels leading to them when missing
+     *
+     * @param key address and Service of the relations
+     * @return the relations of the Service
+     */
+    public Map<String, Map<String, Map<String, Object>>> getRelationEntries(SectionKey key) {
+        if (readRelations() == null) {
+            setRelations(new HashMap<>());
+        }
+        return entry(Key.TRANSPORT_RELATIONS, key, k -> relations
+                .computeIfAbsent(k.getPath(), path -> new HashMap<>())
+                .computeIfAbsent(k.getService(), service -> new HashMap<>()));
+    }
+
+    /**
+     * Get the links of a Service by name, creating the levels leading to them when missing
+     *
+     * @param key address and Service of the links
+     * @return the links of the Service
+     */
+    public Map<String, String> getLinkEntries(SectionKey key) {
+        if (readLinks() == null) {
+            setLinks(new HashMap<>());
+        }
+        return entry(Key.TRANSPORT_LINKS, key, k -> links
+                .computeIfAbsent(k.getPath(), path -> new HashMap<>())
+                .computeIfAbsent(k.getService(), service -> new HashMap<>()));
+    }
+
+    /**
+     * Get the errors of a Service version, creating the levels leading to them when missing
+     *
+     * @param key address, Service and version of the errors
+     * @return the errors of the Service version
+     */
+    public List<ErrorEntity> getErrorEntries(SectionKey key) {
+        if (readErrors() == null) {
+            setErrors(new HashMap<>());
+        }
+        return entry(Key.TRANSPORT_ERRORS, key, k -> errors
+                .computeIfAbsent(k.getPath(), path -> new HashMap<>())
+                .computeIfAbsent(k.getService(), service -> new HashMap<>())
+                .computeIfAbsent(k.getVersion(), version -> new ArrayList<>()));
+    }
+
+    /**
+     * Check for files without decoding them
+     *
+     * @return true if the transport has any file
+     */
+    public boolean hasFiles() {
+        if (rawSections != null && rawSections.containsKey(Key.TRANSPORT_FILES) && !decodedSections.contains(Key.TRANSPORT_FILES)) {
+            RawSection<?> section = rawSections.get(Key.TRANSPORT_FILES);
+            return section != null && !section.isEmpty();
+        }
+        return files != null && !files.isEmpty();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T decodeSection(String key, T value) {
+        if (rawSections == null || !rawSections.containsKey(key) || !decodedSections.add(key)) {
+            return value;
+        }
+        RawSection<?> section = rawSections.get(key);
+        return section == null ? null : (T) section.decode();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T entry(String section, SectionKey key, Function<SectionKey, T> walk) {
+        if (entries == null) {
+            entries = new HashMap<>();
+        }
+        return (T) entries.computeIfAbsent(section, k -> new HashMap<>()).computeIfAbsent(key, walk);
+    }
+
+    private void discardEntries(String key) {
+        if (entries != null) {
+            entries.remove(key);
+        }
+        discardFileIndex(key);
+    }
+
+    private void discardFileIndex(String key) {
+        if (Key.TRANSPORT_FILES.equals(key)) {
+            filesByName = null;
+        }
+    }
+
+    private void discardSection(String key) {
+        if (rawSections != null) {
+            rawSections.remove(key);
+            decodedSections.remove(key);
+            modifiedServices.remove(key);
+        }
     }
 
     @Override
@@ -185,16 +565,16 @@ public class TransportEntity implements CommandReplyResult {
         if (body != null ? !body.equals(that.body) : that.body != null) {
             return false;
         }
-        if (files != null ? !files.equals(that.files) : that.files != null) {
+        if (!sectionEquals(that, Key.TRANSPORT_FILES, TransportEntity::readFiles)) {
             return false;
         }
-        if (data != null ? !data.equals(that.data) : that.data != null) {
+        if (!sectionEquals(that, Key.TRANSPORT_DATA, TransportEntity::readData)) {
             return false;
         }
-        if (relations != null ? !relations.equals(that.relations) : that.relations != null) {
+        if (!sectionEquals(that, Key.TRANSPORT_RELATIONS, TransportEntity::readRelations)) {
             return false;
         }
-        if (links != null ? !links.equals(that.links) : that.links != null) {
+        if (!sectionEquals(that, Key.TRANSPORT_LINKS, TransportEntity::readLinks)) {
             return false;
         }
         if (calls != null ? !calls.equals(that.calls) : that.calls != null) {
@@ -203,20 +583,35 @@ public class TransportEntity implements CommandReplyResult {
         if (transactions != null ? !transactions.equals(that.transactions) : that.transactions != null) {
             return false;
         }
-        return errors != null ? errors.equals(that.errors) : that.errors == null;
+        return sectionEquals(that, Key.TRANSPORT_ERRORS, TransportEntity::readErrors);
+    }
+
+    /**
+     * Two sections still kept as received are compared by their bytes, any other section is decoded to compare it
+     */
+    private boolean sectionEquals(TransportEntity that, String key, Function<TransportEntity, Object> reader) {
+        RawSection<?> section = getUndecodedSection(key);
+        RawSection<?> other = that.getUndecodedSection(key);
+        if (section != null && other != null) {
+            return section.contentEquals(other);
+        }
+        return Objects.equals(reader.apply(this), reader.apply(that));
+    }
+
+    private RawSection<?> getUndecodedSection(String key) {
+        return rawSections == null || decodedSections.contains(key) ? null : rawSections.get(key);
     }
 
+    /**
+     * The sections that can be kept as received are left out, so the hash code is the same whether they are decoded
+     * or not
+     */
     @Override
     public int hashCode() {
         int result = meta != null ? meta.hashCode() : 0;
         result = 31 * result + (body != null ? body.hashCode() : 0);
-        result = 31 * result + (files != null ? files.hashCode() : 0);
-        result = 31 * result + (data != null ? data.hashCode() : 0);
-        result = 31 * result + (relations != null ? relations.hashCode() : 0);
-        result = 31 * result + (links != null ? links.hashCode() : 0);
         result = 31 * result + (calls != null ? calls.hashCode() : 0);
         result = 31 * result + (transactions != null ? transactions.hashCode() : 0);
-        result = 31 * result + (errors != null ? errors.hashCode() : 0);
         return result;
     }
 
@@ -225,13 +620,18 @@ public class TransportEntity implements CommandReplyResult {
         return "TransportEntity{" +
                 "meta=" + meta +
                 ", body=" + body +
-                ", files=" + files +
-                ", data=" + data +
-                ", relations=" + relations +
-                ", links=" + links +
+                ", files=" + describeSection(Key.TRANSPORT_FILES, files) +
+                ", data=" + describeSection(Key.TRANSPORT_DATA, data) +
+                ", relations=" + describeSection(Key.TRANSPORT_RELATIONS, relations) +
+                ", links=" + describeSection(Key.TRANSPORT_LINKS, links) +
                 ", calls=" + calls +
                 ", transactions=" + transactions +
-                ", errors=" + errors +
+                ", errors=" + describeSection(Key.TRANSPORT_ERRORS, errors) +
                 '}';
     }
+
+    private Object describeSection(String key, Object value) {
+        RawSection<?> section = getUndecodedSection(key);
+        return section != null ? section : value;
+    }
 }
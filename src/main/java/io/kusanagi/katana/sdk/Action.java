@@ -23,19 +23,23 @@ import io.kusanagi.katana.api.commands.common.CommandMeta;
 import io.kusanagi.katana.api.component.Component;
 import io.kusanagi.katana.api.component.Constants;
 import io.kusanagi.katana.api.component.ExceptionMessage;
+import io.kusanagi.katana.api.component.Key;
 import io.kusanagi.katana.api.component.Serializer;
 import io.kusanagi.katana.api.component.utils.Logger;
-import io.kusanagi.katana.api.component.utils.MessagePackSerializer;
 import io.kusanagi.katana.api.replies.ErrorPayload;
 import io.kusanagi.katana.api.replies.ReturnReplyPayload;
 import io.kusanagi.katana.api.serializers.*;
-import org.zeromq.ZMQ;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Created by juan on 27/08/16.
@@ -46,6 +50,15 @@ public class Action extends Api {
 
     private Transport transport;
 
+    /**
+     * Replies of the asynchronous calls not merged yet, in the order in which the calls were made
+     */
+    private final List<CompletableFuture<ReturnReplyPayload>> pendingCalls = new ArrayList<>();
+
+    private SectionKey serviceKey;
+
+    private SectionKey versionKey;
+
     public Action(Component component, String path, String name, String version, String platformVersion,
                   Map<String, String> variables, boolean isDebug, Mapping mapping, ActionEntity actionEntity, Transport transport) {
         super(component, path, name, version, platformVersion, variables, isDebug, mapping);
@@ -116,12 +129,7 @@ public class Action extends Api {
      * @return Return true if the Action has the param
      */
     public boolean hasParam(String name) {
-        for (Param param : actionEntity.getParams()) {
-            if (param.getName().equals(name)) {
-                return true;
-            }
-        }
-        return false;
+        return actionEntity.findParam(name) != null;
     }
 
     /**
@@ -132,13 +140,12 @@ public class Action extends Api {
      * @return Return the value of the param
      */
     public Param getParam(String name) {
-        for (Param param : actionEntity.getParams()) {
-            if (param.getName().equals(name)) {
-                return param;
-            }
+        Param param = actionEntity.findParam(name);
+        if (param != null) {
+            return param;
         }
 
-        Param param = new Param();
+        param = new Param();
         param.setName(name);
         param.setExists(false);
         return param;
@@ -185,25 +192,7 @@ public class Action extends Api {
      * @return Return true if the action has the file
      */
     public boolean hasFile(String name) {
-        Map<String, Map<String, Map<String, Map<String, List<File>>>>> pathFiles = actionEntity.getTransport().getFiles();
-        for (Map.Entry path : pathFiles.entrySet()) {
-            Map<String, Map<String, Map<String, List<File>>>> serviceFiles = pathFiles.get((String) path.getKey());
-            for (Map.Entry service : serviceFiles.entrySet()) {
-                Map<String, Map<String, List<File>>> versionFiles = serviceFiles.get((String) service.getKey());
-                for (Map.Entry version : versionFiles.entrySet()) {
-                    Map<String, List<File>> actionFiles = versionFiles.get((String) version.getKey());
-                    for (Map.Entry action : actionFiles.entrySet()) {
-                        List<File> nameFiles = actionFiles.get((String) action.getKey());
-                        for (File file: nameFiles) {
-                            if(file.getName().equals(name)) {
-                                return true;
-                            }
-                        }
-                    }
-                }
-            }
-        }
-        return false;
+        return actionEntity.getTransport().findFile(name) != null;
     }
 
     /**
@@ -215,26 +204,12 @@ public class Action extends Api {
      * @return Return the File
      */
     public File getFile(String name) {
-        Map<String, Map<String, Map<String, Map<String, List<File>>>>> pathFiles = actionEntity.getTransport().getFiles();
-        for (Map.Entry path : pathFiles.entrySet()) {
-            Map<String, Map<String, Map<String, List<File>>>> serviceFiles = pathFiles.get((String) path.getKey());
-            for (Map.Entry service : serviceFiles.entrySet()) {
-                Map<String, Map<String, List<File>>> versionFiles = serviceFiles.get((String) service.getKey());
-                for (Map.Entry version : versionFiles.entrySet()) {
-                    Map<String, List<File>> actionFiles = versionFiles.get((String) version.getKey());
-                    for (Map.Entry action : actionFiles.entrySet()) {
-                        List<File> nameFiles = actionFiles.get((String) action.getKey());
-                        for (File file: nameFiles) {
-                            if(file.getName().equals(name)) {
-                                return file;
-                            }
-                        }
-                    }
-                }
-            }
+        File file = actionEntity.getTransport().findFile(name);
+        if (file != null) {
+            return file;
         }
 
-        File file = new File();
+        file = new File();
         file.setName(name);
         file.setPath("");
         return file;
@@ -248,7 +223,10 @@ public class Action extends Api {
      */
     public List<File> getFiles() {
         List<File> files = new ArrayList<>();
-        Map<String, Map<String, Map<String, Map<String, List<File>>>>> pathFiles = actionEntity.getTransport().getFiles();
+        Map<String, Map<String, Map<String, Map<String, List<File>>>>> pathFiles = actionEntity.getTransport().readFiles();
+        if (pathFiles == null) {
+            return files;
+        }
         for (Map.Entry path : pathFiles.entrySet()) {
             Map<String, Map<String, Map<String, List<File>>>> serviceFiles = pathFiles.get((String) path.getKey());
             for (Map.Entry service : serviceFiles.entrySet()) {
@@ -316,34 +294,7 @@ public class Action extends Api {
      * @return Return the instance of the action
      */
     public Action setEntity(Object entity) {
-        Map<String, Map<String, Map<String, Map<String, Object>>>> pathData = actionEntity.getTransport().getData();
-
-        if (pathData == null) {
-            pathData = new HashMap<>();
-            actionEntity.getTransport().setData(pathData);
-        }
-
-        Map<String, Map<String, Map<String, Object>>> serviceData = new HashMap<>();
-        Map<String, Map<String, Object>> versionData = new HashMap<>();
-        Map<String, Object> actionData = new HashMap<>();
-        if (pathData.containsKey(getPath())) {
-            serviceData = pathData.get(getPath());
-            if (serviceData.containsKey(getName())) {
-                versionData = serviceData.get(getName());
-                if (versionData.containsKey(getVersion())) {
-                    actionData = versionData.get(getVersion());
-                } else {
-                    versionData.put(getVersion(), actionData);
-                }
-            } else {
-                versionData.put(getVersion(), actionData);
-                serviceData.put(getName(), versionData);
-            }
-        } else {
-            versionData.put(getVersion(), actionData);
-            serviceData.put(getName(), versionData);
-            pathData.put(getPath(), serviceData);
-        }
+        Map<String, Object> actionData = actionEntity.getTransport().getDataEntries(getVersionKey());
         if (!(entity instanceof List)) {
             List<Object> entities = new ArrayList<>();
             entities.add(entity);
@@ -351,6 +302,7 @@ public class Action extends Api {
         } else {
             actionData.put(getActionName(), entity);
         }
+        actionEntity.getTransport().markModified(Key.TRANSPORT_DATA, getPath(), getName());
         return this;
     }
 
@@ -379,37 +331,7 @@ public class Action extends Api {
      * @return Return the instance of the action
      */
     public Action relateOne(String primaryKey, String service, String foreignKey) {
-        Map<String, Map<String, Map<String, Map<String, Map<String, Object>>>>> relations = actionEntity.getTransport().getRelations();
-
-        Map<String, Object> relation = new HashMap<>();
-        relation.put(service, foreignKey);
-
-        Map<String, Map<String, Object>> primaryKeyRelation = new HashMap<>();
-        primaryKeyRelation.put(path, relation);
-
-        Map<String, Map<String, Map<String, Object>>> nameRelation = new HashMap<>();
-        nameRelation.put(primaryKey, primaryKeyRelation);
-
-        if (relations.containsKey(path)) {
-            if (relations.get(path).containsKey(name)) {
-                if (relations.get(path).get(name).containsKey(primaryKey)) {
-                    if (relations.get(path).get(name).get(primaryKey).containsKey(path)) {
-                        relations.get(path).get(name).get(primaryKey).get(path).put(service, foreignKey);
-                    } else {
-                        relations.get(path).get(name).get(primaryKey).put(path, relation);
-                    }
-                } else {
-                    relations.get(path).get(name).put(primaryKey, primaryKeyRelation);
-                }
-            } else {
-                relations.get(path).put(name, nameRelation);
-            }
-        } else {
-            Map<String, Map<String, Map<String, Map<String, Object>>>> pathRelation = new HashMap<>();
-            pathRelation.put(name, nameRelation);
-            relations.put(path, pathRelation);
-        }
-
+        relate(primaryKey, path, service, foreignKey);
         return this;
     }
 
@@ -425,37 +347,7 @@ public class Action extends Api {
      * @return Return the instance of the action
      */
     public Action relateMany(String primaryKey, String service, List<String> foreignKey) {
-        Map<String, Map<String, Map<String, Map<String, Map<String, Object>>>>> relations = actionEntity.getTransport().getRelations();
-
-        Map<String, Object> relation = new HashMap<>();
-        relation.put(service, foreignKey);
-
-        Map<String, Map<String, Object>> primaryKeyRelation = new HashMap<>();
-        primaryKeyRelation.put(path, relation);
-
-        Map<String, Map<String, Map<String, Object>>> nameRelation = new HashMap<>();
-        nameRelation.put(primaryKey, primaryKeyRelation);
-
-        if (relations.containsKey(path)) {
-            if (relations.get(path).containsKey(name)) {
-                if (relations.get(path).get(name).containsKey(primaryKey)) {
-                    if (relations.get(path).get(name).get(primaryKey).containsKey(path)) {
-                        relations.get(path).get(name).get(primaryKey).get(path).put(service, foreignKey);
-                    } else {
-                        relations.get(path).get(name).get(primaryKey).put(path, relation);
-                    }
-                } else {
-                    relations.get(path).get(name).put(primaryKey, primaryKeyRelation);
-                }
-            } else {
-                relations.get(path).put(name, nameRelation);
-            }
-        } else {
-            Map<String, Map<String, Map<String, Map<String, Object>>>> pathRelation = new HashMap<>();
-            pathRelation.put(name, nameRelation);
-            relations.put(path, pathRelation);
-        }
-
+        relate(primaryKey, path, service, foreignKey);
         return this;
     }
 
@@ -474,36 +366,7 @@ public class Action extends Api {
      * @return Return the instance of the action
      */
     public Action relateOneRemote(String primaryKey, String address, String service, String foreignKey) {
-        Map<String, Map<String, Map<String, Map<String, Map<String, Object>>>>> relations = actionEntity.getTransport().getRelations();
-
-        Map<String, Object> relation = new HashMap<>();
-        relation.put(service, foreignKey);
-
-        Map<String, Map<String, Object>> primaryKeyRelation = new HashMap<>();
-        primaryKeyRelation.put(address, relation);
-
-        Map<String, Map<String, Map<String, Object>>> nameRelation = new HashMap<>();
-        nameRelation.put(primaryKey, primaryKeyRelation);
-
-        if (relations.containsKey(path)) {
-            if (relations.get(path).containsKey(name)) {
-                if (relations.get(path).get(name).containsKey(primaryKey)) {
-                    if (relations.get(path).get(name).get(primaryKey).containsKey(address)) {
-                        relations.get(path).get(name).get(primaryKey).get(address).put(service, foreignKey);
-                    } else {
-                        relations.get(path).get(name).get(primaryKey).put(address, relation);
-                    }
-                } else {
-                    relations.get(path).get(name).put(primaryKey, primaryKeyRelation);
-                }
-            } else {
-                relations.get(path).put(name, nameRelation);
-            }
-        } else {
-            Map<String, Map<String, Map<String, Map<String, Object>>>> pathRelation = new HashMap<>();
-            pathRelation.put(name, nameRelation);
-            relations.put(path, pathRelation);
-        }
+        relate(primaryKey, address, service, foreignKey);
         return this;
     }
 
@@ -522,36 +385,7 @@ public class Action extends Api {
      * @return Return the instance of the action
      */
     public Action relateManyRemote(String primaryKey, String address, String service, List<String> foreignKey) {
-        Map<String, Map<String, Map<String, Map<String, Map<String, Object>>>>> relations = actionEntity.getTransport().getRelations();
-
-        Map<String, Object> relation = new HashMap<>();
-        relation.put(service, foreignKey);
-
-        Map<String, Map<String, Object>> primaryKeyRelation = new HashMap<>();
-        primaryKeyRelation.put(address, relation);
-
-        Map<String, Map<String, Map<String, Object>>> nameRelation = new HashMap<>();
-        nameRelation.put(primaryKey, primaryKeyRelation);
-
-        if (relations.containsKey(path)) {
-            if (relations.get(path).containsKey(name)) {
-                if (relations.get(path).get(name).containsKey(primaryKey)) {
-                    if (relations.get(path).get(name).get(primaryKey).containsKey(address)) {
-                        relations.get(path).get(name).get(primaryKey).get(address).put(service, foreignKey);
-                    } else {
-                        relations.get(path).get(name).get(primaryKey).put(address, relation);
-                    }
-                } else {
-                    relations.get(path).get(name).put(primaryKey, primaryKeyRelation);
-                }
-            } else {
-                relations.get(path).put(name, nameRelation);
-            }
-        } else {
-            Map<String, Map<String, Map<String, Map<String, Object>>>> pathRelation = new HashMap<>();
-            pathRelation.put(name, nameRelation);
-            relations.put(path, pathRelation);
-        }
+        relate(primaryKey, address, service, foreignKey);
         return this;
     }
 
@@ -565,21 +399,9 @@ public class Action extends Api {
      * @return Return the instance of the action
      */
     public Action setLink(String link, String uri) {
-        Map<String, Map<String, Map<String, String>>> pathLink = actionEntity.getTransport().getLinks();
-        Map<String, Map<String, String>> serviceLink = new HashMap<>();
-        Map<String, String> linkMap = new HashMap<>();
-        if (pathLink.containsKey(getPath())) {
-            serviceLink = pathLink.get(getPath());
-            if (serviceLink.containsKey(getName())) {
-                linkMap = serviceLink.get(getName());
-            } else {
-                serviceLink.put(getName(), linkMap);
-            }
-        } else {
-            serviceLink.put(getName(), linkMap);
-            pathLink.put(getPath(), serviceLink);
-        }
+        Map<String, String> linkMap = actionEntity.getTransport().getLinkEntries(getServiceKey());
         linkMap.put(link, uri);
+        actionEntity.getTransport().markModified(Key.TRANSPORT_LINKS, getPath(), getName());
         return this;
     }
 
@@ -676,15 +498,137 @@ public class Action extends Api {
      */
     public Object call(String service, String version, String action, List<Param> params, List<File> files, int timeout) {
         ServiceSchema serviceSchema = getServiceSchema(this.name, this.version);
+        byte[] payload = getCallPayload(serviceSchema, service, version, action, params, files);
+        if (payload == null) {
+            return false;
+        }
+
+        byte[] bytes = component.getRuntimeCallPool().send(serviceSchema.getAddress(), payload, timeout);
+
+        // Replies of previous asynchronous calls are merged first to keep the transport order deterministic
+        awaitCalls();
+        return mergeCallReply(parseCallReply(bytes));
+    }
+
+    /**
+     * perform a run-time Service call within the same Realm without blocking the action, with the REQUIRED service
+     * argument as the name of the Service to call, the REQUIRED version argument as the version of the given Service,
+     * and the REQUIRED action argument as the name of the action to call.
+     * <p>
+     * The transport returned by the called Service is merged into the transport of this action on the thread of the
+     * action, by the next {@link #call}, by {@link #callAll} or before the reply of the Service is built. Merges are
+     * applied in the order in which the calls were made, regardless of the order in which the replies arrive. If the
+     * call fails, the first of those also fails with the error of the call.
+     *
+     * @param service Service name
+     * @param version Service version
+     * @param action  Action name
+     * @param params  Optional parameters
+     * @param files   Optional files
+     * @param timeout timeout in milliseconds
+     * @return A future completed with the return object of the action called
+     */
+    public CompletableFuture<Object> callAsync(String service, String version, String action, List<Param> params, List<File> files, int timeout) {
+        ServiceSchema serviceSchema = getServiceSchema(this.name, this.version);
+        byte[] payload = getCallPayload(serviceSchema, service, version, action, params, files);
+        if (payload == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        CompletableFuture<ReturnReplyPayload> reply = component.getRuntimeCallPool()
+                .sendAsync(serviceSchema.getAddress(), payload, timeout)
+                .thenApply(this::parseCallReply);
+        synchronized (pendingCalls) {
+            pendingCalls.add(reply);
+        }
+        return reply.thenApply(returnCommandReply -> returnCommandReply.getCommandReply().getResult().getReturnObject());
+    }
+
+    public CompletableFuture<Object> callAsync(String service, String version, String action, List<Param> params, List<File> files) {
+        return callAsync(service, version, action, params, files, 10000);
+    }
+
+    /**
+     * perform several run-time Service calls within the same Realm concurrently, waiting for all of them under a
+     * single deadline.
+     * <p>
+     * The transports returned by the called Services are merged into the transport of this action in the order of the
+     * given calls.
+     *
+     * @param calls   Calls to perform
+     * @param timeout timeout in milliseconds for the whole set of calls
+     * @return The return objects of the actions called, in the order of the given calls
+     */
+    public List<Object> callAll(List<RuntimeCall> calls, int timeout) {
+        long deadline = System.currentTimeMillis() + timeout;
+        List<CompletableFuture<Object>> futures = new ArrayList<>();
+        for (RuntimeCall call : calls) {
+            futures.add(callAsync(call.getService(), call.getVersion(), call.getAction(), call.getParams(), call.getFiles(), timeout));
+        }
 
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()]))
+                    .get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // Thrown below by awaitCalls, which merges the calls before the failed one
+        } catch (TimeoutException e) {
+            throw new RuntimeException("Runtime call timeout");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+
+        awaitCalls();
+        List<Object> results = new ArrayList<>();
+        for (CompletableFuture<Object> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    public List<Object> callAll(List<RuntimeCall> calls) {
+        return callAll(calls, 10000);
+    }
+
+    /**
+     * Wait for the asynchronous calls made so far and merge their transports on the calling thread, which MUST be the
+     * one the action runs on.
+     *
+     * @throws RuntimeException the error of the first call that failed, after merging the calls made before it
+     */
+    void awaitCalls() {
+        List<CompletableFuture<ReturnReplyPayload>> calls;
+        synchronized (pendingCalls) {
+            calls = new ArrayList<>(pendingCalls);
+            pendingCalls.clear();
+        }
+        RuntimeException failure = null;
+        for (CompletableFuture<ReturnReplyPayload> call : calls) {
+            try {
+                ReturnReplyPayload reply = call.join();
+                if (failure == null) {
+                    mergeCallReply(reply);
+                }
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private byte[] getCallPayload(ServiceSchema serviceSchema, String service, String version, String action, List<Param> params, List<File> files) {
         if (!serviceSchema.getActionSchema(actionEntity.getActionName()).hasCalls()) {
             throw new IllegalArgumentException(String.format(ExceptionMessage.CALL_NOT_CONFIGURED, this.name, this.version, actionEntity.getActionName()));
         }
 
         // Validate is there are local files
         if (files != null) {
-            if (mapping != null && !getServiceSchema(this.name, this.version).hasFileServer()) {
-                return false;
+            if (mapping != null && !serviceSchema.hasFileServer()) {
+                return null;
             }
             for (File file : files) {
                 if (file.isLocal()) {
@@ -712,75 +656,79 @@ public class Action extends Api {
         payload.setCommandMeta(callCommandMeta);
         payload.setCommand(callCommand);
 
-        // Send Payload
-        Serializer serializer = new MessagePackSerializer();
-        ZMQ.Context context = ZMQ.context(1);
-        ZMQ.Socket requester = context.socket(ZMQ.REQ);
-        String addr = "tcp://" + serviceSchema.getAddress();
-        requester.connect(addr);
-        requester.send(new byte[]{0x01}, zmq.ZMQ.ZMQ_SNDMORE);
         try {
-            requester.send(serializer.serializeInBytes(payload), 0);
+            return component.getSerializer().serializeInBytes(payload);
         } catch (JsonProcessingException e) {
             Logger.log(e);
             throw new IllegalArgumentException(e.getMessage());
         }
+    }
 
-        // Receive Reply
-        ZMQ.Poller poll = new ZMQ.Poller(1);
-        poll.register(requester, ZMQ.Poller.POLLIN);
-        int response = poll.poll(timeout);
-
-        byte[] bytes;
-        if (response > 0) {
-            bytes = requester.recv();
+    private ReturnReplyPayload parseCallReply(byte[] bytes) {
+        if (bytes == null) {
+            throw new RuntimeException("Runtime call timeout");
+        }
 
-            // Parse Reply
-            ReturnReplyPayload returnCommandReply;
-            ErrorPayload errorPayload;
+        // Parse Reply
+        Serializer serializer = component.getSerializer();
+        ErrorPayload errorPayload;
+        try {
+            return serializer.deserialize(bytes, ReturnReplyPayload.class);
+        } catch (IOException e) {
             try {
-
-                // Extract return and return it
-                returnCommandReply = serializer.deserialize(bytes, ReturnReplyPayload.class);
-
-//                //Merge transports
-                TransportEntity responseTransport = returnCommandReply.getCommandReply().getResult().getTransport();
-                merge(actionEntity.getTransport().getMeta().getFallback(), responseTransport.getMeta().getFallback());
-                merge(actionEntity.getTransport().getMeta().getProperties(), responseTransport.getMeta().getProperties());
-                merge(actionEntity.getTransport().getData(), responseTransport.getData());
-                merge(actionEntity.getTransport().getRelations(), responseTransport.getRelations());
-                merge(actionEntity.getTransport().getLinks(), responseTransport.getLinks());
-                merge(actionEntity.getTransport().getCalls(), responseTransport.getCalls());
-                merge(actionEntity.getTransport().getTransactions().getCommit(), responseTransport.getTransactions().getCommit());
-                merge(actionEntity.getTransport().getTransactions().getComplete(), responseTransport.getTransactions().getComplete());
-                merge(actionEntity.getTransport().getTransactions().getRollback(), responseTransport.getTransactions().getRollback());
-                merge(actionEntity.getTransport().getErrors(), responseTransport.getErrors());
-                actionEntity.getTransport().setBody(responseTransport.getBody());
-                merge(actionEntity.getTransport().getFiles(), responseTransport.getFiles());
-
-                return returnCommandReply.getCommandReply().getResult().getReturnObject();
-            } catch (IOException e) {
-                try {
-                    // Throw ErrorEntity Payload as exception
-                    errorPayload = serializer.deserialize(bytes, ErrorPayload.class);
-                    Logger.log(e);
-                    throw new IllegalArgumentException(errorPayload.getError().getMessage());
-                } catch (IOException e1) {
-                    Logger.log(e1);
-                    // Throw serialization exception
-                    throw new IllegalArgumentException(e.getMessage());
-                }
-            } finally {
-                // Close sockets and terminate context
-                requester.close();
-                context.term();
+                // Throw ErrorEntity Payload as exception
+                errorPayload = serializer.deserialize(bytes, ErrorPayload.class);
+                Logger.log(e);
+                throw new IllegalArgumentException(errorPayload.getError().getMessage());
+            } catch (IOException e1) {
+                Logger.log(e1);
+                // Throw serialization exception
+                throw new IllegalArgumentException(e.getMessage());
             }
         }
+    }
 
-        requester.close();
-        context.term();
+    private Object mergeCallReply(ReturnReplyPayload returnCommandReply) {
+        TransportEntity responseTransport = returnCommandReply.getCommandReply().getResult().getTransport();
+        merge(actionEntity.getTransport().getMeta().getFallback(), responseTransport.getMeta().getFallback());
+        merge(actionEntity.getTransport().getMeta().getProperties(), responseTransport.getMeta().getProperties());
+        merge(actionEntity.getTransport().getData(), responseTransport.readData());
+        merge(actionEntity.getTransport().getRelations(), responseTransport.readRelations());
+        merge(actionEntity.getTransport().getLinks(), responseTransport.readLinks());
+        merge(actionEntity.getTransport().getCalls(), responseTransport.getCalls());
+        merge(actionEntity.getTransport().getTransactions().getCommit(), responseTransport.getTransactions().getCommit());
+        merge(actionEntity.getTransport().getTransactions().getComplete(), responseTransport.getTransactions().getComplete());
+        merge(actionEntity.getTransport().getTransactions().getRollback(), responseTransport.getTransactions().getRollback());
+        merge(actionEntity.getTransport().getErrors(), responseTransport.readErrors());
+        actionEntity.getTransport().setBody(responseTransport.getBody());
+        merge(actionEntity.getTransport().getFiles(), responseTransport.readFiles());
+        for (String key : new String[]{Key.TRANSPORT_DATA, Key.TRANSPORT_RELATIONS, Key.TRANSPORT_LINKS, Key.TRANSPORT_ERRORS, Key.TRANSPORT_FILES}) {
+            actionEntity.getTransport().markModified(key);
+        }
 
-        throw new RuntimeException("Runtime call timeout");
+        return returnCommandReply.getCommandReply().getResult().getReturnObject();
+    }
+
+    private void relate(String primaryKey, String address, String service, Object foreignKey) {
+        actionEntity.getTransport().getRelationEntries(getServiceKey())
+                .computeIfAbsent(primaryKey, k -> new HashMap<>())
+                .computeIfAbsent(address, k -> new HashMap<>())
+                .put(service, foreignKey);
+        actionEntity.getTransport().markModified(Key.TRANSPORT_RELATIONS, getPath(), getName());
+    }
+
+    private SectionKey getServiceKey() {
+        if (serviceKey == null) {
+            serviceKey = new SectionKey(getPath(), getName());
+        }
+        return serviceKey;
+    }
+
+    private SectionKey getVersionKey() {
+        if (versionKey == null) {
+            versionKey = new SectionKey(getPath(), getName(), getVersion());
+        }
+        return versionKey;
     }
 
     private void merge(List list1, List list2) {
@@ -960,31 +908,9 @@ public class Action extends Api {
         error.setCode(code);
         error.setStatus(status);
 
-        Map<String, Map<String, Map<String, List<ErrorEntity>>>> pathError = actionEntity.getTransport().getErrors();
-        Map<String, Map<String, List<ErrorEntity>>> serviceError = new HashMap<>();
-        Map<String, List<ErrorEntity>> versionError = new HashMap<>();
-        List<ErrorEntity> errors = new ArrayList<>();
-
-        if (pathError.containsKey(getPath())) {
-            serviceError = pathError.get(getPath());
-            if (serviceError.containsKey(getName())) {
-                versionError = serviceError.get(getName());
-                if (versionError.containsKey(getVersion())) {
-                    errors = versionError.get(getVersion());
-                } else {
-                    versionError.put(getVersion(), errors);
-                }
-            } else {
-                versionError.put(getVersion(), errors);
-                serviceError.put(getName(), versionError);
-            }
-        } else {
-            versionError.put(getVersion(), errors);
-            serviceError.put(getName(), versionError);
-            pathError.put(getPath(), serviceError);
-        }
-
+        List<ErrorEntity> errors = actionEntity.getTransport().getErrorEntries(getVersionKey());
         errors.add(error);
+        actionEntity.getTransport().markModified(Key.TRANSPORT_ERRORS, getPath(), getName());
 
         return this;
     }
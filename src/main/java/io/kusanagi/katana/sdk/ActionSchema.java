@@ -138,6 +138,12 @@ public class ActionSchema {
     @JsonProperty(Key.ACTION_SCHEMA_RETURN_OBJECT)
     private ReturnSchema returnObject;
 
+    /**
+     * Built on first use and dropped whenever the calls or the tags are set. The setters and the getters copy the arrays
+     * and the list, so the index cannot go stale through them
+     */
+    private transient volatile ActionSchemaIndex index;
+
     public ActionSchema() {
         timeout = 10000;
         pathDelimiter = "/";
@@ -197,19 +203,22 @@ public class ActionSchema {
     }
 
     public void setCalls(String[][] calls) {
-        this.calls = calls;
+        this.calls = copyCalls(calls);
+        this.index = null;
     }
 
     public String[][] getDeferredCalls() {
-        return deferredCalls;
+        return copyCalls(deferredCalls);
     }
 
     public void setDeferredCalls(String[][] deferredCalls) {
-        this.deferredCalls = deferredCalls;
+        this.deferredCalls = copyCalls(deferredCalls);
+        this.index = null;
     }
 
     public void setRemoteCalls(String[][] remoteCalls) {
-        this.remoteCalls = remoteCalls;
+        this.remoteCalls = copyCalls(remoteCalls);
+        this.index = null;
     }
 
     public Map<String, TransportSchema> getFallbacks() {
@@ -249,7 +258,8 @@ public class ActionSchema {
     }
 
     public void setTags(List<String> tags) {
-        this.tags = tags;
+        this.tags = tags == null ? null : new ArrayList<>(tags);
+        this.index = null;
     }
 
     //SDM Methods
@@ -366,14 +376,7 @@ public class ActionSchema {
      * version and action arguments.
      */
     public boolean hasCall(String name, String version, String action) {
-        for (String[] call : this.calls) {
-            if (call[0].equals(name) &&
-                    (call[1].equals(version) || version == null || version.isEmpty()) &&
-                    (call[2].equals(action) || action == null || action.isEmpty())) {
-                return true;
-            }
-        }
-        return false;
+        return getIndex().hasCall(name, version, action);
     }
 
     /**
@@ -390,7 +393,7 @@ public class ActionSchema {
      * the action name as a string, or an empty array if no run-time calls are defined.
      */
     public String[][] getCalls() {
-        return calls;
+        return copyCalls(calls);
     }
 
     /**
@@ -405,12 +408,7 @@ public class ActionSchema {
      * version and action arguments.
      */
     public boolean hasDeferCall(String name, String version, String action) {
-        for (String[] call : this.deferredCalls) {
-            if (call[0].equals(name) && call[1].equals(version) && call[2].equals(action)) {
-                return true;
-            }
-        }
-        return false;
+        return getIndex().hasDeferCall(name, version, action);
     }
 
     /**
@@ -443,13 +441,7 @@ public class ActionSchema {
      * version and action arguments.
      */
     public boolean hasRemoteCall(String address, String name, String version, String action) {
-        for (String[] call : this.remoteCalls) {
-            if (call[0].equals(address) && call[1].equals(name) &&
-                    call[2].equals(version) && call[3].equals(action)) {
-                return true;
-            }
-        }
-        return false;
+        return getIndex().hasRemoteCall(address, name, version, action);
     }
 
 
@@ -467,7 +459,7 @@ public class ActionSchema {
      * version and the action name as a string, or an empty array if no deferred calls are defined.
      */
     public String[][] getRemoteCalls() {
-        return remoteCalls;
+        return copyCalls(remoteCalls);
     }
 
     /**
@@ -557,12 +549,7 @@ public class ActionSchema {
      * @return if tag exists returns true else returns false
      */
     public boolean hasTag(String name) {
-        for (String tag: tags){
-            if(tag.equals(name)){
-                return true;
-            }
-        }
-        return false;
+        return getIndex().hasTag(name);
     }
 
     /**
@@ -571,7 +558,37 @@ public class ActionSchema {
      * they are defined in the configuration file, or an empty array if no tags were defined.
      */
     public List<String> getTags() {
-        return this.tags;
+        return this.tags == null ? null : Collections.unmodifiableList(this.tags);
+    }
+
+    /**
+     * Build the index of the calls and the tags of the action. Schemas shared between requests are indexed before
+     * they are published, the index is otherwise built on first use.
+     */
+    public void compile() {
+        getIndex();
+    }
+
+    private ActionSchemaIndex getIndex() {
+        ActionSchemaIndex current = this.index;
+        if (current == null) {
+            // Building the index twice on a race is harmless, both are equal
+            current = new ActionSchemaIndex(this.calls, this.deferredCalls, this.remoteCalls, this.tags);
+            this.index = current;
+        }
+        return current;
+    }
+
+    private static String[][] copyCalls(String[][] calls) {
+        if (calls == null) {
+            return null;
+        }
+
+        String[][] copy = new String[calls.length][];
+        for (int i = 0; i < calls.length; i++) {
+            copy[i] = calls[i] == null ? null : calls[i].clone();
+        }
+        return copy;
     }
 
     /**
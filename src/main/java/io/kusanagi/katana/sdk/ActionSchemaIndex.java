@@ -0,0 +1,88 @@
+/*
+ * Java 8 SDK for the KATANA(tm) Platform (http://katana.kusanagi.io)
+ * Copyright (c) 2016-2017 KUSANAGI S.L. All rights reserved.
+ *
+ * Distributed under the MIT license
+ *
+ * For the full copyright and license information, please view the LICENSE
+ *  file that was distributed with this source code
+ *
+ * @link      https://github.com/kusanagi/katana-sdk-java8
+ * @license   http://www.opensource.org/licenses/mit-license.php MIT License
+ * @copyright Copyright (c) 2016-2017 KUSANAGI S.L. (http://kusanagi.io)
+ *
+ */
+
+package io.kusanagi.katana.sdk;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable hash index of the calls and tags of an {@link ActionSchema}, so the checks done before every call do not
+ * scan the arrays of the schema.
+ * <p>
+ * Run-time calls can be checked without version or action, so every call is also indexed with a null in place of
+ * them.
+ */
+final class ActionSchemaIndex {
+
+    private final Set<List<String>> calls;
+
+    private final Set<List<String>> deferredCalls;
+
+    private final Set<List<String>> remoteCalls;
+
+    private final Set<String> tags;
+
+    ActionSchemaIndex(String[][] calls, String[][] deferredCalls, String[][] remoteCalls, List<String> tags) {
+        Set<List<String>> callKeys = new HashSet<>();
+        if (calls != null) {
+            for (String[] call : calls) {
+                callKeys.add(Arrays.asList(call[0], call[1], call[2]));
+                callKeys.add(Arrays.asList(call[0], call[1], null));
+                callKeys.add(Arrays.asList(call[0], null, call[2]));
+                callKeys.add(Arrays.asList(call[0], null, null));
+            }
+        }
+        this.calls = Collections.unmodifiableSet(callKeys);
+        this.deferredCalls = toKeys(deferredCalls);
+        this.remoteCalls = toKeys(remoteCalls);
+        this.tags = tags == null ? Collections.emptySet() : Collections.unmodifiableSet(new HashSet<>(tags));
+    }
+
+    boolean hasCall(String name, String version, String action) {
+        return calls.contains(Arrays.asList(name, isEmpty(version) ? null : version, isEmpty(action) ? null : action));
+    }
+
+    boolean hasDeferCall(String name, String version, String action) {
+        return deferredCalls.contains(Arrays.asList(name, version, action));
+    }
+
+    boolean hasRemoteCall(String address, String name, String version, String action) {
+        return remoteCalls.contains(Arrays.asList(address, name, version, action));
+    }
+
+    boolean hasTag(String name) {
+        return tags.contains(name);
+    }
+
+    private static Set<List<String>> toKeys(String[][] calls) {
+        if (calls == null) {
+            return Collections.emptySet();
+        }
+
+        Set<List<String>> keys = new HashSet<>();
+        for (String[] call : calls) {
+            keys.add(Arrays.asList(call));
+        }
+        return Collections.unmodifiableSet(keys);
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+}
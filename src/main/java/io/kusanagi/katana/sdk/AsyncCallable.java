@@ -0,0 +1,35 @@
+/*
+ * Java 8 SDK for the KATANA(tm) Platform (http://katana.kusanagi.io)
+ * Copyright (c) 2016-2017 KUSANAGI S.L. All rights reserved.
+ *
+ * Distributed under the MIT license
+ *
+ * For the full copyright and license information, please view the LICENSE
+ *  file that was distributed with this source code
+ *
+ * @link      https://github.com/kusanagi/katana-sdk-java8
+ * @license   http://www.opensource.org/licenses/mit-license.php MIT License
+ * @copyright Copyright (c) 2016-2017 KUSANAGI S.L. (http://kusanagi.io)
+ *
+ */
+
+package io.kusanagi.katana.sdk;
+
+import io.kusanagi.katana.api.Api;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Userland callback that completes asynchronously. The reply is sent when the returned stage completes, and the
+ * worker that received the request is free to process other requests in the meantime.
+ *
+ * @param <T>
+ */
+public interface AsyncCallable<T extends Api> {
+    /**
+     * @param object
+     * @return a stage completed with the object once the userland logic has finished, for example the stage returned
+     * by Api.whenDone()
+     */
+    CompletionStage<T> run(T object);
+}
@@ -0,0 +1,141 @@
+/*
+ * Java 8 SDK for the KATANA(tm) Platform (http://katana.kusanagi.io)
+ * Copyright (c) 2016-2017 KUSANAGI S.L. All rights reserved.
+ *
+ * Distributed under the MIT license
+ *
+ * For the full copyright and license information, please view the LICENSE
+ *  file that was distributed with this source code
+ *
+ * @link      https://github.com/kusanagi/katana-sdk-java8
+ * @license   http://www.opensource.org/licenses/mit-license.php MIT License
+ * @copyright Copyright (c) 2016-2017 KUSANAGI S.L. (http://kusanagi.io)
+ *
+ */
+
+package io.kusanagi.katana.sdk;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Spliterator over the elements of the nested spliterators created for each element of a source, which is how the
+ * transport sections are walked one level at a time.
+ * <p>
+ * The elements of a level are only created when they are reached. Splitting hands out half of the remaining source
+ * elements, so a section splits across its addresses first, and once there is a single one left it splits the level
+ * below, which is the Services of that address. The source elements left are counted when the source knows its size,
+ * otherwise the level below is handed out whole and split by the caller.
+ *
+ * @param <S> type of the source elements
+ * @param <T> type of the elements
+ */
+final class FlatSpliterator<S, T> implements Spliterator<T> {
+
+    private final Spliterator<S> source;
+
+    private final Function<? super S, Spliterator<T>> expand;
+
+    private Spliterator<T> current;
+
+    /**
+     * Source elements not reached yet, or -1 if the source does not know its size
+     */
+    private long remaining;
+
+    FlatSpliterator(Spliterator<S> source, Function<? super S, Spliterator<T>> expand) {
+        this.source = source;
+        this.expand = expand;
+        this.remaining = source.getExactSizeIfKnown();
+    }
+
+    /**
+     * Walk the entries of a map, or only the one of the key when it is not null
+     */
+    static <V, T> Spliterator<T> of(Map<String, V> map, String key, Function<? super Map.Entry<String, V>, Spliterator<T>> expand) {
+        return new FlatSpliterator<>(entries(map, key), expand);
+    }
+
+    /**
+     * Split the entries of a map, or look up the one of the key when it is not null
+     */
+    static <V> Spliterator<Map.Entry<String, V>> entries(Map<String, V> map, String key) {
+        if (map == null) {
+            return Spliterators.emptySpliterator();
+        }
+        if (key == null) {
+            return map.entrySet().spliterator();
+        }
+        V value = map.get(key);
+        if (value == null) {
+            return Spliterators.emptySpliterator();
+        }
+        return Collections.<Map.Entry<String, V>>singletonList(new AbstractMap.SimpleImmutableEntry<>(key, value)).spliterator();
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        while (true) {
+            if (current != null && current.tryAdvance(action)) {
+                return true;
+            }
+            if (!source.tryAdvance(this::expand)) {
+                return false;
+            }
+        }
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        if (current != null) {
+            current.forEachRemaining(action);
+            current = null;
+        }
+        source.forEachRemaining(element -> expand.apply(element).forEachRemaining(action));
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        if (current == null) {
+            Spliterator<S> prefix = source.trySplit();
+            if (prefix != null) {
+                remaining = source.getExactSizeIfKnown();
+                return new FlatSpliterator<>(prefix, expand);
+            }
+            if (!source.tryAdvance(this::expand)) {
+                return null;
+            }
+        }
+        if (remaining == 0) {
+            return current.trySplit();
+        }
+        Spliterator<T> prefix = current;
+        current = null;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        if (remaining == 0) {
+            return current != null ? current.estimateSize() : 0;
+        }
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+
+    private void expand(S element) {
+        if (remaining > 0) {
+            remaining--;
+        }
+        current = expand.apply(element);
+    }
+}
@@ -341,12 +341,7 @@ public class HttpRequest {
      * uploaded in the request.
      */
     public boolean hasFile(String name) {
-        for (File file : httpRequestEntity.getFiles()) {
-            if (file.getFilename().equals(name)) {
-                return true;
-            }
-        }
-        return false;
+        return httpRequestEntity.findFile(name) != null;
     }
 
     /**
@@ -359,13 +354,12 @@ public class HttpRequest {
      * name as first argument and an empty path as second argument will be returned.
      */
     public File getFile(String name) {
-        for (File file : httpRequestEntity.getFiles()) {
-            if (file.getFilename().equals(name)) {
-                return file;
-            }
+        File file = httpRequestEntity.findFile(name);
+        if (file != null) {
+            return file;
         }
 
-        File file = new File();
+        file = new File();
         file.setName(name);
         return file;
     }
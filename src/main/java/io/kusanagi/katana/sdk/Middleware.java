@@ -40,6 +40,10 @@ public class Middleware extends Component<Api, CommandReplyResult, Middleware> {
 
     private Callable<Response> responseCallable;
 
+    private AsyncCallable<Request> asyncRequestCallable;
+
+    private AsyncCallable<Response> asyncResponseCallable;
+
     public Middleware(String[] args) {
         super(args);
     }
@@ -57,10 +61,27 @@ public class Middleware extends Component<Api, CommandReplyResult, Middleware> {
      * @return Return the instance of the middleware
      */
     public Middleware request(Callable<Request> callable) {
+        this.asyncRequestCallable = null;
         this.requestCallable = callable;
         return this;
     }
 
+    /**
+     * take an asynchronous function, which SHOULD be used to process the request Middleware logic in the userland
+     * source file. The instance of the Middleware object SHOULD be returned.
+     * <p>
+     * The callback function MUST return a stage completed with the instance of the Request class passed to the
+     * function, like the one returned by Request.whenDone(). The reply is sent once the stage completes.
+     *
+     * @param callable asynchronous function to process a request middleware logic
+     * @return Return the instance of the middleware
+     */
+    public Middleware asyncRequest(AsyncCallable<Request> callable) {
+        this.requestCallable = null;
+        this.asyncRequestCallable = callable;
+        return this;
+    }
+
     /**
      * take a function, which SHOULD be used to process the response Middleware logic in the userland source file. The
      * instance of the Middleware object SHOULD be returned.
@@ -74,10 +95,27 @@ public class Middleware extends Component<Api, CommandReplyResult, Middleware> {
      * @return Return the instance of the middleware
      */
     public Middleware response(Callable<Response> callable) {
+        this.asyncResponseCallable = null;
         this.responseCallable = callable;
         return this;
     }
 
+    /**
+     * take an asynchronous function, which SHOULD be used to process the response Middleware logic in the userland
+     * source file. The instance of the Middleware object SHOULD be returned.
+     * <p>
+     * The callback function MUST return a stage completed with the instance of the Response class passed to the
+     * function, like the one returned by Response.whenDone(). The reply is sent once the stage completes.
+     *
+     * @param callable asynchronous function to process a response middleware logic
+     * @return Return the instance of the middleware
+     */
+    public Middleware asyncResponse(AsyncCallable<Response> callable) {
+        this.responseCallable = null;
+        this.asyncResponseCallable = callable;
+        return this;
+    }
+
     @Override
     protected Api getSdkCommand(String componentType, Mapping mappings, byte[] commandBytes) throws IOException {
         if (componentType.equals(Constants.REQUEST_STRING)) {
@@ -191,6 +229,16 @@ public class Middleware extends Component<Api, CommandReplyResult, Middleware> {
         return componentType.equals(Constants.REQUEST_STRING) ? requestCallable : responseCallable;
     }
 
+    @Override
+    protected AsyncCallable<Api> getAsyncCallable(String componentType) {
+        if (componentType.equals(Constants.REQUEST_STRING)) {
+            AsyncCallable<Request> callable = asyncRequestCallable;
+            return callable == null ? null : request -> callable.run((Request) request).thenApply(Api.class::cast);
+        }
+        AsyncCallable<Response> callable = asyncResponseCallable;
+        return callable == null ? null : response -> callable.run((Response) response).thenApply(Api.class::cast);
+    }
+
     @Override
     public void run() {
         if (this.startupCallable != null) {
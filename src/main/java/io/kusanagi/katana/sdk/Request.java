@@ -176,15 +176,7 @@ public class Request extends Api {
      * @return true if the param has been defined
      */
     public boolean hasParam(String name) {
-        if (requestEntity.getRequestCall().getParams() == null) {
-            return false;
-        }
-        for (Param param : requestEntity.getRequestCall().getParams()) {
-            if (param.getName().equals(name)) {
-                return true;
-            }
-        }
-        return false;
+        return requestEntity.getRequestCall().findParam(name) != null;
     }
 
     /**
@@ -197,16 +189,12 @@ public class Request extends Api {
      * @return the param with the name argument
      */
     public Param getParam(String name) {
-        if (requestEntity.getRequestCall().getParams() == null) {
-            requestEntity.getRequestCall().setParams(new ArrayList<>());
-        }
-        for (Param param : requestEntity.getRequestCall().getParams()) {
-            if (param.getName().equals(name)) {
-                return param;
-            }
+        Param param = requestEntity.getRequestCall().findParam(name);
+        if (param != null) {
+            return param;
         }
 
-        Param param = new Param();
+        param = new Param();
         param.setName(name);
         param.setExists(false);
         return param;
@@ -231,10 +219,11 @@ public class Request extends Api {
      * @return the instance of the request
      */
     public Request setParam(Param param) {
-        if (requestEntity.getRequestCall() == null) {
-            requestEntity.getRequestCall().setParams(new ArrayList<>());
+        RequestCall requestCall = requestEntity.getRequestCall();
+        if (requestCall.getParams() == null) {
+            requestCall.setParams(new ArrayList<>());
         }
-        requestEntity.getRequestCall().getParams().add(param);
+        requestCall.getParams().add(param);
         return this;
     }
 
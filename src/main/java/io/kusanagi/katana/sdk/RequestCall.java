@@ -19,7 +19,9 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import io.kusanagi.katana.api.component.Key;
 import io.kusanagi.katana.api.replies.common.CommandReplyResult;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Created by juan on 14/09/16.
@@ -50,6 +52,11 @@ public class RequestCall implements CommandReplyResult {
     @JsonProperty(Key.REQUEST_CALL_PARAMS)
     private List<Param> params;
 
+    /**
+     * The parameters by name, built on the first lookup and dropped whenever the list can change
+     */
+    private Map<String, Param> paramsByName;
+
     public RequestCall() {
         // Default constructor to make possible the serialization of this object.
         this.service = "";
@@ -106,12 +113,39 @@ public class RequestCall implements CommandReplyResult {
         this.action = action;
     }
 
+    /**
+     * The returned list can be changed, so the parameters are indexed again on the next lookup.
+     *
+     * @return the parameters
+     */
     public List<Param> getParams() {
+        this.paramsByName = null;
         return params;
     }
 
     public void setParams(List<Param> params) {
         this.params = params;
+        this.paramsByName = null;
+    }
+
+    /**
+     * Find a parameter by name. The parameters are indexed on the first lookup, and again after they are set or returned
+     * by {@link #getParams()}.
+     *
+     * @param name name of the parameter
+     * @return the first parameter with the name, or null
+     */
+    public Param findParam(String name) {
+        if (params == null) {
+            return null;
+        }
+        if (paramsByName == null) {
+            paramsByName = new HashMap<>(params.size() * 4 / 3 + 1);
+            for (Param param : params) {
+                paramsByName.putIfAbsent(param.getName(), param);
+            }
+        }
+        return paramsByName.get(name);
     }
 
     @Override
@@ -134,7 +168,7 @@ public class RequestCall implements CommandReplyResult {
         if (getAction() != null ? !getAction().equals(that.getAction()) : that.getAction() != null) {
             return false;
         }
-        return getParams() != null ? getParams().equals(that.getParams()) : that.getParams() == null;
+        return params != null ? params.equals(that.params) : that.params == null;
 
     }
 
@@ -143,7 +177,7 @@ public class RequestCall implements CommandReplyResult {
         int result = getService() != null ? getService().hashCode() : 0;
         result = 31 * result + (getVersion() != null ? getVersion().hashCode() : 0);
         result = 31 * result + (getAction() != null ? getAction().hashCode() : 0);
-        result = 31 * result + (getParams() != null ? getParams().hashCode() : 0);
+        result = 31 * result + (params != null ? params.hashCode() : 0);
         return result;
     }
 
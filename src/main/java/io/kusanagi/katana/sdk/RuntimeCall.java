@@ -0,0 +1,66 @@
+/*
+ * Java 8 SDK for the KATANA(tm) Platform (http://katana.kusanagi.io)
+ * Copyright (c) 2016-2017 KUSANAGI S.L. All rights reserved.
+ *
+ * Distributed under the MIT license
+ *
+ * For the full copyright and license information, please view the LICENSE
+ *  file that was distributed with this source code
+ *
+ * @link      https://github.com/kusanagi/katana-sdk-java8
+ * @license   http://www.opensource.org/licenses/mit-license.php MIT License
+ * @copyright Copyright (c) 2016-2017 KUSANAGI S.L. (http://kusanagi.io)
+ *
+ */
+
+package io.kusanagi.katana.sdk;
+
+import java.util.List;
+
+/**
+ * A run-time call to be performed with Action.callAll()
+ */
+public class RuntimeCall {
+
+    private String service;
+    private String version;
+    private String action;
+    private List<Param> params;
+    private List<File> files;
+
+    public RuntimeCall(String service, String version, String action, List<Param> params, List<File> files) {
+        this.service = service;
+        this.version = version;
+        this.action = action;
+        this.params = params;
+        this.files = files;
+    }
+
+    public RuntimeCall(String service, String version, String action, List<Param> params) {
+        this(service, version, action, params, null);
+    }
+
+    public RuntimeCall(String service, String version, String action) {
+        this(service, version, action, null, null);
+    }
+
+    public String getService() {
+        return service;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public List<Param> getParams() {
+        return params;
+    }
+
+    public List<File> getFiles() {
+        return files;
+    }
+}
@@ -20,6 +20,7 @@ import io.kusanagi.katana.api.commands.Mapping;
 import io.kusanagi.katana.api.commands.common.CommandPayload;
 import io.kusanagi.katana.api.component.Component;
 import io.kusanagi.katana.api.component.Constants;
+import io.kusanagi.katana.api.component.utils.TransportMetaReader;
 import io.kusanagi.katana.api.replies.TransportReplyPayload;
 import io.kusanagi.katana.api.replies.common.CommandReplyResult;
 import io.kusanagi.katana.api.serializers.ActionEntity;
@@ -36,6 +37,8 @@ public class Service extends Component<Action, TransportReplyPayload, Service> {
 
     private Map<String, Callable<Action>> callables;
 
+    private Map<String, AsyncCallable<Action>> asyncCallables;
+
     /**
      * Initialize the component with the command line arguments
      *
@@ -46,6 +49,7 @@ public class Service extends Component<Action, TransportReplyPayload, Service> {
     public Service(String[] args) {
         super(args);
         this.callables = new HashMap<>();
+        this.asyncCallables = new HashMap<>();
     }
 
     /**
@@ -62,10 +66,31 @@ public class Service extends Component<Action, TransportReplyPayload, Service> {
      * @return The instance of the service
      */
     public Service action(String action, Callable<Action> callable) {
+        this.asyncCallables.remove(action);
         this.callables.put(action, callable);
         return this;
     }
 
+    /**
+     * take the name of the action as the case-sensitive name argument and the corresponding asynchronous function,
+     * which SHOULD be used to process the Service action logic in the userland source file for the specified action.
+     * The instance of the Service object SHOULD be returned.
+     * <p>
+     * An instance of the Action class MUST be provided as the first argument of the callback function, while the
+     * callback function MUST return a stage that is completed with the instance of the Action class passed to the
+     * function, like the one returned by Action.whenDone(). The reply is sent once the stage completes, and a stage
+     * completed exceptionally MUST be treated as an error.
+     *
+     * @param action   The action name
+     * @param callable the asynchronous callback function that contains the userland logic of the service
+     * @return The instance of the service
+     */
+    public Service asyncAction(String action, AsyncCallable<Action> callable) {
+        this.callables.remove(action);
+        this.asyncCallables.put(action, callable);
+        return this;
+    }
+
     @Override
     protected CommandReplyResult getReply(String componentType, Action action) {
         return action.getTransport();
@@ -84,7 +109,7 @@ public class Service extends Component<Action, TransportReplyPayload, Service> {
             callsByte = Constants.CALL_BYTE;
             byteSize++;
         }
-        if (transport.getFiles() != null && !transport.getFiles().isEmpty()) {
+        if (transport.hasFiles()) {
             filesByte = Constants.FILE_BYTE;
             byteSize++;
         }
@@ -123,6 +148,38 @@ public class Service extends Component<Action, TransportReplyPayload, Service> {
         return callables.get(componentType);
     }
 
+    @Override
+    protected AsyncCallable<Action> getAsyncCallable(String componentType) {
+        return asyncCallables.get(componentType);
+    }
+
+    /**
+     * The deadline of an action is the start of the request, read from the transport meta of the command, plus the
+     * timeout of the action schema.
+     */
+    @Override
+    protected long getDeadline(String componentType, Mapping mapping, byte[] commandBytes) {
+        if (mapping == null) {
+            return -1;
+        }
+        Map<String, ServiceSchema> versions = mapping.getServiceSchema().get(this.getName());
+        ServiceSchema serviceSchema = versions == null ? null : versions.get(this.getVersion());
+        if (serviceSchema == null || !serviceSchema.hasAction(componentType)) {
+            return -1;
+        }
+        long startTime = TransportMetaReader.readStartTime(commandBytes);
+        return startTime < 0 ? -1 : startTime + serviceSchema.getActionSchema(componentType).getTimeout();
+    }
+
+    @Override
+    protected long getSchemaTimeout(String componentType, Action action) {
+        try {
+            return action.getServiceSchema(this.getName(), this.getVersion()).getActionSchema(componentType).getTimeout();
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
     @Override
     protected Action getSdkCommand(String componentType, Mapping mappings, byte[] commandBytes) throws IOException {
         CommandPayload<ActionEntity> command = serializer.deserialize(commandBytes, ActionCommandPayload.class);
@@ -165,18 +222,13 @@ public class Service extends Component<Action, TransportReplyPayload, Service> {
         TransportReplyPayload.TransportCommandReply transportCommandReply = new TransportReplyPayload.TransportCommandReply();
         TransportReplyPayload.TransportResult transportResult = new TransportReplyPayload.TransportResult();
 
+        // Transports returned by asynchronous run-time calls must be merged before building the reply
+        action.awaitCalls();
+
         Transport transport = (Transport) getReply(componentType, action);
 
-        TransportEntity transportEntity = new TransportEntity();
-        transportEntity.setMeta(transport.getTransportEntity().getMeta());
-        transportEntity.setBody(transport.getTransportEntity().getBody());
-        transportEntity.setFiles(transport.getTransportEntity().getFiles());
-        transportEntity.setData(transport.getTransportEntity().getData());
-        transportEntity.setRelations(transport.getTransportEntity().getRelations());
-        transportEntity.setLinks(transport.getTransportEntity().getLinks());
-        transportEntity.setCalls(transport.getTransportEntity().getCalls());
-        transportEntity.setTransactions(transport.getTransportEntity().getTransactions());
-        transportEntity.setErrors(transport.getTransportEntity().getErrors());
+        // The sections not accessed by the action are copied without decoding them
+        TransportEntity transportEntity = new TransportEntity(transport.getTransportEntity());
 
         transportResult.setTransport(transportEntity);
 
@@ -140,12 +140,7 @@ public class ServiceSchema {
      */
     @JsonIgnore
     public List<String> getActions() {
-        List<String> actions = new ArrayList<>();
-
-        for (String s : this.actionSchemas.keySet()) {
-            actions.add(s);
-        }
-        return actions;
+        return new ArrayList<>(this.actionSchemas.keySet());
     }
 
     /**
@@ -173,6 +168,16 @@ public class ServiceSchema {
         return this.actionSchemas.get(name);
     }
 
+    /**
+     * Build the index of every action schema, so a schema shared between requests is not modified while it is being
+     * read.
+     */
+    public void compile() {
+        for (ActionSchema actionSchema : this.actionSchemas.values()) {
+            actionSchema.compile();
+        }
+    }
+
     /**
      * an instance of the HttpServiceSchema class for the Service using the stored mapping of schemas.
      *
@@ -16,16 +16,19 @@
 package io.kusanagi.katana.sdk;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.kusanagi.katana.api.component.Key;
 import io.kusanagi.katana.api.replies.common.CommandReplyResult;
 import io.kusanagi.katana.api.serializers.CallEntity;
-import io.kusanagi.katana.api.serializers.ErrorEntity;
+import io.kusanagi.katana.api.serializers.SectionKey;
 import io.kusanagi.katana.api.serializers.TransportEntity;
 
 import java.lang.reflect.Array;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Created by juan on 14/09/16.
@@ -137,39 +140,35 @@ public class Transport implements CommandReplyResult {
      * @return
      */
     public List<ServiceData> getData() {
-        List<ServiceData> dataList = new ArrayList<>();
-        Map<String, Map<String, Map<String, Map<String, Object>>>> pathData = transportEntity.getData();
-        for (Map.Entry path : pathData.entrySet()) {
-            Map<String, Map<String, Map<String, Object>>> serviceData = pathData.get((String) path.getKey());
-            for (Map.Entry service : serviceData.entrySet()) {
-                Map<String, Map<String, Object>> versionData = serviceData.get((String) service.getKey());
-                for (Map.Entry version : versionData.entrySet()) {
-                    Map<String, Object> actionData = versionData.get((String) version.getKey());
-
-                    List<ActionData> actionDataList = new ArrayList<>();
-
-                    for (Map.Entry action : actionData.entrySet()) {
-                        Object dataObject = actionData.get((String) action.getKey());
-                        ActionData actionDataEntity = new ActionData(
-                            (String) action.getKey(),
-                            dataObject instanceof List || dataObject instanceof Array,
-                            dataObject
-                        );
-                        actionDataList.add(actionDataEntity);
-                    }
-
-                    ServiceData data = new ServiceData(
-                            (String) path.getKey(),
-                            (String) service.getKey(),
-                            (String) version.getKey(),
-                            actionDataList
-                    );
-
-                    dataList.add(data);
-                }
-            }
-        }
-        return dataList;
+        return streamData().collect(Collectors.toList());
+    }
+
+    /**
+     * Stream the data of each Service version, which is only wrapped when it is read
+     *
+     * @return the data by address, Service and version
+     */
+    public Stream<ServiceData> streamData() {
+        return streamData(null, null, null, null);
+    }
+
+    /**
+     * Stream the data matching the filters, looking up the entries of the filters that are set instead of walking
+     * the section
+     *
+     * @param path    address of the Service, or null for any
+     * @param service name of the Service, or null for any
+     * @param version version of the Service, or null for any
+     * @param action  name of the action, or null for any
+     * @return the data by address, Service and version, with only the given action when it is set
+     */
+    public Stream<ServiceData> streamData(String path, String service, String version, String action) {
+        return StreamSupport.stream(FlatSpliterator.of(transportEntity.readData(), path, pathData ->
+                FlatSpliterator.of(pathData.getValue(), service, serviceData ->
+                        StreamSupport.stream(FlatSpliterator.entries(serviceData.getValue(), version), false)
+                                .map(versionData -> newServiceData(pathData.getKey(), serviceData.getKey(), versionData.getKey(), versionData.getValue(), action))
+                                .filter(data -> action == null || !data.getActions().isEmpty())
+                                .spliterator())), false);
     }
 
     /**
@@ -177,50 +176,33 @@ public class Transport implements CommandReplyResult {
      * @return
      */
     public List<Relation> getRelations() {
-        List<Relation> relationList = new ArrayList<>();
-        Map<String, Map<String, Map<String, Map<String, Map<String, Object>>>>> pathData = transportEntity.getRelations();
-        for (Map.Entry path : pathData.entrySet()) {
-            Map<String, Map<String, Map<String, Map<String, Object>>>> serviceData = pathData.get((String) path.getKey());
-            for (Map.Entry service : serviceData.entrySet()) {
-                Map<String, Map<String, Map<String, Object>>> idData = serviceData.get((String) service.getKey());
-                for (Map.Entry id : idData.entrySet()) {
-                    Map<String, Map<String, Object>> relPathData = idData.get((String) id.getKey());
-
-                    List<ForeignRelation> foreignRelations = new ArrayList<>();
-                    for (Map.Entry relPath : relPathData.entrySet()) {
-                        Map<String, Object> relationData = relPathData.get((String) relPath.getKey());
-                        for (Map.Entry foreignRelName : relationData.entrySet()) {
-                            Object foreignRel = relationData.get((String) foreignRelName.getKey());
-
-                            List<String> relationIds = new ArrayList<>();
-                            if(foreignRel instanceof String){
-                                relationIds.add((String)foreignRel);
-                            } else {
-                                relationIds.addAll((List)foreignRel);
-                            }
-
-                            ForeignRelation foreignRelation = new ForeignRelation(
-                                    (String) relPath.getKey(),
-                                    (String) foreignRelName.getKey(),
-                                    relationIds.size() == 1 ? "one" : "many",
-                                    relationIds
-                            );
-                            foreignRelations.add(foreignRelation);
-                        }
-                    }
-
-                    Relation relation = new Relation(
-                            (String) path.getKey(),
-                            (String) service.getKey(),
-                            (String) id.getKey(),
-                            foreignRelations
-                    );
-
-                    relationList.add(relation);
-                }
-            }
-        }
-        return relationList;
+        return streamRelations().collect(Collectors.toList());
+    }
+
+    /**
+     * Stream the relations of each entity, which are only wrapped when they are read
+     *
+     * @return the relations by address, Service and primary key
+     */
+    public Stream<Relation> streamRelations() {
+        return streamRelations(null, null, null);
+    }
+
+    /**
+     * Stream the relations matching the filters, looking up the entries of the filters that are set instead of
+     * walking the section
+     *
+     * @param path       address of the Service, or null for any
+     * @param service    name of the Service, or null for any
+     * @param primaryKey primary key of the entity, or null for any
+     * @return the relations by address, Service and primary key
+     */
+    public Stream<Relation> streamRelations(String path, String service, String primaryKey) {
+        return StreamSupport.stream(FlatSpliterator.of(transportEntity.readRelations(), path, pathData ->
+                FlatSpliterator.of(pathData.getValue(), service, serviceData ->
+                        StreamSupport.stream(FlatSpliterator.entries(serviceData.getValue(), primaryKey), false)
+                                .map(id -> newRelation(pathData.getKey(), serviceData.getKey(), id.getKey(), id.getValue()))
+                                .spliterator())), false);
     }
 
     /**
@@ -228,25 +210,31 @@ public class Transport implements CommandReplyResult {
      * @return
      */
     public List<Link> getLinks() {
-        List<Link> links = new ArrayList<>();
-        Map<String, Map<String, Map<String, String>>> pathData = transportEntity.getLinks();
-        for (Map.Entry path : pathData.entrySet()) {
-            Map<String, Map<String, String>> serviceData = pathData.get((String) path.getKey());
-            for (Map.Entry service : serviceData.entrySet()) {
-                Map<String, String> linkData = serviceData.get((String) service.getKey());
-                for (Map.Entry link : linkData.entrySet()) {
-                    Link linkEntity = new Link(
-                            (String) path.getKey(),
-                            (String) service.getKey(),
-                            linkData.get((String)link.getKey()),
-                            (String)link.getKey()
-                    );
-
-                    links.add(linkEntity);
-                }
-            }
-        }
-        return links;
+        return streamLinks().collect(Collectors.toList());
+    }
+
+    /**
+     * Stream the links of each Service, which are only wrapped when they are read
+     *
+     * @return the links by address and Service
+     */
+    public Stream<Link> streamLinks() {
+        return streamLinks(null, null);
+    }
+
+    /**
+     * Stream the links matching the filters, looking up the entries of the filters that are set instead of walking
+     * the section
+     *
+     * @param path    address of the Service, or null for any
+     * @param service name of the Service, or null for any
+     * @return the links by address and Service
+     */
+    public Stream<Link> streamLinks(String path, String service) {
+        return StreamSupport.stream(FlatSpliterator.of(transportEntity.readLinks(), path, pathData ->
+                FlatSpliterator.of(pathData.getValue(), service, serviceData -> serviceData.getValue().entrySet().stream()
+                        .map(link -> new Link(pathData.getKey(), serviceData.getKey(), link.getValue(), link.getKey()))
+                        .spliterator())), false);
     }
 
     /**
@@ -254,78 +242,65 @@ public class Transport implements CommandReplyResult {
      * @return
      */
     public List<Caller> getCalls() {
-        List<Caller> callers = new ArrayList<>();
-        Map<String, Map<String, List<CallEntity>>> serviceData = transportEntity.getCalls();
-        for (Map.Entry service : serviceData.entrySet()) {
-            Map<String, List<CallEntity>> versionData = serviceData.get((String) service.getKey());
-            for (Map.Entry version : versionData.entrySet()) {
-                List<CallEntity> calls = versionData.get((String) version.getKey());
-                for (CallEntity call : calls) {
-                    Callee callee = new Callee(
-                            call.getDuration(),
-                            call.getGateway() == null || call.getGateway().isEmpty(),
-                            call.getGateway(),
-                            call.getTimeout(),
-                            call.getName(),
-                            call.getVersion(),
-                            call.getAction(),
-                            call.getParams()
-                    );
-
-                    Caller caller = new Caller(
-                            (String) service.getKey(),
-                            (String) version.getKey(),
-                            call.getCaller(),
-                            callee
-                    );
-
-                    callers.add(caller);
-                }
-            }
-        }
-        return callers;
+        return streamCalls().collect(Collectors.toList());
+    }
+
+    /**
+     * Stream the calls made by each Service, which are only wrapped when they are read
+     *
+     * @return the calls by Service and version
+     */
+    public Stream<Caller> streamCalls() {
+        return streamCalls(null, null);
+    }
+
+    /**
+     * Stream the calls matching the filters, looking up the entries of the filters that are set instead of walking
+     * the section
+     *
+     * @param service name of the calling Service, or null for any
+     * @param version version of the calling Service, or null for any
+     * @return the calls by Service and version
+     */
+    public Stream<Caller> streamCalls(String service, String version) {
+        return StreamSupport.stream(FlatSpliterator.of(transportEntity.getCalls(), service, serviceData ->
+                FlatSpliterator.of(serviceData.getValue(), version, versionData -> versionData.getValue().stream()
+                        .map(call -> newCaller(serviceData.getKey(), versionData.getKey(), call))
+                        .spliterator())), false);
     }
 
     public List<Transaction> getTransactions(String type) {
-        List<Transaction> transactions = new ArrayList<>();
-
-        if(type.equals("commit")) {
-            for (ServiceTransaction serviceTransaction : transportEntity.getTransactions().getCommit()) {
-                transactions.add(new Transaction(
-                        "commit",
-                        serviceTransaction.getName(),
-                        serviceTransaction.getVersion(),
-                        serviceTransaction.getCaller(),
-                        serviceTransaction.getAction(),
-                        serviceTransaction.getParams()
-                ));
-            }
-        } else if(type.equals("rollback")){
-            for (ServiceTransaction serviceTransaction : transportEntity.getTransactions().getRollback()) {
-                transactions.add(new Transaction(
-                        "rollback",
-                        serviceTransaction.getName(),
-                        serviceTransaction.getVersion(),
-                        serviceTransaction.getCaller(),
-                        serviceTransaction.getAction(),
-                        serviceTransaction.getParams()
-                ));
-            }
-        } else if (type.equals("complete")){
-            for (ServiceTransaction serviceTransaction : transportEntity.getTransactions().getComplete()) {
-                transactions.add(new Transaction(
-                        "complete",
-                        serviceTransaction.getName(),
-                        serviceTransaction.getVersion(),
-                        serviceTransaction.getCaller(),
-                        serviceTransaction.getAction(),
-                        serviceTransaction.getParams()
-                ));
-            }
+        return streamTransactions(type).collect(Collectors.toList());
+    }
 
+    /**
+     * Stream the transactions of a type, which are only wrapped when they are read
+     *
+     * @param type "commit", "rollback" or "complete"
+     * @return the transactions in the order they were registered
+     */
+    public Stream<Transaction> streamTransactions(String type) {
+        List<ServiceTransaction> transactions;
+        if (type.equals("commit")) {
+            transactions = transportEntity.getTransactions().getCommit();
+        } else if (type.equals("rollback")) {
+            transactions = transportEntity.getTransactions().getRollback();
+        } else if (type.equals("complete")) {
+            transactions = transportEntity.getTransactions().getComplete();
+        } else {
+            transactions = null;
         }
-
-        return transactions;
+        if (transactions == null) {
+            return Stream.empty();
+        }
+        return transactions.stream().map(serviceTransaction -> new Transaction(
+                type,
+                serviceTransaction.getName(),
+                serviceTransaction.getVersion(),
+                serviceTransaction.getCaller(),
+                serviceTransaction.getAction(),
+                serviceTransaction.getParams()
+        ));
     }
 
     /**
@@ -333,65 +308,99 @@ public class Transport implements CommandReplyResult {
      * @return
      */
     public List<Error> getErrors() {
-        List<Error> errors = new ArrayList<>();
-        Map<String, Map<String, Map<String, List<ErrorEntity>>>> pathData = transportEntity.getErrors();
-        for (Map.Entry path : pathData.entrySet()) {
-            Map<String, Map<String, List<ErrorEntity>>> serviceData = pathData.get((String) path.getKey());
-            for (Map.Entry service : serviceData.entrySet()) {
-                Map<String, List<ErrorEntity>> versionData = serviceData.get((String)service.getKey());
-                for (Map.Entry version : versionData.entrySet()) {
-                    List<ErrorEntity> errorData = versionData.get((String)version.getKey());
-                    for(ErrorEntity errorEntity : errorData) {
-                        errors.add(new Error(
-                                (String) path.getKey(),
-                                (String)service.getKey(),
-                                (String)version.getKey(),
-                                errorEntity.getMessage(),
-                                errorEntity.getCode(),
-                                errorEntity.getStatus()
-                        ));
-                    }
-                }
+        return streamErrors().collect(Collectors.toList());
+    }
+
+    /**
+     * Stream the errors of each Service version, which are only wrapped when they are read
+     *
+     * @return the errors by address, Service and version
+     */
+    public Stream<Error> streamErrors() {
+        return streamErrors(null, null, null);
+    }
+
+    /**
+     * Stream the errors matching the filters, looking up the entries of the filters that are set instead of walking
+     * the section
+     *
+     * @param path    address of the Service, or null for any
+     * @param service name of the Service, or null for any
+     * @param version version of the Service, or null for any
+     * @return the errors by address, Service and version
+     */
+    public Stream<Error> streamErrors(String path, String service, String version) {
+        return StreamSupport.stream(FlatSpliterator.of(transportEntity.readErrors(), path, pathData ->
+                FlatSpliterator.of(pathData.getValue(), service, serviceData ->
+                        FlatSpliterator.of(serviceData.getValue(), version, versionData -> versionData.getValue().stream()
+                                .map(error -> new Error(
+                                        pathData.getKey(),
+                                        serviceData.getKey(),
+                                        versionData.getKey(),
+                                        error.getMessage(),
+                                        error.getCode(),
+                                        error.getStatus()
+                                ))
+                                .spliterator()))), false);
+    }
+
+    public void addFile(String path, String service, String version, String action, File file) {
+        transportEntity.getFileEntries(new SectionKey(path, service, version, action)).add(file);
+        transportEntity.markModified(Key.TRANSPORT_FILES, path, service);
+    }
+
+    private static ServiceData newServiceData(String path, String service, String version, Map<String, Object> actionData, String action) {
+        List<ActionData> actionDataList = new ArrayList<>();
+        if (action == null) {
+            for (Map.Entry<String, Object> entry : actionData.entrySet()) {
+                actionDataList.add(newActionData(entry.getKey(), entry.getValue()));
             }
+        } else if (actionData.containsKey(action)) {
+            actionDataList.add(newActionData(action, actionData.get(action)));
         }
-        return errors;
+        return new ServiceData(path, service, version, actionDataList);
     }
 
-    public void addFile(String path, String service, String version, String action, File file) {
-        Map<String, Map<String, Map<String, Map<String, List<File>>>>> pathFile = transportEntity.getFiles();
-        Map<String, Map<String, Map<String, List<File>>>> serviceFile = new HashMap<>();
-        Map<String, Map<String, List<File>>> versionFile = new HashMap<>();
-        Map<String, List<File>> actionFile = new HashMap<>();
-        List<File> nameFile = new ArrayList<>();
-
-        if (pathFile.containsKey(path)) {
-            serviceFile = pathFile.get(path);
-            if (serviceFile.containsKey(service)) {
-                versionFile = serviceFile.get(service);
-                if (versionFile.containsKey(version)) {
-                    actionFile = versionFile.get(version);
-                    if (actionFile.containsKey(action)) {
-                        nameFile = actionFile.get(action);
-                    } else {
-                        actionFile.put(action, nameFile);
-                    }
+    private static ActionData newActionData(String action, Object dataObject) {
+        return new ActionData(action, dataObject instanceof List || dataObject instanceof Array, dataObject);
+    }
+
+    private static Relation newRelation(String path, String service, String id, Map<String, Map<String, Object>> relPathData) {
+        List<ForeignRelation> foreignRelations = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Object>> relPath : relPathData.entrySet()) {
+            for (Map.Entry<String, Object> foreignRelName : relPath.getValue().entrySet()) {
+                Object foreignRel = foreignRelName.getValue();
+
+                List<String> relationIds = new ArrayList<>();
+                if (foreignRel instanceof String) {
+                    relationIds.add((String) foreignRel);
                 } else {
-                    actionFile.put(action, nameFile);
-                    versionFile.put(version, actionFile);
+                    relationIds.addAll((List) foreignRel);
                 }
-            } else {
-                actionFile.put(action, nameFile);
-                versionFile.put(version, actionFile);
-                serviceFile.put(service, versionFile);
+
+                foreignRelations.add(new ForeignRelation(
+                        relPath.getKey(),
+                        foreignRelName.getKey(),
+                        relationIds.size() == 1 ? "one" : "many",
+                        relationIds
+                ));
             }
-        } else {
-            actionFile.put(action, nameFile);
-            versionFile.put(version, actionFile);
-            serviceFile.put(service, versionFile);
-            pathFile.put(path, serviceFile);
         }
+        return new Relation(path, service, id, foreignRelations);
+    }
 
-        nameFile.add(file);
+    private static Caller newCaller(String service, String version, CallEntity call) {
+        Callee callee = new Callee(
+                call.getDuration(),
+                call.getGateway() == null || call.getGateway().isEmpty(),
+                call.getGateway(),
+                call.getTimeout(),
+                call.getName(),
+                call.getVersion(),
+                call.getAction(),
+                call.getParams()
+        );
+        return new Caller(service, version, call.getCaller(), callee);
     }
 
     public static class Builder{
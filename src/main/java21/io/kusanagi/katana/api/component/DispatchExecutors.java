@@ -0,0 +1,59 @@
+/*
+ * Java 8 SDK for the KATANA(tm) Platform (http://katana.kusanagi.io)
+ * Copyright (c) 2016-2017 KUSANAGI S.L. All rights reserved.
+ *
+ * Distributed under the MIT license
+ *
+ * For the full copyright and license information, please view the LICENSE
+ *  file that was distributed with this source code
+ *
+ * @link      https://github.com/kusanagi/katana-sdk-java8
+ * @license   http://www.opensource.org/licenses/mit-license.php MIT License
+ * @copyright Copyright (c) 2016-2017 KUSANAGI S.L. (http://kusanagi.io)
+ *
+ */
+
+package io.kusanagi.katana.api.component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors used by the {@link ComponentDispatcher} to run the userland callbacks.
+ * <p>
+ * This is the Java 21 version of the class, loaded from META-INF/versions/21 of the multi-release jar.
+ */
+final class DispatchExecutors {
+
+    private DispatchExecutors() {
+    }
+
+    /**
+     * @return true if the per-task executor runs the commands on virtual threads
+     */
+    static boolean isVirtual() {
+        return true;
+    }
+
+    /**
+     * @param threads number of threads
+     * @param prefix  prefix of the thread names
+     * @return an executor that runs the commands on a fixed number of threads
+     */
+    static ExecutorService newFixedExecutor(int threads, String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> new Thread(runnable, prefix + count.incrementAndGet()));
+    }
+
+    /**
+     * Virtual threads are cheap to create and release their carrier thread while blocked on I/O, so there is no need
+     * to cap or reuse them.
+     *
+     * @param prefix prefix of the thread names
+     * @return an executor that runs every command on its own virtual thread
+     */
+    static ExecutorService newPerTaskExecutor(String prefix) {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(prefix, 1).factory());
+    }
+}
@@ -32,7 +32,7 @@ public class ActionCommandPayloadTest {
         MockFactory mockFactory = new MockFactory();
         ActionCommandPayload object = mockFactory.getActionCommandPayload();
         Assert.assertEquals(object, new ActionCommandPayload(object));
-        Assert.assertEquals(-624174057, object.hashCode());
+        Assert.assertEquals(-1180345956, object.hashCode());
     }
 
 }
\ No newline at end of file
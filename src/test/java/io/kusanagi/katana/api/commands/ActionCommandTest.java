@@ -32,7 +32,7 @@ public class ActionCommandTest {
         MockFactory mockFactory = new MockFactory();
         ActionCommandPayload.ActionCommand object = mockFactory.getActionCommand();
         Assert.assertEquals(object, new ActionCommandPayload.ActionCommand(object));
-        Assert.assertEquals(-2003383252, object.hashCode());
+        Assert.assertEquals(1735412145, object.hashCode());
     }
 
 }
\ No newline at end of file
@@ -21,6 +21,10 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Created by juane on 2/11/17.
  */
@@ -35,4 +39,20 @@ public class MappingTest {
         Assert.assertEquals(-980562114, object.hashCode());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void getServices_followSchemasChange() {
+        MockFactory mockFactory = new MockFactory();
+        Mapping object = mockFactory.getMapping("users", "0.1.0");
+
+        Map<String, String> service = new HashMap<>();
+        service.put("service", "users");
+        service.put("version", "0.1.0");
+        Assert.assertEquals(Collections.singletonList(service), object.getServices());
+        object.getServices().get(0).put("version", "0.2.0");
+        Assert.assertEquals(Collections.singletonList(service), object.getServices());
+
+        object.setServiceSchema(mockFactory.getMapping("posts", "0.2.0").getServiceSchema());
+        Assert.assertEquals("posts", object.getServices().get(0).get("service"));
+    }
+
+}
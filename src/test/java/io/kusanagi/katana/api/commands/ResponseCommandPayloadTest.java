@@ -32,7 +32,7 @@ public class ResponseCommandPayloadTest {
         MockFactory mockFactory = new MockFactory();
         ResponseCommandPayload object = mockFactory.getResponseCommandPayload();
         Assert.assertEquals(object, new ResponseCommandPayload(object));
-        Assert.assertEquals(-314173815, object.hashCode());
+        Assert.assertEquals(-332114844, object.hashCode());
     }
 
 }
\ No newline at end of file
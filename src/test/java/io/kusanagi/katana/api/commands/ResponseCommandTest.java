@@ -32,7 +32,7 @@ public class ResponseCommandTest {
         MockFactory mockFactory = new MockFactory();
         ResponseCommandPayload.ResponseCommand object = mockFactory.getResponseCommand();
         Assert.assertEquals(object, new ResponseCommandPayload.ResponseCommand(object));
-        Assert.assertEquals(-1693383010, object.hashCode());
+        Assert.assertEquals(-1711324039, object.hashCode());
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,151 @@
+/*
+ * Java 8 SDK for the KATANA(tm) Platform (http://katana.kusanagi.io)
+ * Copyright (c) 2016-2017 KUSANAGI S.L. All rights reserved.
+ *
+ * Distributed under the MIT license
+ *
+ * For the full copyright and license information, please view the LICENSE
+ *  file that was distributed with this source code
+ *
+ * @link      https://github.com/kusanagi/katana-sdk-java8
+ * @license   http://www.opensource.org/licenses/mit-license.php MIT License
+ * @copyright Copyright (c) 2016-2017 KUSANAGI S.L. (http://kusanagi.io)
+ *
+ */
+
+package io.kusanagi.katana.api.component;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class AdaptiveExecutorTest {
+
+    private static final int TASKS = 20;
+
+    @Test
+    public void execute_queuedBlockingTasks_growUpToMax() throws InterruptedException {
+        AdaptiveExecutor executor = new AdaptiveExecutor(1, 4, 60000, "test-");
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(TASKS);
+        for (int i = 0; i < TASKS; i++) {
+            executor.execute(() -> {
+                try {
+                    release.await();
+                    finished.countDown();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        assertEquals(4, executor.getPoolSize());
+        assertTrue(executor.getQueueDepth() >= TASKS - 4);
+        release.countDown();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+
+    @Test
+    public void execute_fastTasks_keepMinThreads() throws InterruptedException {
+        AdaptiveExecutor executor = new AdaptiveExecutor(2, 8, 60000, "test-");
+        for (int i = 0; i < TASKS; i++) {
+            CountDownLatch finished = new CountDownLatch(1);
+            executor.execute(finished::countDown);
+            assertTrue(finished.await(5, TimeUnit.SECONDS));
+        }
+
+        assertEquals(2, executor.getPoolSize());
+        assertTrue(executor.getServiceTime() > 0);
+        executor.shutdown();
+    }
+
+    @Test
+    public void idleThreads_shrinkToMin() throws InterruptedException {
+        AdaptiveExecutor executor = new AdaptiveExecutor(1, 4, 50, "test-");
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < TASKS; i++) {
+            executor.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        assertEquals(4, executor.getPoolSize());
+
+        release.countDown();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (executor.getPoolSize() > 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(1, executor.getPoolSize());
+        executor.shutdown();
+    }
+
+    @Test
+    public void zeroIdleTimeout_shrinkToMinAndStopWhenIdle() throws InterruptedException {
+        AdaptiveExecutor executor = new AdaptiveExecutor(2, 4, 0, "test-");
+        CountDownLatch finished = new CountDownLatch(TASKS);
+        for (int i = 0; i < TASKS; i++) {
+            executor.execute(finished::countDown);
+        }
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (executor.getPoolSize() > 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, executor.getPoolSize());
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(0, executor.getPoolSize());
+    }
+
+    @Test
+    public void shutdown_runQueuedTasksAndTerminate() throws InterruptedException {
+        AdaptiveExecutor executor = new AdaptiveExecutor(1, 1, 60000, "test-");
+        AtomicInteger runs = new AtomicInteger();
+        for (int i = 0; i < TASKS; i++) {
+            executor.execute(runs::incrementAndGet);
+        }
+        executor.shutdown();
+
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(TASKS, runs.get());
+        assertEquals(0, executor.getPoolSize());
+    }
+
+    @Test
+    public void shutdownNow_returnQueuedTasks() throws InterruptedException {
+        AdaptiveExecutor executor = new AdaptiveExecutor(1, 1, 60000, "test-");
+        CountDownLatch started = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(60000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        started.await();
+        executor.execute(() -> {
+        });
+
+        List<Runnable> queued = executor.shutdownNow();
+
+        assertEquals(1, queued.size());
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Java 8 SDK for the KATANA(tm) Platform (http://katana.kusanagi.io)
+ * Copyright (c) 2016-2017 KUSANAGI S.L. All rights reserved.
+ *
+ * Distributed under the MIT license
+ *
+ * For the full copyright and license information, please view the LICENSE
+ *  file that was distributed with this source code
+ *
+ * @link      https://github.com/kusanagi/katana-sdk-java8
+ * @license   http://www.opensource.org/licenses/mit-license.php MIT License
+ * @copyright Copyright (c) 2016-2017 KUSANAGI S.L. (http://kusanagi.io)
+ *
+ */
+
+package io.kusanagi.katana.api.component;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class BulkheadsTest {
+
+    @Test
+    public void fromVariables_assignActionsToPools() throws Exception {
+        Map<String, String> var = new HashMap<>();
+        var.put("workers", "4");
+        var.put("pool.reports.actions", "generate, export");
+        var.put("pool.reports.threads", "2");
+        var.put("pool.reports.queue", "10");
+        var.put("pool.lookups.actions", "read");
+
+        Bulkheads bulkheads = Bulkheads.fromVariables(var);
+
+        assertEquals(2, bulkheads.getPools().size());
+        ExecutorService reports = bulkheads.getPools().get("reports");
+        assertSame(reports, bulkheads.getExecutor("generate"));
+        assertSame(reports, bulkheads.getExecutor("export"));
+        assertSame(bulkheads.getPools().get("lookups"), bulkheads.getExecutor("read"));
+        assertNull(bulkheads.getExecutor("list"));
+
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) reports;
+        assertEquals(2, executor.getMaximumPoolSize());
+        assertEquals(10, executor.getQueue().remainingCapacity());
+        assertEquals("katana-pool-reports-1", reports.submit(() -> Thread.currentThread().getName()).get());
+        assertEquals(1, ((ThreadPoolExecutor) bulkheads.getExecutor("read")).getMaximumPoolSize());
+
+        bulkheads.shutdown();
+        assertTrue(reports.isShutdown());
+    }
+
+    @Test
+    public void fromVariables_withoutPools_isEmpty() {
+        Bulkheads bulkheads = Bulkheads.fromVariables(new HashMap<>());
+
+        assertTrue(bulkheads.getPools().isEmpty());
+        assertNull(bulkheads.getExecutor("read"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fromVariables_actionInTwoPools_throwException() {
+        Map<String, String> var = new HashMap<>();
+        var.put("pool.reports.actions", "generate");
+        var.put("pool.lookups.actions", "read,generate");
+
+        Bulkheads.fromVariables(var);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fromVariables_invalidThreads_throwException() {
+        Map<String, String> var = new HashMap<>();
+        var.put("pool.reports.actions", "generate");
+        var.put("pool.reports.threads", "0");
+
+        Bulkheads.fromVariables(var);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Java 8 SDK for the KATANA(tm) Platform (http://katana.kusanagi.io)
+ * Copyright (c) 2016-2017 KUSANAGI S.L. All rights reserved.
+ *
+ * Distributed under the MIT license
+ *
+ * For the full copyright and license information, please view the LICENSE
+ *  file that was distributed with this source code
+ *
+ * @link      https://github.com/kusanagi/katana-sdk-java8
+ * @license   http://www.opensource.org/licenses/mit-license.php MIT License
+ * @copyright Copyright (c) 2016-2017 KUSANAGI S.L. (http://kusanagi.io)
+ *
+ */
+
+package io.kusanagi.katana.api.component;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class CallableGuardTest {
+
+    private final ComponentMetrics metrics = new ComponentMetrics();
+
+    private final CallableGuard guard = new CallableGuard(metrics);
+
+    @After
+    public void cleanUp() {
+        guard.shutdown();
+    }
+
+    @Test
+    public void run_withinTimeout_completeWithReply() throws Exception {
+        String reply = guard.run("read", () -> "reply", 1000).toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+        assertEquals("reply", reply);
+        assertEquals(0, metrics.getTimedOutCallables());
+    }
+
+    @Test
+    public void run_pastTimeout_completeWithErrorAndReportStuck() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        CompletableFuture<String> reply = guard.run("read", () -> {
+            // Ignore the interruption, like a callback stuck in a call that cannot be interrupted
+            while (true) {
+                try {
+                    release.await();
+                    finished.countDown();
+                    return "late";
+                } catch (InterruptedException e) {
+                    // Keep waiting
+                }
+            }
+        }, 50).toCompletableFuture();
+
+        try {
+            reply.get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+            assertEquals(String.format(ExceptionMessage.CALLABLE_TIMEOUT, "read", 50), e.getCause().getMessage());
+        }
+        assertEquals(1, metrics.getTimedOutCallables());
+        assertEquals(1, metrics.getStuckCallables());
+
+        release.countDown();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (metrics.getStuckCallables() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, metrics.getStuckCallables());
+    }
+
+    @Test
+    public void limit_asyncReplyPastTimeout_completeWithError() throws Exception {
+        CompletableFuture<String> reply = guard.limit("read", new CompletableFuture<String>(), 50).toCompletableFuture();
+
+        try {
+            reply.get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        assertEquals(1, metrics.getTimedOutCallables());
+        assertEquals(0, metrics.getStuckCallables());
+    }
+
+    @Test
+    public void limit_asyncReplyWithinTimeout_completeWithReply() throws Exception {
+        CompletableFuture<String> stage = new CompletableFuture<>();
+        CompletableFuture<String> reply = guard.limit("read", stage, 1000).toCompletableFuture();
+        stage.complete("reply");
+
+        assertEquals("reply", reply.get(5, TimeUnit.SECONDS));
+    }
+}
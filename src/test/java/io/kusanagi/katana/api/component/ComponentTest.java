@@ -23,6 +23,7 @@ import io.kusanagi.katana.api.commands.RequestCommandPayload;
 import io.kusanagi.katana.api.commands.ResponseCommandPayload;
 import io.kusanagi.katana.api.component.utils.MessagePackSerializer;
 import io.kusanagi.katana.api.replies.CallReplyPayload;
+import io.kusanagi.katana.api.replies.ErrorPayload;
 import io.kusanagi.katana.api.replies.ResponseReplyPayload;
 import io.kusanagi.katana.api.replies.TransportReplyPayload;
 import io.kusanagi.katana.api.serializers.CallEntity;
@@ -45,8 +46,10 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
 
@@ -61,6 +64,8 @@ public class ComponentTest {
 
     public static final SimpleDateFormat STANDARD_DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
 
+    private final PrintStream out = System.out;
+    private final PrintStream err = System.err;
     private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
     private final ByteArrayOutputStream errContent = new ByteArrayOutputStream();
     private final MockFactory mockFactory = new MockFactory();
@@ -86,8 +91,8 @@ public class ComponentTest {
 
     @After
     public void cleanUp() {
-        System.setOut(null);
-        System.setErr(null);
+        System.setOut(out);
+        System.setErr(err);
     }
 
     private void assertComponentArgs(String args, boolean valid) {
@@ -753,7 +758,424 @@ public class ComponentTest {
     }
 
     @Test
-    public void apiMethods() throws InterruptedException, JsonProcessingException {
+    public void asyncAction_replyWhenDoneWithoutBlockingTheWorker() throws InterruptedException, JsonProcessingException {
+        //SETUP
+        final CountDownLatch fastReply = new CountDownLatch(1);
+        final CountDownLatch replies = new CountDownLatch(2);
+        final List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+        final ActionCommandPayload actionCommandPayload = mockFactory.getActionCommandPayload();
+        final Mapping mapping = mockFactory.getMapping("users", "0.2.0");
+
+        TestService testService = new TestService("-c service -n users -v 0.2.0 -f 0.1.0 -t " + PORT + " -D -V workers=1");
+        testService.getService().asyncAction("slow", action -> {
+            new Thread(() -> {
+                try {
+                    fastReply.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                action.done();
+            }).start();
+            return action.whenDone();
+        });
+        testService.getService().action("fast", action -> action);
+        testService.start();
+
+        TestClient slowClient = new TestClient(addr,
+                (part1, reply) -> {
+                    order.add("slow");
+                    replies.countDown();
+                },
+                "slow".getBytes(),
+                serializer.serializeInBytes(mapping.getServiceSchema()),
+                serializer.serializeInBytes(actionCommandPayload));
+        TestClient fastClient = new TestClient(addr,
+                (part1, reply) -> {
+                    order.add("fast");
+                    fastReply.countDown();
+                    replies.countDown();
+                },
+                "fast".getBytes(),
+                serializer.serializeInBytes(mapping.getServiceSchema()),
+                serializer.serializeInBytes(actionCommandPayload));
+
+        //ACTION
+        slowClient.start();
+        Thread.sleep(200);
+        fastClient.start();
+
+        //RESULT
+        replies.await();
+        slowClient.close();
+        fastClient.close();
+        testService.close();
+
+        assertEquals(Arrays.asList("fast", "slow"), order);
+    }
+
+    @Test
+    public void routerDispatcher_pipelineRequestsOfBlockingActions() throws InterruptedException, JsonProcessingException {
+        //SETUP
+        final CountDownLatch fastReply = new CountDownLatch(1);
+        final CountDownLatch replies = new CountDownLatch(2);
+        final List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+        final ActionCommandPayload actionCommandPayload = mockFactory.getActionCommandPayload();
+        final Mapping mapping = mockFactory.getMapping("users", "0.2.0");
+
+        TestService testService = new TestService("-c service -n users -v 0.2.0 -f 0.1.0 -t " + PORT + " -D -V workers=2 -V dispatcher=router");
+        testService.getService().action("slow", action -> {
+            try {
+                fastReply.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return action;
+        });
+        testService.getService().action("fast", action -> action);
+        testService.start();
+
+        TestClient slowClient = new TestClient(addr,
+                (part1, reply) -> {
+                    order.add("slow");
+                    replies.countDown();
+                },
+                "slow".getBytes(),
+                serializer.serializeInBytes(mapping.getServiceSchema()),
+                serializer.serializeInBytes(actionCommandPayload));
+        TestClient fastClient = new TestClient(addr,
+                (part1, reply) -> {
+                    order.add("fast");
+                    fastReply.countDown();
+                    replies.countDown();
+                },
+                "fast".getBytes(),
+                serializer.serializeInBytes(mapping.getServiceSchema()),
+                serializer.serializeInBytes(actionCommandPayload));
+
+        //ACTION
+        slowClient.start();
+        Thread.sleep(200);
+        fastClient.start();
+
+        //RESULT
+        replies.await();
+        slowClient.close();
+        fastClient.close();
+        testService.close();
+
+        assertEquals(Arrays.asList("fast", "slow"), order);
+    }
+
+    @Test
+    public void actionPool_slowActionDoesNotBlockOtherActions() throws InterruptedException, JsonProcessingException {
+        //SETUP
+        final CountDownLatch fastReply = new CountDownLatch(1);
+        final CountDownLatch replies = new CountDownLatch(2);
+        final List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+        final ActionCommandPayload actionCommandPayload = mockFactory.getActionCommandPayload();
+        final Mapping mapping = mockFactory.getMapping("users", "0.2.0");
+
+        TestService testService = new TestService("-c service -n users -v 0.2.0 -f 0.1.0 -t " + PORT + " -D -V workers=1 -V pool.reports.actions=slow");
+        testService.getService().action("slow", action -> {
+            try {
+                fastReply.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return action;
+        });
+        testService.getService().action("fast", action -> action);
+        testService.start();
+
+        TestClient slowClient = new TestClient(addr,
+                (part1, reply) -> {
+                    order.add("slow");
+                    replies.countDown();
+                },
+                "slow".getBytes(),
+                serializer.serializeInBytes(mapping.getServiceSchema()),
+                serializer.serializeInBytes(actionCommandPayload));
+        TestClient fastClient = new TestClient(addr,
+                (part1, reply) -> {
+                    order.add("fast");
+                    fastReply.countDown();
+                    replies.countDown();
+                },
+                "fast".getBytes(),
+                serializer.serializeInBytes(mapping.getServiceSchema()),
+                serializer.serializeInBytes(actionCommandPayload));
+
+        //ACTION
+        slowClient.start();
+        Thread.sleep(200);
+        fastClient.start();
+
+        //RESULT
+        boolean replied = replies.await(5, TimeUnit.SECONDS);
+        slowClient.close();
+        fastClient.close();
+        testService.close();
+
+        assertTrue(replied);
+        assertEquals(Arrays.asList("fast", "slow"), order);
+    }
+
+    @Test
+    public void proxyDispatcher_aboveMaxInFlight_replyServiceUnavailable() throws Exception {
+        assertRejectedAboveMaxInFlight("-V workers=2 -V max_in_flight=1");
+    }
+
+    @Test
+    public void routerDispatcher_aboveMaxInFlight_replyServiceUnavailable() throws Exception {
+        assertRejectedAboveMaxInFlight("-V workers=2 -V max_in_flight=1 -V dispatcher=router -V hwm=100");
+    }
+
+    private void assertRejectedAboveMaxInFlight(String vars) throws Exception {
+        //SETUP
+        final CountDownLatch rejected = new CountDownLatch(1);
+        final CountDownLatch replies = new CountDownLatch(2);
+        final ErrorPayload[] errorPayloads = new ErrorPayload[1];
+
+        final ActionCommandPayload actionCommandPayload = mockFactory.getActionCommandPayload();
+        final Mapping mapping = mockFactory.getMapping("users", "0.2.0");
+
+        TestService testService = new TestService("-c service -n users -v 0.2.0 -f 0.1.0 -t " + PORT + " -D " + vars);
+        testService.getService().action("slow", action -> {
+            try {
+                rejected.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return action;
+        });
+        testService.start();
+
+        TestClient slowClient = new TestClient(addr,
+                (part1, reply) -> replies.countDown(),
+                "slow".getBytes(),
+                serializer.serializeInBytes(mapping.getServiceSchema()),
+                serializer.serializeInBytes(actionCommandPayload));
+        TestClient rejectedClient = new TestClient(addr,
+                (part1, reply) -> {
+                    errorPayloads[0] = serializer.deserialize(reply, ErrorPayload.class);
+                    rejected.countDown();
+                    replies.countDown();
+                },
+                "slow".getBytes(),
+                serializer.serializeInBytes(mapping.getServiceSchema()),
+                serializer.serializeInBytes(actionCommandPayload));
+
+        //ACTION
+        slowClient.start();
+        Thread.sleep(200);
+        rejectedClient.start();
+
+        //RESULT
+        boolean replied = replies.await(5, TimeUnit.SECONDS);
+        slowClient.close();
+        rejectedClient.close();
+        testService.close();
+
+        assertTrue(replied);
+        assertEquals(Constants.SERVICE_UNAVAILABLE_STATUS, errorPayloads[0].getError().getStatus());
+        assertEquals(ExceptionMessage.SERVICE_UNAVAILABLE, errorPayloads[0].getError().getMessage());
+    }
+
+    @Test
+    public void deadlineShedding_expiredRequest_replyGatewayTimeout() throws Exception {
+        //SETUP
+        final CountDownLatch replies = new CountDownLatch(2);
+        final ErrorPayload[] errorPayloads = new ErrorPayload[1];
+        final List<String> runs = Collections.synchronizedList(new ArrayList<>());
+
+        // The datetime of the mock transport is long past the timeout of the action
+        final ActionCommandPayload expiredPayload = mockFactory.getActionCommandPayload();
+        final ActionCommandPayload freshPayload = mockFactory.getActionCommandPayload();
+        freshPayload.getCommand().getArgument().getTransport().getMeta().setDatetime(Instant.now().toString());
+        final Mapping mapping = mockFactory.getMapping("users", "0.2.0");
+
+        TestService testService = new TestService("-c service -n users -v 0.2.0 -f 0.1.0 -t " + PORT + " -D -V workers=1 -V deadline_shedding=true");
+        testService.getService().action("read", action -> {
+            runs.add(action.getTransport().getRequestTimeStamp());
+            return action;
+        });
+        testService.start();
+
+        TestClient expiredClient = new TestClient(addr,
+                (part1, reply) -> {
+                    errorPayloads[0] = serializer.deserialize(reply, ErrorPayload.class);
+                    replies.countDown();
+                },
+                "read".getBytes(),
+                serializer.serializeInBytes(mapping.getServiceSchema()),
+                serializer.serializeInBytes(expiredPayload));
+        TestClient freshClient = new TestClient(addr,
+                (part1, reply) -> replies.countDown(),
+                "read".getBytes(),
+                serializer.serializeInBytes(mapping.getServiceSchema()),
+                serializer.serializeInBytes(freshPayload));
+
+        //ACTION
+        expiredClient.start();
+        freshClient.start();
+
+        //RESULT
+        boolean replied = replies.await(5, TimeUnit.SECONDS);
+        expiredClient.close();
+        freshClient.close();
+        testService.close();
+
+        assertTrue(replied);
+        assertEquals(Constants.GATEWAY_TIMEOUT_STATUS, errorPayloads[0].getError().getStatus());
+        assertEquals(1, testService.getService().getMetrics().getExpiredRequests());
+        assertEquals(Collections.singletonList(freshPayload.getCommand().getArgument().getTransport().getMeta().getDatetime()), runs);
+    }
+
+    @Test
+    public void callableTimeout_stuckAction_replyErrorAndKeepServing() throws Exception {
+        //SETUP
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch replies = new CountDownLatch(2);
+        final ErrorPayload[] errorPayloads = new ErrorPayload[1];
+
+        final ActionCommandPayload actionCommandPayload = mockFactory.getActionCommandPayload();
+        final Mapping mapping = mockFactory.getMapping("users", "0.2.0");
+
+        TestService testService = new TestService("-c service -n users -v 0.2.0 -f 0.1.0 -t " + PORT + " -D -V workers=1 -V timeout.slow=100");
+        testService.getService().action("slow", action -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return action;
+        });
+        testService.getService().action("fast", action -> action);
+        testService.start();
+
+        TestClient slowClient = new TestClient(addr,
+                (part1, reply) -> {
+                    errorPayloads[0] = serializer.deserialize(reply, ErrorPayload.class);
+                    replies.countDown();
+                },
+                "slow".getBytes(),
+                serializer.serializeInBytes(mapping.getServiceSchema()),
+                serializer.serializeInBytes(actionCommandPayload));
+        TestClient fastClient = new TestClient(addr,
+                (part1, reply) -> replies.countDown(),
+                "fast".getBytes(),
+                serializer.serializeInBytes(mapping.getServiceSchema()),
+                serializer.serializeInBytes(actionCommandPayload));
+
+        //ACTION
+        slowClient.start();
+        Thread.sleep(200);
+        fastClient.start();
+
+        //RESULT
+        boolean replied = replies.await(5, TimeUnit.SECONDS);
+        release.countDown();
+        slowClient.close();
+        fastClient.close();
+        testService.close();
+
+        assertTrue(replied);
+        assertEquals(String.format(ExceptionMessage.CALLABLE_TIMEOUT, "slow", 100), errorPayloads[0].getError().getMessage());
+        assertEquals(1, testService.getService().getMetrics().getTimedOutCallables());
+    }
+
+    @Test
+    public void proxyDispatcher_drain_replyRequestsInFlight() throws Exception {
+        assertDrained("-V workers=1 -V drain_timeout=5000");
+    }
+
+    @Test
+    public void routerDispatcher_drain_replyRequestsInFlight() throws Exception {
+        assertDrained("-V workers=1 -V drain_timeout=5000 -V dispatcher=router");
+    }
+
+    private void assertDrained(String vars) throws Exception {
+        //SETUP
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch replies = new CountDownLatch(1);
+
+        final ActionCommandPayload actionCommandPayload = mockFactory.getActionCommandPayload();
+        final Mapping mapping = mockFactory.getMapping("users", "0.2.0");
+
+        TestService testService = new TestService("-c service -n users -v 0.2.0 -f 0.1.0 -t " + PORT + " -D " + vars);
+        testService.getService().action("slow", action -> {
+            started.countDown();
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return action;
+        });
+        testService.start();
+
+        TestClient slowClient = new TestClient(addr,
+                (part1, reply) -> replies.countDown(),
+                "slow".getBytes(),
+                serializer.serializeInBytes(mapping.getServiceSchema()),
+                serializer.serializeInBytes(actionCommandPayload));
+
+        //ACTION
+        slowClient.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        testService.getService().drain();
+
+        //RESULT
+        boolean replied = replies.await(5, TimeUnit.SECONDS);
+        slowClient.close();
+        testService.close();
+
+        assertTrue(replied);
+        long drainDuration = testService.getService().getMetrics().getDrainDuration();
+        assertTrue(drainDuration > 0 && drainDuration < 5000);
+    }
+
+    @Test
+    public void proxyDispatcher_workersOnSharedContext() throws InterruptedException, JsonProcessingException {
+        //SETUP
+        final CountDownLatch replies = new CountDownLatch(2);
+
+        final ActionCommandPayload actionCommandPayload = mockFactory.getActionCommandPayload();
+        final Mapping mapping = mockFactory.getMapping("users", "0.2.0");
+
+        TestService testService = new TestService("-c service -n users -v 0.2.0 -f 0.1.0 -t " + PORT + " -D -V workers=2 -V io_threads=2");
+        testService.getService().action("users", action -> action);
+        testService.start();
+
+        TestClient firstClient = new TestClient(addr,
+                (part1, reply) -> replies.countDown(),
+                "users".getBytes(),
+                serializer.serializeInBytes(mapping.getServiceSchema()),
+                serializer.serializeInBytes(actionCommandPayload));
+        TestClient secondClient = new TestClient(addr,
+                (part1, reply) -> replies.countDown(),
+                "users".getBytes(),
+                serializer.serializeInBytes(mapping.getServiceSchema()),
+                serializer.serializeInBytes(actionCommandPayload));
+
+        //ACTION
+        firstClient.start();
+        secondClient.start();
+
+        //RESULT
+        boolean replied = replies.await(5, TimeUnit.SECONDS);
+        firstClient.close();
+        secondClient.close();
+        testService.close();
+
+        assertTrue(replied);
+    }
+
+    @Test
+    public void apiMethods()throws InterruptedException, JsonProcessingException {
         //SETUP
         final CountDownLatch countDownLatch = new CountDownLatch(1);
 
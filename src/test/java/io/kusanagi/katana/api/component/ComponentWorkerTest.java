@@ -0,0 +1,94 @@
+/*
+ * Java 8 SDK for the KATANA(tm) Platform (http://katana.kusanagi.io)
+ * Copyright (c) 2016-2017 KUSANAGI S.L. All rights reserved.
+ *
+ * Distributed under the MIT license
+ *
+ * For the full copyright and license information, please view the LICENSE
+ *  file that was distributed with this source code
+ *
+ * @link      https://github.com/kusanagi/katana-sdk-java8
+ * @license   http://www.opensource.org/licenses/mit-license.php MIT License
+ * @copyright Copyright (c) 2016-2017 KUSANAGI S.L. (http://kusanagi.io)
+ *
+ */
+
+
+package io.kusanagi.katana.api.component;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class ComponentWorkerTest {
+
+    private static final byte[][] REPLY = new byte[][]{new byte[]{0x00}, new byte[]{0x01}};
+
+    private static final byte[][] FAILED_REPLY = new byte[][]{new byte[]{0x00}, new byte[]{0x02}};
+
+    @Test
+    public void handleRequest_replyWhenTheRequestCompletes() {
+        List<byte[][]> replies = new ArrayList<>();
+
+        listener(() -> CompletableFuture.completedFuture(REPLY)).handleRequest("action", null, null, replies::add);
+
+        assertEquals(1, replies.size());
+        assertSame(REPLY, replies.get(0));
+    }
+
+    @Test
+    public void handleRequest_replyWhenTheRequestCompletesExceptionally() {
+        List<byte[][]> replies = new ArrayList<>();
+        CompletableFuture<byte[][]> reply = new CompletableFuture<>();
+
+        listener(() -> reply).handleRequest("action", null, null, replies::add);
+        assertTrue(replies.isEmpty());
+        reply.completeExceptionally(new IllegalStateException("error callback failed"));
+
+        assertEquals(1, replies.size());
+        assertSame(FAILED_REPLY, replies.get(0));
+    }
+
+    @Test
+    public void handleRequest_replyWhenTheRequestThrows() {
+        List<byte[][]> replies = new ArrayList<>();
+
+        listener(() -> {
+            throw new IllegalStateException("invalid request");
+        }).handleRequest("action", null, null, replies::add);
+
+        assertEquals(1, replies.size());
+        assertSame(FAILED_REPLY, replies.get(0));
+    }
+
+    private ComponentWorker.WorkerListener listener(RequestHandler handler) {
+        return new ComponentWorker.WorkerListener() {
+            @Override
+            public CompletionStage<byte[][]> onRequestReceived(String componentType, byte[] mappings, byte[] request) {
+                return handler.handle();
+            }
+
+            @Override
+            public byte[][] onRequestRejected(String componentType) {
+                return null;
+            }
+
+            @Override
+            public byte[][] onRequestFailed(String componentType, Throwable throwable) {
+                return FAILED_REPLY;
+            }
+        };
+    }
+
+    private interface RequestHandler {
+        CompletionStage<byte[][]> handle();
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Java 8 SDK for the KATANA(tm) Platform (http://katana.kusanagi.io)
+ * Copyright (c) 2016-2017 KUSANAGI S.L. All rights reserved.
+ *
+ * Distributed under the MIT license
+ *
+ * For the full copyright and license information, please view the LICENSE
+ *  file that was distributed with this source code
+ *
+ * @link      https://github.com/kusanagi/katana-sdk-java8
+ * @license   http://www.opensource.org/licenses/mit-license.php MIT License
+ * @copyright Copyright (c) 2016-2017 KUSANAGI S.L. (http://kusanagi.io)
+ *
+ */
+
+package io.kusanagi.katana.api.component;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class DispatchExecutorsTest {
+
+    private static final int TASKS = 50;
+
+    @Test
+    public void newPerTaskExecutor_blockingTasksDoNotWaitForEachOther() throws InterruptedException {
+        ExecutorService executor = DispatchExecutors.newPerTaskExecutor("test-");
+        CountDownLatch started = new CountDownLatch(TASKS);
+        CountDownLatch finished = new CountDownLatch(TASKS);
+        for (int i = 0; i < TASKS; i++) {
+            executor.execute(() -> {
+                started.countDown();
+                try {
+                    // Every task blocks until all of them are running
+                    started.await();
+                    finished.countDown();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+
+    @Test
+    public void newFixedExecutor_nameThreadsWithPrefix() throws Exception {
+        ExecutorService executor = DispatchExecutors.newFixedExecutor(1, "test-");
+        assertEquals("test-1", executor.submit(() -> Thread.currentThread().getName()).get());
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Java 8 SDK for the KATANA(tm) Platform (http://katana.kusanagi.io)
+ * Copyright (c) 2016-2017 KUSANAGI S.L. All rights reserved.
+ *
+ * Distributed under the MIT license
+ *
+ * For the full copyright and license information, please view the LICENSE
+ *  file that was distributed with this source code
+ *
+ * @link      https://github.com/kusanagi/katana-sdk-java8
+ * @license   http://www.opensource.org/licenses/mit-license.php MIT License
+ * @copyright Copyright (c) 2016-2017 KUSANAGI S.L. (http://kusanagi.io)
+ *
+ */
+
+package io.kusanagi.katana.api.component;
+
+import io.kusanagi.katana.api.commands.Mapping;
+import io.kusanagi.katana.api.component.utils.Factory;
+import io.kusanagi.katana.utils.MockFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class MappingCacheTest {
+
+    private MockFactory mockFactory;
+    private Serializer serializer;
+    private AtomicInteger decodes;
+    private MappingCache cache;
+
+    @Before
+    public void setup() {
+        mockFactory = new MockFactory();
+        serializer = Factory.getSerializer();
+        decodes = new AtomicInteger();
+        cache = new MappingCache(new MappingDecoder() {
+            @Override
+            public Mapping decode(byte[] mappings) throws IOException {
+                decodes.incrementAndGet();
+                return super.decode(mappings);
+            }
+        }, 2);
+    }
+
+    private byte[] getMappingBytes(String name, String version) throws IOException {
+        return serializer.serializeInBytes(mockFactory.getMapping(name, version).getServiceSchema());
+    }
+
+    @Test
+    public void get_sameBytes_returnSameMapping() throws IOException {
+        Mapping mapping = cache.get(getMappingBytes("users", "0.2.0"));
+
+        assertSame(mapping, cache.get(getMappingBytes("users", "0.2.0")));
+        assertEquals(1, decodes.get());
+        assertEquals(mockFactory.getMapping("users", "0.2.0"), mapping);
+    }
+
+    @Test
+    public void get_differentBytes_decodeAgain() throws IOException {
+        Mapping users = cache.get(getMappingBytes("users", "0.2.0"));
+        Mapping posts = cache.get(getMappingBytes("posts", "0.2.0"));
+
+        assertNotSame(users, posts);
+        assertEquals(2, decodes.get());
+        assertTrue(posts.getServiceSchema().containsKey("posts"));
+    }
+
+    @Test
+    public void get_full_evictLeastRecentlyUsed() throws IOException {
+        cache.get(getMappingBytes("users", "0.2.0"));
+        cache.get(getMappingBytes("posts", "0.2.0"));
+        cache.get(getMappingBytes("users", "0.2.0"));
+        cache.get(getMappingBytes("comments", "0.2.0"));
+        assertEquals(3, decodes.get());
+        assertEquals(2, cache.size());
+
+        cache.get(getMappingBytes("users", "0.2.0"));
+        assertEquals(3, decodes.get());
+        cache.get(getMappingBytes("posts", "0.2.0"));
+        assertEquals(4, decodes.get());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void get_modifyMapping_throwException() throws IOException {
+        cache.get(getMappingBytes("users", "0.2.0")).getServiceSchema().put("posts", new HashMap<>());
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Java 8 SDK for the KATANA(tm) Platform (http://katana.kusanagi.io)
+ * Copyright (c) 2016-2017 KUSANAGI S.L. All rights reserved.
+ *
+ * Distributed under the MIT license
+ *
+ * For the full copyright and license information, please view the LICENSE
+ *  file that was distributed with this source code
+ *
+ * @link      https://github.com/kusanagi/katana-sdk-java8
+ * @license   http://www.opensource.org/licenses/mit-license.php MIT License
+ * @copyright Copyright (c) 2016-2017 KUSANAGI S.L. (http://kusanagi.io)
+ *
+ */
+
+package io.kusanagi.katana.api.component;
+
+import io.kusanagi.katana.api.commands.Mapping;
+import io.kusanagi.katana.api.component.utils.Factory;
+import io.kusanagi.katana.sdk.ActionSchema;
+import io.kusanagi.katana.sdk.ServiceSchema;
+import io.kusanagi.katana.utils.MockFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class MappingDecoderTest {
+
+    private MockFactory mockFactory;
+    private Serializer serializer;
+    private MappingDecoder decoder;
+
+    @Before
+    public void setup() {
+        mockFactory = new MockFactory();
+        serializer = Factory.getSerializer();
+        decoder = new MappingDecoder();
+    }
+
+    @Test
+    public void decode_setNamesFromKeys() throws IOException {
+        Mapping mapping = decoder.decode(serializer.serializeInBytes(mockFactory.getMapping("users", "0.2.0").getServiceSchema()));
+
+        ServiceSchema serviceSchema = mapping.getServiceSchema().get("users").get("0.2.0");
+        assertEquals("users", serviceSchema.getName());
+        assertEquals("0.2.0", serviceSchema.getVersion());
+
+        ActionSchema actionSchema = serviceSchema.getActionSchema("read");
+        assertEquals("read", actionSchema.getName());
+        assertEquals("user_id", actionSchema.getParamSchema("user_id").getName());
+        assertEquals("avatar", actionSchema.getFileSchema("avatar").getName());
+    }
+
+    @Test
+    public void decode_bindCompactNames() throws IOException {
+        ServiceSchema expected = mockFactory.getServiceSchema();
+        Mapping mapping = decoder.decode(serializer.serializeInBytes(mockFactory.getMapping("users", "0.2.0").getServiceSchema()));
+
+        ServiceSchema serviceSchema = mapping.getServiceSchema().get("users").get("0.2.0");
+        assertEquals(expected.getAddress(), serviceSchema.getAddress());
+        assertEquals(expected.hasFileServer(), serviceSchema.hasFileServer());
+        assertEquals(expected.getHttpSchema(), serviceSchema.getHttpSchema());
+        assertEquals(expected.getActions(), serviceSchema.getActions());
+
+        ActionSchema expectedAction = expected.getActionSchema("read");
+        ActionSchema actionSchema = serviceSchema.getActionSchema("read");
+        assertEquals(expectedAction.getTimeout(), actionSchema.getTimeout());
+        assertEquals(expectedAction.getEntity(), actionSchema.getEntity());
+        assertEquals(expectedAction.getFallbacks(), actionSchema.getFallbacks());
+        assertArrayEquals(expectedAction.getCalls(), actionSchema.getCalls());
+    }
+
+    @Test
+    public void decode_keepEveryVersion() throws IOException {
+        Map<String, ServiceSchema> versions = new HashMap<>();
+        versions.put("1.0.0", mockFactory.getServiceSchema());
+        versions.put("2.0.0", mockFactory.getServiceSchema());
+        Map<String, Map<String, ServiceSchema>> services = new HashMap<>();
+        services.put("users", versions);
+
+        Mapping mapping = decoder.decode(serializer.serializeInBytes(services));
+
+        assertEquals(2, mapping.getServiceSchema().get("users").size());
+        assertEquals("2.0.0", mapping.getServiceSchema().get("users").get("2.0.0").getVersion());
+    }
+
+    @Test(expected = IOException.class)
+    public void decode_invalidMappings_throwException() throws IOException {
+        decoder.decode(serializer.serializeInBytes("users"));
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Java 8 SDK for the KATANA(tm) Platform (http://katana.kusanagi.io)
+ * Copyright (c) 2016-2017 KUSANAGI S.L. All rights reserved.
+ *
+ * Distributed under the MIT license
+ *
+ * For the full copyright and license information, please view the LICENSE
+ *  file that was distributed with this source code
+ *
+ * @link      https://github.com/kusanagi/katana-sdk-java8
+ * @license   http://www.opensource.org/licenses/mit-license.php MIT License
+ * @copyright Copyright (c) 2016-2017 KUSANAGI S.L. (http://kusanagi.io)
+ *
+ */
+
+package io.kusanagi.katana.api.component;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.zeromq.ZMQ;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class RequestReceiverTest {
+
+    private ZMQ.Context context;
+    private ZMQ.Socket router;
+    private ZMQ.Socket dealer;
+    private RequestReceiver receiver;
+
+    @Before
+    public void setup() {
+        String endpoint = "inproc://receiver-" + UUID.randomUUID();
+        context = ZMQ.context(1);
+        router = context.socket(ZMQ.ROUTER);
+        router.bind(endpoint);
+        dealer = context.socket(ZMQ.DEALER);
+        dealer.setLinger(0);
+        dealer.connect(endpoint);
+        receiver = new RequestReceiver(router);
+    }
+
+    @After
+    public void tearDown() {
+        dealer.close();
+        router.close();
+        context.term();
+    }
+
+    private void send(byte[]... frames) {
+        for (int i = 0; i < frames.length; i++) {
+            dealer.send(frames[i], i < frames.length - 1 ? zmq.ZMQ.ZMQ_SNDMORE : 0);
+        }
+    }
+
+    @Test
+    public void receive_splitEnvelopeAndParts() {
+        send(new byte[0], "read".getBytes(), new byte[]{1, 2}, new byte[]{3});
+        assertTrue(receiver.receive());
+
+        assertEquals(2, receiver.getEnvelope().size());
+        assertEquals(0, receiver.getEnvelope().get(1).length);
+        assertEquals("read", receiver.getComponentType());
+        assertArrayEquals(new byte[]{1, 2}, receiver.getMappings());
+        assertArrayEquals(new byte[]{3}, receiver.getCommand());
+    }
+
+    @Test
+    public void receive_missingParts() {
+        send(new byte[0], "read".getBytes(), new byte[0], new byte[]{3});
+        assertTrue(receiver.receive());
+        assertNull(receiver.getMappings());
+
+        send(new byte[0], "list".getBytes());
+        assertTrue(receiver.receive());
+        assertEquals("list", receiver.getComponentType());
+        assertNull(receiver.getMappings());
+        assertEquals(0, receiver.getCommand().length);
+    }
+
+    @Test
+    public void getComponentType_shareDecodedNames() {
+        send(new byte[0], "read".getBytes(), new byte[0], new byte[]{3});
+        assertTrue(receiver.receive());
+        String first = receiver.getComponentType();
+
+        send(new byte[0], "read".getBytes(), new byte[0], new byte[]{4});
+        assertTrue(receiver.receive());
+        assertSame(first, receiver.getComponentType());
+        assertArrayEquals(new byte[]{4}, receiver.getCommand());
+    }
+
+    @Test
+    public void forward_framesAsReceived() {
+        String endpoint = "inproc://forward-" + UUID.randomUUID();
+        ZMQ.Socket target = context.socket(ZMQ.PAIR);
+        target.bind(endpoint);
+        ZMQ.Socket peer = context.socket(ZMQ.PAIR);
+        peer.connect(endpoint);
+        try {
+            send(new byte[0], "list".getBytes());
+            assertTrue(receiver.receive());
+            receiver.forward(target);
+
+            assertEquals(3, receiveFrames(peer).size());
+
+            send(new byte[0], "read".getBytes(), new byte[0], new byte[]{3}, new byte[]{4});
+            assertTrue(receiver.receive());
+            receiver.forward(target);
+
+            List<byte[]> frames = receiveFrames(peer);
+            assertEquals(6, frames.size());
+            assertArrayEquals(new byte[]{4}, frames.get(5));
+        } finally {
+            peer.close();
+            target.close();
+        }
+    }
+
+    private List<byte[]> receiveFrames(ZMQ.Socket socket) {
+        List<byte[]> frames = new ArrayList<>();
+        do {
+            frames.add(socket.recv());
+        } while (socket.hasReceiveMore());
+        return frames;
+    }
+}
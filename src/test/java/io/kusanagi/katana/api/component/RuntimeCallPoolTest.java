@@ -0,0 +1,101 @@
+/*
+ * Java 8 SDK for the KATANA(tm) Platform (http://katana.kusanagi.io)
+ * Copyright (c) 2016-2017 KUSANAGI S.L. All rights reserved.
+ *
+ * Distributed under the MIT license
+ *
+ * For the full copyright and license information, please view the LICENSE
+ *  file that was distributed with this source code
+ *
+ * @link      https://github.com/kusanagi/katana-sdk-java8
+ * @license   http://www.opensource.org/licenses/mit-license.php MIT License
+ * @copyright Copyright (c) 2016-2017 KUSANAGI S.L. (http://kusanagi.io)
+ *
+ */
+
+package io.kusanagi.katana.api.component;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.zeromq.ZMQ;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class RuntimeCallPoolTest {
+
+    private static final AtomicInteger PORT = new AtomicInteger(5011);
+
+    private String address;
+
+    private ZMQ.Context context;
+    private ZMQ.Socket server;
+    private RuntimeCallPool pool;
+
+    @Before
+    public void setup() {
+        context = ZMQ.context(1);
+        address = "127.0.0.1:" + PORT.getAndIncrement();
+        server = context.socket(ZMQ.ROUTER);
+        server.setLinger(0);
+        server.bind("tcp://" + address);
+        pool = new RuntimeCallPool(2);
+    }
+
+    @After
+    public void cleanUp() {
+        pool.close();
+        server.close();
+    }
+
+    private Thread reply(int replies, boolean answer) {
+        Thread thread = new Thread(() -> {
+            for (int i = 0; i < replies; i++) {
+                byte[] identity = server.recv();
+                byte[] delimiter = server.recv();
+                byte[] part1 = server.recv();
+                byte[] part2 = server.recv();
+                assertArrayEquals(new byte[]{0x01}, part1);
+                if (answer) {
+                    server.sendMore(identity);
+                    server.sendMore(delimiter);
+                    server.send(part2, 0);
+                }
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    @Test
+    public void send_reusesSocketBetweenCalls() throws InterruptedException {
+        Thread thread = reply(2, true);
+
+        assertArrayEquals("first".getBytes(), pool.send(address, "first".getBytes(), 1000));
+        assertArrayEquals("second".getBytes(), pool.send(address, "second".getBytes(), 1000));
+
+        thread.join(1000);
+    }
+
+    @Test
+    public void send_timeout_returnNullAndEvictSocket() throws InterruptedException {
+        Thread thread = reply(1, false);
+        assertNull(pool.send(address, "lost".getBytes(), 100));
+        thread.join(1000);
+
+        thread = reply(1, true);
+        assertArrayEquals("retry".getBytes(), pool.send(address, "retry".getBytes(), 1000));
+        thread.join(1000);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void send_closedPool_throwException() {
+        pool.close();
+        pool.send(address, new byte[0], 100);
+    }
+}
@@ -35,6 +35,8 @@ public class LoggerTest {
 
     public static final SimpleDateFormat STANDARD_DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
 
+    private final PrintStream out = System.out;
+    private final PrintStream err = System.err;
     private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
     private final ByteArrayOutputStream errContent = new ByteArrayOutputStream();
 
@@ -48,8 +50,8 @@ public class LoggerTest {
 
     @After
     public void cleanUp() {
-        System.setOut(null);
-        System.setErr(null);
+        System.setOut(out);
+        System.setErr(err);
     }
 
     private String getMessage(String[] split) {
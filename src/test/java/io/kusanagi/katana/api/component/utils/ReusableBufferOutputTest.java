@@ -0,0 +1,83 @@
+/*
+ * Java 8 SDK for the KATANA(tm) Platform (http://katana.kusanagi.io)
+ * Copyright (c) 2016-2017 KUSANAGI S.L. All rights reserved.
+ *
+ * Distributed under the MIT license
+ *
+ * For the full copyright and license information, please view the LICENSE
+ *  file that was distributed with this source code
+ *
+ * @link      https://github.com/kusanagi/katana-sdk-java8
+ * @license   http://www.opensource.org/licenses/mit-license.php MIT License
+ * @copyright Copyright (c) 2016-2017 KUSANAGI S.L. (http://kusanagi.io)
+ *
+ */
+
+package io.kusanagi.katana.api.component.utils;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.msgpack.core.MessageBufferPacker;
+import org.msgpack.core.MessagePack;
+import org.msgpack.core.MessagePacker;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class ReusableBufferOutputTest {
+
+    private byte[] pack(MessagePacker packer, ReusableBufferOutput output, int length) throws IOException {
+        output.clear();
+        byte[] payload = new byte[length];
+        Arrays.fill(payload, (byte) 7);
+        packer.packString("payload");
+        packer.packBinaryHeader(length);
+        packer.writePayload(payload);
+        packer.flush();
+        return output.toByteArray();
+    }
+
+    private byte[] packExpected(int length) throws IOException {
+        MessageBufferPacker packer = MessagePack.newDefaultBufferPacker();
+        byte[] payload = new byte[length];
+        Arrays.fill(payload, (byte) 7);
+        packer.packString("payload");
+        packer.packBinaryHeader(length);
+        packer.writePayload(payload);
+        packer.close();
+        return packer.toByteArray();
+    }
+
+    @Test
+    public void toByteArray_sameBytesAsBufferPacker() throws IOException {
+        ReusableBufferOutput output = new ReusableBufferOutput(64);
+        MessagePacker packer = MessagePack.newDefaultPacker(output);
+        for (int length : new int[]{10, 1000, 10, 100000, 0}) {
+            assertArrayEquals(packExpected(length), pack(packer, output, length));
+        }
+    }
+
+    @Test
+    public void clear_keepArrayOfRecentSize() throws IOException {
+        ReusableBufferOutput output = new ReusableBufferOutput(64);
+        MessagePacker packer = MessagePack.newDefaultPacker(output);
+        pack(packer, output, 10);
+        assertEquals(64, output.getCapacity());
+
+        pack(packer, output, 1000);
+        int capacity = output.getCapacity();
+        assertTrue(capacity >= 1000);
+        pack(packer, output, 10);
+        assertEquals(capacity, output.getCapacity());
+
+        // The array shrinks once the large message is no longer recent
+        for (int i = 0; i < 100; i++) {
+            pack(packer, output, 10);
+        }
+        assertTrue(output.getCapacity() <= 2 * 64);
+    }
+}
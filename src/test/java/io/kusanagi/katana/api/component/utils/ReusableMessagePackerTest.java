@@ -0,0 +1,58 @@
+/*
+ * Java 8 SDK for the KATANA(tm) Platform (http://katana.kusanagi.io)
+ * Copyright (c) 2016-2017 KUSANAGI S.L. All rights reserved.
+ *
+ * Distributed under the MIT license
+ *
+ * For the full copyright and license information, please view the LICENSE
+ *  file that was distributed with this source code
+ *
+ * @link      https://github.com/kusanagi/katana-sdk-java8
+ * @license   http://www.opensource.org/licenses/mit-license.php MIT License
+ * @copyright Copyright (c) 2016-2017 KUSANAGI S.L. (http://kusanagi.io)
+ *
+ */
+
+package io.kusanagi.katana.api.component.utils;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.msgpack.core.MessageBufferPacker;
+import org.msgpack.core.MessagePack;
+import org.msgpack.core.MessagePacker;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class ReusableMessagePackerTest {
+
+    private String repeat(String s, int times) {
+        char[] chars = new char[s.length() * times];
+        for (int i = 0; i < times; i++) {
+            s.getChars(0, s.length(), chars, i * s.length());
+        }
+        return new String(chars);
+    }
+
+    @Test
+    public void packString_sameBytesAsDefaultPacker() throws IOException {
+        ReusableBufferOutput output = new ReusableBufferOutput(64);
+        MessagePacker packer = new ReusableMessagePacker(output);
+        for (String s : Arrays.asList("", "users", "ñandú", "日本語", "😀", "a\uD83Db", "\uDE00", "x\uD83D",
+                repeat("a", 31), repeat("a", 32), repeat("é", 128), repeat("a", 256), repeat("日", 3000),
+                repeat("a", 65535), repeat("a", 65536))) {
+            MessageBufferPacker expected = MessagePack.newDefaultBufferPacker();
+            expected.packString(s);
+            expected.close();
+
+            output.clear();
+            packer.packString(s);
+            packer.flush();
+            assertArrayEquals(s.length() > 16 ? s.substring(0, 16) : s, expected.toByteArray(), output.toByteArray());
+        }
+    }
+}
@@ -0,0 +1,432 @@
+/*
+ * Java 8 SDK for the KATANA(tm) Platform (http://katana.kusanagi.io)
+ * Copyright (c) 2016-2017 KUSANAGI S.L. All rights reserved.
+ *
+ * Distributed under the MIT license
+ *
+ * For the full copyright and license information, please view the LICENSE
+ *  file that was distributed with this source code
+ *
+ * @link      https://github.com/kusanagi/katana-sdk-java8
+ * @license   http://www.opensource.org/licenses/mit-license.php MIT License
+ * @copyright Copyright (c) 2016-2017 KUSANAGI S.L. (http://kusanagi.io)
+ *
+ */
+
+package io.kusanagi.katana.api.component.utils;
+
+import io.kusanagi.katana.api.commands.ActionCommandPayload;
+import io.kusanagi.katana.api.commands.RequestCommandPayload;
+import io.kusanagi.katana.api.commands.ResponseCommandPayload;
+import io.kusanagi.katana.api.component.Constants;
+import io.kusanagi.katana.api.component.Key;
+import io.kusanagi.katana.api.component.Serializer;
+import io.kusanagi.katana.api.replies.CallReplyPayload;
+import io.kusanagi.katana.api.replies.ErrorPayload;
+import io.kusanagi.katana.api.replies.ResponseReplyPayload;
+import io.kusanagi.katana.api.replies.ReturnReplyPayload;
+import io.kusanagi.katana.api.replies.TransportReplyPayload;
+import io.kusanagi.katana.api.serializers.ActionEntity;
+import io.kusanagi.katana.api.serializers.ErrorEntity;
+import io.kusanagi.katana.api.serializers.TransportEntity;
+import io.kusanagi.katana.sdk.Action;
+import io.kusanagi.katana.sdk.RequestCall;
+import io.kusanagi.katana.utils.MockFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.msgpack.core.MessageBufferPacker;
+import org.msgpack.core.MessagePack;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class StreamingMessagePackSerializerTest {
+
+    private MockFactory mockFactory;
+    private Serializer jackson;
+    private Serializer streaming;
+
+    @Before
+    public void setup() {
+        mockFactory = new MockFactory();
+        jackson = Factory.getSerializer(Constants.SERIALIZER_JACKSON);
+        streaming = Factory.getSerializer(Constants.SERIALIZER_STREAMING);
+    }
+
+    private <T> void assertSameDecoding(byte[] bytes, Class<T> aClass) throws IOException {
+        T expected = jackson.deserialize(bytes, aClass);
+        T actual = streaming.deserialize(bytes, aClass);
+        assertEquals(expected, actual);
+        assertEquals(jackson.serializeInJson(expected), jackson.serializeInJson(actual));
+    }
+
+    private Map<String, Object> getReturnObject() {
+        Map<String, Object> returnObject = new LinkedHashMap<>();
+        returnObject.put("int", -40000);
+        returnObject.put("long", 5000000000L);
+        returnObject.put("big", new BigInteger("18446744073709551615"));
+        returnObject.put("float", 1.5f);
+        returnObject.put("double", 2.25);
+        returnObject.put("bytes", new byte[]{1, 2, 3});
+        returnObject.put("list", Arrays.asList("a", null, true));
+        returnObject.put("set", new TreeSet<>(Arrays.asList(2, 1)));
+        returnObject.put("array", new String[]{"x", "y"});
+        returnObject.put("keys", Collections.singletonMap(1, "one"));
+        returnObject.put("date", new Date(0));
+        return returnObject;
+    }
+
+    private TransportReplyPayload getTransportReply(TransportEntity transport) {
+        TransportReplyPayload.TransportResult transportResult = new TransportReplyPayload.TransportResult();
+        transportResult.setTransport(transport);
+        TransportReplyPayload.TransportCommandReply transportCommandReply = new TransportReplyPayload.TransportCommandReply();
+        transportCommandReply.setName("users");
+        transportCommandReply.setResult(transportResult);
+        TransportReplyPayload transportReply = new TransportReplyPayload();
+        transportReply.setCommandReply(transportCommandReply);
+        return transportReply;
+    }
+
+    @Test
+    public void getSerializer_selectByType() {
+        assertTrue(streaming instanceof StreamingMessagePackSerializer);
+        assertTrue(jackson instanceof MessagePackSerializer);
+    }
+
+    @Test
+    public void deserialize_commandPayloads_equalToJackson() throws IOException {
+        assertSameDecoding(jackson.serializeInBytes(mockFactory.getActionCommandPayload()), ActionCommandPayload.class);
+        assertSameDecoding(jackson.serializeInBytes(mockFactory.getRequestCommandPayload()), RequestCommandPayload.class);
+        assertSameDecoding(jackson.serializeInBytes(mockFactory.getResponseCommandPayload()), ResponseCommandPayload.class);
+    }
+
+    @Test
+    public void deserialize_coerceScalars() throws IOException {
+        MessageBufferPacker packer = MessagePack.newDefaultBufferPacker();
+        packer.packMapHeader(2);
+        packer.packString(Key.COMMAND_PAYLOAD_COMMAND);
+        packer.packMapHeader(2);
+        packer.packString(Key.COMMAND_NAME).packString("example");
+        packer.packString(Key.COMMAND_ARGUMENT).packMapHeader(2);
+        packer.packString(Key.ACTION_PARAMS).packArrayHeader(3);
+        packer.packMapHeader(2).packString(Key.PARAM_NAME).packString("long").packString(Key.PARAM_VALUE).packLong(3000000000L);
+        packer.packMapHeader(2).packString(Key.PARAM_NAME).packString("big").packString(Key.PARAM_VALUE).packBigInteger(new BigInteger("18446744073709551615"));
+        packer.packMapHeader(2).packString(Key.PARAM_NAME).packString("float").packString(Key.PARAM_VALUE).packFloat(1.5f);
+        packer.packString(Key.ACTION_TRANSPORT).packMapHeader(2);
+        packer.packString(Key.TRANSPORT_META).packMapHeader(2);
+        packer.packString(Key.TRANSPORT_META_DURATION).packString("12");
+        packer.packString(Key.TRANSPORT_META_LEVEL).packNil();
+        packer.packString(Key.TRANSPORT_BODY).packMapHeader(2);
+        packer.packString(Key.FILE_SIZE).packInt(1234567890);
+        packer.packString(Key.FILE_TOKEN).packNil();
+        packer.packString(Key.COMMAND_PAYLOAD_COMMAND_META).packMapHeader(1);
+        packer.packString(Key.COMMAND_META_SCOPE).packString("service");
+        packer.close();
+
+        ActionCommandPayload payload = streaming.deserialize(packer.toByteArray(), ActionCommandPayload.class);
+        ActionEntity action = payload.getCommand().getArgument();
+        assertEquals("1234567890", action.getTransport().getBody().getSize());
+        assertNull(action.getTransport().getBody().getToken());
+        assertEquals(12, action.getTransport().getMeta().getDuration());
+        assertEquals(0, action.getTransport().getMeta().getLevel());
+        assertEquals(3000000000L, action.getParams().get(0).getValue());
+        assertEquals(new BigInteger("18446744073709551615"), action.getParams().get(1).getValue());
+        assertEquals(1.5, action.getParams().get(2).getValue());
+    }
+
+    @Test
+    public void deserialize_skipUnknownKeys() throws IOException {
+        MessageBufferPacker packer = MessagePack.newDefaultBufferPacker();
+        packer.packMapHeader(2);
+        packer.packString("unknown").packArrayHeader(1).packMapHeader(1).packString("a").packInt(1);
+        packer.packString(Key.COMMAND_PAYLOAD_COMMAND).packMapHeader(2);
+        packer.packString(Key.COMMAND_NAME).packString("example");
+        packer.packString("x").packNil();
+        packer.close();
+
+        ActionCommandPayload payload = streaming.deserialize(packer.toByteArray(), ActionCommandPayload.class);
+        assertNull(payload.getCommandMeta());
+        assertEquals("example", payload.getCommand().getName());
+        assertNull(payload.getCommand().getArgument());
+    }
+
+    @Test
+    public void serializeInBytes_commandPayloads_identicalToJackson() throws IOException {
+        ActionCommandPayload action = mockFactory.getActionCommandPayload();
+        action.getCommand().getArgument().setReturnObject(getReturnObject());
+        assertArrayEquals(jackson.serializeInBytes(action), streaming.serializeInBytes(action));
+
+        RequestCommandPayload request = mockFactory.getRequestCommandPayload();
+        assertArrayEquals(jackson.serializeInBytes(request), streaming.serializeInBytes(request));
+
+        ResponseCommandPayload response = mockFactory.getResponseCommandPayload();
+        assertArrayEquals(jackson.serializeInBytes(response), streaming.serializeInBytes(response));
+    }
+
+    @Test
+    public void serializeInBytes_replyPayloads_identicalToJackson() throws IOException {
+        TransportEntity transport = mockFactory.getTransport().getTransportEntity();
+
+        TransportReplyPayload.TransportResult transportResult = new TransportReplyPayload.TransportResult();
+        transportResult.setTransport(transport);
+        transportResult.setReturnObject(getReturnObject());
+        TransportReplyPayload.TransportCommandReply transportCommandReply = new TransportReplyPayload.TransportCommandReply();
+        transportCommandReply.setName("users");
+        transportCommandReply.setResult(transportResult);
+        TransportReplyPayload transportReply = new TransportReplyPayload();
+        transportReply.setCommandReply(transportCommandReply);
+        assertArrayEquals(jackson.serializeInBytes(transportReply), streaming.serializeInBytes(transportReply));
+
+        ReturnReplyPayload.ReturnResult returnResult = new ReturnReplyPayload.ReturnResult();
+        returnResult.setTransport(transport);
+        returnResult.setReturnObject(42);
+        ReturnReplyPayload.ReturnCommandReply returnCommandReply = new ReturnReplyPayload.ReturnCommandReply();
+        returnCommandReply.setName("posts");
+        returnCommandReply.setResult(returnResult);
+        ReturnReplyPayload returnReply = new ReturnReplyPayload();
+        returnReply.setCommandReply(returnCommandReply);
+        assertArrayEquals(jackson.serializeInBytes(returnReply), streaming.serializeInBytes(returnReply));
+
+        CallReplyPayload.CallResult callResult = new CallReplyPayload.CallResult();
+        callResult.setRequestCall(mockFactory.getRequestCommandPayload().getCommand().getArgument().getRequestCall());
+        CallReplyPayload.CallCommandReply callCommandReply = new CallReplyPayload.CallCommandReply();
+        callCommandReply.setName("request");
+        callCommandReply.setResult(callResult);
+        CallReplyPayload callReply = new CallReplyPayload();
+        callReply.setCommandReply(callCommandReply);
+        assertArrayEquals(jackson.serializeInBytes(callReply), streaming.serializeInBytes(callReply));
+
+        ResponseReplyPayload.ResponseResult responseResult = new ResponseReplyPayload.ResponseResult();
+        responseResult.setHttpResponse(mockFactory.getResponseCommandPayload().getCommand().getArgument().getHttpResponse());
+        ResponseReplyPayload.ResponseCommandReply responseCommandReply = new ResponseReplyPayload.ResponseCommandReply();
+        responseCommandReply.setName("response");
+        responseCommandReply.setResult(responseResult);
+        ResponseReplyPayload responseReply = new ResponseReplyPayload();
+        responseReply.setCommandReply(responseCommandReply);
+        assertArrayEquals(jackson.serializeInBytes(responseReply), streaming.serializeInBytes(responseReply));
+
+        ErrorPayload errorPayload = new ErrorPayload();
+        errorPayload.setError(new ErrorEntity());
+        assertArrayEquals(jackson.serializeInBytes(errorPayload), streaming.serializeInBytes(errorPayload));
+    }
+
+    @Test
+    public void serializeInBytes_emptyPayloads_identicalToJackson() throws IOException {
+        Object[] payloads = new Object[]{new ActionCommandPayload(), new TransportReplyPayload(), new CallReplyPayload(),
+                new ResponseReplyPayload(), new ReturnReplyPayload(), new ErrorPayload()};
+        for (Object payload : payloads) {
+            assertArrayEquals(payload.getClass().getName(), jackson.serializeInBytes(payload), streaming.serializeInBytes(payload));
+        }
+
+        TransportEntity transport = new TransportEntity();
+        transport.setMeta(new io.kusanagi.katana.sdk.TransportMeta());
+        transport.setBody(new io.kusanagi.katana.sdk.File());
+        TransportReplyPayload.TransportResult result = new TransportReplyPayload.TransportResult();
+        result.setTransport(transport);
+        TransportReplyPayload.TransportCommandReply commandReply = new TransportReplyPayload.TransportCommandReply();
+        commandReply.setResult(result);
+        TransportReplyPayload reply = new TransportReplyPayload();
+        reply.setCommandReply(commandReply);
+        assertArrayEquals(jackson.serializeInBytes(reply), streaming.serializeInBytes(reply));
+    }
+
+    @Test
+    public void deserialize_runtimeCallReplies_equalToJackson() throws IOException {
+        ReturnReplyPayload.ReturnResult returnResult = new ReturnReplyPayload.ReturnResult();
+        returnResult.setTransport(mockFactory.getTransport().getTransportEntity());
+        returnResult.setReturnObject(Arrays.asList(1, "two", 3.0));
+        ReturnReplyPayload.ReturnCommandReply returnCommandReply = new ReturnReplyPayload.ReturnCommandReply();
+        returnCommandReply.setName("posts");
+        returnCommandReply.setResult(returnResult);
+        ReturnReplyPayload returnReply = new ReturnReplyPayload();
+        returnReply.setCommandReply(returnCommandReply);
+        assertSameDecoding(jackson.serializeInBytes(returnReply), ReturnReplyPayload.class);
+
+        ErrorEntity error = new ErrorEntity();
+        error.setMessage("Not found");
+        error.setCode(9);
+        error.setStatus("404 Not Found");
+        ErrorPayload errorPayload = new ErrorPayload();
+        errorPayload.setError(error);
+        ErrorPayload decoded = streaming.deserialize(jackson.serializeInBytes(errorPayload), ErrorPayload.class);
+        assertEquals("Not found", decoded.getError().getMessage());
+        assertEquals(9, decoded.getError().getCode());
+        assertEquals("404 Not Found", decoded.getError().getStatus());
+    }
+
+    @Test
+    public void deserialize_transportSections_decodedOnFirstAccess() throws IOException {
+        byte[] bytes = jackson.serializeInBytes(mockFactory.getActionCommandPayload());
+        TransportEntity expected = jackson.deserialize(bytes, ActionCommandPayload.class).getCommand().getArgument().getTransport();
+        TransportEntity transport = streaming.deserialize(bytes, ActionCommandPayload.class).getCommand().getArgument().getTransport();
+
+        for (String key : Arrays.asList(Key.TRANSPORT_FILES, Key.TRANSPORT_DATA, Key.TRANSPORT_RELATIONS, Key.TRANSPORT_LINKS, Key.TRANSPORT_ERRORS)) {
+            assertNotNull(transport.getRawSection(key));
+        }
+        assertTrue(transport.hasFiles());
+
+        assertEquals(expected.getData(), transport.readData());
+        assertNotNull(transport.getRawSection(Key.TRANSPORT_DATA));
+        assertTrue(transport.getModifiedServices(Key.TRANSPORT_DATA).isEmpty());
+        assertEquals(expected, transport);
+        assertEquals(expected.hashCode(), transport.hashCode());
+
+        // The getter hands out the section to be changed, so it is no longer replied as it was received
+        assertEquals(expected.getRelations(), transport.getRelations());
+        assertNull(transport.getRawSection(Key.TRANSPORT_RELATIONS));
+
+        transport.setData(null);
+        assertNull(transport.getRawSection(Key.TRANSPORT_DATA));
+        assertNull(transport.getData());
+    }
+
+    @Test
+    public void serializeInBytes_rawTransportSections_identicalToJackson() throws IOException {
+        byte[] bytes = jackson.serializeInBytes(mockFactory.getActionCommandPayload());
+        TransportEntity expected = jackson.deserialize(bytes, ActionCommandPayload.class).getCommand().getArgument().getTransport();
+        TransportEntity transport = streaming.deserialize(bytes, ActionCommandPayload.class).getCommand().getArgument().getTransport();
+
+        TransportEntity copy = new TransportEntity(transport);
+        assertArrayEquals(jackson.serializeInBytes(getTransportReply(expected)), streaming.serializeInBytes(getTransportReply(copy)));
+
+        // Sections only read are still copied from the received bytes
+        copy.readData();
+        copy.readRelations();
+        assertArrayEquals(jackson.serializeInBytes(getTransportReply(expected)), streaming.serializeInBytes(getTransportReply(copy)));
+    }
+
+    private Action getAction(ActionEntity actionEntity, String name) {
+        actionEntity.setActionName("read");
+        Action.Builder builder = new Action.Builder();
+        builder.setActionEntity(actionEntity);
+        builder.setPath("http://127.0.0.1:80").setName(name).setVersion("1.0.0");
+        return builder.build();
+    }
+
+    private void modify(Action users, Action posts) {
+        users.relateOne("123", "posts", "3");
+        users.relateManyRemote("124", "ktp://87.65.43.21:4321", "comments", Arrays.asList("3", "4"));
+        users.setLink("next", "http://api.example.com/v1/users/124");
+        posts.setCollection(Arrays.asList(Collections.singletonMap("id", 1), Collections.singletonMap("id", 2)));
+        posts.error("Not found", 9, "404 Not Found");
+        users.getTransport().addFile("http://127.0.0.1:80", "users", "1.0.0", "create", users.newFile("photo", "file:///tmp/photo.jpg"));
+    }
+
+    @Test
+    public void equals_undecodedTransportSections_comparedByBytes() throws IOException {
+        byte[] bytes = jackson.serializeInBytes(mockFactory.getActionCommandPayload());
+        TransportEntity transport = streaming.deserialize(bytes, ActionCommandPayload.class).getCommand().getArgument().getTransport();
+        TransportEntity other = streaming.deserialize(bytes, ActionCommandPayload.class).getCommand().getArgument().getTransport();
+
+        assertEquals(transport, other);
+        assertEquals(transport.hashCode(), other.hashCode());
+        assertTrue(transport.toString().contains("data=RawSection{"));
+        for (String key : Arrays.asList(Key.TRANSPORT_FILES, Key.TRANSPORT_DATA, Key.TRANSPORT_RELATIONS, Key.TRANSPORT_LINKS, Key.TRANSPORT_ERRORS)) {
+            assertNotNull(transport.getRawSection(key));
+            assertNotNull(other.getRawSection(key));
+        }
+
+        other.getLinks().clear();
+        assertNotEquals(transport, other);
+    }
+
+    @Test
+    public void serializeInBytes_modifiedTransportSections_identicalToJackson() throws IOException {
+        byte[] bytes = jackson.serializeInBytes(mockFactory.getActionCommandPayload());
+        ActionEntity expected = jackson.deserialize(bytes, ActionCommandPayload.class).getCommand().getArgument();
+        ActionEntity actual = streaming.deserialize(bytes, ActionCommandPayload.class).getCommand().getArgument();
+        modify(getAction(expected, "users"), getAction(expected, "posts"));
+        modify(getAction(actual, "users"), getAction(actual, "posts"));
+
+        TransportEntity transport = actual.getTransport();
+        assertNotNull(transport.getRawSection(Key.TRANSPORT_DATA));
+        assertEquals(Collections.singleton("posts"), transport.getModifiedServices(Key.TRANSPORT_DATA).get("http://127.0.0.1:80"));
+        assertEquals(Collections.singleton("users"), transport.getModifiedServices(Key.TRANSPORT_RELATIONS).get("http://127.0.0.1:80"));
+        assertEquals(Collections.singleton("posts"), transport.getModifiedServices(Key.TRANSPORT_ERRORS).get("http://127.0.0.1:80"));
+        assertArrayEquals(jackson.serializeInBytes(getTransportReply(expected.getTransport())),
+                streaming.serializeInBytes(getTransportReply(new TransportEntity(transport))));
+
+        // Changes made through the getters are recorded for the whole section
+        expected.getTransport().getLinks().remove("http://127.0.0.1:80");
+        transport.getLinks().remove("http://127.0.0.1:80");
+        assertNull(transport.getRawSection(Key.TRANSPORT_LINKS));
+        assertArrayEquals(jackson.serializeInBytes(getTransportReply(expected.getTransport())),
+                streaming.serializeInBytes(getTransportReply(transport)));
+    }
+
+    @Test
+    public void deserialize_nilTransportSections_keptAsNull() throws IOException {
+        MessageBufferPacker packer = MessagePack.newDefaultBufferPacker();
+        packer.packMapHeader(1);
+        packer.packString(Key.COMMAND_PAYLOAD_COMMAND).packMapHeader(1);
+        packer.packString(Key.COMMAND_ARGUMENT).packMapHeader(1);
+        packer.packString(Key.ACTION_TRANSPORT).packMapHeader(2);
+        packer.packString(Key.TRANSPORT_FILES).packMapHeader(0);
+        packer.packString(Key.TRANSPORT_LINKS).packNil();
+        packer.close();
+
+        TransportEntity transport = streaming.deserialize(packer.toByteArray(), ActionCommandPayload.class).getCommand().getArgument().getTransport();
+        assertFalse(transport.hasFiles());
+        assertNull(transport.getLinks());
+        assertEquals(Collections.emptyMap(), transport.getFiles());
+    }
+
+    @Test
+    public void serializeInBytes_reuseBuffer() throws IOException {
+        StreamingMessagePackSerializer serializer = (StreamingMessagePackSerializer) streaming;
+        TransportEntity transport = mockFactory.getTransport().getTransportEntity();
+        byte[] expected = jackson.serializeInBytes(getTransportReply(transport));
+        byte[] first = serializer.serializeInBytes(getTransportReply(transport));
+        byte[] second = serializer.serializeInBytes(getTransportReply(transport));
+        assertArrayEquals(expected, first);
+        assertArrayEquals(expected, second);
+        assertNotSame(first, second);
+        assertEquals(Constants.DEFAULT_REPLY_BUFFER_SIZE, serializer.getBufferCapacity());
+
+        Map<String, Object> large = new LinkedHashMap<>();
+        large.put("bytes", new byte[4 * Constants.DEFAULT_REPLY_BUFFER_SIZE]);
+        TransportReplyPayload largeReply = getTransportReply(transport);
+        largeReply.getCommandReply().getResult().setReturnObject(large);
+        assertArrayEquals(jackson.serializeInBytes(largeReply), serializer.serializeInBytes(largeReply));
+        assertTrue(serializer.getBufferCapacity() > 4 * Constants.DEFAULT_REPLY_BUFFER_SIZE);
+        assertArrayEquals(expected, serializer.serializeInBytes(getTransportReply(transport)));
+    }
+
+    @Test
+    public void serializeInBytes_failedWrite_discardBuffer() throws IOException {
+        TransportReplyPayload reply = getTransportReply(mockFactory.getTransport().getTransportEntity());
+        reply.getCommandReply().getResult().setReturnObject(new Object() {
+            public String getValue() {
+                throw new IllegalStateException();
+            }
+        });
+        try {
+            streaming.serializeInBytes(reply);
+            fail();
+        } catch (IOException e) {
+            // Expected, the return object can not be serialized
+        }
+
+        TransportReplyPayload validReply = getTransportReply(mockFactory.getTransport().getTransportEntity());
+        assertArrayEquals(jackson.serializeInBytes(validReply), streaming.serializeInBytes(validReply));
+    }
+
+    @Test
+    public void serializeInBytes_otherClasses_delegateToJackson() throws IOException {
+        RequestCall requestCall = mockFactory.getRequestCommandPayload().getCommand().getArgument().getRequestCall();
+        byte[] bytes = streaming.serializeInBytes(requestCall);
+        assertArrayEquals(jackson.serializeInBytes(requestCall), bytes);
+        assertEquals(requestCall, streaming.deserialize(bytes, RequestCall.class));
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Java 8 SDK for the KATANA(tm) Platform (http://katana.kusanagi.io)
+ * Copyright (c) 2016-2017 KUSANAGI S.L. All rights reserved.
+ *
+ * Distributed under the MIT license
+ *
+ * For the full copyright and license information, please view the LICENSE
+ *  file that was distributed with this source code
+ *
+ * @link      https://github.com/kusanagi/katana-sdk-java8
+ * @license   http://www.opensource.org/licenses/mit-license.php MIT License
+ * @copyright Copyright (c) 2016-2017 KUSANAGI S.L. (http://kusanagi.io)
+ *
+ */
+
+package io.kusanagi.katana.api.component.utils;
+
+import io.kusanagi.katana.api.commands.ActionCommandPayload;
+import io.kusanagi.katana.sdk.TransportMeta;
+import io.kusanagi.katana.utils.MockFactory;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.time.Instant;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class TransportMetaReaderTest {
+
+    private final MockFactory mockFactory = new MockFactory();
+
+    private final MessagePackSerializer serializer = new MessagePackSerializer();
+
+    private byte[] getCommand(String datetime, String startTime, int level) throws Exception {
+        ActionCommandPayload payload = mockFactory.getActionCommandPayload();
+        TransportMeta meta = payload.getCommand().getArgument().getTransport().getMeta();
+        meta.setDatetime(datetime);
+        meta.setStartTime(startTime);
+        meta.setLevel(level);
+        return serializer.serializeInBytes(payload);
+    }
+
+    @Test
+    public void readStartTime_datetimeWithoutOffset_readAsUtc() throws Exception {
+        long startTime = TransportMetaReader.readStartTime(getCommand("2016-04-12T02:49:05.761", null, 1));
+
+        assertEquals(Instant.parse("2016-04-12T02:49:05.761Z").toEpochMilli(), startTime);
+    }
+
+    @Test
+    public void readStartTime_startTimeWithOffset_preferStartTime() throws Exception {
+        long startTime = TransportMetaReader.readStartTime(
+                getCommand("2016-04-12T02:49:05.761", "2017-01-27T20:12:08.952811+01:00", 1));
+
+        assertEquals(Instant.parse("2017-01-27T19:12:08.952Z").toEpochMilli(), startTime);
+    }
+
+    @Test
+    public void readStartTime_runtimeCall_unknown() throws Exception {
+        assertEquals(-1, TransportMetaReader.readStartTime(getCommand("2016-04-12T02:49:05.761", null, 2)));
+    }
+
+    @Test
+    public void readStartTime_invalidDate_unknown() throws Exception {
+        assertEquals(-1, TransportMetaReader.readStartTime(getCommand("yesterday", null, 1)));
+    }
+
+    @Test
+    public void readStartTime_notActionCommand_unknown() throws Exception {
+        assertEquals(-1, TransportMetaReader.readStartTime(serializer.serializeInBytes(mockFactory.getRequestCommandPayload())));
+        assertEquals(-1, TransportMetaReader.readStartTime(new byte[]{(byte) 0xc1}));
+    }
+}
@@ -20,6 +20,10 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * Created by juane on 2/11/17.
  */
@@ -51,4 +55,69 @@ public class ActionSchemaTest {
 //                object.toString());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void hasCall_matchWithOptionalVersionAndAction() {
+        ActionSchema object = new MockFactory().getActionSchema();
+        Assert.assertTrue(object.hasCall("comments", "1.2.0", "list"));
+        Assert.assertTrue(object.hasCall("comments", null, "list"));
+        Assert.assertTrue(object.hasCall("comments", "1.2.0", ""));
+        Assert.assertTrue(object.hasCall("comments", "", null));
+        Assert.assertFalse(object.hasCall("comments", "1.2.0", "read"));
+        Assert.assertFalse(object.hasCall("comments", "1.2.1", null));
+        Assert.assertFalse(object.hasCall("users", null, null));
+    }
+
+    @Test
+    public void hasDeferCallAndRemoteCall() {
+        ActionSchema object = new MockFactory().getActionSchema();
+        Assert.assertTrue(object.hasDeferCall("comments", "1.2.0", "list"));
+        Assert.assertFalse(object.hasDeferCall("comments", null, "list"));
+        Assert.assertTrue(object.hasRemoteCall("12.34.56.78:1234", "cdn", "1.0.0", "upload"));
+        Assert.assertFalse(object.hasRemoteCall("12.34.56.78:1235", "cdn", "1.0.0", "upload"));
+    }
+
+    @Test
+    public void setCallsAndTags_updateIndex() {
+        Assert.assertFalse(actionSchema.hasCall("users", null, null));
+        Assert.assertFalse(actionSchema.hasTag("public"));
+
+        actionSchema.setCalls(new String[][]{{"users", "1.0.0", "read"}});
+        actionSchema.setTags(Arrays.asList("public", "cached"));
+
+        Assert.assertTrue(actionSchema.hasCall("users", null, null));
+        Assert.assertTrue(actionSchema.hasTag("cached"));
+        Assert.assertFalse(actionSchema.hasTag("private"));
+
+        actionSchema.setTags(Arrays.asList("public", "private"));
+        actionSchema.setCalls(new String[][]{{"posts", "1.0.0", "list"}});
+        Assert.assertTrue(actionSchema.hasTag("private"));
+        Assert.assertTrue(actionSchema.hasCall("posts", null, "list"));
+        Assert.assertFalse(actionSchema.hasCall("users", null, null));
+    }
+
+    @Test
+    public void changeSetOrReturnedCallsAndTags_keepSchemaAndIndex() {
+        List<String> tags = new ArrayList<>(Arrays.asList("public", "cached"));
+        String[][] calls = {{"users", "1.0.0", "read"}};
+        actionSchema.setTags(tags);
+        actionSchema.setCalls(calls);
+        actionSchema.compile();
+
+        tags.add("private");
+        calls[0][0] = "posts";
+        actionSchema.getCalls()[0] = new String[]{"posts", "1.0.0", "list"};
+        Assert.assertFalse(actionSchema.hasTag("private"));
+        Assert.assertTrue(actionSchema.hasCall("users", "1.0.0", "read"));
+        Assert.assertFalse(actionSchema.hasCall("posts", null, null));
+        Assert.assertArrayEquals(new String[][]{{"users", "1.0.0", "read"}}, actionSchema.getCalls());
+        Assert.assertEquals(Arrays.asList("public", "cached"), actionSchema.getTags());
+
+        try {
+            actionSchema.getTags().add("private");
+            Assert.fail();
+        } catch (UnsupportedOperationException e) {
+            Assert.assertFalse(actionSchema.hasTag("private"));
+        }
+    }
+
+}
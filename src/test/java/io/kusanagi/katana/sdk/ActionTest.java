@@ -15,24 +15,298 @@
 
 package io.kusanagi.katana.sdk;
 
+import io.kusanagi.katana.api.commands.Mapping;
+import io.kusanagi.katana.api.component.Key;
+import io.kusanagi.katana.api.component.Serializer;
+import io.kusanagi.katana.api.component.utils.MessagePackSerializer;
+import io.kusanagi.katana.api.replies.ReturnReplyPayload;
+import io.kusanagi.katana.api.serializers.ActionEntity;
+import io.kusanagi.katana.api.serializers.TransportEntity;
 import io.kusanagi.katana.utils.MockFactory;
 import org.junit.Assert;
 import org.junit.Test;
+import org.zeromq.ZMQ;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by juane on 2/11/17.
  */
 public class ActionTest {
 
+    private static final String PATH = "http://127.0.0.1:80";
+
     @Test
     public void equalsAndHashcode() {
         MockFactory mockFactory = new MockFactory();
         Action object = mockFactory.getAction();
         Assert.assertEquals(object, new Action(object));
-        Assert.assertEquals(-1713764612, object.hashCode());
+        Assert.assertEquals(-1914350372, object.hashCode());
         Assert.assertEquals(
                 "Action{actionEntity=ActionEntity{params=[Param{name='name', value=James, type='string', exists=false}, Param{name='age', value=32, type='integer', exists=false}], transport=TransportEntity{meta=TransportMeta{version='1.0.0', id='f1b27da9-240b-40e3-99dd-a567e4498ed7', datetime='2016-04-12T02:49:05.761', startTime='null', endTime='null', duration=0, gateway=[12.34.56.78:1234, http://127.0.0.1:80], origin=[users, 1.0.0, list], level=1, fallback=[[users, 1.0.0, [create, update]]], properties={property=value}}, body=File{name='null', path='file:///tmp/document.pdf', mime='application/pdf', filename='document.pdf', size='1234567890', token='', exists=false}, files={http://127.0.0.1:80={users={1.0.0={create=[File{name='avatar', path='http://12.34.56.78:1234/files/ac3bd4b8-7da3-4c40-8661-746adfa55e0d', mime='image/jpeg', filename='smiley.jpg', size='1234567890', token='fb9an6c46be74s425010896fcbd99e2a', exists=false}, File{name='document', path='file:///tmp/document.pdf', mime='application/pdf', filename='document.pdf', size='1234567890', token='', exists=false}]}}}}, data={http://127.0.0.1:80={users={1.0.0={read_users=[{name=Juan}, {name=Ricardo}], list_users=[[{name=Juan}, {name=Ricardo}]]}}}}, relations={http://127.0.0.1:80={users={123={http://127.0.0.1:80={posts=[1, 2]}}}, posts={1={http://127.0.0.1:80={categories=1}, ktp://87.65.43.21:4321={comments=[1, 2, 3]}}, 2={http://127.0.0.1:80={categories=2}, ktp://87.65.43.21:4321={comments=[4]}}}}}, links={http://127.0.0.1:80={users={self=http://api.example.com/v1/users/123}}}, calls={users={1.0.0=[CallEntity{duration=0, name='posts', version='1.2.0', action='list', caller='null', params=[Param{name='X-Request-Token', value=ac3bd4b8-7da3-4c40-8661-746adfa55e0d, type='string', exists=false}, Param{name='user_id', value=123, type='integer', exists=false}], gateway='null', timeout=0}], 1.0.1=[CallEntity{duration=0, name='comments', version='1.1.0', action='list', caller='null', params=[Param{name='post_id', value=321, type='integer', exists=false}], gateway='ktp://87.65.43.21:4321', timeout=2000}]}}, transactions=TransactionEntity{commit=[ServiceTransaction{name='users', version='1.0.0', action='create', caller='save', params=[Param{name='user_id', value=123, type='integer', exists=false}]}], rollback=[ServiceTransaction{name='users', version='1.0.0', action='create', caller='undo', params=[Param{name='user_id', value=123, type='integer', exists=false}]}], complete=[ServiceTransaction{name='users', version='1.0.0', action='create', caller='cleanup', params=[Param{name='user_id', value=123, type='integer', exists=false}]}]}, errors={http://127.0.0.1:80={users={1.0.0=[ErrorEntity{message='The user does not exist', code='9', status='404 Not Found'}]}}}}, returnObject=null, actionName='null'}, transport=Transport{transportEntity=TransportEntity{meta=TransportMeta{version='1.0.0', id='f1b27da9-240b-40e3-99dd-a567e4498ed7', datetime='2016-04-12T02:49:05.761', startTime='null', endTime='null', duration=0, gateway=[12.34.56.78:1234, http://127.0.0.1:80], origin=[users, 1.0.0, list], level=1, fallback=[[users, 1.0.0, [create, update]]], properties={property=value}}, body=File{name='null', path='file:///tmp/document.pdf', mime='application/pdf', filename='document.pdf', size='1234567890', token='', exists=false}, files={http://127.0.0.1:80={users={1.0.0={create=[File{name='avatar', path='http://12.34.56.78:1234/files/ac3bd4b8-7da3-4c40-8661-746adfa55e0d', mime='image/jpeg', filename='smiley.jpg', size='1234567890', token='fb9an6c46be74s425010896fcbd99e2a', exists=false}, File{name='document', path='file:///tmp/document.pdf', mime='application/pdf', filename='document.pdf', size='1234567890', token='', exists=false}]}}}}, data={http://127.0.0.1:80={users={1.0.0={read_users=[{name=Juan}, {name=Ricardo}], list_users=[[{name=Juan}, {name=Ricardo}]]}}}}, relations={http://127.0.0.1:80={users={123={http://127.0.0.1:80={posts=[1, 2]}}}, posts={1={http://127.0.0.1:80={categories=1}, ktp://87.65.43.21:4321={comments=[1, 2, 3]}}, 2={http://127.0.0.1:80={categories=2}, ktp://87.65.43.21:4321={comments=[4]}}}}}, links={http://127.0.0.1:80={users={self=http://api.example.com/v1/users/123}}}, calls={users={1.0.0=[CallEntity{duration=0, name='posts', version='1.2.0', action='list', caller='null', params=[Param{name='X-Request-Token', value=ac3bd4b8-7da3-4c40-8661-746adfa55e0d, type='string', exists=false}, Param{name='user_id', value=123, type='integer', exists=false}], gateway='null', timeout=0}], 1.0.1=[CallEntity{duration=0, name='comments', version='1.1.0', action='list', caller='null', params=[Param{name='post_id', value=321, type='integer', exists=false}], gateway='ktp://87.65.43.21:4321', timeout=2000}]}}, transactions=TransactionEntity{commit=[ServiceTransaction{name='users', version='1.0.0', action='create', caller='save', params=[Param{name='user_id', value=123, type='integer', exists=false}]}], rollback=[ServiceTransaction{name='users', version='1.0.0', action='create', caller='undo', params=[Param{name='user_id', value=123, type='integer', exists=false}]}], complete=[ServiceTransaction{name='users', version='1.0.0', action='create', caller='cleanup', params=[Param{name='user_id', value=123, type='integer', exists=false}]}]}, errors={http://127.0.0.1:80={users={1.0.0=[ErrorEntity{message='The user does not exist', code='9', status='404 Not Found'}]}}}}}}",
                 object.toString());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void callAll_mergeTransportsInCallOrder() throws Exception {
+        String address = "127.0.0.1:5021";
+        MockFactory mockFactory = new MockFactory();
+        Serializer serializer = new MessagePackSerializer();
+
+        Mapping mapping = mockFactory.getMapping("users", "1.0.0");
+        mapping.getServiceSchema().get("users").get("1.0.0").setAddress(address);
+        ActionEntity actionEntity = mockFactory.getActionCommand().getArgument();
+        actionEntity.setActionName("read");
+        Service service = new Service("-c service -n users -v 1.0.0 -f 1.0.0 -t 5022".split(" "));
+        Action action = new Action.Builder()
+                .setActionEntity(actionEntity)
+                .setComponent(service)
+                .setName("users")
+                .setVersion("1.0.0")
+                .setMapping(mapping)
+                .build();
+
+        ZMQ.Context context = ZMQ.context(1);
+        ZMQ.Socket server = context.socket(ZMQ.ROUTER);
+        server.setLinger(0);
+        server.bind("tcp://" + address);
+
+        // Reply to the calls in the opposite order in which they were made
+        Thread thread = new Thread(() -> {
+            try {
+                Map<String, byte[]> identities = new HashMap<>();
+                for (int i = 0; i < 2; i++) {
+                    byte[] identity = server.recv();
+                    server.recv();
+                    server.recv();
+                    Map payload = serializer.deserialize(server.recv(), Map.class);
+                    Map argument = (Map) ((Map) payload.get(Key.COMMAND_PAYLOAD_COMMAND)).get(Key.COMMAND_ARGUMENT);
+                    identities.put((String) ((List) argument.get(Key.CALLEE_CALLEE_INFO)).get(2), identity);
+                }
+                for (String calledAction : Arrays.asList("second", "first")) {
+                    TransportEntity transport = mockFactory.getActionCommand().getArgument().getTransport();
+                    transport.getMeta().getProperties().put("order", calledAction);
+                    ReturnReplyPayload.ReturnResult result = new ReturnReplyPayload.ReturnResult();
+                    result.setTransport(transport);
+                    result.setReturnObject(calledAction);
+                    ReturnReplyPayload.ReturnCommandReply commandReply = new ReturnReplyPayload.ReturnCommandReply();
+                    commandReply.setResult(result);
+                    ReturnReplyPayload reply = new ReturnReplyPayload();
+                    reply.setCommandReply(commandReply);
+
+                    server.sendMore(identities.get(calledAction));
+                    server.sendMore(new byte[0]);
+                    server.send(serializer.serializeInBytes(reply), 0);
+                }
+            } catch (Exception e) {
+                Assert.fail(e.getMessage());
+            }
+        });
+        thread.start();
+
+        List<Object> results = action.callAll(Arrays.asList(
+                new RuntimeCall("comments", "1.2.0", "first"),
+                new RuntimeCall("comments", "1.2.0", "second")
+        ), 2000);
+
+        Assert.assertEquals(Arrays.asList("first", "second"), results);
+        Assert.assertEquals("second", action.getTransport().getProperty("order"));
+
+        thread.join(1000);
+        service.getRuntimeCallPool().close();
+        server.close();
+    }
+
+    @Test
+    public void callAsync_mergeOnActionThreadAndSurfaceFailure() throws Exception {
+        String address = "127.0.0.1:5031";
+        MockFactory mockFactory = new MockFactory();
+        Serializer serializer = new MessagePackSerializer();
+
+        Mapping mapping = mockFactory.getMapping("users", "1.0.0");
+        mapping.getServiceSchema().get("users").get("1.0.0").setAddress(address);
+        ActionEntity actionEntity = mockFactory.getActionCommand().getArgument();
+        actionEntity.setActionName("read");
+        Service service = new Service("-c service -n users -v 1.0.0 -f 1.0.0 -t 5032".split(" "));
+        Action action = new Action.Builder()
+                .setActionEntity(actionEntity)
+                .setComponent(service)
+                .setName("users")
+                .setVersion("1.0.0")
+                .setMapping(mapping)
+                .build();
+
+        ZMQ.Context context = ZMQ.context(1);
+        ZMQ.Socket server = context.socket(ZMQ.ROUTER);
+        server.setLinger(0);
+        server.bind("tcp://" + address);
+
+        // Reply to the first call and fail the second one
+        Thread thread = new Thread(() -> {
+            try {
+                for (int i = 0; i < 2; i++) {
+                    byte[] identity = server.recv();
+                    server.recv();
+                    server.recv();
+                    server.recv();
+
+                    byte[] bytes;
+                    if (i == 0) {
+                        TransportEntity transport = mockFactory.getActionCommand().getArgument().getTransport();
+                        transport.getMeta().getProperties().put("order", "first");
+                        ReturnReplyPayload.ReturnResult result = new ReturnReplyPayload.ReturnResult();
+                        result.setTransport(transport);
+                        result.setReturnObject("first");
+                        ReturnReplyPayload.ReturnCommandReply commandReply = new ReturnReplyPayload.ReturnCommandReply();
+                        commandReply.setResult(result);
+                        ReturnReplyPayload reply = new ReturnReplyPayload();
+                        reply.setCommandReply(commandReply);
+                        bytes = serializer.serializeInBytes(reply);
+                    } else {
+                        bytes = new byte[]{1, 2, 3};
+                    }
+
+                    server.sendMore(identity);
+                    server.sendMore(new byte[0]);
+                    server.send(bytes, 0);
+                }
+            } catch (Exception e) {
+                Assert.fail(e.getMessage());
+            }
+        });
+        thread.start();
+
+        CompletableFuture<Object> first = action.callAsync("comments", "1.2.0", "first", null, null, 2000);
+        Assert.assertEquals("first", first.get(2000, TimeUnit.MILLISECONDS));
+        CompletableFuture<Object> second = action.callAsync("comments", "1.2.0", "second", null, null, 2000);
+        try {
+            second.get(2000, TimeUnit.MILLISECONDS);
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+
+        // The transports are only merged by the thread of the action
+        Assert.assertEquals("", action.getTransport().getProperty("order"));
+        try {
+            action.awaitCalls();
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("first", action.getTransport().getProperty("order"));
+        }
+        action.awaitCalls();
+
+        thread.join(1000);
+        service.getRuntimeCallPool().close();
+        server.close();
+    }
+
+    @Test
+    public void setEntityRelateLinkAndError_keepNestedSections() {
+        Action action = getUsersAction();
+        TransportEntity transport = action.getTransport().getTransportEntity();
+
+        action.setEntity(Collections.singletonMap("name", "James"));
+        action.relateOne("123", "posts", "7");
+        action.relateManyRemote("123", "ktp://87.65.43.21:4321", "comments", Arrays.asList("1", "2"));
+        action.setLink("self", "http://api.example.com/v1/users/123");
+        action.setLink("next", "http://api.example.com/v1/users/124");
+        action.error("The user does not exist", 9, "404 Not Found");
+        action.error("The user is disabled", 10, "403 Forbidden");
+        action.getTransport().addFile(PATH, "posts", "1.2.0", "list", action.newFile("avatar", "file:///tmp/avatar.jpg"));
+
+        Map<String, Object> actionData = transport.getData().get(PATH).get("users").get("1.0.0");
+        Assert.assertEquals(Collections.singletonList(Collections.singletonMap("name", "James")), actionData.get("read"));
+        Assert.assertTrue(actionData.containsKey("read_users"));
+        Assert.assertEquals("7", transport.getRelations().get(PATH).get("users").get("123").get(PATH).get("posts"));
+        Assert.assertEquals("[1, 2]", transport.getRelations().get(PATH).get("users").get("123").get("ktp://87.65.43.21:4321").get("comments").toString());
+        Assert.assertEquals("1", transport.getRelations().get(PATH).get("posts").get("1").get(PATH).get("categories").toString());
+        Assert.assertEquals(2, transport.getLinks().get(PATH).get("users").size());
+        Assert.assertEquals(3, transport.getErrors().get(PATH).get("users").get("1.0.0").size());
+        Assert.assertEquals("avatar", transport.getFiles().get(PATH).get("posts").get("1.2.0").get("list").get(0).getName());
+    }
+
+    @Test
+    public void setEntity_afterSectionReplaced_writeToNewSection() {
+        Action action = getUsersAction();
+        TransportEntity transport = action.getTransport().getTransportEntity();
+        action.setEntity(Collections.singletonMap("name", "James"));
+
+        transport.setData(new HashMap<>());
+        action.setEntity(Collections.singletonMap("name", "Ricardo"));
+        Assert.assertEquals(1, transport.getData().get(PATH).get("users").get("1.0.0").size());
+
+        transport.getData().get(PATH).put("users", new HashMap<>());
+        transport.markModified(Key.TRANSPORT_DATA);
+        action.setEntity(Collections.singletonMap("name", "Juan"));
+        Assert.assertEquals(Collections.singletonList(Collections.singletonMap("name", "Juan")),
+                transport.getData().get(PATH).get("users").get("1.0.0").get("read"));
+    }
+
+    @Test
+    public void getFile_afterFilesChanged_findNewFiles() {
+        Action action = getUsersAction();
+        TransportEntity transport = action.getTransport().getTransportEntity();
+
+        Assert.assertTrue(action.hasFile("avatar"));
+        Assert.assertFalse(action.hasFile("report"));
+
+        File report = action.newFile("report", "file:///tmp/report.pdf");
+        action.getTransport().addFile(PATH, "posts", "1.2.0", "list", report);
+        Assert.assertSame(report, action.getFile("report"));
+
+        transport.setFiles(new HashMap<>());
+        Assert.assertFalse(action.hasFile("avatar"));
+        Assert.assertEquals("", action.getFile("avatar").getPath());
+    }
+
+    @Test
+    public void getFiles_withoutFiles_returnEmptyList() {
+        Action action = getUsersAction();
+        action.getTransport().getTransportEntity().setFiles(null);
+
+        Assert.assertEquals(Collections.emptyList(), action.getFiles());
+        Assert.assertFalse(action.hasFile("avatar"));
+    }
+
+    @Test
+    public void getParam_afterParamsChanged_findNewParams() {
+        Action action = getUsersAction();
+        Assert.assertTrue(action.hasParam("age"));
+        Assert.assertEquals(32, action.getParam("age").getValue());
+
+        action.getParams().add(action.newParam("email", "james@example.com", "string"));
+        Assert.assertEquals("james@example.com", action.getParam("email").getValue());
+
+        Assert.assertFalse(action.getParam("phone").exists());
+    }
+
+    @Test
+    public void getParam_afterParamReplacedInPlace_findNewParam() {
+        Action action = getUsersAction();
+        Assert.assertEquals(32, action.getParam("age").getValue());
+
+        action.getParams().set(1, action.newParam("age", "33", "string"));
+        Assert.assertEquals("33", action.getParam("age").getValue());
+
+        action.getParams().remove(1);
+        action.getParams().add(action.newParam("email", "james@example.com", "string"));
+        Assert.assertFalse(action.hasParam("age"));
+        Assert.assertTrue(action.hasParam("email"));
+    }
+
+    private Action getUsersAction() {
+        ActionEntity actionEntity = new MockFactory().getActionCommand().getArgument();
+        actionEntity.setActionName("read");
+        return new Action.Builder()
+                .setActionEntity(actionEntity)
+                .setPath(PATH)
+                .setName("users")
+                .setVersion("1.0.0")
+                .build();
+    }
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Java 8 SDK for the KATANA(tm) Platform (http://katana.kusanagi.io)
+ * Copyright (c) 2016-2017 KUSANAGI S.L. All rights reserved.
+ *
+ * Distributed under the MIT license
+ *
+ * For the full copyright and license information, please view the LICENSE
+ *  file that was distributed with this source code
+ *
+ * @link      https://github.com/kusanagi/katana-sdk-java8
+ * @license   http://www.opensource.org/licenses/mit-license.php MIT License
+ * @copyright Copyright (c) 2016-2017 KUSANAGI S.L. (http://kusanagi.io)
+ *
+ */
+
+package io.kusanagi.katana.sdk;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+public class FlatSpliteratorTest {
+
+    @Test
+    public void tryAdvance_visitNestedElementsInOrder() {
+        List<Integer> elements = new ArrayList<>();
+        newSpliterator(Arrays.asList(Arrays.asList(1, 2), Collections.emptyList(), Arrays.asList(3))).forEachRemaining(elements::add);
+        Assert.assertEquals(Arrays.asList(1, 2, 3), elements);
+
+        Spliterator<Integer> spliterator = newSpliterator(Arrays.asList(Collections.emptyList(), Arrays.asList(4, 5)));
+        Assert.assertTrue(spliterator.tryAdvance(element -> Assert.assertEquals(4, (int) element)));
+        Assert.assertTrue(spliterator.tryAdvance(element -> Assert.assertEquals(5, (int) element)));
+        Assert.assertFalse(spliterator.tryAdvance(element -> Assert.fail()));
+    }
+
+    @Test
+    public void trySplit_singleSource_splitNestedElements() {
+        Spliterator<Integer> spliterator = newSpliterator(Collections.singletonList(Arrays.asList(1, 2, 3, 4)));
+        Spliterator<Integer> prefix = spliterator.trySplit();
+        Assert.assertNotNull(prefix);
+
+        List<Integer> elements = new ArrayList<>();
+        prefix.forEachRemaining(elements::add);
+        spliterator.forEachRemaining(elements::add);
+        Assert.assertEquals(Arrays.asList(1, 2, 3, 4), elements);
+    }
+
+    @Test
+    public void trySplit_partlyAdvanced_keepOrder() {
+        Spliterator<Integer> spliterator = newSpliterator(Arrays.asList(Arrays.asList(1, 2, 3), Arrays.asList(4, 5), Arrays.asList(6)));
+        List<Integer> elements = new ArrayList<>();
+        spliterator.tryAdvance(elements::add);
+        Spliterator<Integer> prefix = spliterator.trySplit();
+        Assert.assertNotNull(prefix);
+
+        prefix.forEachRemaining(elements::add);
+        spliterator.forEachRemaining(elements::add);
+        Assert.assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6), elements);
+    }
+
+    @Test
+    public void trySplit_lastSourceElement_splitNestedElements() {
+        Spliterator<Integer> spliterator = newSpliterator(Arrays.asList(Arrays.asList(1, 2), Arrays.asList(3, 4, 5, 6)));
+        List<Integer> elements = new ArrayList<>();
+        spliterator.tryAdvance(elements::add);
+        spliterator.tryAdvance(elements::add);
+        spliterator.tryAdvance(elements::add);
+        Assert.assertEquals(3, spliterator.estimateSize());
+
+        Spliterator<Integer> prefix = spliterator.trySplit();
+        Assert.assertNotNull(prefix);
+        prefix.forEachRemaining(elements::add);
+        Assert.assertTrue(spliterator.estimateSize() > 0);
+        spliterator.forEachRemaining(elements::add);
+        Assert.assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6), elements);
+    }
+
+    @Test
+    public void trySplit_unknownSourceSize_keepOrder() {
+        List<List<Integer>> source = Arrays.asList(Arrays.asList(1, 2), Arrays.asList(3), Arrays.asList(4, 5));
+        Spliterator<Integer> spliterator = new FlatSpliterator<>(Spliterators.spliteratorUnknownSize(source.iterator(), Spliterator.ORDERED), List::spliterator);
+        List<Integer> elements = new ArrayList<>();
+        spliterator.tryAdvance(elements::add);
+
+        Spliterator<Integer> prefix = spliterator.trySplit();
+        Assert.assertNotNull(prefix);
+        prefix.forEachRemaining(elements::add);
+        spliterator.forEachRemaining(elements::add);
+        Assert.assertEquals(Arrays.asList(1, 2, 3, 4, 5), elements);
+        Assert.assertEquals(Spliterator.ORDERED | Spliterator.NONNULL, spliterator.characteristics());
+    }
+
+    @Test
+    public void parallelStream_visitEveryElementOnceInOrder() {
+        List<List<Integer>> source = new ArrayList<>();
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            List<Integer> nested = new ArrayList<>();
+            for (int j = 0; j < i; j++) {
+                nested.add(expected.size());
+                expected.add(expected.size());
+            }
+            source.add(nested);
+        }
+        Assert.assertEquals(expected, StreamSupport.stream(newSpliterator(source), true).collect(Collectors.toList()));
+    }
+
+    private static Spliterator<Integer> newSpliterator(List<List<Integer>> source) {
+        return new FlatSpliterator<>(source.spliterator(), List::spliterator);
+    }
+}
@@ -15,10 +15,14 @@
 
 package io.kusanagi.katana.sdk;
 
+import io.kusanagi.katana.api.serializers.HttpRequestEntity;
 import io.kusanagi.katana.utils.MockFactory;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+
 /**
  * Created by juane on 2/11/17.
  */
@@ -35,4 +39,45 @@ public class HttpRequestTest {
                 object.toString());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void getFile_afterFilesChanged_findNewFiles() {
+        HttpRequestEntity httpRequestEntity = new HttpRequestEntity();
+        httpRequestEntity.setFiles(new ArrayList<>(Arrays.asList(newFile("avatar.jpg"), newFile("document.pdf"))));
+        HttpRequest httpRequest = new HttpRequest.Builder().setHttpRequestEntity(httpRequestEntity).build();
+
+        Assert.assertTrue(httpRequest.hasFile("document.pdf"));
+        Assert.assertFalse(httpRequest.hasFile("report.pdf"));
+
+        httpRequest.getFiles().add(newFile("report.pdf"));
+        Assert.assertSame(httpRequest.getFiles().get(2), httpRequest.getFile("report.pdf"));
+
+        httpRequestEntity.setFiles(new ArrayList<>(Arrays.asList(newFile("avatar.jpg"))));
+        Assert.assertFalse(httpRequest.hasFile("document.pdf"));
+        Assert.assertEquals("document.pdf", httpRequest.getFile("document.pdf").getName());
+    }
+
+    @Test
+    public void getFile_afterFileReplacedInPlace_findNewFile() {
+        HttpRequestEntity httpRequestEntity = new HttpRequestEntity();
+        httpRequestEntity.setFiles(new ArrayList<>(Arrays.asList(newFile("avatar.jpg"), newFile("document.pdf"))));
+        HttpRequest httpRequest = new HttpRequest.Builder().setHttpRequestEntity(httpRequestEntity).build();
+        Assert.assertTrue(httpRequest.hasFile("document.pdf"));
+
+        File report = newFile("report.pdf");
+        httpRequest.getFiles().set(1, report);
+        Assert.assertFalse(httpRequest.hasFile("document.pdf"));
+        Assert.assertSame(report, httpRequest.getFile("report.pdf"));
+
+        httpRequest.getFiles().remove(1);
+        httpRequest.getFiles().add(newFile("document.pdf"));
+        Assert.assertFalse(httpRequest.hasFile("report.pdf"));
+        Assert.assertTrue(httpRequest.hasFile("document.pdf"));
+    }
+
+    private File newFile(String filename) {
+        File file = new File();
+        file.setFilename(filename);
+        return file;
+    }
+
+}
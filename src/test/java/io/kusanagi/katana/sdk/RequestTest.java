@@ -35,4 +35,27 @@ public class RequestTest {
                 object.toString());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void getParam_afterParamsChanged_findNewParams() {
+        Request request = new MockFactory().getRequest();
+        Assert.assertFalse(request.hasParam("name"));
+
+        Param name = request.newParam("name", "James", "string");
+        request.setParam(name);
+        request.setParam(request.newParam("name", "Juan", "string"));
+        Assert.assertTrue(request.hasParam("name"));
+        Assert.assertSame(name, request.getParam("name"));
+        Assert.assertFalse(request.getParam("age").exists());
+    }
+
+    @Test
+    public void getParam_afterParamReplacedInPlace_findNewParam() {
+        Request request = new MockFactory().getRequest();
+        request.setParam(request.newParam("name", "James", "string"));
+        Assert.assertEquals("James", request.getParam("name").getValue());
+
+        request.getParams().set(0, request.newParam("name", "Juan", "string"));
+        Assert.assertEquals("Juan", request.getParam("name").getValue());
+    }
+
+}
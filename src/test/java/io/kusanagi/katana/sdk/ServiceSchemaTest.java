@@ -20,6 +20,9 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Collections;
+import java.util.HashMap;
+
 /**
  * Created by juane on 2/11/17.
  */
@@ -50,4 +53,15 @@ public class ServiceSchemaTest {
 //                object.toString());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void getActions_followActionsChange() {
+        ServiceSchema object = new MockFactory().getServiceSchema();
+        Assert.assertEquals(Collections.singletonList("read"), object.getActions());
+        object.getActions().add("list");
+        Assert.assertEquals(Collections.singletonList("read"), object.getActions());
+
+        object.setActionSchemas(new HashMap<>());
+        Assert.assertTrue(object.getActions().isEmpty());
+    }
+
+}
@@ -15,10 +15,18 @@
 
 package io.kusanagi.katana.sdk;
 
+import io.kusanagi.katana.api.serializers.TransportEntity;
 import io.kusanagi.katana.utils.MockFactory;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
 /**
  * Created by juane on 2/11/17.
  */
@@ -29,10 +37,93 @@ public class TransportTest {
         MockFactory mockFactory = new MockFactory();
         Transport object = mockFactory.getTransport();
         Assert.assertEquals(object, new Transport(object));
-        Assert.assertEquals(196979858, object.hashCode());
+        Assert.assertEquals(57853783, object.hashCode());
         Assert.assertEquals(
                 "Transport{transportEntity=TransportEntity{meta=TransportMeta{version='1.0.0', id='f1b27da9-240b-40e3-99dd-a567e4498ed7', datetime='2016-04-12T02:49:05.761', startTime='null', endTime='null', duration=0, gateway=[12.34.56.78:1234, http://127.0.0.1:80], origin=[users, 1.0.0, list], level=1, fallback=[[users, 1.0.0, [create, update]]], properties={property=value}}, body=File{name='null', path='file:///tmp/document.pdf', mime='application/pdf', filename='document.pdf', size='1234567890', token='', exists=false}, files={http://127.0.0.1:80={users={1.0.0={create=[File{name='avatar', path='http://12.34.56.78:1234/files/ac3bd4b8-7da3-4c40-8661-746adfa55e0d', mime='image/jpeg', filename='smiley.jpg', size='1234567890', token='fb9an6c46be74s425010896fcbd99e2a', exists=false}, File{name='document', path='file:///tmp/document.pdf', mime='application/pdf', filename='document.pdf', size='1234567890', token='', exists=false}]}}}}, data={http://127.0.0.1:80={users={1.0.0={read_users=[{name=Juan}, {name=Ricardo}], list_users=[[{name=Juan}, {name=Ricardo}]]}}}}, relations={http://127.0.0.1:80={users={123={http://127.0.0.1:80={posts=[1, 2]}}}, posts={1={http://127.0.0.1:80={categories=1}, ktp://87.65.43.21:4321={comments=[1, 2, 3]}}, 2={http://127.0.0.1:80={categories=2}, ktp://87.65.43.21:4321={comments=[4]}}}}}, links={http://127.0.0.1:80={users={self=http://api.example.com/v1/users/123}}}, calls={users={1.0.0=[CallEntity{duration=0, name='posts', version='1.2.0', action='list', caller='null', params=[Param{name='X-Request-Token', value=ac3bd4b8-7da3-4c40-8661-746adfa55e0d, type='string', exists=false}, Param{name='user_id', value=123, type='integer', exists=false}], gateway='null', timeout=0}], 1.0.1=[CallEntity{duration=0, name='comments', version='1.1.0', action='list', caller='null', params=[Param{name='post_id', value=321, type='integer', exists=false}], gateway='ktp://87.65.43.21:4321', timeout=2000}]}}, transactions=TransactionEntity{commit=[ServiceTransaction{name='users', version='1.0.0', action='create', caller='save', params=[Param{name='user_id', value=123, type='integer', exists=false}]}], rollback=[ServiceTransaction{name='users', version='1.0.0', action='create', caller='undo', params=[Param{name='user_id', value=123, type='integer', exists=false}]}], complete=[ServiceTransaction{name='users', version='1.0.0', action='create', caller='cleanup', params=[Param{name='user_id', value=123, type='integer', exists=false}]}]}, errors={http://127.0.0.1:80={users={1.0.0=[ErrorEntity{message='The user does not exist', code='9', status='404 Not Found'}]}}}}}",
                 object.toString());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void streams_sameElementsAsLists() {
+        Transport transport = new MockFactory().getTransport();
+
+        Assert.assertEquals(
+                transport.getRelations().stream().map(relation -> relation.getName() + "/" + relation.getPrimaryKey()).collect(Collectors.toList()),
+                transport.streamRelations().map(relation -> relation.getName() + "/" + relation.getPrimaryKey()).collect(Collectors.toList()));
+        Assert.assertEquals(3, transport.streamRelations().count());
+        Assert.assertEquals(2, transport.streamRelations()
+                .filter(relation -> relation.getPrimaryKey().equals("1"))
+                .findFirst().get().getForeignRelations().size());
+        Assert.assertEquals("list_users", transport.streamData().findFirst().get().getActions().stream()
+                .map(ActionData::getName).sorted().findFirst().get());
+        Assert.assertEquals("http://api.example.com/v1/users/123", transport.streamLinks().findFirst().get().getLink());
+        Assert.assertEquals(Arrays.asList("comments", "posts"), transport.streamCalls()
+                .map(caller -> caller.getCallee().getName()).sorted().collect(Collectors.toList()));
+        Assert.assertEquals("save", transport.streamTransactions("commit").findFirst().get().getCallerAction());
+        Assert.assertEquals(0, transport.streamTransactions("unknown").count());
+    }
+
+    @Test
+    public void streams_parallel_visitEveryEntryOnce() {
+        Map<String, Map<String, Map<String, String>>> links = new HashMap<>();
+        for (int path = 0; path < 3; path++) {
+            Map<String, Map<String, String>> services = new HashMap<>();
+            for (int service = 0; service < 200; service++) {
+                Map<String, String> serviceLinks = new HashMap<>();
+                for (int link = 0; link < 50; link++) {
+                    serviceLinks.put("link" + link, "http://" + path + "/" + service + "/" + link);
+                }
+                services.put("service" + service, serviceLinks);
+            }
+            links.put("path" + path, services);
+        }
+        TransportEntity transportEntity = new TransportEntity();
+        transportEntity.setLinks(links);
+        Transport transport = new Transport(transportEntity);
+
+        List<String> uris = transport.streamLinks().parallel().map(Link::getLink).collect(Collectors.toList());
+        Assert.assertEquals(30000, uris.size());
+        Assert.assertEquals(30000, uris.stream().distinct().count());
+        Assert.assertEquals(transport.streamLinks().map(Link::getLink).collect(Collectors.toList()), uris);
+    }
+
+    @Test
+    public void streams_missingSections_empty() {
+        Transport transport = new Transport(new TransportEntity());
+        transport.getTransportEntity().setLinks(null);
+
+        Assert.assertEquals(Collections.emptyList(), transport.getData());
+        Assert.assertEquals(0, transport.streamRelations().count());
+        Assert.assertEquals(0, transport.streamLinks().count());
+        Assert.assertEquals(0, transport.streamCalls().count());
+    }
+
+    @Test
+    public void streams_filters_matchingEntriesOnly() {
+        Transport transport = new MockFactory().getTransport();
+
+        List<ServiceData> data = transport.streamData(null, "users", "1.0.0", "read_users").collect(Collectors.toList());
+        Assert.assertEquals(1, data.size());
+        Assert.assertEquals("http://127.0.0.1:80", data.get(0).getAddress());
+        Assert.assertEquals(1, data.get(0).getActions().size());
+        Assert.assertEquals("read_users", data.get(0).getActions().get(0).getName());
+        Assert.assertEquals(2, transport.streamData("http://127.0.0.1:80", "users", null, null).findFirst().get().getActions().size());
+        Assert.assertEquals(0, transport.streamData(null, "users", "1.0.0", "delete_users").count());
+        Assert.assertEquals(0, transport.streamData(null, "users", "2.0.0", null).count());
+        Assert.assertEquals(0, transport.streamData("ktp://87.65.43.21:4321", null, null, null).count());
+
+        List<Relation> relations = transport.streamRelations(null, "posts", "2").collect(Collectors.toList());
+        Assert.assertEquals(1, relations.size());
+        Assert.assertEquals("2", relations.get(0).getPrimaryKey());
+        Assert.assertEquals(2, relations.get(0).getForeignRelations().size());
+        Assert.assertEquals(2, transport.streamRelations(null, "posts", null).count());
+
+        Assert.assertEquals(1, transport.streamLinks(null, "users").count());
+        Assert.assertEquals(0, transport.streamLinks(null, "posts").count());
+        Assert.assertEquals("comments", transport.streamCalls("users", "1.0.1").findFirst().get().getCallee().getName());
+        Assert.assertEquals(2, transport.streamCalls("users", null).count());
+        Assert.assertEquals("The user does not exist", transport.streamErrors(null, "users", "1.0.0").findFirst().get().getMessage());
+        Assert.assertEquals(transport.getErrors().size(), transport.streamErrors().count());
+    }
+
+}